@@ -486,6 +486,38 @@ public class LockTest {
         run(1, 1, 1, 1, 10000000);
     }
 
+    @Test(timeout = 10000)
+    public void parkInterrupted() {
+        Configurator.setRootLevel(Level.TRACE);
+
+        Heap heap = new Heap(1024 * 1024);
+        CIDTable cidTable = new CIDTable((short) 0, heap);
+
+        CIDTableChunkEntry chunkEntry = new CIDTableChunkEntry();
+        long cid = 0;
+
+        Assert.assertTrue(heap.malloc(1, chunkEntry));
+
+        Assert.assertTrue(cidTable.insert(cid, chunkEntry));
+        cidTable.entryReread(chunkEntry);
+
+        LockWaitQueues queues = new LockWaitQueues(1);
+
+        // an interrupted waiter must park for the full time instead of returning immediately (busy spinning)
+        Thread.currentThread().interrupt();
+
+        for (int i = 0; i < 2; i++) {
+            long time = System.nanoTime();
+
+            queues.park(cidTable, chunkEntry, 200 * 1000 * 1000);
+
+            Assert.assertTrue(System.nanoTime() - time >= 150 * 1000 * 1000);
+            Assert.assertTrue(Thread.currentThread().isInterrupted());
+        }
+
+        Assert.assertTrue(Thread.interrupted());
+    }
+
     @Test(timeout = 10000)
     public void readWriteTryLock() {
         Configurator.setRootLevel(Level.TRACE);
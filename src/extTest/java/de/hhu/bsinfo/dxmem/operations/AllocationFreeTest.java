@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxmem.operations;
+
+import java.lang.management.ManagementFactory;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.hhu.bsinfo.dxmem.DXMem;
+import de.hhu.bsinfo.dxmem.DXMemoryTestConstants;
+import de.hhu.bsinfo.dxmem.core.LIDStoreStatus;
+
+public class AllocationFreeTest {
+    private static final int WARMUP_ITERATIONS = 100000;
+    private static final int ITERATIONS = 100000;
+
+    @Test
+    public void hotPaths() {
+        Configurator.setRootLevel(Level.INFO);
+        DXMem memory = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        long cid = memory.create().create(64);
+        long[] cids = new long[16];
+        byte[] buffer = new byte[64];
+        Pinning.PinnedMemory pinnedMemory = new Pinning.PinnedMemory();
+        LIDStoreStatus status = new LIDStoreStatus();
+
+        com.sun.management.ThreadMXBean threadMXBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocated = 0;
+
+        for (int round = 0; round < 2; round++) {
+            int iterations = round == 0 ? WARMUP_ITERATIONS : ITERATIONS;
+            long start = threadMXBean.getThreadAllocatedBytes(threadId);
+
+            for (int i = 0; i < iterations; i++) {
+                Assert.assertEquals(64, memory.get().get(cid, buffer));
+
+                memory.pinning().pin(cid, -1, pinnedMemory);
+                memory.pinning().unpin(pinnedMemory.getAddress());
+
+                memory.stats().getLIDStoreStatus(status);
+
+                if (i % 100 == 0) {
+                    Assert.assertEquals(cids.length, memory.create().create(cids, 0, cids.length, 16, false));
+
+                    for (long tmp : cids) {
+                        memory.remove().remove(tmp);
+                    }
+                }
+            }
+
+            allocated = threadMXBean.getThreadAllocatedBytes(threadId) - start;
+        }
+
+        // allow for a few allocations not related to the operations (e.g. by the JIT)
+        Assert.assertTrue("Allocated " + allocated + " bytes", allocated < ITERATIONS);
+
+        memory.shutdown();
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxmem.operations;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.hhu.bsinfo.dxmem.DXMem;
+import de.hhu.bsinfo.dxmem.DXMemoryTestConstants;
+import de.hhu.bsinfo.dxmem.data.AbstractChunk;
+import de.hhu.bsinfo.dxmem.data.ChunkByteArray;
+import de.hhu.bsinfo.dxmem.data.ChunkID;
+import de.hhu.bsinfo.dxmem.data.ChunkState;
+
+public class AsyncTest {
+    @Test
+    public void simple() {
+        Configurator.setRootLevel(Level.TRACE);
+        DXMem memory = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        long cid = memory.async().create(DXMemoryTestConstants.CHUNK_SIZE_1).join();
+        Assert.assertNotEquals(ChunkID.INVALID_ID, cid);
+
+        ChunkByteArray ds = new ChunkByteArray(cid, DXMemoryTestConstants.CHUNK_SIZE_1);
+        ds.getData()[0] = 0x11;
+        Assert.assertTrue(memory.async().put(ds).join().isStateOk());
+
+        ChunkByteArray ds2 = memory.async().get(cid).join();
+        Assert.assertTrue(ds2.isStateOk());
+        Assert.assertEquals(0x11, ds2.getData()[0]);
+
+        Assert.assertEquals(DXMemoryTestConstants.CHUNK_SIZE_1, (int) memory.async().remove(cid).join());
+        Assert.assertEquals(ChunkState.DOES_NOT_EXIST, memory.async().get(new ChunkByteArray(cid,
+                DXMemoryTestConstants.CHUNK_SIZE_1)).join().getState());
+
+        memory.shutdown();
+    }
+
+    @Test
+    public void batched() {
+        Configurator.setRootLevel(Level.TRACE);
+        DXMem memory = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        int count = 1000;
+        ChunkByteArray[] chunks = new ChunkByteArray[count];
+        CompletableFuture<?>[] futures = new CompletableFuture[count];
+
+        for (int i = 0; i < count; i++) {
+            chunks[i] = new ChunkByteArray(Integer.BYTES);
+            memory.create().create(chunks[i]);
+            chunks[i].getData()[0] = (byte) i;
+            futures[i] = memory.async().put(chunks[i]);
+        }
+
+        CompletableFuture.allOf(futures).join();
+
+        for (int i = 0; i < count; i++) {
+            Assert.assertTrue(chunks[i].isStateOk());
+            futures[i] = memory.async().get(new ChunkByteArray(chunks[i].getID(), Integer.BYTES));
+        }
+
+        CompletableFuture.allOf(futures).join();
+
+        for (int i = 0; i < count; i++) {
+            ChunkByteArray chunk = (ChunkByteArray) ((AbstractChunk) futures[i].join());
+            Assert.assertTrue(chunk.isStateOk());
+            Assert.assertEquals((byte) i, chunk.getData()[0]);
+        }
+
+        memory.shutdown();
+    }
+
+    @Test
+    public void putLocked() {
+        Configurator.setRootLevel(Level.TRACE);
+        DXMem memory = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        ChunkByteArray locked = new ChunkByteArray(DXMemoryTestConstants.CHUNK_SIZE_1);
+        ChunkByteArray other = new ChunkByteArray(DXMemoryTestConstants.CHUNK_SIZE_1);
+        memory.create().create(locked);
+        memory.create().create(other);
+
+        Assert.assertEquals(ChunkState.OK, memory.lock().lock(locked.getID(), true, -1));
+
+        // the put waiting for the lock must not block the puts queued behind it
+        CompletableFuture<AbstractChunk> lockedPut = memory.async().put(locked);
+        Assert.assertTrue(memory.async().put(other).join().isStateOk());
+        Assert.assertFalse(lockedPut.isDone());
+
+        Assert.assertEquals(ChunkState.OK, memory.lock().unlock(locked.getID(), true));
+        Assert.assertTrue(lockedPut.join().isStateOk());
+
+        memory.shutdown();
+    }
+
+    @Test
+    public void shutdownPending() {
+        Configurator.setRootLevel(Level.TRACE);
+        DXMem memory = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        long cid = memory.create().create(DXMemoryTestConstants.CHUNK_SIZE_1);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch latch = new CountDownLatch(1);
+
+        Async async = memory.async(executor);
+
+        // block the executor to keep the operations pending until the heap is freed
+        executor.execute(() -> {
+            try {
+                latch.await();
+            } catch (final InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        CompletableFuture<ChunkByteArray> get = async.get(cid);
+        CompletableFuture<AbstractChunk> put = async.put(new ChunkByteArray(cid, DXMemoryTestConstants.CHUNK_SIZE_1));
+
+        memory.shutdown();
+        latch.countDown();
+
+        assertRejected(get);
+        assertRejected(put);
+
+        executor.shutdown();
+    }
+
+    private static void assertRejected(final CompletableFuture<?> p_future) {
+        try {
+            p_future.join();
+            Assert.fail("Operation executed after shutdown");
+        } catch (final CompletionException e) {
+            Assert.assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+    }
+}
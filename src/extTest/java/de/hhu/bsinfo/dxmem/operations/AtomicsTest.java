@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxmem.operations;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.hhu.bsinfo.dxmem.DXMem;
+import de.hhu.bsinfo.dxmem.DXMemoryTestConstants;
+import de.hhu.bsinfo.dxmem.core.MemoryRuntimeException;
+
+public class AtomicsTest {
+    @Test
+    public void simple() {
+        Configurator.setRootLevel(Level.TRACE);
+        DXMem memory = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        long cid = memory.create().create(Long.BYTES + Integer.BYTES);
+        memory.write().writeLong(cid, 0, 10);
+        memory.write().writeInt(cid, Long.BYTES, -1);
+
+        Assert.assertEquals(10, memory.atomics().getAndAddLong(cid, 0, 5));
+        Assert.assertEquals(16, memory.atomics().incrementAndGetLong(cid, 0));
+        Assert.assertEquals(16, memory.atomics().getAndSetLong(cid, 0, 100));
+        Assert.assertFalse(memory.atomics().compareAndSetLong(cid, 0, 99, 1));
+        Assert.assertTrue(memory.atomics().compareAndSetLong(cid, 0, 100, 1));
+        Assert.assertEquals(1, memory.read().readLong(cid, 0));
+
+        Assert.assertEquals(0, memory.atomics().incrementAndGetInt(cid, Long.BYTES));
+        Assert.assertEquals(0, memory.atomics().getAndAddInt(cid, Long.BYTES, Integer.MIN_VALUE));
+        Assert.assertTrue(memory.atomics().compareAndSetInt(cid, Long.BYTES, Integer.MIN_VALUE, 7));
+        Assert.assertEquals(7, memory.read().readInt(cid, Long.BYTES));
+
+        // neighbouring field not touched
+        Assert.assertEquals(1, memory.read().readLong(cid, 0));
+
+        memory.shutdown();
+    }
+
+    @Test
+    public void intOffsets() {
+        Configurator.setRootLevel(Level.TRACE);
+        DXMem memory = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        long cid = memory.create().create(32);
+
+        // ints at any offset, i.e. crossing 8 byte words or not
+        for (int i = 0; i < 8; i++) {
+            byte[] data = new byte[32];
+            memory.write().writeBytes(cid, 0, data, 0, data.length);
+
+            Assert.assertEquals(0x11223344, memory.atomics().getAndAddInt(cid, 8 + i, 0x11223344) + 0x11223344);
+            Assert.assertEquals(0x11223344, memory.read().readInt(cid, 8 + i));
+
+            memory.read().readBytes(cid, 0, data, 0, data.length);
+
+            for (int j = 0; j < data.length; j++) {
+                if (j < 8 + i || j >= 8 + i + Integer.BYTES) {
+                    Assert.assertEquals(0, data[j]);
+                }
+            }
+        }
+
+        memory.shutdown();
+    }
+
+    @Test
+    public void concurrent() throws InterruptedException {
+        Configurator.setRootLevel(Level.TRACE);
+        DXMem memory = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        long cid = memory.create().create(Long.BYTES + Integer.BYTES);
+        memory.write().writeLong(cid, 0, 0);
+        memory.write().writeInt(cid, Long.BYTES, 0);
+
+        Thread[] threads = new Thread[4];
+
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 10000; j++) {
+                    memory.atomics().incrementAndGetLong(cid, 0);
+                    memory.atomics().getAndAddInt(cid, Long.BYTES, 2);
+                }
+            });
+
+            threads[i].start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertEquals(40000, memory.read().readLong(cid, 0));
+        Assert.assertEquals(80000, memory.read().readInt(cid, Long.BYTES));
+
+        memory.shutdown();
+    }
+
+    @Test
+    public void failures() {
+        Configurator.setRootLevel(Level.TRACE);
+        DXMem memory = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        long cid = memory.create().create(Integer.BYTES);
+
+        try {
+            memory.atomics().incrementAndGetLong(cid, 0);
+            Assert.fail();
+        } catch (final MemoryRuntimeException ignored) {
+            // expected
+        }
+
+        memory.remove().remove(cid);
+
+        try {
+            memory.atomics().incrementAndGetInt(cid, 0);
+            Assert.fail();
+        } catch (final MemoryRuntimeException ignored) {
+            // expected
+        }
+
+        memory.shutdown();
+    }
+}
@@ -16,6 +16,8 @@
 
 package de.hhu.bsinfo.dxmem.operations;
 
+import java.util.Arrays;
+
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.core.config.Configurator;
 import org.junit.Assert;
@@ -23,9 +25,11 @@ import org.junit.Test;
 
 import de.hhu.bsinfo.dxmem.DXMem;
 import de.hhu.bsinfo.dxmem.DXMemoryTestConstants;
+import de.hhu.bsinfo.dxmem.core.CIDCursor;
 import de.hhu.bsinfo.dxmem.data.ChunkByteArray;
 import de.hhu.bsinfo.dxmem.data.ChunkID;
 import de.hhu.bsinfo.dxmem.data.ChunkIDRanges;
+import de.hhu.bsinfo.dxutils.ArrayListLong;
 
 public class CidStatusTest {
     @Test
@@ -99,6 +103,176 @@ public class CidStatusTest {
         memory.shutdown();
     }
 
+    @Test
+    public void chunkRangesIndex() {
+        Configurator.setRootLevel(Level.TRACE);
+
+        DXMem memory = new DXMem((short) 0, DXMemoryTestConstants.HEAP_SIZE_SMALL, false, true);
+
+        Assert.assertEquals(new ChunkIDRanges(), memory.cidStatus().getCIDRangesOfChunks());
+
+        create(memory, 5000);
+
+        ChunkIDRanges ranges = new ChunkIDRanges(0, 4999);
+        Assert.assertEquals(ranges, memory.cidStatus().getCIDRangesOfChunks());
+        Assert.assertEquals(ranges, memory.cidStatus().getCIDRangesOfLocalChunks());
+
+        memory.remove().remove(0);
+        ranges.remove(0);
+        memory.remove().remove(4095);
+        ranges.remove(4095);
+        memory.remove().remove(4096);
+        ranges.remove(4096);
+        memory.remove().remove(4500);
+        ranges.remove(4500);
+
+        Assert.assertEquals(ranges, memory.cidStatus().getCIDRangesOfChunks());
+        Assert.assertEquals(new ChunkIDRanges(), memory.cidStatus().getAllMigratedChunkIDRanges());
+
+        long[] cids = new long[] {ChunkID.getChunkID((short) 1, 10), ChunkID.getChunkID((short) 1, 11)};
+        Assert.assertEquals(2, memory.createReserved().createReserved(cids, null,
+                new int[] {DXMemoryTestConstants.CHUNK_SIZE_1, DXMemoryTestConstants.CHUNK_SIZE_1}, 0, 2));
+
+        Assert.assertEquals(new ChunkIDRanges(cids[0], cids[1]), memory.cidStatus().getAllMigratedChunkIDRanges());
+        Assert.assertEquals(ranges, memory.cidStatus().getCIDRangesOfLocalChunks());
+
+        // re-used LIDs
+        create(memory, 4);
+        Assert.assertEquals(new ChunkIDRanges(0, 4999), memory.cidStatus().getCIDRangesOfLocalChunks());
+
+        memory.shutdown();
+    }
+
+    @Test
+    public void cursor() {
+        Configurator.setRootLevel(Level.TRACE);
+
+        DXMem memory = new DXMem((short) 0, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        CIDCursor cursor = memory.cidStatus().cursor((short) 0);
+        Assert.assertTrue(cursor.isFinished());
+
+        create(memory, 10000);
+
+        for (int i = 0; i < 10000; i += 3) {
+            memory.remove().remove(i);
+        }
+
+        long[] cids = new long[100];
+        long expected = 1;
+        int total = 0;
+        cursor = memory.cidStatus().cursor((short) 0);
+
+        while (!cursor.isFinished()) {
+            int count = cursor.next(cids, 0, cids.length);
+
+            for (int i = 0; i < count; i++) {
+                if (expected % 3 == 0) {
+                    expected++;
+                }
+
+                Assert.assertEquals(expected, cids[i]);
+                expected++;
+            }
+
+            total += count;
+
+            // resume from saved position
+            cursor = memory.cidStatus().cursor((short) 0, cursor.getPosition());
+        }
+
+        Assert.assertEquals(6666, total);
+
+        // split for two consumers
+        CIDCursor lower = memory.cidStatus().cursor((short) 0);
+        CIDCursor upper = lower.trySplit();
+        Assert.assertNotNull(upper);
+        Assert.assertEquals(lower.getEnd(), upper.getPosition());
+
+        cids = new long[10000];
+        int countLower = lower.next(cids, 0, cids.length);
+        int countUpper = upper.next(cids, countLower, cids.length - countLower);
+        Assert.assertEquals(6666, countLower + countUpper);
+        Assert.assertTrue(countLower > 0);
+        Assert.assertTrue(countUpper > 0);
+
+        for (int i = 1; i < countLower + countUpper; i++) {
+            Assert.assertTrue(cids[i - 1] < cids[i]);
+        }
+
+        memory.shutdown();
+    }
+
+    @Test
+    public void chunkRangesParallelScan() {
+        Configurator.setRootLevel(Level.TRACE);
+
+        DXMem memory = new DXMem((short) 0, DXMemoryTestConstants.HEAP_SIZE_MEDIUM);
+
+        // local chunks spanning three level 0 tables
+        create(memory, 9000);
+
+        memory.remove().remove(4095);
+        memory.remove().remove(8192);
+
+        ChunkIDRanges local = new ChunkIDRanges(0, 8999);
+        local.remove(4095);
+        local.remove(8192);
+
+        // recovered chunks on both sides of level 0 and level 1 table boundaries (the latter are the boundaries
+        // of the scan tasks), above 2^31 and with node ids with the highest bit set
+        long[] lids = new long[] {4095, 4096, (1L << 24) - 2, (1L << 24) - 1, 1L << 24, (1L << 24) + 1, 3L << 24,
+                (1L << 31) - 1, 1L << 31, (1L << 32) + 1, (1L << 36) - 1, 1L << 36};
+        short[] remoteNids = new short[] {1, 0x7FFF, (short) 0xC001};
+        ChunkIDRanges[] remote = new ChunkIDRanges[remoteNids.length];
+        int[] sizes = new int[lids.length];
+        Arrays.fill(sizes, DXMemoryTestConstants.CHUNK_SIZE_1);
+
+        for (int i = 0; i < remoteNids.length; i++) {
+            long[] cids = new long[lids.length];
+            remote[i] = new ChunkIDRanges();
+
+            for (int j = 0; j < lids.length; j++) {
+                cids[j] = ChunkID.getChunkID(remoteNids[i], lids[j]);
+                remote[i].add(cids[j]);
+            }
+
+            Assert.assertEquals(lids.length, memory.createReserved().createReserved(cids, null, sizes, 0,
+                    sizes.length));
+        }
+
+        Assert.assertTrue(memory.analyze().analyze());
+
+        ChunkIDRanges ranges = memory.cidStatus().getCIDRangesOfChunks((short) 1);
+        Assert.assertEquals(remote[0], ranges);
+        Assert.assertEquals(6, ranges.size());
+        Assert.assertEquals(ChunkID.getChunkID((short) 1, (1L << 24) - 2), ranges.getRangeStart(1));
+        Assert.assertEquals(ChunkID.getChunkID((short) 1, (1L << 24) + 1), ranges.getRangeEnd(1));
+
+        Assert.assertEquals(local, memory.cidStatus().getCIDRangesOfLocalChunks());
+        Assert.assertEquals(remote[1], memory.cidStatus().getCIDRangesOfChunks((short) 0x7FFF));
+        Assert.assertEquals(remote[2], memory.cidStatus().getCIDRangesOfChunks((short) 0xC001));
+
+        // node ids in order of the NID table
+        Assert.assertEquals(concat(local, remote[0], remote[1], remote[2]), memory.cidStatus().getCIDRangesOfChunks());
+        Assert.assertEquals(concat(remote), memory.cidStatus().getAllMigratedChunkIDRanges());
+
+        memory.shutdown();
+    }
+
+    private static ChunkIDRanges concat(final ChunkIDRanges... p_ranges) {
+        ArrayListLong ret = new ArrayListLong();
+
+        for (ChunkIDRanges ranges : p_ranges) {
+            for (int i = 0; i < ranges.size(); i++) {
+                ret.add(ranges.getRangeStart(i));
+                ret.add(ranges.getRangeEnd(i));
+            }
+        }
+
+        return ChunkIDRanges.wrap(ret);
+    }
+
     private void create(final DXMem p_memory, final int p_count) {
         ChunkByteArray ds = new ChunkByteArray(DXMemoryTestConstants.CHUNK_SIZE_1);
 
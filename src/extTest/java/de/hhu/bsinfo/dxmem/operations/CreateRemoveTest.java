@@ -16,6 +16,10 @@
 
 package de.hhu.bsinfo.dxmem.operations;
 
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -28,6 +32,7 @@ import de.hhu.bsinfo.dxmem.DXMemTestUtils;
 import de.hhu.bsinfo.dxmem.DXMemoryTestConstants;
 import de.hhu.bsinfo.dxmem.TestChunk;
 import de.hhu.bsinfo.dxmem.data.ChunkID;
+import de.hhu.bsinfo.dxmem.data.ChunkLockOperation;
 import de.hhu.bsinfo.dxmem.data.ChunkState;
 import de.hhu.bsinfo.dxutils.RandomUtils;
 import de.hhu.bsinfo.dxutils.unit.StorageUnit;
@@ -88,6 +93,75 @@ public class CreateRemoveTest {
         memory.shutdown();
     }
 
+    @Test
+    public void createAndRemoveChunkLocksDisabled() {
+        Configurator.setRootLevel(Level.TRACE);
+
+        DXMem memory = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL, true);
+
+        long cid = memory.create().create(DXMemoryTestConstants.CHUNK_SIZE_1);
+
+        Assert.assertNotEquals(ChunkID.INVALID_ID, cid);
+
+        Assert.assertEquals(DXMemoryTestConstants.CHUNK_SIZE_1, memory.remove().remove(cid));
+        Assert.assertEquals(-ChunkState.DOES_NOT_EXIST.ordinal(), memory.remove().remove(cid));
+
+        Assert.assertTrue(memory.analyze().analyze());
+        Assert.assertEquals(0, memory.analyze().getCIDTableChunkEntries().size());
+        Assert.assertEquals(0, memory.analyze().getCIDTableZombieEntries().size());
+
+        // memory and lid reclaimed after the remove operation finished
+        Assert.assertEquals(cid, memory.create().create(DXMemoryTestConstants.CHUNK_SIZE_1));
+
+        memory.shutdown();
+    }
+
+    @Test
+    public void concurrentRemoveWithoutLock() throws InterruptedException {
+        Configurator.setRootLevel(Level.TRACE);
+
+        DXMem memory = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        int count = 10000;
+        long[] cids = new long[count];
+
+        for (int i = 0; i < count; i++) {
+            cids[i] = memory.create().create(DXMemoryTestConstants.CHUNK_SIZE_1);
+        }
+
+        // both threads remove all chunks, each chunk must be removed exactly once
+        AtomicInteger removed = new AtomicInteger(0);
+        Thread[] threads = new Thread[2];
+
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (long cid : cids) {
+                    if (memory.remove().remove(cid, ChunkLockOperation.NONE) > 0) {
+                        removed.incrementAndGet();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertEquals(count, removed.get());
+        Assert.assertTrue(memory.analyze().analyze());
+        Assert.assertEquals(0, memory.analyze().getCIDTableChunkEntries().size());
+
+        // lids must not be recycled twice
+        Set<Long> created = new HashSet<>();
+
+        for (int i = 0; i < count * 2; i++) {
+            Assert.assertTrue(created.add(memory.create().create(DXMemoryTestConstants.CHUNK_SIZE_1)));
+        }
+
+        memory.shutdown();
+    }
+
     @Test
     public void createSize1() {
         Configurator.setRootLevel(Level.TRACE);
@@ -28,6 +28,9 @@ import de.hhu.bsinfo.dxmem.DXMemTestUtils;
 import de.hhu.bsinfo.dxmem.DXMemoryTestConstants;
 import de.hhu.bsinfo.dxmem.TestChunk;
 import de.hhu.bsinfo.dxmem.data.ChunkByteArray;
+import de.hhu.bsinfo.dxmem.data.ChunkID;
+import de.hhu.bsinfo.dxmem.data.ChunkLockOperation;
+import de.hhu.bsinfo.dxmem.data.ChunkState;
 import de.hhu.bsinfo.dxutils.RandomUtils;
 import de.hhu.bsinfo.dxutils.unit.StorageUnit;
 
@@ -57,6 +60,165 @@ public class GetPutTest {
         memory.shutdown();
     }
 
+    @Test
+    public void getOptimistic() {
+        Configurator.setRootLevel(Level.TRACE);
+
+        DXMem memory = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        ChunkByteArray ds = new ChunkByteArray(DXMemoryTestConstants.CHUNK_SIZE_1);
+        memory.create().create(ds);
+        Assert.assertTrue(ds.isStateOk());
+
+        ds.getData()[0] = (byte) 0xAA;
+        memory.put().put(ds);
+        Assert.assertTrue(ds.isStateOk());
+
+        ds.getData()[0] = 0;
+
+        Assert.assertTrue(memory.get().get(ds, ChunkLockOperation.READ_OPTIMISTIC, -1));
+        Assert.assertEquals((byte) 0xAA, ds.getData()[0]);
+
+        ChunkByteArray data = memory.get().get(ds.getID(), ChunkLockOperation.READ_OPTIMISTIC, -1);
+        Assert.assertTrue(data.isStateOk());
+        Assert.assertEquals((byte) 0xAA, data.getData()[0]);
+
+        byte[] buffer = new byte[DXMemoryTestConstants.CHUNK_SIZE_1];
+        Assert.assertEquals(DXMemoryTestConstants.CHUNK_SIZE_1, memory.get().get(ds.getID(), buffer, 0,
+                buffer.length, ChunkLockOperation.READ_OPTIMISTIC, -1));
+        Assert.assertEquals((byte) 0xAA, buffer[0]);
+
+        // optimistic reads fail while the write lock is held, fall back to the read lock
+        Assert.assertEquals(ChunkState.OK, memory.lock().lock(ds.getID(), true, -1));
+        Assert.assertFalse(memory.get().get(ds, ChunkLockOperation.READ_OPTIMISTIC, 0));
+        Assert.assertEquals(ChunkState.LOCK_TIMEOUT, ds.getState());
+        Assert.assertEquals(ChunkState.OK, memory.lock().unlock(ds.getID(), true));
+
+        Assert.assertTrue(memory.get().get(ds, ChunkLockOperation.READ_OPTIMISTIC, 0));
+        Assert.assertTrue(ds.isStateOk());
+
+        memory.remove().remove(ds);
+        Assert.assertFalse(memory.get().get(ds, ChunkLockOperation.READ_OPTIMISTIC, -1));
+        Assert.assertEquals(ChunkState.DOES_NOT_EXIST, ds.getState());
+
+        memory.shutdown();
+    }
+
+    @Test
+    public void getBatch() {
+        Configurator.setRootLevel(Level.INFO);
+
+        DXMem memory = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        // spans multiple level 0 tables of the CIDTable
+        final int count = 5000;
+        ChunkByteArray[] chunks = new ChunkByteArray[count + 2];
+
+        for (int i = 0; i < count; i++) {
+            ChunkByteArray ds = new ChunkByteArray(DXMemoryTestConstants.CHUNK_SIZE_1);
+            memory.create().create(ds);
+            ds.getData()[0] = (byte) i;
+            memory.put().put(ds);
+            Assert.assertTrue(ds.isStateOk());
+
+            chunks[i] = new ChunkByteArray(ds.getID(), DXMemoryTestConstants.CHUNK_SIZE_1);
+        }
+
+        memory.remove().remove(chunks[10].getID(), false);
+        chunks[count] = new ChunkByteArray(ChunkID.INVALID_ID, DXMemoryTestConstants.CHUNK_SIZE_1);
+        chunks[count + 1] = new ChunkByteArray(ChunkID.getChunkID(DXMemoryTestConstants.NODE_ID, count * 2),
+                DXMemoryTestConstants.CHUNK_SIZE_1);
+
+        for (ChunkLockOperation lockOperation : new ChunkLockOperation[] {ChunkLockOperation.NONE,
+                ChunkLockOperation.READ_LOCK_ACQ_OP_REL, ChunkLockOperation.READ_OPTIMISTIC}) {
+            Assert.assertEquals(count - 1, memory.get().get(chunks, 0, chunks.length, lockOperation, -1));
+
+            for (int i = 0; i < count; i++) {
+                if (i == 10) {
+                    Assert.assertEquals(ChunkState.DOES_NOT_EXIST, chunks[i].getState());
+                } else {
+                    Assert.assertTrue(chunks[i].isStateOk());
+                    Assert.assertEquals((byte) i, chunks[i].getData()[0]);
+                }
+            }
+
+            Assert.assertEquals(ChunkState.INVALID_ID, chunks[count].getState());
+            Assert.assertEquals(ChunkState.DOES_NOT_EXIST, chunks[count + 1].getState());
+        }
+
+        // sub range
+        Assert.assertEquals(5, memory.get().get(chunks, 100, 5, ChunkLockOperation.NONE, -1));
+
+        Assert.assertTrue(memory.analyze().analyze());
+
+        memory.shutdown();
+    }
+
+    @Test
+    public void putBatch() {
+        Configurator.setRootLevel(Level.INFO);
+
+        DXMem memory = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        final int count = 5000;
+        ChunkByteArray[] chunks = new ChunkByteArray[count + 1];
+        long[] cids = new long[count + 1];
+
+        for (int i = 0; i < count; i++) {
+            chunks[i] = new ChunkByteArray(DXMemoryTestConstants.CHUNK_SIZE_2);
+            memory.create().create(chunks[i]);
+            chunks[i].getData()[0] = (byte) i;
+            cids[i] = chunks[i].getID();
+        }
+
+        chunks[count] = new ChunkByteArray(ChunkID.INVALID_ID, DXMemoryTestConstants.CHUNK_SIZE_2);
+        cids[count] = ChunkID.getChunkID(DXMemoryTestConstants.NODE_ID, count * 2);
+
+        Assert.assertEquals(count, memory.put().put(chunks, 0, chunks.length,
+                ChunkLockOperation.WRITE_LOCK_ACQ_OP_REL, -1));
+        Assert.assertEquals(ChunkState.INVALID_ID, chunks[count].getState());
+
+        ChunkByteArray ds = new ChunkByteArray(DXMemoryTestConstants.CHUNK_SIZE_2);
+
+        for (int i = 0; i < count; i++) {
+            Assert.assertTrue(chunks[i].isStateOk());
+
+            ds.setID(cids[i]);
+            Assert.assertTrue(memory.get().get(ds));
+            Assert.assertEquals((byte) i, ds.getData()[0]);
+        }
+
+        // raw data of all chunks in a single buffer
+        byte[] data = new byte[cids.length * 2];
+        int[] offsets = new int[cids.length];
+        int[] lengths = new int[cids.length];
+        ChunkState[] states = new ChunkState[cids.length];
+
+        for (int i = 0; i < cids.length; i++) {
+            offsets[i] = i * 2;
+            lengths[i] = 2;
+            data[i * 2] = (byte) (i + 1);
+            data[i * 2 + 1] = (byte) (i + 2);
+        }
+
+        Assert.assertEquals(count, memory.put().put(cids, data, offsets, lengths, states,
+                ChunkLockOperation.WRITE_LOCK_ACQ_OP_REL, -1));
+        Assert.assertEquals(ChunkState.DOES_NOT_EXIST, states[count]);
+
+        for (int i = 0; i < count; i++) {
+            Assert.assertEquals(ChunkState.OK, states[i]);
+
+            ds.setID(cids[i]);
+            Assert.assertTrue(memory.get().get(ds));
+            Assert.assertEquals((byte) (i + 1), ds.getData()[0]);
+            Assert.assertEquals((byte) (i + 2), ds.getData()[1]);
+        }
+
+        Assert.assertTrue(memory.analyze().analyze());
+
+        memory.shutdown();
+    }
+
     @Test
     public void putGetSimple() {
         Configurator.setRootLevel(Level.TRACE);
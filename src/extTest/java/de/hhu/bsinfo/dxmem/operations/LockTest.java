@@ -7,6 +7,7 @@ import org.junit.Test;
 
 import de.hhu.bsinfo.dxmem.DXMem;
 import de.hhu.bsinfo.dxmem.DXMemoryTestConstants;
+import de.hhu.bsinfo.dxmem.core.LockContentionStatus;
 import de.hhu.bsinfo.dxmem.data.ChunkLockState;
 import de.hhu.bsinfo.dxmem.data.ChunkState;
 
@@ -78,4 +79,165 @@ public class LockTest {
 
         memory.shutdown();
     }
+
+    @Test
+    public void writeLockContention() throws Exception {
+        Configurator.setRootLevel(Level.TRACE);
+        DXMem memory = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        long cid = memory.create().create(16);
+
+        Assert.assertEquals(ChunkState.OK, memory.lock().lock(cid, true, -1));
+
+        // waiting thread is parked after spinning and woken up on release
+        ChunkState[] waiterState = new ChunkState[1];
+        Thread waiter = new Thread(() -> {
+            waiterState[0] = memory.lock().lock(cid, true, -1);
+            memory.lock().unlock(cid, true);
+        });
+
+        waiter.start();
+        Thread.sleep(100);
+
+        Assert.assertTrue(waiter.isAlive());
+        Assert.assertEquals(ChunkState.OK, memory.lock().unlock(cid, true));
+
+        waiter.join(5000);
+
+        Assert.assertFalse(waiter.isAlive());
+        Assert.assertEquals(ChunkState.OK, waiterState[0]);
+        Assert.assertFalse(memory.lock().status(cid).isWriteLocked());
+
+        Assert.assertTrue(memory.analyze().analyze());
+
+        memory.shutdown();
+    }
+
+    @Test
+    public void lockTimeout() {
+        Configurator.setRootLevel(Level.TRACE);
+        DXMem memory = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        long cid = memory.create().create(16);
+
+        Assert.assertEquals(ChunkState.OK, memory.lock().lock(cid, true, -1));
+
+        long start = System.nanoTime();
+        Assert.assertEquals(ChunkState.LOCK_TIMEOUT, memory.lock().lock(cid, false, 50));
+        long elapsedMs = (System.nanoTime() - start) / 1000 / 1000;
+
+        Assert.assertTrue(elapsedMs >= 50);
+        Assert.assertTrue(elapsedMs < 1000);
+
+        Assert.assertEquals(ChunkState.OK, memory.lock().unlock(cid, true));
+
+        memory.shutdown();
+    }
+
+    @Test
+    public void readLockOverflow() {
+        Configurator.setRootLevel(Level.TRACE);
+        DXMem memory = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        long cid = memory.create().create(16);
+
+        // more readers than the embedded read lock counter can hold
+        for (int i = 0; i < 300; i++) {
+            Assert.assertEquals(ChunkState.OK, memory.lock().lock(cid, false, 0));
+        }
+
+        Assert.assertEquals(ChunkState.LOCK_TIMEOUT, memory.lock().lock(cid, true, 0));
+
+        for (int i = 0; i < 299; i++) {
+            Assert.assertEquals(ChunkState.OK, memory.lock().unlock(cid, false));
+        }
+
+        // a single read lock left in the side table
+        Assert.assertEquals(ChunkState.LOCK_TIMEOUT, memory.lock().lock(cid, true, 0));
+
+        Assert.assertEquals(ChunkState.OK, memory.lock().unlock(cid, false));
+        Assert.assertEquals(ChunkState.OK, memory.lock().lock(cid, true, 0));
+        Assert.assertEquals(ChunkState.OK, memory.lock().unlock(cid, true));
+
+        Assert.assertTrue(memory.analyze().analyze());
+
+        memory.shutdown();
+    }
+
+    @Test
+    public void lockMultiple() {
+        Configurator.setRootLevel(Level.TRACE);
+        DXMem memory = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        long cid1 = memory.create().create(16);
+        long cid2 = memory.create().create(16);
+        long cid3 = memory.create().create(16);
+        long[] cids = {cid3, cid1, cid2, cid1};
+
+        Assert.assertEquals(ChunkState.OK, memory.lock().lock(cids, true, -1));
+
+        Assert.assertEquals(ChunkState.LOCK_TIMEOUT, memory.lock().lock(cid1, false, 0));
+        Assert.assertEquals(ChunkState.LOCK_TIMEOUT, memory.lock().lock(cid2, false, 0));
+        Assert.assertEquals(ChunkState.LOCK_TIMEOUT, memory.lock().lock(cid3, false, 0));
+
+        Assert.assertEquals(ChunkState.OK, memory.lock().unlock(cids, true));
+
+        // all or nothing: locks acquired are rolled back if a single chunk can't be locked
+        Assert.assertEquals(ChunkState.OK, memory.lock().lock(cid3, true, -1));
+        Assert.assertEquals(ChunkState.LOCK_TIMEOUT, memory.lock().lock(cids, false, 50));
+
+        Assert.assertEquals(ChunkState.OK, memory.lock().lock(cid1, true, 0));
+        Assert.assertEquals(ChunkState.OK, memory.lock().lock(cid2, true, 0));
+        Assert.assertEquals(ChunkState.OK, memory.lock().unlock(new long[] {cid1, cid2, cid3}, true));
+
+        Assert.assertEquals(ChunkState.OK, memory.lock().lock(cids, false, 0));
+        Assert.assertEquals(ChunkState.OK, memory.lock().unlock(cids, false));
+
+        memory.remove().remove(cid2);
+
+        Assert.assertEquals(ChunkState.DOES_NOT_EXIST, memory.lock().lock(cids, true, -1));
+        Assert.assertEquals(ChunkState.OK, memory.lock().lock(cid1, true, 0));
+        Assert.assertEquals(ChunkState.OK, memory.lock().unlock(cid1, true));
+
+        Assert.assertTrue(memory.analyze().analyze());
+
+        memory.shutdown();
+    }
+
+    @Test
+    public void lockContentionProfiler() {
+        Configurator.setRootLevel(Level.TRACE);
+        DXMem memory = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        long cid = memory.create().create(16);
+        long cid2 = memory.create().create(16);
+
+        memory.stats().setLockContentionProfiling(true, 1);
+
+        // uncontended, not recorded
+        Assert.assertEquals(ChunkState.OK, memory.lock().lock(cid2, true, -1));
+        Assert.assertEquals(ChunkState.OK, memory.lock().unlock(cid2, true));
+
+        Assert.assertEquals(ChunkState.OK, memory.lock().lock(cid, true, -1));
+
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(ChunkState.LOCK_TIMEOUT, memory.lock().lock(cid, false, 10));
+        }
+
+        Assert.assertEquals(ChunkState.OK, memory.lock().unlock(cid, true));
+
+        LockContentionStatus status = memory.stats().getLockContentionStatus();
+
+        Assert.assertEquals(1, status.size());
+        Assert.assertEquals(cid, status.getCID(0));
+        Assert.assertEquals(3, status.getCount(0));
+        Assert.assertTrue(status.getWaitTime(0) > 0);
+
+        memory.stats().resetLockContentionProfiling();
+        memory.stats().setLockContentionProfiling(false, 1);
+
+        Assert.assertEquals(0, memory.stats().getLockContentionStatus().size());
+
+        memory.shutdown();
+    }
 }
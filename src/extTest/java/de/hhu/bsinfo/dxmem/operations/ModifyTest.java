@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxmem.operations;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.hhu.bsinfo.dxmem.DXMem;
+import de.hhu.bsinfo.dxmem.DXMemoryTestConstants;
+import de.hhu.bsinfo.dxmem.core.MemoryRuntimeException;
+import de.hhu.bsinfo.dxmem.data.ChunkByteArray;
+import de.hhu.bsinfo.dxmem.data.ChunkID;
+import de.hhu.bsinfo.dxmem.data.ChunkLockOperation;
+import de.hhu.bsinfo.dxmem.data.ChunkState;
+
+public class ModifyTest {
+    @Test
+    public void modifySimple() {
+        Configurator.setRootLevel(Level.TRACE);
+        DXMem memory = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        long cid = memory.create().create(Long.BYTES + Integer.BYTES);
+
+        memory.modify().modify(cid, p_accessor -> {
+            p_accessor.writeLong(0, 0);
+            p_accessor.writeInt(Long.BYTES, 0);
+        });
+
+        for (int i = 0; i < 10; i++) {
+            ChunkState state = memory.modify().modify(cid, p_accessor -> {
+                Assert.assertEquals(cid, p_accessor.getCID());
+                Assert.assertEquals(Long.BYTES + Integer.BYTES, p_accessor.getSize());
+
+                p_accessor.writeLong(0, p_accessor.readLong(0) + 2);
+                p_accessor.writeInt(Long.BYTES, p_accessor.readInt(Long.BYTES) + 1);
+            });
+
+            Assert.assertEquals(ChunkState.OK, state);
+        }
+
+        AtomicLong result = new AtomicLong();
+
+        Assert.assertEquals(ChunkState.OK, memory.modify().modify(cid, ChunkLockOperation.NONE,
+                p_accessor -> result.set(p_accessor.readLong(0) + p_accessor.readInt(Long.BYTES))));
+        Assert.assertEquals(30, result.get());
+        Assert.assertFalse(memory.lock().status(cid).isWriteLocked());
+
+        memory.shutdown();
+    }
+
+    @Test
+    public void modifyBatch() {
+        Configurator.setRootLevel(Level.TRACE);
+        DXMem memory = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        long[] cids = new long[100];
+
+        for (int i = 0; i < cids.length; i++) {
+            cids[i] = memory.create().create(Long.BYTES);
+        }
+
+        cids[50] = ChunkID.INVALID_ID;
+        ChunkState[] states = new ChunkState[cids.length];
+
+        int modified = memory.modify().modify(cids, states, ChunkLockOperation.WRITE_LOCK_ACQ_OP_REL, -1,
+                p_accessor -> p_accessor.writeLong(0, p_accessor.getCID()));
+
+        Assert.assertEquals(cids.length - 1, modified);
+        Assert.assertEquals(ChunkState.INVALID_ID, states[50]);
+
+        for (int i = 0; i < cids.length; i++) {
+            if (i != 50) {
+                Assert.assertEquals(ChunkState.OK, states[i]);
+
+                final long cid = cids[i];
+
+                memory.modify().modify(cid, p_accessor -> Assert.assertEquals(cid, p_accessor.readLong(0)));
+            }
+        }
+
+        memory.shutdown();
+    }
+
+    @Test
+    public void modifyBatchNested() {
+        Configurator.setRootLevel(Level.TRACE);
+        DXMem memory = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        long[] cids = new long[10];
+        ChunkByteArray[] others = new ChunkByteArray[cids.length];
+
+        // chunks of another node, i.e. translated with other tables
+        for (int i = 0; i < cids.length; i++) {
+            cids[i] = memory.create().create(Long.BYTES);
+            others[i] = new ChunkByteArray(ChunkID.getChunkID((short) (DXMemoryTestConstants.NODE_ID + 1),
+                    ChunkID.getLocalID(cids[i])), new byte[] {(byte) i});
+        }
+
+        memory.recovery().createAndPutRecovered(others);
+
+        ChunkState[] states = new ChunkState[cids.length];
+
+        int modified = memory.modify().modify(cids, states, ChunkLockOperation.WRITE_LOCK_ACQ_OP_REL, -1,
+                p_accessor -> {
+                    // batch executed while translating the batch of the modify
+                    Assert.assertEquals(others.length,
+                            memory.get().get(others, 0, others.length, ChunkLockOperation.NONE, -1));
+                    p_accessor.writeLong(0, p_accessor.getCID());
+                });
+
+        Assert.assertEquals(cids.length, modified);
+
+        for (int i = 0; i < cids.length; i++) {
+            Assert.assertEquals(ChunkState.OK, states[i]);
+
+            final long cid = cids[i];
+
+            memory.modify().modify(cid, p_accessor -> Assert.assertEquals(cid, p_accessor.readLong(0)));
+            Assert.assertEquals(1, memory.get().get(others[i].getID()).getSize());
+        }
+
+        memory.shutdown();
+    }
+
+    @Test
+    public void notExists() {
+        Configurator.setRootLevel(Level.TRACE);
+        DXMem memory = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        long cid = memory.create().create(DXMemoryTestConstants.CHUNK_SIZE_2);
+        memory.remove().remove(cid);
+
+        Assert.assertEquals(ChunkState.DOES_NOT_EXIST, memory.modify().modify(cid, p_accessor -> Assert.fail()));
+        Assert.assertEquals(ChunkState.INVALID_ID,
+                memory.modify().modify(ChunkID.INVALID_ID, p_accessor -> Assert.fail()));
+
+        memory.shutdown();
+    }
+
+    @Test
+    public void outOfBounds() {
+        Configurator.setRootLevel(Level.TRACE);
+        DXMem memory = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        long cid = memory.create().create(Integer.BYTES);
+        ChunkAccessor[] escaped = new ChunkAccessor[1];
+
+        try {
+            memory.modify().modify(cid, p_accessor -> {
+                escaped[0] = p_accessor;
+                p_accessor.writeLong(0, 1);
+            });
+
+            Assert.fail();
+        } catch (final MemoryRuntimeException ignored) {
+            // expected
+        }
+
+        // lock released on failure
+        Assert.assertFalse(memory.lock().status(cid).isWriteLocked());
+
+        try {
+            escaped[0].readInt(0);
+            Assert.fail();
+        } catch (final MemoryRuntimeException ignored) {
+            // expected
+        }
+
+        memory.shutdown();
+    }
+
+    @Test
+    public void arrayOutOfBounds() {
+        Configurator.setRootLevel(Level.TRACE);
+        DXMem memory = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        long cid = memory.create().create(16);
+        byte[] array = new byte[8];
+
+        try {
+            memory.modify().modify(cid, p_accessor -> p_accessor.readBytes(0, array, 4, 8));
+            Assert.fail();
+        } catch (final ArrayIndexOutOfBoundsException ignored) {
+            // expected
+        }
+
+        try {
+            memory.modify().modify(cid, p_accessor -> p_accessor.writeBytes(0, array, -1, 4));
+            Assert.fail();
+        } catch (final ArrayIndexOutOfBoundsException ignored) {
+            // expected
+        }
+
+        Assert.assertFalse(memory.lock().status(cid).isWriteLocked());
+
+        memory.modify().modify(cid, p_accessor -> p_accessor.readBytes(8, array, 0, 8));
+
+        memory.shutdown();
+    }
+}
@@ -16,6 +16,12 @@
 
 package de.hhu.bsinfo.dxmem.operations;
 
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.core.config.Configurator;
 import org.junit.Assert;
@@ -24,6 +30,8 @@ import org.junit.Test;
 import de.hhu.bsinfo.dxmem.DXMem;
 import de.hhu.bsinfo.dxmem.DXMemoryTestConstants;
 import de.hhu.bsinfo.dxmem.core.Address;
+import de.hhu.bsinfo.dxmem.core.MemoryRuntimeException;
+import de.hhu.bsinfo.dxmem.data.ChunkID;
 
 public class PinningTest {
     @Test
@@ -67,4 +75,149 @@ public class PinningTest {
 
         memory.shutdown();
     }
+
+    @Test
+    public void pinMultiple() {
+        Configurator.setRootLevel(Level.TRACE);
+        DXMem memory = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        long[] cids = new long[100];
+        long[] addresses = new long[cids.length];
+
+        for (int i = 0; i < cids.length; i++) {
+            cids[i] = memory.create().create(16);
+        }
+
+        for (int i = 0; i < cids.length; i++) {
+            Pinning.PinnedMemory pinnedMemory = memory.pinning().pin(cids[i]);
+
+            Assert.assertTrue(pinnedMemory.isStateOk());
+            addresses[i] = pinnedMemory.getAddress();
+        }
+
+        for (int i = cids.length - 1; i >= 0; i--) {
+            Assert.assertEquals(cids[i], memory.pinning().unpin(addresses[i]));
+        }
+
+        Assert.assertTrue(memory.analyze().analyze());
+
+        memory.shutdown();
+    }
+
+    @Test
+    public void pinBatch() {
+        Configurator.setRootLevel(Level.TRACE);
+        DXMem memory = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        long[] cids = new long[100];
+        long[] addresses = new long[cids.length];
+        long[] unpinnedCids = new long[cids.length];
+
+        for (int i = 0; i < cids.length; i++) {
+            cids[i] = memory.create().create(16);
+        }
+
+        long removed = cids[50];
+        Assert.assertEquals(16, memory.remove().remove(removed));
+
+        Assert.assertEquals(cids.length - 1, memory.pinning().pin(cids, addresses));
+        Assert.assertEquals(Address.INVALID, addresses[50]);
+        Assert.assertEquals(cids.length - 1, memory.stats().getPinnedChunkCount());
+        Assert.assertEquals((cids.length - 1) * 16, memory.stats().getPinnedBytes());
+
+        // pinned chunks can't be removed
+        try {
+            memory.remove().remove(cids[0]);
+            Assert.fail();
+        } catch (final MemoryRuntimeException ignored) {
+        }
+
+        Assert.assertTrue(memory.analyze().analyze());
+
+        Assert.assertEquals(cids.length - 1, memory.pinning().unpin(addresses, unpinnedCids));
+
+        for (int i = 0; i < cids.length; i++) {
+            Assert.assertEquals(i == 50 ? ChunkID.INVALID_ID : cids[i], unpinnedCids[i]);
+        }
+
+        Assert.assertEquals(0, memory.stats().getPinnedChunkCount());
+        Assert.assertEquals(0, memory.stats().getPinnedBytes());
+
+        Assert.assertTrue(memory.analyze().analyze());
+
+        memory.shutdown();
+    }
+
+    @Test
+    public void pinBuffer() {
+        Configurator.setRootLevel(Level.TRACE);
+        DXMem memory = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        long cid = memory.create().create(16);
+        memory.write().writeLong(cid, 8, 0x1122334455667788L);
+
+        Pinning.PinnedBuffer pinnedBuffer = memory.pinning().pinBuffer(cid);
+
+        Assert.assertTrue(pinnedBuffer.isStateOk());
+        Assert.assertTrue(pinnedBuffer.getBuffer().isDirect());
+        Assert.assertEquals(16, pinnedBuffer.getBuffer().capacity());
+        Assert.assertEquals(0x1122334455667788L, pinnedBuffer.getBuffer().getLong(8));
+
+        // writes to the buffer are writes to the chunk
+        pinnedBuffer.getBuffer().putInt(0, 42);
+        Assert.assertEquals(42, memory.read().readInt(cid, 0));
+
+        Assert.assertEquals(cid, memory.pinning().unpin(pinnedBuffer));
+        Assert.assertFalse(pinnedBuffer.isValid());
+        Assert.assertEquals(0, pinnedBuffer.getBuffer().capacity());
+
+        try {
+            pinnedBuffer.getBuffer().getInt(0);
+            Assert.fail();
+        } catch (final IndexOutOfBoundsException ignored) {
+        }
+
+        Assert.assertEquals(0, memory.stats().getPinnedChunkCount());
+        Assert.assertTrue(memory.analyze().analyze());
+
+        memory.shutdown();
+    }
+
+    @Test
+    public void pinBufferWrite() throws IOException {
+        Configurator.setRootLevel(Level.TRACE);
+        DXMem memory = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        Pinning.PinnedBuffer[] pinnedBuffers = new Pinning.PinnedBuffer[10];
+
+        for (int i = 0; i < pinnedBuffers.length; i++) {
+            long cid = memory.create().create(i + 1);
+            memory.write().writeBytes(cid, 0, new byte[] {(byte) i}, 0, 1);
+            pinnedBuffers[i] = memory.pinning().pinBuffer(cid);
+        }
+
+        Path file = Files.createTempFile("dxmem", "pin");
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            Assert.assertEquals(55, memory.pinning().write(channel, pinnedBuffers, 0, pinnedBuffers.length));
+        }
+
+        byte[] data = Files.readAllBytes(file);
+        Files.delete(file);
+
+        Assert.assertEquals(55, data.length);
+
+        int pos = 0;
+
+        for (int i = 0; i < pinnedBuffers.length; i++) {
+            Assert.assertEquals(i, data[pos]);
+            pos += i + 1;
+
+            // positions of the buffers are not changed
+            Assert.assertEquals(0, pinnedBuffers[i].getBuffer().position());
+            memory.pinning().unpin(pinnedBuffers[i]);
+        }
+
+        memory.shutdown();
+    }
 }
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxmem.operations;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.hhu.bsinfo.dxmem.DXMem;
+import de.hhu.bsinfo.dxmem.DXMemoryTestConstants;
+
+public class RawModifyTest {
+    @Test
+    public void modify() {
+        Configurator.setRootLevel(Level.TRACE);
+        DXMem memory = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        long cid = memory.create().create(32);
+        long cid2 = memory.create().create(32);
+
+        long address = memory.pinning().pin(cid).getAddress();
+        long address2 = memory.pinning().pin(cid2).getAddress();
+
+        memory.rawModify().modify(address, 32, p_accessor -> {
+            p_accessor.writeLong(0, 0x1122334455667788L);
+            p_accessor.writeInt(8, 7);
+            p_accessor.writeInt(8, p_accessor.readInt(8) * 6);
+        });
+
+        memory.rawModify().modify(address2, p_accessor -> p_accessor.copyFrom(16, address, 0, 12));
+
+        Assert.assertTrue(memory.analyze().analyze());
+
+        Assert.assertEquals(0x1122334455667788L, memory.rawRead().readLong(address2, 16));
+        Assert.assertEquals(42, memory.rawRead().readInt(address2, 24));
+
+        memory.pinning().unpin(address);
+        memory.pinning().unpin(address2);
+
+        memory.shutdown();
+    }
+
+    @Test
+    public void modifyBatch() {
+        Configurator.setRootLevel(Level.TRACE);
+        DXMem memory = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        long[] addresses = new long[100];
+
+        for (int i = 0; i < addresses.length; i++) {
+            addresses[i] = memory.pinning().pin(memory.create().create(Long.BYTES)).getAddress();
+        }
+
+        memory.rawModify().modify(addresses, 0, addresses.length,
+                p_accessor -> p_accessor.writeLong(0, p_accessor.getAddress()));
+
+        Assert.assertTrue(memory.analyze().analyze());
+
+        for (long address : addresses) {
+            Assert.assertEquals(address, memory.rawRead().readLong(address, 0));
+        }
+
+        memory.shutdown();
+    }
+
+    @Test
+    public void outOfBounds() {
+        Configurator.setRootLevel(Level.TRACE);
+        DXMem memory = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        long address = memory.pinning().pin(memory.create().create(Integer.BYTES)).getAddress();
+
+        try {
+            memory.rawModify().modify(address, Integer.BYTES, p_accessor -> p_accessor.writeLong(0, 1));
+            Assert.fail();
+        } catch (final IndexOutOfBoundsException ignored) {
+            // expected, tests are run with assertions enabled
+        }
+
+        memory.shutdown();
+    }
+
+    @Test
+    public void outOfBoundsBatch() {
+        Configurator.setRootLevel(Level.TRACE);
+        DXMem memory = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        long[] addresses = new long[] {memory.pinning().pin(memory.create().create(Long.BYTES)).getAddress(),
+                memory.pinning().pin(memory.create().create(Integer.BYTES)).getAddress()};
+
+        // size of the chunks looked up from the pinned chunks
+        try {
+            memory.rawModify().modify(addresses, 0, addresses.length, p_accessor -> p_accessor.writeLong(0, 1));
+            Assert.fail();
+        } catch (final IndexOutOfBoundsException ignored) {
+            // expected, tests are run with assertions enabled
+        }
+
+        Assert.assertEquals(1, memory.rawRead().readLong(addresses[0], 0));
+
+        memory.shutdown();
+    }
+}
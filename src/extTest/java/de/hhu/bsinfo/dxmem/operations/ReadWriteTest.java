@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxmem.operations;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.hhu.bsinfo.dxmem.DXMem;
+import de.hhu.bsinfo.dxmem.DXMemoryTestConstants;
+import de.hhu.bsinfo.dxmem.core.MemoryRuntimeException;
+import de.hhu.bsinfo.dxmem.data.ChunkID;
+import de.hhu.bsinfo.dxmem.data.ChunkLockOperation;
+import de.hhu.bsinfo.dxmem.data.ChunkState;
+
+public class ReadWriteTest {
+    @Test
+    public void typed() {
+        Configurator.setRootLevel(Level.TRACE);
+        DXMem memory = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        long cid = memory.create().create(2048);
+
+        Assert.assertEquals(ChunkState.OK, memory.write().writeLong(cid, 2040, 0x1122334455667788L));
+        Assert.assertEquals(ChunkState.OK, memory.write().writeInt(cid, 0, 42));
+        Assert.assertEquals(ChunkState.OK, memory.write().writeDouble(cid, 100, 1.5));
+        Assert.assertEquals(ChunkState.OK, memory.write().writeByte(cid, 8, (byte) 0xAB,
+                ChunkLockOperation.NONE, -1));
+
+        Assert.assertEquals(0x1122334455667788L, memory.read().readLong(cid, 2040));
+        Assert.assertEquals(42, memory.read().readInt(cid, 0));
+        Assert.assertEquals(1.5, memory.read().readDouble(cid, 100), 0.0);
+        Assert.assertEquals((byte) 0xAB, memory.read().readByte(cid, 8, ChunkLockOperation.NONE, -1));
+
+        Assert.assertFalse(memory.lock().status(cid).isWriteLocked());
+
+        memory.shutdown();
+    }
+
+    @Test
+    public void bytes() {
+        Configurator.setRootLevel(Level.TRACE);
+        DXMem memory = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        long cid = memory.create().create(DXMemoryTestConstants.CHUNK_SIZE_2);
+
+        byte[] data = new byte[] {1, 2, 3, 4};
+        Assert.assertEquals(ChunkState.OK, memory.write().writeBytes(cid, 10, data, 1, 3));
+
+        byte[] buffer = new byte[3];
+        Assert.assertEquals(ChunkState.OK, memory.read().readBytes(cid, 10, buffer, 0, buffer.length));
+        Assert.assertArrayEquals(new byte[] {2, 3, 4}, buffer);
+
+        memory.shutdown();
+    }
+
+    @Test
+    public void failures() {
+        Configurator.setRootLevel(Level.TRACE);
+        DXMem memory = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        long cid = memory.create().create(Integer.BYTES);
+
+        try {
+            memory.read().readLong(cid, 0);
+            Assert.fail();
+        } catch (final MemoryRuntimeException ignored) {
+            // expected
+        }
+
+        try {
+            memory.write().writeInt(cid, 1, 0);
+            Assert.fail();
+        } catch (final MemoryRuntimeException ignored) {
+            // expected
+        }
+
+        // lock released on failure
+        Assert.assertFalse(memory.lock().status(cid).isWriteLocked());
+
+        Assert.assertEquals(ChunkState.INVALID_ID, memory.write().writeInt(ChunkID.INVALID_ID, 0, 0));
+
+        memory.remove().remove(cid);
+
+        Assert.assertEquals(ChunkState.DOES_NOT_EXIST, memory.write().writeInt(cid, 0, 0));
+
+        try {
+            memory.read().readInt(cid, 0);
+            Assert.fail();
+        } catch (final MemoryRuntimeException ignored) {
+            // expected
+        }
+
+        memory.shutdown();
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxmem.operations;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.hhu.bsinfo.dxmem.DXMem;
+import de.hhu.bsinfo.dxmem.DXMemoryTestConstants;
+import de.hhu.bsinfo.dxmem.TestChunk;
+import de.hhu.bsinfo.dxmem.data.ChunkID;
+import de.hhu.bsinfo.dxmem.data.ChunkLockOperation;
+import de.hhu.bsinfo.dxmem.data.ChunkState;
+
+public class TransactionsTest {
+    @Test
+    public void transfer() {
+        Configurator.setRootLevel(Level.TRACE);
+        DXMem memory = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        long cid = memory.create().create(Long.BYTES);
+        long cid2 = memory.create().create(Long.BYTES);
+
+        memory.put().put(cid, toBytes(100), ChunkLockOperation.WRITE_LOCK_ACQ_OP_REL, -1);
+        memory.put().put(cid2, toBytes(0), ChunkLockOperation.WRITE_LOCK_ACQ_OP_REL, -1);
+
+        ChunkState state = memory.transactions().execute(p_tx -> {
+            p_tx.write(cid, toBytes(toLong(p_tx.read(cid)) - 30));
+            p_tx.write(cid2, toBytes(toLong(p_tx.read(cid2)) + 30));
+
+            // read own writes
+            Assert.assertEquals(70, toLong(p_tx.read(cid)));
+            Assert.assertEquals(2, p_tx.getReadCount());
+            Assert.assertEquals(2, p_tx.getWriteCount());
+        });
+
+        Assert.assertEquals(ChunkState.OK, state);
+        Assert.assertEquals(70, get(memory, cid));
+        Assert.assertEquals(30, get(memory, cid2));
+
+        Assert.assertFalse(memory.lock().status(cid).isWriteLocked());
+        Assert.assertFalse(memory.lock().status(cid2).isWriteLocked());
+
+        Assert.assertTrue(memory.analyze().analyze());
+
+        memory.shutdown();
+    }
+
+    @Test
+    public void notExists() {
+        Configurator.setRootLevel(Level.TRACE);
+        DXMem memory = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        long cid = memory.create().create(Long.BYTES);
+        long cid2 = ChunkID.getChunkID(DXMemoryTestConstants.NODE_ID, 1000);
+
+        memory.put().put(cid, toBytes(1), ChunkLockOperation.WRITE_LOCK_ACQ_OP_REL, -1);
+
+        ChunkState state = memory.transactions().execute(p_tx -> {
+            Assert.assertNull(p_tx.read(cid2));
+
+            p_tx.write(cid, toBytes(2));
+            p_tx.write(cid2, toBytes(2));
+        });
+
+        // nothing written
+        Assert.assertEquals(ChunkState.DOES_NOT_EXIST, state);
+        Assert.assertEquals(1, get(memory, cid));
+        Assert.assertFalse(memory.lock().status(cid).isWriteLocked());
+
+        memory.shutdown();
+    }
+
+    @Test
+    public void conflict() {
+        Configurator.setRootLevel(Level.TRACE);
+        DXMem memory = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        long cid = memory.create().create(Long.BYTES);
+        long cid2 = memory.create().create(Long.BYTES);
+
+        memory.put().put(cid, toBytes(1), ChunkLockOperation.WRITE_LOCK_ACQ_OP_REL, -1);
+        memory.put().put(cid2, toBytes(1), ChunkLockOperation.WRITE_LOCK_ACQ_OP_REL, -1);
+
+        AtomicInteger executions = new AtomicInteger(0);
+
+        ChunkState state = memory.transactions().execute(p_tx -> {
+            long value = toLong(p_tx.read(cid));
+
+            // concurrent modification of the chunk read on the first attempt, only
+            if (executions.getAndIncrement() == 0) {
+                memory.put().put(cid, toBytes(5), ChunkLockOperation.WRITE_LOCK_ACQ_OP_REL, -1);
+            }
+
+            p_tx.write(cid2, toBytes(value + 1));
+        });
+
+        Assert.assertEquals(ChunkState.OK, state);
+        Assert.assertEquals(2, executions.get());
+        Assert.assertEquals(6, get(memory, cid2));
+
+        // no retries
+        executions.set(0);
+
+        state = memory.transactions().execute(p_tx -> {
+            long value = toLong(p_tx.read(cid));
+
+            if (executions.getAndIncrement() == 0) {
+                memory.put().put(cid, toBytes(7), ChunkLockOperation.WRITE_LOCK_ACQ_OP_REL, -1);
+            }
+
+            p_tx.write(cid2, toBytes(value + 1));
+        }, 0);
+
+        Assert.assertEquals(ChunkState.LOCK_TIMEOUT, state);
+        Assert.assertEquals(6, get(memory, cid2));
+
+        memory.shutdown();
+    }
+
+    @Test
+    public void concurrentTransfers() throws Exception {
+        Configurator.setRootLevel(Level.INFO);
+        DXMem memory = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        final int accounts = 16;
+        final int threadCount = 4;
+        final int transfers = 10000;
+
+        long[] cids = new long[accounts];
+
+        for (int i = 0; i < accounts; i++) {
+            cids[i] = memory.create().create(Long.BYTES);
+            memory.put().put(cids[i], toBytes(1000), ChunkLockOperation.WRITE_LOCK_ACQ_OP_REL, -1);
+        }
+
+        AtomicInteger inconsistentSums = new AtomicInteger(0);
+        // assertions failing in the worker threads only terminate the thread
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] threads = new Thread[threadCount];
+
+        for (int i = 0; i < threadCount; i++) {
+            threads[i] = new Thread(() -> {
+                try {
+                    transfers(memory, cids, transfers, inconsistentSums);
+                } catch (final Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+
+            threads[i].start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertNull(failure.get());
+
+        long sum = 0;
+
+        for (long cid : cids) {
+            sum += get(memory, cid);
+            Assert.assertFalse(memory.lock().status(cid).isWriteLocked());
+        }
+
+        Assert.assertEquals(accounts * 1000, sum);
+        Assert.assertEquals(0, inconsistentSums.get());
+
+        Assert.assertTrue(memory.analyze().analyze());
+
+        memory.shutdown();
+    }
+
+    @Test
+    public void chunkByteOrder() {
+        Configurator.setRootLevel(Level.TRACE);
+        DXMem memory = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        TestChunk chunk = new TestChunk(true);
+        memory.create().create(chunk);
+        Assert.assertEquals(ChunkState.OK, chunk.getState());
+
+        // written in a transaction, read with a normal get
+        Assert.assertEquals(ChunkState.OK, memory.transactions().execute(p_tx -> p_tx.write(chunk)));
+
+        TestChunk read = new TestChunk(true);
+        read.clear();
+        read.setID(chunk.getID());
+
+        Assert.assertTrue(memory.get().get(read));
+        read.verifyContents();
+
+        // written with a normal put, read in a transaction
+        Assert.assertTrue(memory.put().put(chunk));
+
+        TestChunk readTx = new TestChunk(true);
+        readTx.clear();
+        readTx.setID(chunk.getID());
+
+        Assert.assertEquals(ChunkState.OK, memory.transactions().execute(p_tx -> Assert.assertTrue(p_tx.read(readTx))));
+        readTx.verifyContents();
+
+        memory.shutdown();
+    }
+
+    private static void transfers(final DXMem p_memory, final long[] p_cids, final int p_transfers,
+            final AtomicInteger p_inconsistentSums) {
+        for (int j = 0; j < p_transfers; j++) {
+            long from = p_cids[ThreadLocalRandom.current().nextInt(p_cids.length)];
+            long to = p_cids[ThreadLocalRandom.current().nextInt(p_cids.length)];
+
+            Assert.assertEquals(ChunkState.OK, p_memory.transactions().execute(p_tx -> {
+                p_tx.write(from, toBytes(toLong(p_tx.read(from)) - 1));
+                p_tx.write(to, toBytes(toLong(p_tx.read(to)) + 1));
+            }));
+
+            // read only transaction, sees a consistent snapshot
+            if (j % 100 == 0) {
+                Assert.assertEquals(ChunkState.OK, p_memory.transactions().execute(p_tx -> {
+                    long sum = 0;
+
+                    for (long cid : p_cids) {
+                        sum += toLong(p_tx.read(cid));
+                    }
+
+                    if (sum != p_cids.length * 1000) {
+                        p_inconsistentSums.incrementAndGet();
+                    }
+                }));
+            }
+        }
+    }
+
+    private static long get(final DXMem p_memory, final long p_cid) {
+        byte[] buffer = new byte[Long.BYTES];
+
+        Assert.assertEquals(Long.BYTES, p_memory.get().get(p_cid, buffer, 0, buffer.length,
+                ChunkLockOperation.READ_LOCK_ACQ_OP_REL, -1));
+
+        return toLong(buffer);
+    }
+
+    private static byte[] toBytes(final long p_value) {
+        return ByteBuffer.allocate(Long.BYTES).putLong(p_value).array();
+    }
+
+    private static long toLong(final byte[] p_data) {
+        return ByteBuffer.wrap(p_data).getLong();
+    }
+}
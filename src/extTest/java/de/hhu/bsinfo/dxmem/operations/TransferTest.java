@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxmem.operations;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.hhu.bsinfo.dxmem.DXMem;
+import de.hhu.bsinfo.dxmem.DXMemoryTestConstants;
+import de.hhu.bsinfo.dxmem.core.MemoryRuntimeException;
+import de.hhu.bsinfo.dxmem.data.ChunkByteArray;
+import de.hhu.bsinfo.dxmem.data.ChunkID;
+import de.hhu.bsinfo.dxmem.data.ChunkState;
+
+public class TransferTest {
+    @Test
+    public void exportImport() {
+        Configurator.setRootLevel(Level.TRACE);
+        DXMem source = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+        DXMem target = new DXMem((short) (DXMemoryTestConstants.NODE_ID + 1), DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        long[] cids = new long[10];
+
+        for (int i = 0; i < cids.length; i++) {
+            cids[i] = source.create().create(i + 1);
+            source.write().writeBytes(cids[i], 0, new byte[] {(byte) i}, 0, 1);
+        }
+
+        cids[5] = ChunkID.getChunkID(DXMemoryTestConstants.NODE_ID, 1000);
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1024);
+        Assert.assertEquals(cids.length, source.transfer().exportChunks(cids, 0, cids.length, buffer));
+        Assert.assertEquals(cids.length * Transfer.RECORD_HEADER_SIZE + 55 - 6, buffer.position());
+
+        // chunk 3 exists with the same size, chunk 4 with a different size
+        target.recovery().createAndPutRecovered(new ChunkByteArray(cids[3], 4), new ChunkByteArray(cids[4], 2));
+
+        buffer.flip();
+        Assert.assertEquals(cids.length - 1, target.transfer().importChunks(buffer));
+
+        for (int i = 0; i < cids.length; i++) {
+            ChunkByteArray chunk = target.get().get(cids[i]);
+
+            if (i == 5) {
+                Assert.assertEquals(ChunkState.DOES_NOT_EXIST, chunk.getState());
+            } else {
+                Assert.assertTrue(chunk.isStateOk());
+                Assert.assertEquals(i + 1, chunk.getSize());
+                Assert.assertEquals(i, chunk.getData()[0]);
+            }
+        }
+
+        Assert.assertTrue(target.analyze().analyze());
+
+        source.shutdown();
+        target.shutdown();
+    }
+
+    @Test
+    public void exportBufferTooSmall() {
+        Configurator.setRootLevel(Level.TRACE);
+        DXMem memory = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        long[] cids = new long[4];
+
+        for (int i = 0; i < cids.length; i++) {
+            cids[i] = memory.create().create(100);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(2 * (Transfer.RECORD_HEADER_SIZE + 100) + 50);
+        Assert.assertEquals(2, memory.transfer().exportChunks(cids, 0, cids.length, buffer));
+        Assert.assertEquals(2 * (Transfer.RECORD_HEADER_SIZE + 100), buffer.position());
+
+        buffer.clear();
+        Assert.assertEquals(2, memory.transfer().exportChunks(cids, 2, 2, buffer));
+
+        memory.shutdown();
+    }
+
+    @Test
+    public void importMalformed() {
+        Configurator.setRootLevel(Level.TRACE);
+        DXMem memory = new DXMem(DXMemoryTestConstants.NODE_ID, DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        long cid = ChunkID.getChunkID((short) (DXMemoryTestConstants.NODE_ID + 1), 1);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(2 * Transfer.RECORD_HEADER_SIZE + 8);
+        buffer.order(ByteOrder.nativeOrder());
+
+        // valid record followed by a record exceeding the buffer
+        buffer.putLong(cid).putInt(8).putLong(0);
+        buffer.putLong(cid + 1).putInt(1);
+        buffer.flip();
+
+        try {
+            memory.transfer().importChunks(buffer);
+            Assert.fail("Record exceeding the buffer imported");
+        } catch (final MemoryRuntimeException ignored) {
+        }
+
+        // valid record followed by a record with an invalid chunk state
+        buffer.clear();
+        buffer.putLong(cid).putInt(8).putLong(0);
+        buffer.putLong(cid + 1).putInt(-ChunkState.values().length);
+        buffer.flip();
+
+        try {
+            memory.transfer().importChunks(buffer);
+            Assert.fail("Record with invalid chunk state imported");
+        } catch (final MemoryRuntimeException ignored) {
+        }
+
+        Assert.assertEquals(ChunkState.DOES_NOT_EXIST, memory.get().get(cid).getState());
+
+        // record of a chunk which was not exported
+        buffer.clear();
+        buffer.putLong(cid).putInt(8).putLong(0);
+        buffer.putLong(cid + 1).putInt(-ChunkState.DOES_NOT_EXIST.ordinal());
+        buffer.flip();
+
+        Assert.assertEquals(1, memory.transfer().importChunks(buffer));
+        Assert.assertEquals(8, memory.get().get(cid).getSize());
+
+        memory.shutdown();
+    }
+}
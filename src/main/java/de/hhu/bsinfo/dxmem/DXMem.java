@@ -17,6 +17,7 @@
 package de.hhu.bsinfo.dxmem;
 
 import java.io.File;
+import java.util.concurrent.Executor;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -24,6 +25,8 @@ import org.apache.logging.log4j.Logger;
 import de.hhu.bsinfo.dxmem.core.Context;
 import de.hhu.bsinfo.dxmem.core.MemoryRuntimeException;
 import de.hhu.bsinfo.dxmem.operations.Analyze;
+import de.hhu.bsinfo.dxmem.operations.Async;
+import de.hhu.bsinfo.dxmem.operations.Atomics;
 import de.hhu.bsinfo.dxmem.operations.CIDStatus;
 import de.hhu.bsinfo.dxmem.operations.Create;
 import de.hhu.bsinfo.dxmem.operations.CreateReserved;
@@ -31,16 +34,22 @@ import de.hhu.bsinfo.dxmem.operations.Dump;
 import de.hhu.bsinfo.dxmem.operations.Exists;
 import de.hhu.bsinfo.dxmem.operations.Get;
 import de.hhu.bsinfo.dxmem.operations.Lock;
+import de.hhu.bsinfo.dxmem.operations.Modify;
 import de.hhu.bsinfo.dxmem.operations.Pinning;
 import de.hhu.bsinfo.dxmem.operations.Put;
+import de.hhu.bsinfo.dxmem.operations.RawModify;
 import de.hhu.bsinfo.dxmem.operations.RawRead;
 import de.hhu.bsinfo.dxmem.operations.RawWrite;
+import de.hhu.bsinfo.dxmem.operations.Read;
 import de.hhu.bsinfo.dxmem.operations.Recovery;
 import de.hhu.bsinfo.dxmem.operations.Remove;
 import de.hhu.bsinfo.dxmem.operations.Reserve;
 import de.hhu.bsinfo.dxmem.operations.Resize;
 import de.hhu.bsinfo.dxmem.operations.Size;
 import de.hhu.bsinfo.dxmem.operations.Stats;
+import de.hhu.bsinfo.dxmem.operations.Transactions;
+import de.hhu.bsinfo.dxmem.operations.Transfer;
+import de.hhu.bsinfo.dxmem.operations.Write;
 import de.hhu.bsinfo.dxmonitor.state.MemState;
 import de.hhu.bsinfo.dxmonitor.state.StateUpdateException;
 import de.hhu.bsinfo.dxutils.unit.StorageUnit;
@@ -65,19 +74,28 @@ public class DXMem {
     private Size m_size;
     private Resize m_resize;
     private Lock m_lock;
+    private Transactions m_transactions;
+    private Modify m_modify;
+    private Read m_read;
+    private Write m_write;
+    private Atomics m_atomics;
 
     private Pinning m_pinning;
     private RawRead m_rawRead;
     private RawWrite m_rawWrite;
+    private RawModify m_rawModify;
 
     private CIDStatus m_cidStatus;
     private Stats m_stats;
 
     private Recovery m_recovery;
+    private Transfer m_transfer;
 
     private Analyze m_analyze;
     private Dump m_dump;
 
+    private Async m_async;
+
     /**
      * Constructor
      * Load a memory dump from a file and initialize DXMem with it.
@@ -96,20 +114,41 @@ public class DXMem {
      * @param p_memdumpFile
      *         Path to memory dump file
      * @param p_disableChunkLock
-     *         Disable the chunk lock mechanism which increases performance but blocks the remove
-     *         and resize operations. All lock operation arguments provided on operation calls are
+     *         Disable the chunk lock mechanism which increases performance but blocks the resize
+     *         operation. All lock operation arguments provided on operation calls are
      *         ignored. DXMem cannot guarantee application data consistency on parallel writes to
      *         the same chunk. Useful for read only applications or if the application handles
      *         synchronization when writing to chunks.
      */
     public DXMem(final String p_memdumpFile, final boolean p_disableChunkLock) {
+        this(p_memdumpFile, p_disableChunkLock, false);
+    }
+
+    /**
+     * Constructor
+     * Load a memory dump from a file and initialize DXMem with it.
+     *
+     * @param p_memdumpFile
+     *         Path to memory dump file
+     * @param p_disableChunkLock
+     *         Disable the chunk lock mechanism which increases performance but blocks the resize
+     *         operation. All lock operation arguments provided on operation calls are
+     *         ignored. DXMem cannot guarantee application data consistency on parallel writes to
+     *         the same chunk. Useful for read only applications or if the application handles
+     *         synchronization when writing to chunks.
+     * @param p_enableCIDRangeIndex
+     *         Maintain an index of the CID ranges of all chunks on create and remove operations.
+     *         Range queries of the CIDStatus operation don't have to scan the CIDTable anymore
+     *         but creating and removing chunks gets slightly more expensive.
+     */
+    public DXMem(final String p_memdumpFile, final boolean p_disableChunkLock, final boolean p_enableCIDRangeIndex) {
         checkSufficientMemory(new StorageUnit(new File(p_memdumpFile).length(), StorageUnit.BYTE));
 
         if (p_disableChunkLock) {
-            LOGGER.warn("Chunk locks are disabled. Remove and resize operations cannot be used and throw errors");
+            LOGGER.warn("Chunk locks are disabled. Resize operations cannot be used and throw errors");
         }
 
-        m_context = new Context(p_memdumpFile, p_disableChunkLock);
+        m_context = new Context(p_memdumpFile, p_disableChunkLock, p_enableCIDRangeIndex);
 
         initOperations();
     }
@@ -136,20 +175,44 @@ public class DXMem {
      * @param p_heapSize
      *         Size of heap to create (in bytes)
      * @param p_disableChunkLock
-     *         Disable the chunk lock mechanism which increases performance but blocks the remove
-     *         and resize operations. All lock operation arguments provided on operation calls are
+     *         Disable the chunk lock mechanism which increases performance but blocks the resize
+     *         operation. All lock operation arguments provided on operation calls are
      *         ignored. DXMem cannot guarantee application data consistency on parallel writes to
      *         the same chunk. Useful for read only applications or if the application handles
      *         synchronization when writing to chunks.
      */
     public DXMem(final short p_nodeId, final long p_heapSize, final boolean p_disableChunkLock) {
+        this(p_nodeId, p_heapSize, p_disableChunkLock, false);
+    }
+
+    /**
+     * Constructor
+     * Create a new empty heap and initialize DXMem.
+     *
+     * @param p_nodeId
+     *         Node id of current instance
+     * @param p_heapSize
+     *         Size of heap to create (in bytes)
+     * @param p_disableChunkLock
+     *         Disable the chunk lock mechanism which increases performance but blocks the resize
+     *         operation. All lock operation arguments provided on operation calls are
+     *         ignored. DXMem cannot guarantee application data consistency on parallel writes to
+     *         the same chunk. Useful for read only applications or if the application handles
+     *         synchronization when writing to chunks.
+     * @param p_enableCIDRangeIndex
+     *         Maintain an index of the CID ranges of all chunks on create and remove operations.
+     *         Range queries of the CIDStatus operation don't have to scan the CIDTable anymore
+     *         but creating and removing chunks gets slightly more expensive.
+     */
+    public DXMem(final short p_nodeId, final long p_heapSize, final boolean p_disableChunkLock,
+            final boolean p_enableCIDRangeIndex) {
         checkSufficientMemory(new StorageUnit(p_heapSize, StorageUnit.BYTE));
 
         if (p_disableChunkLock) {
-            LOGGER.warn("Chunk locks are disabled. Remove and resize operations cannot be used and throw errors");
+            LOGGER.warn("Chunk locks are disabled. Resize operations cannot be used and throw errors");
         }
 
-        m_context = new Context(p_nodeId, p_heapSize, p_disableChunkLock);
+        m_context = new Context(p_nodeId, p_heapSize, p_disableChunkLock, p_enableCIDRangeIndex);
 
         initOperations();
     }
@@ -158,6 +221,8 @@ public class DXMem {
      * Shutdown and cleanup
      */
     public void shutdown() {
+        shutdownAsync();
+
         m_context.destroy();
         m_context = null;
     }
@@ -169,9 +234,10 @@ public class DXMem {
         short nodeId = m_context.getNodeId();
         long heapSize = m_context.getHeap().getStatus().getTotalSizeBytes();
         boolean disableChunkLock = m_context.isChunkLockDisabled();
+        boolean enableCIDRangeIndex = m_context.getCIDRangeIndex() != null;
 
         shutdown();
-        m_context = new Context(nodeId, heapSize, disableChunkLock);
+        m_context = new Context(nodeId, heapSize, disableChunkLock, enableCIDRangeIndex);
         initOperations();
     }
 
@@ -265,6 +331,51 @@ public class DXMem {
         return m_lock;
     }
 
+    /**
+     * Get the transactions operation
+     *
+     * @return Operation
+     */
+    public Transactions transactions() {
+        return m_transactions;
+    }
+
+    /**
+     * Get the modify operation
+     *
+     * @return Operation
+     */
+    public Modify modify() {
+        return m_modify;
+    }
+
+    /**
+     * Get the read operation
+     *
+     * @return Operation
+     */
+    public Read read() {
+        return m_read;
+    }
+
+    /**
+     * Get the write operation
+     *
+     * @return Operation
+     */
+    public Write write() {
+        return m_write;
+    }
+
+    /**
+     * Get the atomics operation
+     *
+     * @return Operation
+     */
+    public Atomics atomics() {
+        return m_atomics;
+    }
+
     /**
      * Get the pinning operation
      *
@@ -292,6 +403,15 @@ public class DXMem {
         return m_rawWrite;
     }
 
+    /**
+     * Get the rawModify operation
+     *
+     * @return Operation
+     */
+    public RawModify rawModify() {
+        return m_rawModify;
+    }
+
     /**
      * Get the cidStatus operation
      *
@@ -319,6 +439,15 @@ public class DXMem {
         return m_recovery;
     }
 
+    /**
+     * Get the transfer operation
+     *
+     * @return Operation
+     */
+    public Transfer transfer() {
+        return m_transfer;
+    }
+
     /**
      * Get the analyze operation
      *
@@ -337,6 +466,44 @@ public class DXMem {
         return m_dump;
     }
 
+    /**
+     * Get the async operation. Creates a fixed pool of executor threads on first use
+     *
+     * @return Operation
+     */
+    public synchronized Async async() {
+        if (m_async == null) {
+            m_async = new Async(m_context);
+        }
+
+        return m_async;
+    }
+
+    /**
+     * Get the async operation running on the executor provided. Replaces the current async operation
+     *
+     * @param p_executor
+     *         Executor to run the operations on. The IDs of its threads must be below the size of the thread
+     *         local pools, i.e. no virtual threads. Not shut down by DXMem
+     * @return Operation
+     */
+    public synchronized Async async(final Executor p_executor) {
+        shutdownAsync();
+        m_async = new Async(m_context, p_executor);
+
+        return m_async;
+    }
+
+    /**
+     * Shut down the async operation, if used. Waits for all asynchronous operations accessing the heap
+     */
+    private synchronized void shutdownAsync() {
+        if (m_async != null) {
+            m_async.shutdown();
+            m_async = null;
+        }
+    }
+
     /**
      * Initialize all operations
      */
@@ -351,15 +518,22 @@ public class DXMem {
         m_size = new Size(m_context);
         m_resize = new Resize(m_context);
         m_lock = new Lock(m_context);
+        m_transactions = new Transactions(m_context);
+        m_modify = new Modify(m_context);
+        m_read = new Read(m_context);
+        m_write = new Write(m_context);
+        m_atomics = new Atomics(m_context);
 
         m_pinning = new Pinning(m_context);
         m_rawRead = new RawRead(m_context);
         m_rawWrite = new RawWrite(m_context);
+        m_rawModify = new RawModify(m_context);
 
         m_cidStatus = new CIDStatus(m_context);
         m_stats = new Stats(m_context);
 
         m_recovery = new Recovery(m_context);
+        m_transfer = new Transfer(m_context);
 
         m_analyze = new Analyze(m_context);
         m_dump = new Dump(m_context);
@@ -200,10 +200,11 @@ public class BenchmarkPhase {
                                 cidTableStatus.getTotalPayloadMemoryTables().getMBDouble()));
 
                 builder.append(
-                        String.format("[LIDS: Counter=%d, TotalFree=%d, FreeStore=%d]",
+                        String.format("[LIDS: Counter=%d, TotalFree=%d, FreeStore=%d, FreeStoreRanges=%d]",
                                 lidStoreStatus.getCurrentLIDCounter(),
                                 lidStoreStatus.getTotalFreeLIDs(),
-                                lidStoreStatus.getTotalLIDsInStore()));
+                                lidStoreStatus.getTotalLIDsInStoreLong(),
+                                lidStoreStatus.getTotalRangesInStore()));
 
                 builder.append(
                         String.format("[CPU: Cur=%f][MEM: Used=%.2f, UsedMB=%.3f, FreeMB=%.3f]",
@@ -356,7 +357,11 @@ public class BenchmarkPhase {
         builder.append('\n');
 
         builder.append("[LIDStore],TotalLIDsInStore,");
-        builder.append(lidStoreStatus.getTotalLIDsInStore());
+        builder.append(lidStoreStatus.getTotalLIDsInStoreLong());
+        builder.append('\n');
+
+        builder.append("[LIDStore],TotalRangesInStore,");
+        builder.append(lidStoreStatus.getTotalRangesInStore());
         builder.append('\n');
 
         for (AbstractOperation op : m_operations) {
@@ -13,6 +13,18 @@ import de.hhu.bsinfo.dxmem.data.ChunkLockOperation;
  * @author Stefan Nothaas, stefan.nothaas@hhu.de, 05.09.2018
  */
 public class DXMemBenchmarkContext implements BenchmarkContext {
+    private ChunkLockOperation m_getLockOperation = ChunkLockOperation.NONE;
+
+    /**
+     * Set the lock operation to execute on get operations, e.g. to compare optimistic reads with read locks
+     *
+     * @param p_lockOperation
+     *         Lock operation for get operations
+     */
+    public void setGetLockOperation(final ChunkLockOperation p_lockOperation) {
+        m_getLockOperation = p_lockOperation;
+    }
+
     @Override
     public HeapStatus getHeapStatus() {
         return CliContext.getInstance().getMemory().stats().getHeapStatus();
@@ -40,16 +52,13 @@ public class DXMemBenchmarkContext implements BenchmarkContext {
 
     @Override
     public void get(final AbstractChunk[] p_chunks) {
-        for (AbstractChunk chunk : p_chunks) {
-            CliContext.getInstance().getMemory().get().get(chunk);
-        }
+        CliContext.getInstance().getMemory().get().get(p_chunks, 0, p_chunks.length, m_getLockOperation, -1);
     }
 
     @Override
     public void put(final AbstractChunk[] p_chunks) {
-        for (AbstractChunk chunk : p_chunks) {
-            CliContext.getInstance().getMemory().put().put(chunk);
-        }
+        CliContext.getInstance().getMemory().put().put(p_chunks, 0, p_chunks.length,
+                ChunkLockOperation.WRITE_LOCK_ACQ_OP_REL, -1);
     }
 
     @Override
@@ -35,6 +35,7 @@ import de.hhu.bsinfo.dxmem.benchmark.workload.YcsbA;
 import de.hhu.bsinfo.dxmem.benchmark.workload.YcsbB;
 import de.hhu.bsinfo.dxmem.benchmark.workload.YcsbC;
 import de.hhu.bsinfo.dxmem.cli.types.TypeConverterStorageUnit;
+import de.hhu.bsinfo.dxmem.data.ChunkLockOperation;
 import de.hhu.bsinfo.dxmem.generated.BuildConfig;
 import de.hhu.bsinfo.dxmonitor.info.InstanceInfo;
 import de.hhu.bsinfo.dxutils.unit.StorageUnit;
@@ -74,11 +75,31 @@ public class ToolBenchmark extends AbstractLocalBenchmarkRunner implements Runna
                     "default behaviour")
     private boolean m_disableChunkLocks = false;
 
+    @CommandLine.Option(
+            names = "--getLockOperation",
+            description = "Lock operation to execute on get operations, e.g. READ_LOCK_ACQ_OP_REL or " +
+                    "READ_OPTIMISTIC. Default: NONE")
+    private ChunkLockOperation m_getLockOperation = ChunkLockOperation.NONE;
+
+    private final DXMemBenchmarkContext m_context;
+
     /**
      * Constructor
      */
     public ToolBenchmark() {
-        super(new DXMemBenchmarkContext());
+        this(new DXMemBenchmarkContext());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param p_context
+     *         Benchmark context to use
+     */
+    private ToolBenchmark(final DXMemBenchmarkContext p_context) {
+        super(p_context);
+
+        m_context = p_context;
     }
 
     @Override
@@ -88,6 +109,7 @@ public class ToolBenchmark extends AbstractLocalBenchmarkRunner implements Runna
         printInstanceInfo();
 
         CliContext.getInstance().newMemory((short) 0, m_heapSize.getBytes(), m_disableChunkLocks);
+        m_context.setGetLockOperation(m_getLockOperation);
 
         return true;
     }
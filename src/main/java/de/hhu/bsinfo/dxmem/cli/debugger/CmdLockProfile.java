@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxmem.cli.debugger;
+
+import picocli.CommandLine;
+
+import de.hhu.bsinfo.dxmem.cli.CliContext;
+
+/**
+ * Control the lock contention profiler and print the hottest chunks recorded
+ */
+@CommandLine.Command(
+        name = "lockprofile",
+        description = "Enable, disable, reset or show the chunks with the highest lock wait times"
+)
+public class CmdLockProfile implements Runnable {
+    @CommandLine.Parameters(
+            index = "0",
+            arity = "0..1",
+            paramLabel = "action",
+            description = "on, off, reset or show (default)")
+    private String m_action = "show";
+
+    @CommandLine.Option(
+            names = "--sampleRate",
+            description = "Sample every n-th contended lock acquisition of a thread (on only)")
+    private int m_sampleRate = 16;
+
+    @Override
+    public void run() {
+        if (!CliContext.getInstance().isMemoryLoaded()) {
+            System.out.println("ERROR: No memory instance loaded");
+            return;
+        }
+
+        switch (m_action) {
+            case "on":
+                CliContext.getInstance().getMemory().stats().setLockContentionProfiling(true, m_sampleRate);
+                break;
+
+            case "off":
+                CliContext.getInstance().getMemory().stats().setLockContentionProfiling(false, m_sampleRate);
+                break;
+
+            case "reset":
+                CliContext.getInstance().getMemory().stats().resetLockContentionProfiling();
+                break;
+
+            case "show":
+                System.out.println(CliContext.getInstance().getMemory().stats().getLockContentionStatus());
+                break;
+
+            default:
+                System.out.println("ERROR: Invalid action " + m_action);
+                break;
+        }
+    }
+}
@@ -34,6 +34,7 @@ import picocli.CommandLine;
                 CmdHelp.class,
                 CmdList.class,
                 CmdLoadFromFile.class,
+                CmdLockProfile.class,
                 CmdLogger.class,
                 CmdPut.class,
                 CmdRemove.class,
@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxmem.core;
+
+import de.hhu.bsinfo.dxmem.data.ChunkID;
+import de.hhu.bsinfo.dxutils.NodeID;
+
+/**
+ * Pull based cursor over the CIDs of all existing chunks of a single node. The CIDTable is walked lazily
+ * and CIDs are returned in ascending order in batches written to a caller provided array. The position of the
+ * cursor (next LID to look at) can be saved to resume iterating later and the remaining range can be split
+ * to iterate with multiple consumers in parallel.
+ * A cursor is not thread safe and the results are weakly consistent: chunks created or removed while iterating
+ * might or might not be returned.
+ */
+public final class CIDCursor {
+    // don't split ranges smaller than a single level 0 table
+    private static final long MIN_SPLIT_SIZE = CIDTable.ENTRIES_PER_LID_LEVEL;
+
+    private final Context m_context;
+    private final short m_nodeId;
+
+    private long m_position;
+    private long m_end;
+
+    /**
+     * Constructor
+     *
+     * @param p_context
+     *         Context
+     * @param p_nodeId
+     *         Node id of the chunks to iterate
+     * @param p_startLid
+     *         LID to start iterating at
+     * @param p_endLid
+     *         End of the range of LIDs to iterate (excluding)
+     */
+    public CIDCursor(final Context p_context, final short p_nodeId, final long p_startLid, final long p_endLid) {
+        m_context = p_context;
+        m_nodeId = p_nodeId;
+        m_position = p_startLid;
+        m_end = p_endLid;
+    }
+
+    /**
+     * Get the node id of the chunks iterated
+     *
+     * @return Node id
+     */
+    public short getNodeId() {
+        return m_nodeId;
+    }
+
+    /**
+     * Get the current position of the cursor. Save this to resume iterating later
+     *
+     * @return Next LID to look at
+     */
+    public long getPosition() {
+        return m_position;
+    }
+
+    /**
+     * Get the end of the range iterated by the cursor
+     *
+     * @return End LID (excluding)
+     */
+    public long getEnd() {
+        return m_end;
+    }
+
+    /**
+     * Check if the cursor reached the end of its range
+     *
+     * @return True if there are no more CIDs to return
+     */
+    public boolean isFinished() {
+        return m_position >= m_end;
+    }
+
+    /**
+     * Get the next batch of CIDs
+     *
+     * @param p_cids
+     *         Array to write the CIDs to
+     * @param p_offset
+     *         Offset in array to start at
+     * @param p_count
+     *         Max number of CIDs to return
+     * @return Number of CIDs written to the array, 0 if the cursor is finished
+     */
+    public int next(final long[] p_cids, final int p_offset, final int p_count) {
+        assert p_cids != null;
+        assert p_offset >= 0;
+        assert p_count >= 0;
+
+        if (m_position >= m_end || p_count == 0) {
+            return 0;
+        }
+
+        m_context.getDefragmenter().acquireApplicationThreadLock();
+
+        int count = m_context.getCIDTable().getCIDs(m_nodeId, m_position, m_end, p_cids, p_offset, p_count);
+
+        m_context.getDefragmenter().releaseApplicationThreadLock();
+
+        if (count == p_count) {
+            m_position = ChunkID.getLocalID(p_cids[p_offset + count - 1]) + 1;
+        } else {
+            m_position = m_end;
+        }
+
+        return count;
+    }
+
+    /**
+     * Split the remaining range of the cursor. The upper half is handed to a new cursor, this cursor continues
+     * with the lower half
+     *
+     * @return New cursor with the upper half of the remaining range or null if the range is too small to split
+     */
+    public CIDCursor trySplit() {
+        long remaining = m_end - m_position;
+
+        if (remaining < MIN_SPLIT_SIZE * 2) {
+            return null;
+        }
+
+        // split at table boundaries
+        long mid = (m_position + remaining / 2) & ~(MIN_SPLIT_SIZE - 1);
+
+        if (mid <= m_position) {
+            return null;
+        }
+
+        CIDCursor cursor = new CIDCursor(m_context, m_nodeId, mid, m_end);
+        m_end = mid;
+
+        return cursor;
+    }
+
+    @Override
+    public String toString() {
+        return "CIDCursor[m_nodeId " + NodeID.toHexString(m_nodeId) + ", m_position " + m_position + ", m_end " +
+                m_end + ']';
+    }
+}
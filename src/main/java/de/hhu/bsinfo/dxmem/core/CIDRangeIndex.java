@@ -0,0 +1,427 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxmem.core;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import de.hhu.bsinfo.dxmem.data.ChunkID;
+import de.hhu.bsinfo.dxmem.data.ChunkIDRanges;
+import de.hhu.bsinfo.dxutils.ArrayListLong;
+
+/**
+ * Index of the CID ranges of all live chunks, grouped by creator node. The index is updated by the operations
+ * creating and removing chunks which allows range queries without scanning the CIDTable.
+ * The LIDs of a node are split into segments of the size of a level 0 table which are distributed
+ * round robin to multiple stripes. Each stripe stores sorted and merged LID ranges and is locked separately
+ * to reduce contention on updates.
+ */
+public final class CIDRangeIndex {
+    private static final int STRIPES = 16;
+    private static final int SEGMENT_BITS = CIDTable.BITS_PER_LID_LEVEL;
+
+    private final AtomicReferenceArray<NodeRanges> m_nodes = new AtomicReferenceArray<>(CIDTable.ENTRIES_PER_NID_LEVEL);
+
+    /**
+     * Constructor
+     */
+    CIDRangeIndex() {
+
+    }
+
+    /**
+     * Add a CID of a chunk created to the index
+     *
+     * @param p_cid
+     *         CID to add
+     */
+    public void add(final long p_cid) {
+        getNodeRanges(ChunkID.getCreatorID(p_cid), true).add(ChunkID.getLocalID(p_cid));
+    }
+
+    /**
+     * Add multiple CIDs of chunks created to the index
+     *
+     * @param p_cids
+     *         Array with CIDs to add
+     * @param p_offset
+     *         Offset in array to start at
+     * @param p_count
+     *         Number of CIDs to add
+     */
+    public void add(final long[] p_cids, final int p_offset, final int p_count) {
+        for (int i = 0; i < p_count; i++) {
+            add(p_cids[p_offset + i]);
+        }
+    }
+
+    /**
+     * Add a range of CIDs to the index
+     *
+     * @param p_startCid
+     *         First CID of the range
+     * @param p_endCid
+     *         Last CID of the range (including, same creator as p_startCid)
+     */
+    public void add(final long p_startCid, final long p_endCid) {
+        assert ChunkID.getCreatorID(p_startCid) == ChunkID.getCreatorID(p_endCid);
+
+        NodeRanges node = getNodeRanges(ChunkID.getCreatorID(p_startCid), true);
+        long start = ChunkID.getLocalID(p_startCid);
+        long end = ChunkID.getLocalID(p_endCid);
+
+        // split range at the segment boundaries of the stripes
+        while (start <= end) {
+            long segmentEnd = ((start >> SEGMENT_BITS) + 1) << SEGMENT_BITS;
+            long pieceEnd = Math.min(end, segmentEnd - 1);
+
+            node.add(start, pieceEnd);
+            start = pieceEnd + 1;
+        }
+    }
+
+    /**
+     * Remove the CID of a chunk removed from the index
+     *
+     * @param p_cid
+     *         CID to remove
+     */
+    public void remove(final long p_cid) {
+        NodeRanges node = getNodeRanges(ChunkID.getCreatorID(p_cid), false);
+
+        if (node != null) {
+            node.remove(ChunkID.getLocalID(p_cid));
+        }
+    }
+
+    /**
+     * Get the CID ranges of all chunks of a single creator node
+     *
+     * @param p_nodeId
+     *         Creator node id
+     * @return CID ranges
+     */
+    public ChunkIDRanges getRanges(final short p_nodeId) {
+        ArrayListLong ret = new ArrayListLong();
+        NodeRanges node = getNodeRanges(p_nodeId, false);
+
+        if (node != null) {
+            node.getRanges(ret);
+        }
+
+        return ChunkIDRanges.wrap(ret);
+    }
+
+    /**
+     * Get the CID ranges of all chunks
+     *
+     * @return CID ranges
+     */
+    public ChunkIDRanges getRanges() {
+        return getRangesExcluding(-1);
+    }
+
+    /**
+     * Get the CID ranges of all chunks not created by the specified node (e.g. migrated chunks)
+     *
+     * @param p_nodeId
+     *         Creator node id to exclude
+     * @return CID ranges
+     */
+    public ChunkIDRanges getRangesExcluding(final short p_nodeId) {
+        return getRangesExcluding(p_nodeId & 0xFFFF);
+    }
+
+    /**
+     * Get the CID ranges of all chunks not created by the specified node
+     *
+     * @param p_nodeId
+     *         Creator node id to exclude (as index) or -1 for none
+     * @return CID ranges
+     */
+    private ChunkIDRanges getRangesExcluding(final int p_nodeId) {
+        ArrayListLong ret = new ArrayListLong();
+
+        for (int i = 0; i < m_nodes.length(); i++) {
+            NodeRanges node = m_nodes.get(i);
+
+            if (i != p_nodeId && node != null) {
+                node.getRanges(ret);
+            }
+        }
+
+        return ChunkIDRanges.wrap(ret);
+    }
+
+    /**
+     * Get the ranges of a node
+     *
+     * @param p_nodeId
+     *         Creator node id
+     * @param p_create
+     *         True to create the ranges object if it does not exist
+     * @return NodeRanges object or null if not existing and p_create is false
+     */
+    private NodeRanges getNodeRanges(final short p_nodeId, final boolean p_create) {
+        int idx = p_nodeId & 0xFFFF;
+        NodeRanges node = m_nodes.get(idx);
+
+        if (node == null && p_create) {
+            m_nodes.compareAndSet(idx, null, new NodeRanges(p_nodeId));
+            node = m_nodes.get(idx);
+        }
+
+        return node;
+    }
+
+    /**
+     * Striped LID ranges of a single creator node
+     */
+    private static final class NodeRanges {
+        private final short m_nodeId;
+        private final Stripe[] m_stripes = new Stripe[STRIPES];
+
+        /**
+         * Constructor
+         *
+         * @param p_nodeId
+         *         Creator node id
+         */
+        private NodeRanges(final short p_nodeId) {
+            m_nodeId = p_nodeId;
+
+            for (int i = 0; i < STRIPES; i++) {
+                m_stripes[i] = new Stripe();
+            }
+        }
+
+        /**
+         * Add a single LID
+         *
+         * @param p_lid
+         *         LID to add
+         */
+        private void add(final long p_lid) {
+            add(p_lid, p_lid);
+        }
+
+        /**
+         * Add a range of LIDs which is located in a single segment
+         *
+         * @param p_start
+         *         First LID of range
+         * @param p_end
+         *         Last LID of range (including)
+         */
+        private void add(final long p_start, final long p_end) {
+            Stripe stripe = m_stripes[(int) ((p_start >> SEGMENT_BITS) % STRIPES)];
+
+            stripe.m_lock.lock();
+            stripe.add(p_start, p_end);
+            stripe.m_lock.unlock();
+        }
+
+        /**
+         * Remove a single LID
+         *
+         * @param p_lid
+         *         LID to remove
+         */
+        private void remove(final long p_lid) {
+            Stripe stripe = m_stripes[(int) ((p_lid >> SEGMENT_BITS) % STRIPES)];
+
+            stripe.m_lock.lock();
+            stripe.remove(p_lid);
+            stripe.m_lock.unlock();
+        }
+
+        /**
+         * Append the CID ranges of this node to a list. All stripes are merged to sorted ranges
+         *
+         * @param p_ret
+         *         List to append the ranges to
+         */
+        private void getRanges(final ArrayListLong p_ret) {
+            // lock all stripes (in order) to get a consistent view
+            for (Stripe stripe : m_stripes) {
+                stripe.m_lock.lock();
+            }
+
+            int[] positions = new int[STRIPES];
+
+            while (true) {
+                int min = -1;
+
+                for (int i = 0; i < STRIPES; i++) {
+                    if (positions[i] < m_stripes[i].m_count &&
+                            (min == -1 || m_stripes[i].m_ranges[positions[i] * 2] <
+                                    m_stripes[min].m_ranges[positions[min] * 2])) {
+                        min = i;
+                    }
+                }
+
+                if (min == -1) {
+                    break;
+                }
+
+                long start = ChunkID.getChunkID(m_nodeId, m_stripes[min].m_ranges[positions[min] * 2]);
+                long end = ChunkID.getChunkID(m_nodeId, m_stripes[min].m_ranges[positions[min] * 2 + 1]);
+                positions[min]++;
+
+                // ranges of consecutive segments are stored in different stripes
+                if (p_ret.getSize() >= 2 && p_ret.get(p_ret.getSize() - 1) + 1 == start) {
+                    p_ret.set(p_ret.getSize() - 1, end);
+                } else {
+                    p_ret.add(start);
+                    p_ret.add(end);
+                }
+            }
+
+            for (Stripe stripe : m_stripes) {
+                stripe.m_lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Sorted and merged LID ranges (start/end pairs) of all segments assigned to the stripe
+     */
+    private static final class Stripe {
+        private final ReentrantLock m_lock = new ReentrantLock(false);
+
+        private long[] m_ranges = new long[16];
+        private int m_count;
+
+        /**
+         * Add a range of LIDs not overlapping with any existing range. Caller must hold the lock
+         *
+         * @param p_start
+         *         First LID of range
+         * @param p_end
+         *         Last LID of range (including)
+         */
+        private void add(final long p_start, final long p_end) {
+            int pos = findRange(p_start);
+
+            if (pos > 0 && m_ranges[(pos - 1) * 2 + 1] >= p_start) {
+                // already (partially) indexed, e.g. recovered chunks replacing existing ones
+                assert m_ranges[(pos - 1) * 2 + 1] >= p_end : "Overlapping range";
+                return;
+            }
+
+            boolean mergePrev = pos > 0 && m_ranges[(pos - 1) * 2 + 1] + 1 == p_start;
+            boolean mergeNext = pos < m_count && m_ranges[pos * 2] == p_end + 1;
+
+            if (mergePrev && mergeNext) {
+                m_ranges[(pos - 1) * 2 + 1] = m_ranges[pos * 2 + 1];
+                removeRange(pos);
+            } else if (mergePrev) {
+                m_ranges[(pos - 1) * 2 + 1] = p_end;
+            } else if (mergeNext) {
+                m_ranges[pos * 2] = p_start;
+            } else {
+                insertRange(pos, p_start, p_end);
+            }
+        }
+
+        /**
+         * Remove a single LID. Caller must hold the lock
+         *
+         * @param p_lid
+         *         LID to remove
+         */
+        private void remove(final long p_lid) {
+            int pos = findRange(p_lid) - 1;
+
+            if (pos < 0 || m_ranges[pos * 2 + 1] < p_lid) {
+                // not indexed
+                return;
+            }
+
+            long start = m_ranges[pos * 2];
+            long end = m_ranges[pos * 2 + 1];
+
+            if (start == end) {
+                removeRange(pos);
+            } else if (p_lid == start) {
+                m_ranges[pos * 2] = p_lid + 1;
+            } else if (p_lid == end) {
+                m_ranges[pos * 2 + 1] = p_lid - 1;
+            } else {
+                m_ranges[pos * 2 + 1] = p_lid - 1;
+                insertRange(pos + 1, p_lid + 1, end);
+            }
+        }
+
+        /**
+         * Binary search for the first range with a start greater than the LID specified
+         *
+         * @param p_lid
+         *         LID to search for
+         * @return Range index
+         */
+        private int findRange(final long p_lid) {
+            int low = 0;
+            int high = m_count;
+
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+
+                if (m_ranges[mid * 2] <= p_lid) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+
+            return low;
+        }
+
+        /**
+         * Insert a new range
+         *
+         * @param p_pos
+         *         Range index to insert at
+         * @param p_start
+         *         First LID of range
+         * @param p_end
+         *         Last LID of range (including)
+         */
+        private void insertRange(final int p_pos, final long p_start, final long p_end) {
+            if (m_count * 2 == m_ranges.length) {
+                m_ranges = Arrays.copyOf(m_ranges, m_ranges.length * 2);
+            }
+
+            System.arraycopy(m_ranges, p_pos * 2, m_ranges, (p_pos + 1) * 2, (m_count - p_pos) * 2);
+            m_ranges[p_pos * 2] = p_start;
+            m_ranges[p_pos * 2 + 1] = p_end;
+            m_count++;
+        }
+
+        /**
+         * Remove a range
+         *
+         * @param p_pos
+         *         Range index to remove
+         */
+        private void removeRange(final int p_pos) {
+            System.arraycopy(m_ranges, (p_pos + 1) * 2, m_ranges, p_pos * 2, (m_count - p_pos - 1) * 2);
+            m_count--;
+        }
+    }
+}
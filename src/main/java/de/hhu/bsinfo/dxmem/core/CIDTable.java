@@ -17,6 +17,8 @@
 package de.hhu.bsinfo.dxmem.core;
 
 import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.logging.log4j.LogManager;
@@ -56,6 +58,9 @@ public final class CIDTable implements Importable, Exportable {
     private static final int LID_TABLE_SIZE = ENTRY_SIZE * ENTRIES_PER_LID_LEVEL;
     private static final long LID_LEVEL_BITMASK = (int) Math.pow(2.0, BITS_PER_LID_LEVEL) - 1;
 
+    // range scans fork a task for each sub table of tables on this level and higher
+    private static final int PARALLEL_SCAN_MIN_LEVEL = 2;
+
     private short m_ownNodeId;
     private CIDTableTableEntry m_tableDirectory;
     private CIDTableStatus m_status = new CIDTableStatus();
@@ -65,6 +70,15 @@ public final class CIDTable implements Importable, Exportable {
     // lock to protect CID table on table creation
     private final ReentrantLock m_tableManagementLock = new ReentrantLock(false);
 
+    // read locks exceeding the counter embedded into the chunk entries
+    private final ReadLockOverflow m_readLockOverflow = new ReadLockOverflow();
+
+    // versions for optimistic reads
+    private final ChunkVersionTable m_versionTable = new ChunkVersionTable();
+
+    // sampling of contended chunk locks (disabled by default)
+    private final LockContentionProfiler m_lockContentionProfiler = new LockContentionProfiler(this);
+
     /**
      * Constructor
      * Create a new (empty) CIDTable
@@ -101,6 +115,33 @@ public final class CIDTable implements Importable, Exportable {
         return m_ownNodeId;
     }
 
+    /**
+     * Get the side table for read locks exceeding the embedded read lock counter of the chunk entries
+     *
+     * @return ReadLockOverflow instance
+     */
+    ReadLockOverflow getReadLockOverflow() {
+        return m_readLockOverflow;
+    }
+
+    /**
+     * Get the version table for optimistic reads
+     *
+     * @return ChunkVersionTable instance
+     */
+    ChunkVersionTable getVersionTable() {
+        return m_versionTable;
+    }
+
+    /**
+     * Get the profiler for contended chunk locks
+     *
+     * @return LockContentionProfiler instance
+     */
+    public LockContentionProfiler getLockContentionProfiler() {
+        return m_lockContentionProfiler;
+    }
+
     /**
      * Get the current status of the CIDTable
      *
@@ -140,6 +181,8 @@ public final class CIDTable implements Importable, Exportable {
             if (level > 0) {
                 // chunk was either deleted or never existed
                 if (entry == CIDTableChunkEntry.RAW_VALUE_FREE || entry == CIDTableZombieEntry.RAW_VALUE) {
+                    // don't leave the state of a previous translation (reused entries)
+                    p_entry.clear();
                     return;
                 }
 
@@ -156,6 +199,38 @@ public final class CIDTable implements Importable, Exportable {
         } while (level >= 0);
     }
 
+    /**
+     * Translate an existing (or non existing) entry without locking the entry. Used for translating batches of
+     * CIDs: the level 0 table of the last translation is cached and the table walk is skipped if the CID is
+     * located in the same table, e.g. for CIDs of chunks created in sequence
+     *
+     * @param p_chunkID
+     *         Chunk id to translate
+     * @param p_entry
+     *         Reference to CIDTableChunkEntry object to write results to
+     * @param p_cache
+     *         Cache of the batch (new long[2], empty if the table address is Address.INVALID). Only valid as
+     *         long as the application thread lock of the defragmenter is held
+     */
+    public void translate(final long p_chunkID, final CIDTableChunkEntry p_entry, final long[] p_cache) {
+        long tablePrefix = p_chunkID >>> BITS_PER_LID_LEVEL;
+
+        if (p_cache[1] == Address.INVALID || p_cache[0] != tablePrefix) {
+            translate(p_chunkID, p_entry);
+
+            if (!p_entry.isValid()) {
+                return;
+            }
+
+            p_cache[0] = tablePrefix;
+            p_cache[1] = p_entry.getPointer() - (p_chunkID & LID_LEVEL_BITMASK) * ENTRY_SIZE;
+            return;
+        }
+
+        long index = p_chunkID & LID_LEVEL_BITMASK;
+        p_entry.set(p_cache[1] + index * ENTRY_SIZE, readTableEntry(p_cache[1], index));
+    }
+
     /**
      * Insert a new (or overwrite existing) entry
      *
@@ -255,6 +330,18 @@ public final class CIDTable implements Importable, Exportable {
         m_heap.writeLong(p_entry.getPointer(), 0, p_entry.getValue());
     }
 
+    /**
+     * Read an entry by its pointer, e.g. an entry translated earlier
+     *
+     * @param p_pointer
+     *         Pointer to the entry
+     * @param p_entry
+     *         Entry object to read the entry into
+     */
+    public void entryRead(final long p_pointer, final CIDTableChunkEntry p_entry) {
+        p_entry.set(p_pointer, m_heap.readLong(p_pointer, 0));
+    }
+
     /**
      * Flag an entry as free (non atomic update for a delete operation)
      *
@@ -265,6 +352,17 @@ public final class CIDTable implements Importable, Exportable {
         m_heap.writeLong(p_entry.getPointer(), 0, CIDTableChunkEntry.RAW_VALUE_FREE);
     }
 
+    /**
+     * Flag an entry as free (atomic update for a delete operation without the write lock acquired)
+     *
+     * @param p_entry
+     *         Entry to flag as free (with the value expected in memory)
+     * @return True if successful, false if the entry in memory changed in the meantime
+     */
+    public boolean entryAtomicFlagFree(final CIDTableChunkEntry p_entry) {
+        return m_heap.casLong(p_entry.getPointer(), 0, p_entry.getValue(), CIDTableChunkEntry.RAW_VALUE_FREE);
+    }
+
     /**
      * Flag an entry as zombie (non atomic update for a delete operation)
      *
@@ -287,68 +385,118 @@ public final class CIDTable implements Importable, Exportable {
     }
 
     /**
-     * Returns the ChunkID ranges of all local and migrated chunks
+     * Returns the ChunkID ranges of all local and migrated chunks. The tables are scanned in parallel
      *
      * @return the ChunkID ranges
      */
     public ChunkIDRanges getCIDRangesOfAllChunks() {
-        ArrayListLong ret;
-        long entry;
-
-        ret = new ArrayListLong();
-
-        for (int i = 0; i < ENTRIES_PER_NID_LEVEL; i++) {
-            entry = readTableEntry(m_tableDirectory.getAddress(), i);
-
-            if (entry > 0) {
-                getAllRanges(ret, (long) i << 48, entry, LID_TABLE_LEVELS - 1);
-            }
-        }
-
-        return ChunkIDRanges.wrap(ret);
+        return ChunkIDRanges.wrap(ForkJoinPool.commonPool().invoke(
+                new RangeScanTask(0, m_tableDirectory.getAddress(), LID_TABLE_LEVELS, -1)));
     }
 
     /**
-     * Returns the ChunkID ranges of all locally stored Chunks
+     * Returns the ChunkID ranges of all locally stored Chunks. The tables are scanned in parallel
      *
      * @param p_nodeId
      *         Node id of the remote to get the data from
      * @return the ChunkID ranges
      */
     public ChunkIDRanges getCIDRangesOfAllChunks(final short p_nodeId) {
-        ArrayListLong ret = new ArrayListLong();
         long entry = readTableEntry(m_tableDirectory.getAddress(), p_nodeId & 0xFFFF);
 
-        if (entry > 0) {
-            getAllRanges(ret, ChunkID.getChunkID(p_nodeId, 0), CIDTableTableEntry.getAddressOfRawTableEntry(entry),
-                    LID_TABLE_LEVELS - 1);
+        if (entry == CIDTableTableEntry.RAW_VALUE_FREE) {
+            return ChunkIDRanges.wrap(new ArrayListLong());
         }
 
-        return ChunkIDRanges.wrap(ret);
+        return ChunkIDRanges.wrap(ForkJoinPool.commonPool().invoke(
+                new RangeScanTask(ChunkID.getChunkID(p_nodeId, 0), CIDTableTableEntry.getAddressOfRawTableEntry(entry),
+                        LID_TABLE_LEVELS - 1, -1)));
     }
 
     /**
-     * Get all ranges of all migrated chunks
+     * Get all ranges of all migrated chunks. The tables are scanned in parallel
      *
      * @return Chunk ID ranges of all migrated chunks
      */
     public ChunkIDRanges getCIDRangesOfAllMigratedChunks() {
-        ArrayListLong ret;
-        long entry;
+        return ChunkIDRanges.wrap(ForkJoinPool.commonPool().invoke(
+                new RangeScanTask(0, m_tableDirectory.getAddress(), LID_TABLE_LEVELS, m_ownNodeId & 0xFFFF)));
+    }
 
-        ret = new ArrayListLong();
+    /**
+     * Get the CIDs of existing chunks of a node in a range of LIDs. The CIDs are returned in ascending order
+     *
+     * @param p_nodeId
+     *         Node id of the chunks
+     * @param p_startLid
+     *         First LID of the range to search
+     * @param p_endLid
+     *         End of the range to search (excluding)
+     * @param p_cids
+     *         Array to write the CIDs to
+     * @param p_offset
+     *         Offset in array to start at
+     * @param p_count
+     *         Max number of CIDs to return
+     * @return Number of CIDs written to the array. If less than p_count, there are no more chunks in the range
+     */
+    public int getCIDs(final short p_nodeId, final long p_startLid, final long p_endLid, final long[] p_cids,
+            final int p_offset, final int p_count) {
+        long entry = readTableEntry(m_tableDirectory.getAddress(), p_nodeId & 0xFFFF);
 
-        for (int i = 0; i < ENTRIES_PER_NID_LEVEL; i++) {
-            if (i != (m_ownNodeId & 0xFFFF)) {
-                entry = readTableEntry(m_tableDirectory.getAddress(), i);
+        if (entry == CIDTableTableEntry.RAW_VALUE_FREE || p_startLid >= p_endLid || p_count == 0) {
+            return 0;
+        }
 
-                if (entry > 0) {
-                    getAllRanges(ret, (long) i << 48, entry, LID_TABLE_LEVELS - 1);
+        return getCIDsRecursive(p_nodeId, CIDTableTableEntry.getAddressOfRawTableEntry(entry), LID_TABLE_LEVELS - 1,
+                0, p_startLid, p_endLid, p_cids, p_offset, p_count);
+    }
+
+    /**
+     * Get an upper bound (excluding) of the LIDs of all existing chunks of a node. The bound is determined by
+     * the highest sub tables used and is exact if the tables are not sparse at the end
+     *
+     * @param p_nodeId
+     *         Node id
+     * @return Upper bound of the LIDs (excluding), 0 if no chunks of the node exist
+     */
+    public long getLIDUpperBound(final short p_nodeId) {
+        long entry = readTableEntry(m_tableDirectory.getAddress(), p_nodeId & 0xFFFF);
+
+        if (entry == CIDTableTableEntry.RAW_VALUE_FREE) {
+            return 0;
+        }
+
+        long table = CIDTableTableEntry.getAddressOfRawTableEntry(entry);
+        long prefix = 0;
+        long bound = 0;
+
+        for (int level = LID_TABLE_LEVELS - 1; level >= 0; level--) {
+            int i;
+
+            for (i = ENTRIES_PER_LID_LEVEL - 1; i >= 0; i--) {
+                entry = readTableEntry(table, i);
+
+                if (entry != CIDTableChunkEntry.RAW_VALUE_FREE &&
+                        (level > 0 || entry != CIDTableZombieEntry.RAW_VALUE)) {
+                    break;
                 }
             }
+
+            if (i < 0) {
+                // empty table, keep bound of parent
+                break;
+            }
+
+            bound = prefix + ((long) (i + 1) << BITS_PER_LID_LEVEL * level);
+            prefix += (long) i << BITS_PER_LID_LEVEL * level;
+
+            if (level > 0) {
+                table = CIDTableTableEntry.getAddressOfRawTableEntry(entry);
+            }
         }
 
-        return ChunkIDRanges.wrap(ret);
+        return bound;
     }
 
     @Override
@@ -397,7 +545,7 @@ public final class CIDTable implements Importable, Exportable {
 
             if (entry != CIDTableChunkEntry.RAW_VALUE_FREE && entry != CIDTableZombieEntry.RAW_VALUE) {
                 if (p_level > 0) {
-                    getAllRanges(p_ret, p_unfinishedCID + (i << BITS_PER_LID_LEVEL * p_level),
+                    getAllRanges(p_ret, p_unfinishedCID + ((long) i << BITS_PER_LID_LEVEL * p_level),
                             CIDTableTableEntry.getAddressOfRawTableEntry(entry), p_level - 1);
                 } else {
                     long curCID = p_unfinishedCID + i;
@@ -420,6 +568,55 @@ public final class CIDTable implements Importable, Exportable {
         }
     }
 
+    /**
+     * Recursive helper to get the CIDs of existing chunks in a range of LIDs
+     *
+     * @param p_nodeId
+     *         Node id of the chunks
+     * @param p_table
+     *         Address of the current table
+     * @param p_level
+     *         Level of the current table
+     * @param p_lidPrefix
+     *         First LID covered by the current table
+     * @param p_startLid
+     *         First LID of the range to search
+     * @param p_endLid
+     *         End of the range to search (excluding)
+     * @param p_cids
+     *         Array to write the CIDs to
+     * @param p_offset
+     *         Offset in array to start at
+     * @param p_count
+     *         Max number of CIDs to return
+     * @return Number of CIDs written to the array
+     */
+    private int getCIDsRecursive(final short p_nodeId, final long p_table, final int p_level, final long p_lidPrefix,
+            final long p_startLid, final long p_endLid, final long[] p_cids, final int p_offset, final int p_count) {
+        int shift = BITS_PER_LID_LEVEL * p_level;
+        int first = p_startLid > p_lidPrefix ? (int) Math.min((p_startLid - p_lidPrefix) >> shift,
+                ENTRIES_PER_LID_LEVEL) : 0;
+        int last = (int) Math.min((p_endLid - 1 - p_lidPrefix) >> shift, ENTRIES_PER_LID_LEVEL - 1);
+        int found = 0;
+
+        for (int i = first; i <= last && found < p_count; i++) {
+            long entry = readTableEntry(p_table, i);
+
+            if (p_level > 0) {
+                if (entry != CIDTableTableEntry.RAW_VALUE_FREE) {
+                    found += getCIDsRecursive(p_nodeId, CIDTableTableEntry.getAddressOfRawTableEntry(entry),
+                            p_level - 1, p_lidPrefix + ((long) i << shift), p_startLid, p_endLid, p_cids,
+                            p_offset + found, p_count - found);
+                }
+            } else if (entry != CIDTableChunkEntry.RAW_VALUE_FREE && entry != CIDTableZombieEntry.RAW_VALUE) {
+                p_cids[p_offset + found] = ChunkID.getChunkID(p_nodeId, p_lidPrefix + i);
+                found++;
+            }
+        }
+
+        return found;
+    }
+
     /**
      * Inverse search for CID to chunk address. Used for unpinning chunks with pinned addresses
      *
@@ -442,6 +639,21 @@ public final class CIDTable implements Importable, Exportable {
         return cid;
     }
 
+    /**
+     * Inverse search for the CID of a chunk entry using the pointer to the entry (address in a level 0 table)
+     *
+     * @param p_pointer
+     *         Pointer to the chunk entry
+     * @return CID of the entry, or invalid CID if not found or the entry does not hold a chunk (anymore)
+     */
+    long getCIDOfEntryPointer(final long p_pointer) {
+        if (p_pointer == Address.INVALID) {
+            return ChunkID.INVALID_ID;
+        }
+
+        return getCIDOfEntryPointerRecursive(p_pointer, 0, m_tableDirectory.getAddress(), LID_TABLE_LEVELS);
+    }
+
     /**
      * Search, get and remove zombie entries. Used in LIDStore when re-using CIDs
      *
@@ -561,11 +773,12 @@ public final class CIDTable implements Importable, Exportable {
                 if (entry != CIDTableTableEntry.RAW_VALUE_FREE) {
                     count += getAndEliminateZombiesRecursiveLIDTable(
                             CIDTableTableEntry.getAddressOfRawTableEntry(entry), p_level - 1,
-                            p_cid | i << p_level * BITS_PER_LID_LEVEL, p_currentCount + count, p_ringBuffer, p_offset,
+                            p_cid | (long) i << p_level * BITS_PER_LID_LEVEL, p_currentCount + count, p_ringBuffer,
+                            p_offset,
                             p_maxCount);
                 }
             } else {
-                long cid = p_cid | i << p_level * BITS_PER_LID_LEVEL;
+                long cid = p_cid | (long) i << p_level * BITS_PER_LID_LEVEL;
 
                 if (entry == CIDTableZombieEntry.RAW_VALUE) {
                     p_ringBuffer[(p_offset + p_currentCount + count) % p_maxCount] = cid;
@@ -793,8 +1006,13 @@ public final class CIDTable implements Importable, Exportable {
             for (int i = 0; i < ENTRIES_PER_NID_LEVEL; i++) {
                 long entry = readTableEntry(p_addressTable, i);
 
-                long cid = getTableEntryWithChunkAddressRecursive(p_entry, p_cid | i << p_level * BITS_PER_LID_LEVEL,
-                        entry, LID_TABLE_LEVELS - 1);
+                if (entry == CIDTableTableEntry.RAW_VALUE_FREE) {
+                    continue;
+                }
+
+                long cid = getTableEntryWithChunkAddressRecursive(p_entry,
+                        p_cid | (long) i << p_level * BITS_PER_LID_LEVEL,
+                        CIDTableTableEntry.getAddressOfRawTableEntry(entry), LID_TABLE_LEVELS - 1);
 
                 if (cid != ChunkID.INVALID_ID) {
                     return cid;
@@ -804,10 +1022,15 @@ public final class CIDTable implements Importable, Exportable {
             for (int i = 0; i < ENTRIES_PER_LID_LEVEL; i++) {
                 long entry = readTableEntry(p_addressTable, i);
 
+                if (entry == CIDTableTableEntry.RAW_VALUE_FREE || entry == CIDTableZombieEntry.RAW_VALUE) {
+                    continue;
+                }
+
                 // lid tables
                 if (p_level > 0) {
                     long cid = getTableEntryWithChunkAddressRecursive(p_entry,
-                            p_cid | i << p_level * BITS_PER_LID_LEVEL, entry, p_level - 1);
+                            p_cid | (long) i << p_level * BITS_PER_LID_LEVEL,
+                            CIDTableTableEntry.getAddressOfRawTableEntry(entry), p_level - 1);
 
                     if (cid != ChunkID.INVALID_ID) {
                         return cid;
@@ -815,7 +1038,7 @@ public final class CIDTable implements Importable, Exportable {
                 } else {
                     // level 0 table with chunk entries
                     if (CIDTableChunkEntry.getAddressOfRawEntry(entry) == p_entry.getAddress()) {
-                        long cid = p_cid | i << p_level * BITS_PER_LID_LEVEL;
+                        long cid = p_cid | i;
 
                         // found, abort search
                         p_entry.set(calcAddressTableEntry(p_addressTable, i), entry);
@@ -827,4 +1050,147 @@ public final class CIDTable implements Importable, Exportable {
 
         return ChunkID.INVALID_ID;
     }
+
+    /**
+     * Find the CID of a chunk entry using the pointer to the entry (recursive call)
+     *
+     * @param p_pointer
+     *         Pointer to the chunk entry
+     * @param p_cid
+     *         Current cid
+     * @param p_addressTable
+     *         Address of current table
+     * @param p_level
+     *         Current level of table
+     * @return CID of entry if found, invalid CID if not found
+     */
+    private long getCIDOfEntryPointerRecursive(final long p_pointer, final long p_cid, final long p_addressTable,
+            final int p_level) {
+        if (p_addressTable == Address.INVALID) {
+            return ChunkID.INVALID_ID;
+        }
+
+        if (p_level == 0) {
+            // level 0 table with chunk entries, no need to iterate
+            if (p_pointer < p_addressTable || p_pointer >= p_addressTable + ENTRIES_PER_LID_LEVEL * ENTRY_SIZE) {
+                return ChunkID.INVALID_ID;
+            }
+
+            long index = (p_pointer - p_addressTable) / ENTRY_SIZE;
+            long entry = readTableEntry(p_addressTable, index);
+
+            if (entry == CIDTableChunkEntry.RAW_VALUE_FREE || entry == CIDTableZombieEntry.RAW_VALUE) {
+                return ChunkID.INVALID_ID;
+            }
+
+            return p_cid | index;
+        }
+
+        int entries = p_level == LID_TABLE_LEVELS ? ENTRIES_PER_NID_LEVEL : ENTRIES_PER_LID_LEVEL;
+
+        for (int i = 0; i < entries; i++) {
+            long entry = readTableEntry(p_addressTable, i);
+
+            if (entry == CIDTableTableEntry.RAW_VALUE_FREE || entry == CIDTableZombieEntry.RAW_VALUE) {
+                continue;
+            }
+
+            long cid = getCIDOfEntryPointerRecursive(p_pointer, p_cid | (long) i << p_level * BITS_PER_LID_LEVEL,
+                    CIDTableTableEntry.getAddressOfRawTableEntry(entry), p_level - 1);
+
+            if (cid != ChunkID.INVALID_ID) {
+                return cid;
+            }
+        }
+
+        return ChunkID.INVALID_ID;
+    }
+
+    /**
+     * Append ranges to a list of ranges. Merges the last range of the list with the first range
+     * appended if they are adjacent
+     *
+     * @param p_ret
+     *         List to append to
+     * @param p_ranges
+     *         Ranges to append (must be greater than the ones of p_ret)
+     */
+    private static void appendRanges(final ArrayListLong p_ret, final ArrayListLong p_ranges) {
+        int start = 0;
+
+        if (p_ret.getSize() >= 2 && p_ranges.getSize() >= 2 && p_ret.get(p_ret.getSize() - 1) + 1 == p_ranges.get(0)) {
+            p_ret.set(p_ret.getSize() - 1, p_ranges.get(1));
+            start = 2;
+        }
+
+        for (int i = start; i < p_ranges.getSize(); i++) {
+            p_ret.add(p_ranges.get(i));
+        }
+    }
+
+    /**
+     * Task to scan a (sub) table for ChunkID ranges. Tasks on higher levels fork a task for each sub table
+     * and merge the results, tasks on lower levels scan the table sequentially
+     */
+    private final class RangeScanTask extends RecursiveTask<ArrayListLong> {
+        private final long m_unfinishedCID;
+        private final long m_table;
+        private final int m_level;
+        private final int m_excludeNid;
+
+        /**
+         * Constructor
+         *
+         * @param p_unfinishedCID
+         *         the unfinished ChunkID
+         * @param p_table
+         *         Address of the table to scan
+         * @param p_level
+         *         Level of the table, LID_TABLE_LEVELS for the NID table
+         * @param p_excludeNid
+         *         NID to exclude when scanning the NID table, -1 for none
+         */
+        private RangeScanTask(final long p_unfinishedCID, final long p_table, final int p_level,
+                final int p_excludeNid) {
+            m_unfinishedCID = p_unfinishedCID;
+            m_table = p_table;
+            m_level = p_level;
+            m_excludeNid = p_excludeNid;
+        }
+
+        @Override
+        protected ArrayListLong compute() {
+            ArrayListLong ret = new ArrayListLong();
+
+            if (m_level < PARALLEL_SCAN_MIN_LEVEL) {
+                getAllRanges(ret, m_unfinishedCID, m_table, m_level);
+                return ret;
+            }
+
+            int entries = m_level == LID_TABLE_LEVELS ? ENTRIES_PER_NID_LEVEL : ENTRIES_PER_LID_LEVEL;
+            ArrayList<RangeScanTask> tasks = new ArrayList<>();
+
+            for (int i = 0; i < entries; i++) {
+                if (i == m_excludeNid) {
+                    continue;
+                }
+
+                long entry = readTableEntry(m_table, i);
+
+                if (entry != CIDTableTableEntry.RAW_VALUE_FREE) {
+                    RangeScanTask task = new RangeScanTask(m_unfinishedCID + ((long) i << BITS_PER_LID_LEVEL * m_level),
+                            CIDTableTableEntry.getAddressOfRawTableEntry(entry), m_level - 1, -1);
+                    task.fork();
+                    tasks.add(task);
+                }
+            }
+
+            // join in order of the sub tables to keep the ranges sorted
+            for (RangeScanTask task : tasks) {
+                appendRanges(ret, task.join());
+            }
+
+            return ret;
+        }
+    }
 }
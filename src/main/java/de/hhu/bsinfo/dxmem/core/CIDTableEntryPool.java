@@ -17,14 +17,21 @@
 package de.hhu.bsinfo.dxmem.core;
 
 /**
- * Thread local pool for chunk entry objects (to avoid allocations)
+ * Thread local pool for chunk entry objects (to avoid allocations). Besides a single entry, each thread gets an
+ * array of entries for batch operations and a translation cache (see CIDTable) which are created on first use.
+ * The pooled objects of a thread must not be used by nested operations.
  *
  * @author Stefan Nothaas, stefan.nothaas@hhu.de, 31.08.2018
  */
 public class CIDTableEntryPool {
     private static final int MAX_THREAD_COUNT = 1024;
+    // max number of entries of a pooled array, larger batches get a transient array to not keep the memory of the
+    // largest batch ever created for every thread
+    private static final int MAX_POOLED_ARRAY_SIZE = 1024;
 
     private CIDTableChunkEntry[] m_pool;
+    private CIDTableChunkEntry[][] m_arrayPool;
+    private long[][] m_translateCachePool;
 
     /**
      * Constructor
@@ -35,6 +42,9 @@ public class CIDTableEntryPool {
         for (int i = 0; i < m_pool.length; i++) {
             m_pool[i] = new CIDTableChunkEntry();
         }
+
+        m_arrayPool = new CIDTableChunkEntry[MAX_THREAD_COUNT][];
+        m_translateCachePool = new long[MAX_THREAD_COUNT][];
     }
 
     /**
@@ -52,4 +62,109 @@ public class CIDTableEntryPool {
                     MAX_THREAD_COUNT);
         }
     }
+
+    /**
+     * Get an array of entries from the pool for batch operations. The array is grown if it is smaller than the
+     * number of entries requested. Batches exceeding MAX_POOLED_ARRAY_SIZE entries get a new array which is not
+     * pooled
+     *
+     * @param p_count
+     *         Number of entries required
+     * @return Array with at least p_count cleared entries
+     */
+    public CIDTableChunkEntry[] getArray(final int p_count) {
+        CIDTableChunkEntry[] entries;
+
+        if (p_count > MAX_POOLED_ARRAY_SIZE) {
+            entries = createArray(p_count, null);
+        } else {
+            int threadId = threadId();
+            entries = m_arrayPool[threadId];
+
+            if (entries == null || entries.length < p_count) {
+                entries = createArray(Math.min(Math.max(p_count, entries == null ? 0 : entries.length * 2),
+                        MAX_POOLED_ARRAY_SIZE), entries);
+                m_arrayPool[threadId] = entries;
+            }
+        }
+
+        for (int i = 0; i < p_count; i++) {
+            entries[i].clear();
+        }
+
+        return entries;
+    }
+
+    /**
+     * Get the translation cache of the current thread for batch translations (see CIDTable.translate). Only for
+     * operations which don't execute further operations while translating (no modifiers, see
+     * createTranslateCache)
+     *
+     * @return Empty translation cache
+     */
+    public long[] getTranslateCache() {
+        int threadId = threadId();
+        long[] cache = m_translateCachePool[threadId];
+
+        if (cache == null) {
+            cache = new long[2];
+            m_translateCachePool[threadId] = cache;
+        }
+
+        cache[0] = 0;
+        cache[1] = Address.INVALID;
+
+        return cache;
+    }
+
+    /**
+     * Create a new translation cache for batch translations (see CIDTable.translate) which is not shared with
+     * other operations of the current thread, e.g. for batches executing modifiers
+     *
+     * @return Empty translation cache
+     */
+    public static long[] createTranslateCache() {
+        return new long[] {0, Address.INVALID};
+    }
+
+    /**
+     * Create an array of entries
+     *
+     * @param p_size
+     *         Size of the array
+     * @param p_entries
+     *         Optional (can be null): Smaller array with entries to re-use
+     * @return Array with p_size entries
+     */
+    private static CIDTableChunkEntry[] createArray(final int p_size, final CIDTableChunkEntry[] p_entries) {
+        CIDTableChunkEntry[] entries = new CIDTableChunkEntry[p_size];
+        int i = 0;
+
+        if (p_entries != null) {
+            System.arraycopy(p_entries, 0, entries, 0, p_entries.length);
+            i = p_entries.length;
+        }
+
+        for (; i < entries.length; i++) {
+            entries[i] = new CIDTableChunkEntry();
+        }
+
+        return entries;
+    }
+
+    /**
+     * Get the ID of the current thread as index for the pools
+     *
+     * @return Thread ID
+     */
+    private static int threadId() {
+        long threadId = Thread.currentThread().getId();
+
+        if (threadId >= MAX_THREAD_COUNT) {
+            throw new MemoryRuntimeException("Thread IDs (and probably thread count) exceeding max pool size " +
+                    MAX_THREAD_COUNT);
+        }
+
+        return (int) threadId;
+    }
 }
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxmem.core;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Version counters for optimistic (seqlock style) reads of chunks. The version of a chunk is incremented every time
+ * the write lock of the chunk is acquired. Readers read the version, copy the data without acquiring a lock and
+ * validate the version afterwards.
+ * The chunk entries have no spare bits for a version. Thus, the versions are striped and keyed by the pointer of the
+ * chunk's table entry. Chunks sharing a stripe cause spurious validation failures, only. Each counter is padded to
+ * a cache line to avoid false sharing between writers.
+ */
+final class ChunkVersionTable {
+    private static final int STRIPES = 4096;
+    // longs per cache line
+    private static final int PADDING = 8;
+    private static final int FENCE_SLOTS = 256;
+
+    private final AtomicLongArray m_versions = new AtomicLongArray(STRIPES * PADDING);
+    private final AtomicLongArray m_fences = new AtomicLongArray(FENCE_SLOTS * PADDING);
+
+    /**
+     * Constructor
+     */
+    ChunkVersionTable() {
+
+    }
+
+    /**
+     * Get the current version of a chunk
+     *
+     * @param p_pointer
+     *         Pointer of the chunk's table entry
+     * @return Version
+     */
+    long get(final long p_pointer) {
+        return m_versions.get(getIndex(p_pointer));
+    }
+
+    /**
+     * Increment the version of a chunk. Call with the write lock of the chunk acquired
+     *
+     * @param p_pointer
+     *         Pointer of the chunk's table entry
+     */
+    void increment(final long p_pointer) {
+        m_versions.incrementAndGet(getIndex(p_pointer));
+    }
+
+    /**
+     * Validate the version of a chunk after reading its data
+     *
+     * @param p_pointer
+     *         Pointer of the chunk's table entry
+     * @param p_version
+     *         Version read before reading the data
+     * @return True if the version did not change, i.e. the data read is consistent
+     */
+    boolean validate(final long p_pointer, final long p_version) {
+        // the (plain) reads of the chunk data must not be re-ordered after re-reading the version. without access
+        // to a load fence, a volatile write (to a slot of the current thread to avoid contention) enforces this
+        m_fences.set((int) (Thread.currentThread().getId() & FENCE_SLOTS - 1) * PADDING, p_version);
+
+        return m_versions.get(getIndex(p_pointer)) == p_version;
+    }
+
+    /**
+     * Validate the version of a chunk after reading its data with write locks acquired by the current thread
+     * after the read. Each write lock acquired increments the version of its stripe which is expected
+     *
+     * @param p_pointer
+     *         Pointer of the chunk's table entry
+     * @param p_version
+     *         Version read before reading the data
+     * @param p_ownWriteLocks
+     *         Pointers of the table entries of the chunks write locked by the current thread after the read
+     * @param p_ownWriteLockCount
+     *         Number of pointers in p_ownWriteLocks
+     * @return True if the version did not change except for the own write locks
+     */
+    boolean validate(final long p_pointer, final long p_version, final long[] p_ownWriteLocks,
+            final int p_ownWriteLockCount) {
+        int index = getIndex(p_pointer);
+        long expected = p_version;
+
+        for (int i = 0; i < p_ownWriteLockCount; i++) {
+            if (getIndex(p_ownWriteLocks[i]) == index) {
+                expected++;
+            }
+        }
+
+        return validate(p_pointer, expected);
+    }
+
+    /**
+     * Get the index of the version counter of a chunk
+     *
+     * @param p_pointer
+     *         Pointer of the chunk's table entry (8 byte aligned)
+     * @return Index in versions array
+     */
+    private static int getIndex(final long p_pointer) {
+        long h = (p_pointer >>> 3) * 0x9E3779B97F4A7C15L;
+        return ((int) (h >>> 32) & STRIPES - 1) * PADDING;
+    }
+}
@@ -16,6 +16,8 @@
 
 package de.hhu.bsinfo.dxmem.core;
 
+import de.hhu.bsinfo.dxmem.data.ChunkIDRanges;
+
 /**
  * Wrapper object used to wrap various data structures used in operations
  *
@@ -28,8 +30,12 @@ public class Context {
     private final LIDStore m_lidStore;
     private final CIDTableEntryPool m_cidTableEntryPool;
     private final HeapDataStructureImExporterPool m_dataStructureImExporterPool;
+    private final EpochManager m_epochManager;
     private final Defragmenter m_defragmenter;
 
+    private final CIDRangeIndex m_cidRangeIndex;
+    private final PinnedChunkRegistry m_pinnedChunkRegistry;
+
     private final boolean m_disableChunkLock;
 
     /**
@@ -39,13 +45,33 @@ public class Context {
      * @param p_memdumpFile
      *         Path to memory dump file
      * @param p_disableChunkLock
-     *         Disable the chunk lock mechanism which increases performance but blocks the remove
-     *         and resize operations. All lock operation arguments provided on operation calls are
+     *         Disable the chunk lock mechanism which increases performance but blocks the resize
+     *         operation. All lock operation arguments provided on operation calls are
      *         ignored. DXMem cannot guarantee application data consistency on parallel writes to
      *         the same chunk. Useful for read only applications or if the application handles
      *         synchronization when writing to chunks.
      */
     public Context(final String p_memdumpFile, final boolean p_disableChunkLock) {
+        this(p_memdumpFile, p_disableChunkLock, false);
+    }
+
+    /**
+     * Constructor
+     * Used when heap is loaded from a mem dump file
+     *
+     * @param p_memdumpFile
+     *         Path to memory dump file
+     * @param p_disableChunkLock
+     *         Disable the chunk lock mechanism which increases performance but blocks the resize
+     *         operation. All lock operation arguments provided on operation calls are
+     *         ignored. DXMem cannot guarantee application data consistency on parallel writes to
+     *         the same chunk. Useful for read only applications or if the application handles
+     *         synchronization when writing to chunks.
+     * @param p_enableCIDRangeIndex
+     *         Maintain an index of the CID ranges of all chunks
+     */
+    public Context(final String p_memdumpFile, final boolean p_disableChunkLock,
+            final boolean p_enableCIDRangeIndex) {
         MemoryLoader loader = new MemoryLoader();
         loader.load(p_memdumpFile);
 
@@ -58,8 +84,25 @@ public class Context {
 
         m_dataStructureImExporterPool = new HeapDataStructureImExporterPool(m_heap);
 
+        m_epochManager = new EpochManager(m_heap, m_cidTable, m_lidStore);
+
         // TODO non implemented defragmenter disabled for now (hardcoded)
-        m_defragmenter = new Defragmenter(false);
+        m_defragmenter = new Defragmenter(false, m_epochManager);
+
+        if (p_enableCIDRangeIndex) {
+            // build index of loaded chunks
+            m_cidRangeIndex = new CIDRangeIndex();
+            ChunkIDRanges ranges = m_cidTable.getCIDRangesOfAllChunks();
+
+            for (int i = 0; i < ranges.size(); i++) {
+                m_cidRangeIndex.add(ranges.getRangeStart(i), ranges.getRangeEnd(i));
+            }
+        } else {
+            m_cidRangeIndex = null;
+        }
+
+        // chunks pinned before the dump was created are not registered, unpinning them falls back to a table scan
+        m_pinnedChunkRegistry = new PinnedChunkRegistry();
 
         m_disableChunkLock = p_disableChunkLock;
     }
@@ -72,13 +115,34 @@ public class Context {
      * @param p_sizeBytes
      *         Size of heap in bytes
      * @param p_disableChunkLock
-     *         Disable the chunk lock mechanism which increases performance but blocks the remove
-     *         and resize operations. All lock operation arguments provided on operation calls are
+     *         Disable the chunk lock mechanism which increases performance but blocks the resize
+     *         operation. All lock operation arguments provided on operation calls are
      *         ignored. DXMem cannot guarantee application data consistency on parallel writes to
      *         the same chunk. Useful for read only applications or if the application handles
      *         synchronization when writing to chunks.
      */
     public Context(final short p_ownNodeId, final long p_sizeBytes, final boolean p_disableChunkLock) {
+        this(p_ownNodeId, p_sizeBytes, p_disableChunkLock, false);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param p_ownNodeId
+     *         Node id of current instance
+     * @param p_sizeBytes
+     *         Size of heap in bytes
+     * @param p_disableChunkLock
+     *         Disable the chunk lock mechanism which increases performance but blocks the resize
+     *         operation. All lock operation arguments provided on operation calls are
+     *         ignored. DXMem cannot guarantee application data consistency on parallel writes to
+     *         the same chunk. Useful for read only applications or if the application handles
+     *         synchronization when writing to chunks.
+     * @param p_enableCIDRangeIndex
+     *         Maintain an index of the CID ranges of all chunks
+     */
+    public Context(final short p_ownNodeId, final long p_sizeBytes, final boolean p_disableChunkLock,
+            final boolean p_enableCIDRangeIndex) {
         m_nodeId = p_ownNodeId;
         m_cidTableEntryPool = new CIDTableEntryPool();
 
@@ -87,8 +151,13 @@ public class Context {
         m_cidTable = new CIDTable(p_ownNodeId, m_heap);
         m_lidStore = new LIDStore(p_ownNodeId, m_cidTable);
 
+        m_epochManager = new EpochManager(m_heap, m_cidTable, m_lidStore);
+
         // TODO non implemented defragmenter disabled for now (hardcoded)
-        m_defragmenter = new Defragmenter(false);
+        m_defragmenter = new Defragmenter(false, m_epochManager);
+
+        m_cidRangeIndex = p_enableCIDRangeIndex ? new CIDRangeIndex() : null;
+        m_pinnedChunkRegistry = new PinnedChunkRegistry();
 
         m_disableChunkLock = p_disableChunkLock;
     }
@@ -154,6 +223,15 @@ public class Context {
         return m_dataStructureImExporterPool;
     }
 
+    /**
+     * Get the EpochManager
+     *
+     * @return EpochManager
+     */
+    public EpochManager getEpochManager() {
+        return m_epochManager;
+    }
+
     /**
      * Get the Defragmenter
      *
@@ -163,6 +241,24 @@ public class Context {
         return m_defragmenter;
     }
 
+    /**
+     * Get the CIDRangeIndex
+     *
+     * @return CIDRangeIndex or null if disabled
+     */
+    public CIDRangeIndex getCIDRangeIndex() {
+        return m_cidRangeIndex;
+    }
+
+    /**
+     * Get the PinnedChunkRegistry
+     *
+     * @return PinnedChunkRegistry
+     */
+    public PinnedChunkRegistry getPinnedChunkRegistry() {
+        return m_pinnedChunkRegistry;
+    }
+
     /**
      * Chunk lock disabled flag
      *
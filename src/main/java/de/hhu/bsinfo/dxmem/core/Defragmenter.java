@@ -16,9 +16,6 @@
 
 package de.hhu.bsinfo.dxmem.core;
 
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-
 /**
  * Defragmenter
  *
@@ -29,19 +26,23 @@ public class Defragmenter {
     // for the future implementation
 
     private final boolean m_enabled;
-    private final ReadWriteLock m_lock;
+    private final ReaderIndicator m_lock;
+    private final EpochManager m_epochManager;
 
     /**
      * Constructor
      *
      * @param p_enabled
      *         True to enable defragmenter, false to disable
+     * @param p_epochManager
+     *         EpochManager to enter/leave epochs with on application thread access
      */
-    public Defragmenter(final boolean p_enabled) {
+    public Defragmenter(final boolean p_enabled, final EpochManager p_epochManager) {
         m_enabled = p_enabled;
+        m_epochManager = p_epochManager;
 
         if (m_enabled) {
-            m_lock = new ReentrantReadWriteLock(false);
+            m_lock = new ReaderIndicator();
         } else {
             m_lock = null;
         }
@@ -49,21 +50,45 @@ public class Defragmenter {
 
     // read lock needs to be acquired by every operation to allow the defragmenter
     // to block all external (application thread) access to the CIDTable AND the Heap when
-    // executing
+    // executing. this also enters an epoch to protect removed chunks from being reclaimed while accessed.
+    // the read lock does not write to any shared state (per thread reader slots)
     public void acquireApplicationThreadLock() {
+        m_epochManager.enter();
+
         // don't use any locks if defragmenter disabled which speeds up things
         if (!m_enabled) {
             return;
         }
 
-        m_lock.readLock().lock();
+        m_lock.readLock();
     }
 
     public void releaseApplicationThreadLock() {
+        // leave epoch (and reclaim removed chunks) while still being protected from the defragmenter
+        m_epochManager.leave();
+
         if (!m_enabled) {
             return;
         }
 
-        m_lock.readLock().unlock();
+        m_lock.readUnlock();
+    }
+
+    // exclusive access for the defragmenter: blocks new application thread access and waits for all
+    // application threads to finish their current operations
+    public void acquireDefragmenterLock() {
+        if (!m_enabled) {
+            throw new IllegalStateException("Defragmenter disabled");
+        }
+
+        m_lock.writeLock();
+    }
+
+    public void releaseDefragmenterLock() {
+        if (!m_enabled) {
+            throw new IllegalStateException("Defragmenter disabled");
+        }
+
+        m_lock.writeUnlock();
     }
 }
@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxmem.core;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Create direct ByteBuffers aliasing native memory without copying (e.g. the payload of a pinned chunk) and get
+ * the native address of direct ByteBuffers. The buffers are duplicates of an empty direct buffer with the address
+ * and capacity replaced. They do not own the memory, i.e. the memory is not freed when the buffers are garbage
+ * collected.
+ * The fields of the buffers are accessed with method handles bound to the Unsafe instance which is looked up by
+ * name. The class is not referenced at compile time (no proprietary API warnings) and no module has to be opened
+ * on newer JVMs.
+ */
+public final class DirectBufferView {
+    private static final MethodHandle PUT_LONG;
+    private static final MethodHandle PUT_INT;
+    private static final MethodHandle GET_LONG;
+    private static final long ADDRESS_FIELD_OFFSET;
+    private static final long CAPACITY_FIELD_OFFSET;
+
+    // template to duplicate, the duplicates don't allocate memory and don't have a cleaner
+    private static final ByteBuffer TEMPLATE = ByteBuffer.allocateDirect(0);
+
+    static {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            Object unsafe = field.get(null);
+
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+            MethodHandle objectFieldOffset = lookup.findVirtual(unsafeClass, "objectFieldOffset",
+                    MethodType.methodType(long.class, Field.class)).bindTo(unsafe);
+
+            ADDRESS_FIELD_OFFSET = (long) objectFieldOffset.invoke(Buffer.class.getDeclaredField("address"));
+            CAPACITY_FIELD_OFFSET = (long) objectFieldOffset.invoke(Buffer.class.getDeclaredField("capacity"));
+
+            PUT_LONG = lookup.findVirtual(unsafeClass, "putLong",
+                    MethodType.methodType(void.class, Object.class, long.class, long.class)).bindTo(unsafe);
+            PUT_INT = lookup.findVirtual(unsafeClass, "putInt",
+                    MethodType.methodType(void.class, Object.class, long.class, int.class)).bindTo(unsafe);
+            GET_LONG = lookup.findVirtual(unsafeClass, "getLong",
+                    MethodType.methodType(long.class, Object.class, long.class)).bindTo(unsafe);
+        } catch (final Throwable e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Static class
+     */
+    private DirectBufferView() {
+
+    }
+
+    /**
+     * Create a direct ByteBuffer aliasing a native memory region. The byte order is set to the native order
+     * (same as the order used by the heap)
+     *
+     * @param p_address
+     *         Absolute native address of the region
+     * @param p_length
+     *         Length of the region in bytes
+     * @return Direct ByteBuffer with position 0 and limit and capacity set to the length
+     */
+    public static ByteBuffer wrap(final long p_address, final int p_length) {
+        assert p_address != 0 && p_length >= 0;
+
+        ByteBuffer buffer = TEMPLATE.duplicate();
+
+        putLong(buffer, ADDRESS_FIELD_OFFSET, p_address);
+        putInt(buffer, CAPACITY_FIELD_OFFSET, p_length);
+        buffer.limit(p_length);
+
+        return buffer.order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Get the native address of a direct buffer
+     *
+     * @param p_buffer
+     *         Direct buffer
+     * @return Absolute native address of the buffer's memory (index 0)
+     */
+    public static long address(final ByteBuffer p_buffer) {
+        if (!p_buffer.isDirect()) {
+            throw new IllegalArgumentException("Not a direct buffer");
+        }
+
+        try {
+            return (long) GET_LONG.invokeExact((Object) p_buffer, ADDRESS_FIELD_OFFSET);
+        } catch (final Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Invalidate a buffer created with wrap. The capacity is set to 0 and the address cleared. Any further access
+     * throws an exception (bounds checks). Duplicates or slices created from the buffer are not invalidated
+     *
+     * @param p_buffer
+     *         Buffer to invalidate
+     */
+    public static void invalidate(final ByteBuffer p_buffer) {
+        assert p_buffer.isDirect();
+
+        p_buffer.position(0);
+        p_buffer.limit(0);
+
+        putInt(p_buffer, CAPACITY_FIELD_OFFSET, 0);
+        putLong(p_buffer, ADDRESS_FIELD_OFFSET, 0);
+    }
+
+    /**
+     * Write a long field of a buffer
+     *
+     * @param p_buffer
+     *         Buffer
+     * @param p_fieldOffset
+     *         Offset of the field
+     * @param p_value
+     *         Value to write
+     */
+    private static void putLong(final ByteBuffer p_buffer, final long p_fieldOffset, final long p_value) {
+        try {
+            PUT_LONG.invokeExact((Object) p_buffer, p_fieldOffset, p_value);
+        } catch (final Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Write an int field of a buffer
+     *
+     * @param p_buffer
+     *         Buffer
+     * @param p_fieldOffset
+     *         Offset of the field
+     * @param p_value
+     *         Value to write
+     */
+    private static void putInt(final ByteBuffer p_buffer, final long p_fieldOffset, final int p_value) {
+        try {
+            PUT_INT.invokeExact((Object) p_buffer, p_fieldOffset, p_value);
+        } catch (final Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxmem.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Epoch based reclamation of removed chunks. Application threads enter an epoch when they start an operation and
+ * leave it when they are done. Removing a chunk frees its table entry immediately, but freeing the chunk's memory
+ * and recycling its LID is deferred until all threads which were inside an epoch at the time of removal left it,
+ * i.e. no thread can still read from a (stale) entry or address of the removed chunk. Without this, reads without
+ * locks could read memory which was already re-allocated to another chunk.
+ * Threads are identified by their IDs (like the CIDTableEntryPool) and each thread has its own (cache line padded)
+ * slot to announce the epoch it is in. Entering and leaving an epoch does not write to any shared state.
+ * Removed chunks are reclaimed by the removing thread when it leaves its epoch. Other threads only help if many
+ * removed chunks are pending and the limbo lock is not taken, i.e. reads and writes don't serialize on the lock
+ * while chunks are removed.
+ */
+public final class EpochManager {
+    private static final int MAX_THREAD_COUNT = 1024;
+    // longs per cache line
+    private static final int PADDING = 8;
+    private static final long QUIESCENT = 0;
+    private static final int INITIAL_LIMBO_CAPACITY = 64;
+    // min number of pending chunks for threads which did not remove any chunk to try reclaiming
+    private static final int RECLAIM_THRESHOLD = 64;
+
+    private final Heap m_heap;
+    private final CIDTable m_cidTable;
+    private final LIDStore m_lidStore;
+
+    private final AtomicLong m_globalEpoch = new AtomicLong(1);
+    private final AtomicLongArray m_threadEpochs = new AtomicLongArray(MAX_THREAD_COUNT * PADDING);
+    // only accessed by the owning thread
+    private final int[] m_threadDepths = new int[MAX_THREAD_COUNT];
+    private final boolean[] m_threadRetired = new boolean[MAX_THREAD_COUNT];
+    private final AtomicInteger m_highestThreadId = new AtomicInteger(0);
+
+    // chunks removed but not reclaimed, yet
+    private final ReentrantLock m_limboLock = new ReentrantLock(false);
+    private final CIDTableChunkEntry m_limboEntry = new CIDTableChunkEntry();
+    private long[] m_limboEpochs = new long[INITIAL_LIMBO_CAPACITY];
+    private long[] m_limboPointers = new long[INITIAL_LIMBO_CAPACITY];
+    private long[] m_limboValues = new long[INITIAL_LIMBO_CAPACITY];
+    private long[] m_limboLids = new long[INITIAL_LIMBO_CAPACITY];
+    private volatile int m_limboSize;
+
+    /**
+     * Constructor
+     *
+     * @param p_heap
+     *         Heap to free the memory of removed chunks on
+     * @param p_cidTable
+     *         CIDTable of the removed chunks
+     * @param p_lidStore
+     *         LIDStore to recycle the LIDs of removed chunks with
+     */
+    EpochManager(final Heap p_heap, final CIDTable p_cidTable, final LIDStore p_lidStore) {
+        m_heap = p_heap;
+        m_cidTable = p_cidTable;
+        m_lidStore = p_lidStore;
+    }
+
+    /**
+     * Enter an epoch with the current thread. Must be called before accessing the CIDTable or any chunk.
+     * Calls can be nested
+     */
+    public void enter() {
+        int tid = getThreadId();
+
+        if (m_threadDepths[tid]++ > 0) {
+            return;
+        }
+
+        if (tid > m_highestThreadId.get()) {
+            updateHighestThreadId(tid);
+        }
+
+        int slot = tid * PADDING;
+        long epoch = m_globalEpoch.get();
+
+        m_threadEpochs.set(slot, epoch);
+
+        // the epoch might have advanced before the own epoch was published. chunks removed in the meantime might
+        // get reclaimed already, so re-publish until both are consistent
+        long current;
+
+        while ((current = m_globalEpoch.get()) != epoch) {
+            epoch = current;
+            m_threadEpochs.set(slot, epoch);
+        }
+    }
+
+    /**
+     * Leave the epoch of the current thread. Afterwards, the thread must not access any entry or address it read
+     * inside the epoch. Removed chunks which are not accessible by any thread anymore are reclaimed
+     */
+    public void leave() {
+        int tid = getThreadId();
+
+        assert m_threadDepths[tid] > 0;
+
+        if (--m_threadDepths[tid] > 0) {
+            return;
+        }
+
+        m_threadEpochs.lazySet(tid * PADDING, QUIESCENT);
+
+        if (m_threadRetired[tid]) {
+            m_threadRetired[tid] = false;
+            reclaim();
+        } else if (m_limboSize >= RECLAIM_THRESHOLD && m_limboLock.tryLock()) {
+            try {
+                reclaimLocked();
+            } finally {
+                m_limboLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Retire a removed chunk. The table entry of the chunk must be flagged free already. The chunk's memory is
+     * freed and its LID is recycled once no thread can access the chunk anymore
+     *
+     * @param p_entry
+     *         Table entry of the removed chunk (state before it was flagged free)
+     * @param p_lid
+     *         LID to recycle or -1 to not recycle the LID (e.g. migrated chunks)
+     */
+    public void retire(final CIDTableChunkEntry p_entry, final long p_lid) {
+        m_limboLock.lock();
+
+        // threads entering after this can't see the entry anymore
+        long epoch = m_globalEpoch.getAndIncrement();
+
+        if (m_limboSize == m_limboEpochs.length) {
+            growLimbo();
+        }
+
+        int idx = m_limboSize;
+
+        m_limboEpochs[idx] = epoch;
+        m_limboPointers[idx] = p_entry.getPointer();
+        m_limboValues[idx] = p_entry.getValue();
+        m_limboLids[idx] = p_lid;
+        m_limboSize = idx + 1;
+
+        m_limboLock.unlock();
+
+        // reclaimed when leaving the epoch, the chunk is still accessible by the current thread
+        m_threadRetired[getThreadId()] = true;
+    }
+
+    /**
+     * Get the number of removed chunks waiting to be reclaimed
+     *
+     * @return Number of chunks
+     */
+    public int getPendingReclamations() {
+        return m_limboSize;
+    }
+
+    /**
+     * Reclaim all removed chunks which can't be accessed by any thread anymore
+     */
+    public void reclaim() {
+        m_limboLock.lock();
+
+        try {
+            reclaimLocked();
+        } finally {
+            m_limboLock.unlock();
+        }
+    }
+
+    /**
+     * Reclaim all removed chunks which can't be accessed by any thread anymore. Caller must hold the limbo lock
+     */
+    private void reclaimLocked() {
+        if (m_limboSize == 0) {
+            return;
+        }
+
+        long minEpoch = Long.MAX_VALUE;
+        int highest = m_highestThreadId.get();
+
+        for (int i = 0; i <= highest; i++) {
+            long epoch = m_threadEpochs.get(i * PADDING);
+
+            if (epoch != QUIESCENT && epoch < minEpoch) {
+                minEpoch = epoch;
+            }
+        }
+
+        int kept = 0;
+
+        for (int i = 0; i < m_limboSize; i++) {
+            if (m_limboEpochs[i] < minEpoch) {
+                reclaim(m_limboPointers[i], m_limboValues[i], m_limboLids[i]);
+            } else {
+                m_limboEpochs[kept] = m_limboEpochs[i];
+                m_limboPointers[kept] = m_limboPointers[i];
+                m_limboValues[kept] = m_limboValues[i];
+                m_limboLids[kept] = m_limboLids[i];
+                kept++;
+            }
+        }
+
+        m_limboSize = kept;
+    }
+
+    /**
+     * Reclaim a single removed chunk. Caller must hold the limbo lock
+     *
+     * @param p_pointer
+     *         Pointer to the table entry of the chunk
+     * @param p_value
+     *         Value of the table entry before the chunk was removed
+     * @param p_lid
+     *         LID to recycle or -1
+     */
+    private void reclaim(final long p_pointer, final long p_value, final long p_lid) {
+        m_limboEntry.set(p_pointer, p_value);
+
+        if (p_lid != -1 && !m_lidStore.put(p_lid)) {
+            // lid store full, flag as zombie
+            m_cidTable.entryFlagZombie(m_limboEntry);
+        }
+
+        m_heap.free(m_limboEntry);
+    }
+
+    /**
+     * Double the capacity of the limbo list. Caller must hold the limbo lock
+     */
+    private void growLimbo() {
+        int capacity = m_limboEpochs.length * 2;
+
+        long[] epochs = new long[capacity];
+        long[] pointers = new long[capacity];
+        long[] values = new long[capacity];
+        long[] lids = new long[capacity];
+
+        System.arraycopy(m_limboEpochs, 0, epochs, 0, m_limboSize);
+        System.arraycopy(m_limboPointers, 0, pointers, 0, m_limboSize);
+        System.arraycopy(m_limboValues, 0, values, 0, m_limboSize);
+        System.arraycopy(m_limboLids, 0, lids, 0, m_limboSize);
+
+        m_limboEpochs = epochs;
+        m_limboPointers = pointers;
+        m_limboValues = values;
+        m_limboLids = lids;
+    }
+
+    /**
+     * Update the highest ID of all threads which entered an epoch (limits scanning the slots)
+     *
+     * @param p_tid
+     *         ID of the current thread
+     */
+    private void updateHighestThreadId(final int p_tid) {
+        int highest;
+
+        do {
+            highest = m_highestThreadId.get();
+        } while (p_tid > highest && !m_highestThreadId.compareAndSet(highest, p_tid));
+    }
+
+    /**
+     * Get the ID of the current thread
+     *
+     * @return Thread ID
+     */
+    private static int getThreadId() {
+        long tid = Thread.currentThread().getId();
+
+        if (tid >= MAX_THREAD_COUNT) {
+            throw new MemoryRuntimeException("Thread IDs (and probably thread count) exceeding max epoch slots " +
+                    MAX_THREAD_COUNT);
+        }
+
+        return (int) tid;
+    }
+}
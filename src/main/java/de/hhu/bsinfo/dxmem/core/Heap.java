@@ -16,6 +16,8 @@
 
 package de.hhu.bsinfo.dxmem.core;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.concurrent.locks.Lock;
@@ -51,6 +53,16 @@ public final class Heap implements Importable, Exportable {
     // minimum size for a free block to track: 2x length field (min. 1 byte each) after left marker and before
     // right marker + pointer to prev linked block and pointer to next linked block
     private static final int UNTRACKED_FREE_BLOCK_SIZE = 2 * Address.POINTER_SIZE + 2;
+    // striped locks for CAS on unaligned longs and ints crossing an 8 byte boundary (no atomic instruction without
+    // split locks)
+    private static final int CAS_LOCK_STRIPES = 64;
+    private static final Lock[] CAS_LOCKS = new Lock[CAS_LOCK_STRIPES];
+
+    static {
+        for (int i = 0; i < CAS_LOCK_STRIPES; i++) {
+            CAS_LOCKS[i] = new ReentrantLock(false);
+        }
+    }
 
     private final VirtualMemoryBlock m_memory = new VirtualMemoryBlock();
     private final HeapStatus m_status = new HeapStatus();
@@ -144,6 +156,16 @@ public final class Heap implements Importable, Exportable {
         m_memory.free();
     }
 
+    /**
+     * Get the absolute native address of the start of the heap. Heap addresses are relative to this address.
+     * Only for accessors operating on the native memory directly (see RawChunkAccessor)
+     *
+     * @return Base address of the heap
+     */
+    public long getBaseAddress() {
+        return m_memory.getBaseAddress();
+    }
+
     /**
      * Gets the status of the heap
      *
@@ -279,7 +301,7 @@ public final class Heap implements Importable, Exportable {
         if (!multiReserveBlocks(p_entry, p_sizes, p_sizesOffset, p_sizesLength)) {
             // large batch allocation failed, fallback to single malloc calls on failure
 
-            for (int i = 0; i < p_sizes.length; i++) {
+            for (int i = 0; i < p_sizesLength; i++) {
                 if (!reserveBlock(p_sizes[p_sizesOffset + i], p_entry[i], false)) {
                     break;
                 }
@@ -287,7 +309,7 @@ public final class Heap implements Importable, Exportable {
                 successfulAllocs++;
             }
         } else {
-            successfulAllocs = p_sizes.length;
+            successfulAllocs = p_sizesLength;
         }
 
         m_lock.unlock();
@@ -413,6 +435,22 @@ public final class Heap implements Importable, Exportable {
         m_memory.set(p_address + p_offset, p_size, p_value);
     }
 
+    /**
+     * Create a direct ByteBuffer aliasing the payload of a chunk (no copy). The chunk must be pinned as long as the
+     * buffer is used
+     *
+     * @param p_address
+     *         Address of the chunk
+     * @param p_size
+     *         Payload size of the chunk
+     * @return Direct ByteBuffer aliasing the payload
+     */
+    public ByteBuffer wrap(final long p_address, final int p_size) {
+        assert assertMemoryBounds(p_address, 0, p_size);
+
+        return m_memory.wrap(p_address, p_size);
+    }
+
     /**
      * Copy from a source native memory region to the chunk (native) memory region
      *
@@ -436,6 +474,25 @@ public final class Heap implements Importable, Exportable {
         m_memory.copyNative(p_address, p_addressOffset, p_addressSource, p_offset, p_length, p_isAddressSourceAbsolute);
     }
 
+    /**
+     * Copy from the chunk (native) memory region to a target native memory region outside of the heap
+     *
+     * @param p_address
+     *         Address of the chunk
+     * @param p_addressOffset
+     *         Offset in the chunk to start copying at
+     * @param p_addressTarget
+     *         Absolute native memory address to copy to
+     * @param p_length
+     *         Number of bytes to copy
+     */
+    public void copyToNative(final long p_address, final int p_addressOffset, final long p_addressTarget,
+            final int p_length) {
+        assert assertMemoryBounds(p_address, p_addressOffset, p_length);
+
+        m_memory.copyToNative(p_address + p_addressOffset, p_addressTarget, p_length);
+    }
+
     /**
      * Read a single byte from the specified address + offset.
      *
@@ -962,7 +1019,9 @@ public final class Heap implements Importable, Exportable {
     }
 
     /**
-     * Atomic CAS operation on a long value
+     * Atomic CAS operation on a long value. Longs not aligned to 8 bytes can't be swapped atomically without split
+     * locks (or faults on other architectures): these are swapped under a striped lock, i.e. atomic with respect
+     * to other CAS operations on the same long only
      *
      * @param p_address
      *         (Start) address of allocated memory block (taken from table entry)
@@ -977,7 +1036,125 @@ public final class Heap implements Importable, Exportable {
     public boolean casLong(final long p_address, final long p_offset, final long p_expectedData, final long p_newData) {
         assert assertMemoryBounds(p_address, p_offset, Long.BYTES);
 
-        return m_memory.compareAndSwapLong(p_address + p_offset, p_expectedData, p_newData);
+        long ptr = p_address + p_offset;
+
+        if ((ptr & 0x7) == 0) {
+            return m_memory.compareAndSwapLong(ptr, p_expectedData, p_newData);
+        }
+
+        Lock lock = getCasLock(ptr);
+
+        lock.lock();
+
+        try {
+            if (m_memory.readLong(ptr) != p_expectedData) {
+                return false;
+            }
+
+            m_memory.writeLong(ptr, p_newData);
+
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Atomic CAS operation on an int value. Ints aligned to 4 bytes are swapped with a 32-bit CAS, other ones
+     * with a 64-bit CAS on the aligned word containing them. Ints crossing an 8 byte boundary can't be swapped
+     * atomically without split locks (or faults on other architectures): these are swapped under a striped lock,
+     * i.e. atomic with respect to other CAS operations on the same int only
+     *
+     * @param p_address
+     *         (Start) address of allocated memory block (taken from table entry)
+     * @param p_offset
+     *         Offset to add to the address.
+     * @param p_expectedData
+     *         Value expected at the specified location
+     * @param p_newData
+     *         New value to swap if the specified location matches p_expectedData
+     * @return True if successful, false if the expected value is different to p_expectedData
+     */
+    public boolean casInt(final long p_address, final long p_offset, final int p_expectedData, final int p_newData) {
+        assert assertMemoryBounds(p_address, p_offset, Integer.BYTES);
+
+        long ptr = p_address + p_offset;
+
+        if ((ptr & 0x3) == 0) {
+            return m_memory.compareAndSwapInt(ptr, p_expectedData, p_newData);
+        }
+
+        // unaligned: swap the aligned 64-bit word containing the int instead. this fails and retries if the other
+        // half of the word is modified concurrently
+        long word = ptr & ~0x7L;
+
+        if (ptr - word > Long.BYTES - Integer.BYTES || word + Long.BYTES > m_memory.getSize()) {
+            return casIntLocked(ptr, p_expectedData, p_newData);
+        }
+
+        int shift = (int) (ptr - word) * Byte.SIZE;
+
+        if (ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN) {
+            shift = (Long.BYTES - Integer.BYTES) * Byte.SIZE - shift;
+        }
+
+        long mask = 0xFFFFFFFFL << shift;
+
+        while (true) {
+            long current = m_memory.readLong(word);
+
+            if ((int) (current >>> shift) != p_expectedData) {
+                return false;
+            }
+
+            long next = current & ~mask | (p_newData & 0xFFFFFFFFL) << shift;
+
+            if (m_memory.compareAndSwapLong(word, current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * CAS on an int crossing an 8 byte boundary under a striped lock. Only the bytes of the int are written, so
+     * concurrent CAS operations on neighbouring fields sharing a word fail and retry instead of losing updates
+     *
+     * @param p_ptr
+     *         Pointer to the int
+     * @param p_expectedData
+     *         Value expected
+     * @param p_newData
+     *         New value to swap if the int matches p_expectedData
+     * @return True if successful, false if the expected value is different to p_expectedData
+     */
+    private boolean casIntLocked(final long p_ptr, final int p_expectedData, final int p_newData) {
+        Lock lock = getCasLock(p_ptr);
+
+        lock.lock();
+
+        try {
+            if (m_memory.readInt(p_ptr) != p_expectedData) {
+                return false;
+            }
+
+            m_memory.writeInt(p_ptr, p_newData);
+
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the striped lock for CAS operations on unaligned values
+     *
+     * @param p_ptr
+     *         Pointer to the value
+     * @return Lock of the stripe
+     */
+    private static Lock getCasLock(final long p_ptr) {
+        long h = p_ptr * 0x9E3779B97F4A7C15L;
+        return CAS_LOCKS[(int) (h >>> 32) & CAS_LOCK_STRIPES - 1];
     }
 
     @Override
@@ -1359,7 +1536,7 @@ public final class Heap implements Importable, Exportable {
         unhookFreeBlock(address);
         trimFreeBlockToSize(address, bigChunkSize);
 
-        for (int i = 0; i < p_entry.length; i++) {
+        for (int i = 0; i < p_count; i++) {
             blockMarker = (byte) (ALLOC_BLOCK_FLAGS_OFFSET + lengthFieldSize);
 
             writeRightPartOfMarker(address - SIZE_MARKER_BYTE, blockMarker);
@@ -1407,9 +1584,9 @@ public final class Heap implements Importable, Exportable {
 
         // number of marker bytes to separate blocks
         // -1: one marker byte is already part of the free block
-        int bigChunkSize = p_sizes.length - 1;
+        int bigChunkSize = p_sizesLength - 1;
 
-        for (int i = 0; i < p_sizes.length; i++) {
+        for (int i = 0; i < p_sizesLength; i++) {
             bigChunkSize += p_sizes[p_sizesOffset + i];
             bigChunkSize += CIDTableChunkEntry.calculateLengthFieldSizeHeapBlock(p_sizes[p_sizesOffset + i]);
         }
@@ -1424,7 +1601,7 @@ public final class Heap implements Importable, Exportable {
         unhookFreeBlock(address);
         trimFreeBlockToSize(address, bigChunkSize);
 
-        for (int i = 0; i < p_entry.length; i++) {
+        for (int i = 0; i < p_sizesLength; i++) {
             int lengthFieldSize = CIDTableChunkEntry.calculateLengthFieldSizeHeapBlock(p_sizes[p_sizesOffset + i]);
 
             blockMarker = (byte) (ALLOC_BLOCK_FLAGS_OFFSET + lengthFieldSize);
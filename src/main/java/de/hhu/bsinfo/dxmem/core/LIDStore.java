@@ -34,6 +34,7 @@ import de.hhu.bsinfo.dxutils.serialization.ObjectSizeUtil;
  * @author Stefan Nothaas, stefan.nothaas@hhu.de, 31.08.2018
  */
 public final class LIDStore implements Importable, Exportable {
+    // capacity in ranges of free LIDs (16 bytes each)
     private static final int STORE_CAPACITY = 100000;
 
     private SpareLIDStore m_spareLIDStore;
@@ -68,13 +69,24 @@ public final class LIDStore implements Importable, Exportable {
     public LIDStoreStatus getStatus() {
         LIDStoreStatus status = new LIDStoreStatus();
 
-        status.m_currentLIDCounter = m_localIDCounter.get() - 1;
-        status.m_totalFreeLIDs = m_spareLIDStore.m_overallCount;
-        status.m_lidsInStore = m_spareLIDStore.m_count;
+        getStatus(status);
 
         return status;
     }
 
+    /**
+     * Get the status of the LIDStore (no allocations)
+     *
+     * @param p_status
+     *         Status object to write the current status to
+     */
+    public void getStatus(final LIDStoreStatus p_status) {
+        p_status.m_currentLIDCounter = m_localIDCounter.get() - 1;
+        p_status.m_totalFreeLIDs = m_spareLIDStore.m_overallCount;
+        p_status.m_lidsInStore = m_spareLIDStore.m_count;
+        p_status.m_rangesInStore = m_spareLIDStore.m_rangeCount;
+    }
+
     /**
      * Get the currently highest LID used
      *
@@ -93,7 +105,7 @@ public final class LIDStore implements Importable, Exportable {
         long ret;
 
         // try to re-use spare ones first
-        ret = m_spareLIDStore.get();
+        ret = m_spareLIDStore.get(m_localIDCounter.get());
 
         // If no free ID exist, get next local ID
         if (ret == -1) {
@@ -125,7 +137,7 @@ public final class LIDStore implements Importable, Exportable {
         int offset = p_offset;
 
         do {
-            reusedLids = m_spareLIDStore.get(p_lids, offset, p_count - (p_offset - offset));
+            reusedLids = m_spareLIDStore.get(p_lids, offset, p_count - (offset - p_offset), m_localIDCounter.get());
             offset += reusedLids;
         } while (reusedLids > 0 && offset - p_offset < p_count);
 
@@ -216,27 +228,57 @@ public final class LIDStore implements Importable, Exportable {
     }
 
     /**
-     * Store for spare free LIDs
+     * Store for spare free LIDs. Free LIDs are kept as sorted, non-overlapping and non-adjacent ranges
+     * (inclusive start/end pairs) which are merged on put. With this, a single range can represent any number
+     * of consecutive free LIDs (e.g. after deleting large batches of chunks).
+     * LIDs are re-used locality aware: the store prefers LIDs of the leaf (level 0) tables of the CIDTable
+     * with the most live entries and hands out LIDs of a single leaf table in ascending order. This keeps
+     * live chunks concentrated on few tables while nearly empty tables drain.
      * Note: using a lock here because this simplifies synchronization and we can't let
      * multiple threads re-fill the spare lid store when it's empty but there are still
      * zombie entries in the cid table
      */
     public static final class SpareLIDStore implements Importable, Exportable {
+        // version of the export format, exported first. version 1 (no marker) was the ring buffer of single lids
+        private static final int FORMAT_VERSION = 2;
+        // max number of zombies harvested from the cid table on a single refill
+        private static final int REFILL_BATCH_SIZE = 4096;
+        // number of leaf tables selected for draining on a single scan of the ranges
+        private static final int LEAF_QUEUE_SIZE = 32;
+        // max number of ranges scanned to select the leaf tables. Bounds the costs on fragmented stores
+        private static final int MAX_SCAN_RANGES = 4096;
+
         private short m_ownNodeId;
         private CIDTable m_cidTable;
 
-        private long[] m_ringBufferSpareLocalIDs;
-        private int m_getPosition;
-        private int m_putPosition;
-        // available free lid elements stored in ring buffer
-        private int m_count;
-        // This counts the total available lids in the array
+        // start/end pairs of ranges of free lids, sorted ascending. The valid ranges are stored
+        // at range index [m_head, m_head + m_rangeCount) which avoids shifting the array when
+        // handing out lids from the lowest range
+        private long[] m_ranges;
+        private int m_head;
+        private int m_rangeCount;
+        // available free lid elements covered by the stored ranges
+        private long m_count;
+        // This counts the total available lids in the store
         // as well as elements that are still allocated
-        // (because they don't fit into the local array anymore)
+        // (because they don't fit into the store anymore)
         // but not valid -> zombies
         private volatile long m_overallCount;
 
-        private final Lock m_ringBufferLock = new ReentrantLock(false);
+        // leaf tables to drain next, ordered by number of live entries (descending)
+        private final long[] m_leafQueue = new long[LEAF_QUEUE_SIZE];
+        private final long[] m_leafQueueLive = new long[LEAF_QUEUE_SIZE];
+        private int m_leafQueuePos;
+        private int m_leafQueueSize;
+        // candidate with the least live entries if the leaf queue is full
+        private int m_leafQueueMin;
+        // first lid of the next scan if the store holds more ranges than a single scan covers
+        private long m_scanLid;
+
+        private long[] m_refillBuffer;
+        private final long[] m_singleLid = new long[1];
+
+        private final Lock m_lock = new ReentrantLock(false);
 
         /**
          * Constructor for importing from memory dump
@@ -253,14 +295,16 @@ public final class LIDStore implements Importable, Exportable {
          * @param p_cidTable
          *         CIDTable instance
          * @param p_capacity
-         *         Capacity of store
+         *         Capacity of store (number of ranges)
          */
         SpareLIDStore(final short p_ownNodeId, final CIDTable p_cidTable, final int p_capacity) {
+            assert p_capacity >= REFILL_BATCH_SIZE;
+
             m_ownNodeId = p_ownNodeId;
             m_cidTable = p_cidTable;
-            m_ringBufferSpareLocalIDs = new long[p_capacity];
-            m_getPosition = 0;
-            m_putPosition = 0;
+            m_ranges = new long[p_capacity * 2];
+            m_head = 0;
+            m_rangeCount = 0;
             m_count = 0;
 
             m_overallCount = 0;
@@ -269,28 +313,22 @@ public final class LIDStore implements Importable, Exportable {
         /**
          * Get a LID from the store
          *
+         * @param p_lidCounter
+         *         Current state of the LID counter (next LID to be generated), used to determine
+         *         the number of live entries of the leaf tables
          * @return LID or -1 if store is empty and no zombies are available anymore
          */
-        public long get() {
+        public long get(final long p_lidCounter) {
             long ret = -1;
 
             if (m_overallCount > 0) {
-                m_ringBufferLock.lock();
-
-                if (m_count == 0 && m_overallCount > 0) {
-                    // ignore return value
-                    refillStore();
-                }
-
-                if (m_count > 0) {
-                    ret = m_ringBufferSpareLocalIDs[m_getPosition];
+                m_lock.lock();
 
-                    m_getPosition = (m_getPosition + 1) % m_ringBufferSpareLocalIDs.length;
-                    m_count--;
-                    m_overallCount--;
+                if (take(m_singleLid, 0, 1, p_lidCounter) == 1) {
+                    ret = m_singleLid[0];
                 }
 
-                m_ringBufferLock.unlock();
+                m_lock.unlock();
             }
 
             return ret;
@@ -305,9 +343,12 @@ public final class LIDStore implements Importable, Exportable {
          *         Offset to start in Array
          * @param p_count
          *         Number of LIDs to get
+         * @param p_lidCounter
+         *         Current state of the LID counter (next LID to be generated), used to determine
+         *         the number of live entries of the leaf tables
          * @return Number of LIDs returned. If less than p_count, store is empty and no zombies are available anymore
          */
-        public int get(final long[] p_lids, final int p_offset, final int p_count) {
+        public int get(final long[] p_lids, final int p_offset, final int p_count, final long p_lidCounter) {
             assert p_lids != null;
             assert p_offset >= 0;
             assert p_count > 0;
@@ -316,26 +357,11 @@ public final class LIDStore implements Importable, Exportable {
 
             // lids in store or zombie entries in table
             if (m_overallCount > 0) {
-                m_ringBufferLock.lock();
+                m_lock.lock();
 
-                while (counter < p_count && (m_overallCount > 0 || m_count > 0)) {
-                    if (m_count == 0 && m_overallCount > 0) {
-                        // store empty but there are still zombies in the tables
-                        refillStore();
-                    }
-
-                    if (m_count > 0) {
-                        p_lids[p_offset + counter] = m_ringBufferSpareLocalIDs[m_getPosition];
-
-                        m_getPosition = (m_getPosition + 1) % m_ringBufferSpareLocalIDs.length;
-                        m_count--;
-                        m_overallCount--;
-
-                        counter++;
-                    }
-                }
+                counter = take(p_lids, p_offset, p_count, p_lidCounter);
 
-                m_ringBufferLock.unlock();
+                m_lock.unlock();
             }
 
             return counter;
@@ -351,24 +377,413 @@ public final class LIDStore implements Importable, Exportable {
         public boolean put(final long p_lid) {
             boolean ret;
 
-            m_ringBufferLock.lock();
+            m_lock.lock();
+
+            ret = insert(p_lid);
+            m_overallCount++;
+
+            m_lock.unlock();
+
+            return ret;
+        }
+
+        /**
+         * Get the number of ranges currently stored
+         *
+         * @return Number of ranges
+         */
+        int getRangeCount() {
+            return m_rangeCount;
+        }
+
+        /**
+         * Take LIDs from the store following the leaf table order of the leaf queue. Caller must hold the lock
+         *
+         * @param p_lids
+         *         Array to write LIDs to
+         * @param p_offset
+         *         Offset to start in Array
+         * @param p_count
+         *         Number of LIDs to get
+         * @param p_lidCounter
+         *         Current state of the LID counter
+         * @return Number of LIDs taken
+         */
+        private int take(final long[] p_lids, final int p_offset, final int p_count, final long p_lidCounter) {
+            int counter = 0;
+
+            while (counter < p_count) {
+                if (m_count == 0) {
+                    // store empty but there might still be zombies in the tables
+                    if (m_overallCount == 0 || !refillStore()) {
+                        break;
+                    }
+                }
+
+                if (m_leafQueuePos == m_leafQueueSize) {
+                    fillLeafQueue(p_lidCounter);
+                }
+
+                int count = takeFromLeaf(m_leafQueue[m_leafQueuePos], p_lids, p_offset + counter, p_count - counter);
 
-            if (m_count < m_ringBufferSpareLocalIDs.length) {
-                m_ringBufferSpareLocalIDs[m_putPosition] = p_lid;
+                if (count == 0) {
+                    // leaf table drained, continue with next one
+                    m_leafQueuePos++;
+                } else {
+                    m_count -= count;
+                    m_overallCount -= count;
+                    counter += count;
+                }
+            }
+
+            return counter;
+        }
+
+        /**
+         * Scan the ranges and select the leaf tables with the most live entries to drain next. If the store holds
+         * more than MAX_SCAN_RANGES ranges, only a window of ranges is scanned. Consecutive scans continue after
+         * the previous window (wrapping around), i.e. the selection is limited to the window
+         *
+         * @param p_lidCounter
+         *         Current state of the LID counter
+         */
+        private void fillLeafQueue(final long p_lidCounter) {
+            m_leafQueuePos = 0;
+            m_leafQueueSize = 0;
+
+            int first = 0;
+            int scanCount = m_rangeCount;
+
+            if (m_rangeCount > MAX_SCAN_RANGES) {
+                first = findRange(m_scanLid);
+
+                // start with the range containing the lid, if any
+                if (first > 0 && m_ranges[(m_head + first - 1) * 2 + 1] >= m_scanLid) {
+                    first--;
+                } else if (first == m_rangeCount) {
+                    first = 0;
+                }
+
+                scanCount = MAX_SCAN_RANGES;
+            }
+
+            long curLeaf = -1;
+            long curFree = 0;
+
+            for (int n = 0; n < scanCount; n++) {
+                int i = first + n;
+
+                if (i >= m_rangeCount) {
+                    i -= m_rangeCount;
+
+                    // wrapped around, leaf tables are not ascending anymore
+                    if (i == 0 && curLeaf != -1) {
+                        addLeafQueueCandidate(curLeaf, curFree, p_lidCounter);
+                        curLeaf = -1;
+                    }
+                }
+
+                long start = m_ranges[(m_head + i) * 2];
+                long end = m_ranges[(m_head + i) * 2 + 1];
+                long startLeaf = start >> CIDTable.BITS_PER_LID_LEVEL;
+                long endLeaf = end >> CIDTable.BITS_PER_LID_LEVEL;
+
+                if (startLeaf != curLeaf) {
+                    if (curLeaf != -1) {
+                        addLeafQueueCandidate(curLeaf, curFree, p_lidCounter);
+                    }
+
+                    curLeaf = startLeaf;
+                    curFree = 0;
+                }
+
+                if (startLeaf == endLeaf) {
+                    curFree += end - start + 1;
+                } else {
+                    // leaf tables between start and end leaf are completely free and never preferred
+                    // over the partially covered ones at the range boundaries
+                    curFree += (startLeaf + 1 << CIDTable.BITS_PER_LID_LEVEL) - start;
+                    addLeafQueueCandidate(curLeaf, curFree, p_lidCounter);
+
+                    curLeaf = endLeaf;
+                    curFree = end - (endLeaf << CIDTable.BITS_PER_LID_LEVEL) + 1;
+                }
+            }
+
+            if (curLeaf != -1) {
+                addLeafQueueCandidate(curLeaf, curFree, p_lidCounter);
+            }
+
+            if (scanCount < m_rangeCount) {
+                int next = first + scanCount;
+
+                if (next >= m_rangeCount) {
+                    next -= m_rangeCount;
+                }
 
-                m_putPosition = (m_putPosition + 1) % m_ringBufferSpareLocalIDs.length;
+                m_scanLid = m_ranges[(m_head + next) * 2];
+            }
+
+            assert m_leafQueueSize > 0;
+
+            // sort by live entries descending, lower leaf first on equal live entries
+            for (int i = 1; i < m_leafQueueSize; i++) {
+                long leaf = m_leafQueue[i];
+                long live = m_leafQueueLive[i];
+                int j = i - 1;
+
+                while (j >= 0 && (m_leafQueueLive[j] < live || (m_leafQueueLive[j] == live && m_leafQueue[j] > leaf))) {
+                    m_leafQueue[j + 1] = m_leafQueue[j];
+                    m_leafQueueLive[j + 1] = m_leafQueueLive[j];
+                    j--;
+                }
+
+                m_leafQueue[j + 1] = leaf;
+                m_leafQueueLive[j + 1] = live;
+            }
+        }
+
+        /**
+         * Add a leaf table as a candidate to the leaf queue. Replaces the candidate with the least live entries
+         * if the queue is full
+         *
+         * @param p_leaf
+         *         Index of the leaf table (LID without the bits of the leaf level)
+         * @param p_free
+         *         Number of free LIDs of the leaf table in store
+         * @param p_lidCounter
+         *         Current state of the LID counter
+         */
+        private void addLeafQueueCandidate(final long p_leaf, final long p_free, final long p_lidCounter) {
+            long leafStart = p_leaf << CIDTable.BITS_PER_LID_LEVEL;
+            long used = Math.max(0, Math.min(CIDTable.ENTRIES_PER_LID_LEVEL, p_lidCounter - leafStart));
+            long live = Math.max(0, used - p_free);
+
+            if (m_leafQueueSize < LEAF_QUEUE_SIZE) {
+                m_leafQueue[m_leafQueueSize] = p_leaf;
+                m_leafQueueLive[m_leafQueueSize] = live;
+                m_leafQueueSize++;
+
+                if (m_leafQueueSize == LEAF_QUEUE_SIZE) {
+                    updateLeafQueueMin();
+                }
+            } else if (live > m_leafQueueLive[m_leafQueueMin]) {
+                // candidates are added in ascending order, keep lower leaf on equal live entries
+                m_leafQueue[m_leafQueueMin] = p_leaf;
+                m_leafQueueLive[m_leafQueueMin] = live;
+
+                updateLeafQueueMin();
+            }
+        }
+
+        /**
+         * Determine the candidate of the (full) leaf queue with the least live entries
+         */
+        private void updateLeafQueueMin() {
+            int min = 0;
+
+            for (int i = 1; i < LEAF_QUEUE_SIZE; i++) {
+                if (m_leafQueueLive[i] < m_leafQueueLive[min]) {
+                    min = i;
+                }
+            }
+
+            m_leafQueueMin = min;
+        }
+
+        /**
+         * Take consecutive LIDs of a single leaf table (lowest first) out of the ranges
+         *
+         * @param p_leaf
+         *         Index of the leaf table
+         * @param p_lids
+         *         Array to write LIDs to
+         * @param p_offset
+         *         Offset to start in Array
+         * @param p_count
+         *         Max number of LIDs to take
+         * @return Number of LIDs taken, 0 if no LIDs of the leaf table are left
+         */
+        private int takeFromLeaf(final long p_leaf, final long[] p_lids, final int p_offset, final int p_count) {
+            long leafStart = p_leaf << CIDTable.BITS_PER_LID_LEVEL;
+            long leafEnd = leafStart + CIDTable.ENTRIES_PER_LID_LEVEL - 1;
+            int pos = findRange(leafStart);
+
+            if (pos == 0 || m_ranges[(m_head + pos - 1) * 2 + 1] < leafStart) {
+                // no range covering the start of the leaf, take the next one if it's still in the leaf
+                if (pos == m_rangeCount || m_ranges[(m_head + pos) * 2] > leafEnd) {
+                    return 0;
+                }
+            } else {
+                pos--;
+            }
+
+            int idx = (m_head + pos) * 2;
+            long start = m_ranges[idx];
+            long end = m_ranges[idx + 1];
+            long lid = Math.max(start, leafStart);
+            long last = Math.min(Math.min(end, leafEnd), lid + p_count - 1);
+
+            if (lid == start) {
+                if (last == end) {
+                    removeRange(pos);
+                } else {
+                    m_ranges[idx] = last + 1;
+                }
+            } else if (last == end) {
+                m_ranges[idx + 1] = lid - 1;
+            } else if (m_rangeCount < m_ranges.length / 2) {
+                // split range
+                m_ranges[idx + 1] = lid - 1;
+                insertRange(pos + 1, last + 1, end);
+            } else {
+                // store is full and splitting a range is not possible. Take from the end of the leaf instead
+                last = Math.min(end, leafEnd);
+
+                if (last != end) {
+                    // range covers the whole leaf, fall back to the lowest LIDs of the range
+                    lid = start;
+                    last = Math.min(end, start + p_count - 1);
+
+                    if (last == end) {
+                        removeRange(pos);
+                    } else {
+                        m_ranges[idx] = last + 1;
+                    }
+                } else {
+                    lid = Math.max(lid, last - p_count + 1);
+                    m_ranges[idx + 1] = lid - 1;
+                }
+            }
+
+            int count = (int) (last - lid + 1);
+
+            for (int i = 0; i < count; i++) {
+                p_lids[p_offset + i] = lid + i;
+            }
+
+            return count;
+        }
+
+        /**
+         * Insert a single LID into the range array. Merges it with adjacent ranges if possible.
+         * Caller must hold the lock
+         *
+         * @param p_lid
+         *         LID to insert
+         * @return True if inserted, false if a new range is required but the store is full
+         */
+        private boolean insert(final long p_lid) {
+            int pos = findRange(p_lid);
+
+            // append to the range below
+            if (pos > 0) {
+                int prev = (m_head + pos - 1) * 2;
+
+                assert m_ranges[prev + 1] < p_lid : "LID " + p_lid + " already in store";
+
+                if (m_ranges[prev + 1] + 1 == p_lid) {
+                    m_ranges[prev + 1] = p_lid;
+
+                    // closes the gap to the range above
+                    if (pos < m_rangeCount && m_ranges[(m_head + pos) * 2] == p_lid + 1) {
+                        m_ranges[prev + 1] = m_ranges[(m_head + pos) * 2 + 1];
+                        removeRange(pos);
+                    }
+
+                    m_count++;
+                    return true;
+                }
+            }
+
+            // prepend to the range above
+            if (pos < m_rangeCount && m_ranges[(m_head + pos) * 2] == p_lid + 1) {
+                m_ranges[(m_head + pos) * 2] = p_lid;
                 m_count++;
+                return true;
+            }
+
+            if (m_rangeCount == m_ranges.length / 2) {
+                return false;
+            }
+
+            insertRange(pos, p_lid, p_lid);
+            m_count++;
+
+            return true;
+        }
 
-                ret = true;
+        /**
+         * Binary search for the first range with a start greater than the LID specified
+         *
+         * @param p_lid
+         *         LID to search for
+         * @return Position relative to m_head
+         */
+        private int findRange(final long p_lid) {
+            int low = 0;
+            int high = m_rangeCount;
+
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+
+                if (m_ranges[(m_head + mid) * 2] <= p_lid) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+
+            return low;
+        }
+
+        /**
+         * Insert a new range. The store must not be full
+         *
+         * @param p_pos
+         *         Position relative to m_head to insert the range at
+         * @param p_start
+         *         First LID of the range
+         * @param p_end
+         *         Last LID of the range (inclusive)
+         */
+        private void insertRange(final int p_pos, final long p_start, final long p_end) {
+            if (p_pos == 0 && m_head > 0) {
+                m_head--;
+            } else if (m_head + m_rangeCount < m_ranges.length / 2) {
+                // move ranges above up
+                System.arraycopy(m_ranges, (m_head + p_pos) * 2, m_ranges, (m_head + p_pos + 1) * 2,
+                        (m_rangeCount - p_pos) * 2);
             } else {
-                ret = false;
+                // no space at the end, move ranges below down
+                System.arraycopy(m_ranges, m_head * 2, m_ranges, (m_head - 1) * 2, p_pos * 2);
+                m_head--;
             }
 
-            m_overallCount++;
+            m_ranges[(m_head + p_pos) * 2] = p_start;
+            m_ranges[(m_head + p_pos) * 2 + 1] = p_end;
+            m_rangeCount++;
+        }
 
-            m_ringBufferLock.unlock();
+        /**
+         * Remove a range
+         *
+         * @param p_pos
+         *         Position relative to m_head of the range to remove
+         */
+        private void removeRange(final int p_pos) {
+            if (p_pos == 0) {
+                m_head++;
+            } else {
+                System.arraycopy(m_ranges, (m_head + p_pos + 1) * 2, m_ranges, (m_head + p_pos) * 2,
+                        (m_rangeCount - p_pos - 1) * 2);
+            }
 
-            return ret;
+            m_rangeCount--;
+
+            if (m_rangeCount == 0) {
+                m_head = 0;
+            }
         }
 
         /**
@@ -377,31 +792,58 @@ public final class LIDStore implements Importable, Exportable {
          * @return True if zombie entries were found, false if none were found
          */
         private boolean refillStore() {
-            return m_cidTable.getAndEliminateZombies(m_ownNodeId, m_ringBufferSpareLocalIDs, m_putPosition,
-                    m_ringBufferSpareLocalIDs.length - m_count) > 0;
+            if (m_refillBuffer == null) {
+                m_refillBuffer = new long[REFILL_BATCH_SIZE];
+            }
+
+            int count = m_cidTable.getAndEliminateZombies(m_ownNodeId, m_refillBuffer, 0, m_refillBuffer.length);
+
+            for (int i = 0; i < count; i++) {
+                // store is empty when refilling and the zombies are already removed from the table
+                if (!insert(m_refillBuffer[i])) {
+                    throw new IllegalStateException("Refilling spare lid store exceeded capacity");
+                }
+            }
+
+            // leaf queue is outdated
+            m_leafQueuePos = 0;
+            m_leafQueueSize = 0;
+
+            return count > 0;
         }
 
         @Override
         public void exportObject(final Exporter p_exporter) {
-            p_exporter.writeLongArray(m_ringBufferSpareLocalIDs);
-            p_exporter.writeInt(m_getPosition);
-            p_exporter.writeInt(m_putPosition);
-            p_exporter.writeInt(m_count);
+            p_exporter.writeInt(FORMAT_VERSION);
+            p_exporter.writeLongArray(m_ranges);
+            p_exporter.writeInt(m_head);
+            p_exporter.writeInt(m_rangeCount);
+            p_exporter.writeLong(m_count);
             p_exporter.writeLong(m_overallCount);
         }
 
         @Override
         public void importObject(final Importer p_importer) {
-            m_ringBufferSpareLocalIDs = p_importer.readLongArray(m_ringBufferSpareLocalIDs);
-            m_getPosition = p_importer.readInt(m_getPosition);
-            m_putPosition = p_importer.readInt(m_putPosition);
-            m_count = p_importer.readInt(m_count);
+            int version = p_importer.readInt(0);
+
+            if (version != FORMAT_VERSION) {
+                throw new MemoryRuntimeException("Unsupported format version of spare LID store: " + version);
+            }
+
+            m_ranges = p_importer.readLongArray(m_ranges);
+            m_head = p_importer.readInt(m_head);
+            m_rangeCount = p_importer.readInt(m_rangeCount);
+            m_count = p_importer.readLong(m_count);
             m_overallCount = p_importer.readLong(m_overallCount);
+
+            m_leafQueuePos = 0;
+            m_leafQueueSize = 0;
+            m_scanLid = 0;
         }
 
         @Override
         public int sizeofObject() {
-            return ObjectSizeUtil.sizeofLongArray(m_ringBufferSpareLocalIDs) + Integer.BYTES * 3 + Long.BYTES;
+            return Integer.BYTES + ObjectSizeUtil.sizeofLongArray(m_ranges) + Integer.BYTES * 2 + Long.BYTES * 2;
         }
     }
 }
@@ -29,7 +29,8 @@ import de.hhu.bsinfo.dxutils.serialization.Importer;
 public class LIDStoreStatus implements Importable, Exportable {
     long m_currentLIDCounter;
     long m_totalFreeLIDs;
-    int m_lidsInStore;
+    long m_lidsInStore;
+    int m_rangesInStore;
 
     /**
      * Get the current state of the LID counter
@@ -52,34 +53,58 @@ public class LIDStoreStatus implements Importable, Exportable {
     /**
      * Get the total number of LIDs in store
      *
-     * @return Total number of LIDs in store
+     * @return Total number of LIDs in store (Integer.MAX_VALUE if the number exceeds the int range, see
+     *         getTotalLIDsInStoreLong)
      */
     public int getTotalLIDsInStore() {
+        return (int) Math.min(m_lidsInStore, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Get the total number of LIDs in store. The ranges in store can hold more LIDs than the int range
+     *
+     * @return Total number of LIDs in store
+     */
+    public long getTotalLIDsInStoreLong() {
         return m_lidsInStore;
     }
 
+    /**
+     * Get the number of ranges the LIDs in store are compressed to
+     *
+     * @return Number of LID ranges in store
+     */
+    public int getTotalRangesInStore() {
+        return m_rangesInStore;
+    }
+
     @Override
     public String toString() {
         return "Status[m_currentLIDCounter " + m_currentLIDCounter + ", m_totalFreeLIDs " + m_totalFreeLIDs +
-                ", m_lidsInStore " + m_lidsInStore + ']';
+                ", m_lidsInStore " + m_lidsInStore + ", m_rangesInStore " + m_rangesInStore + ']';
     }
 
     @Override
     public void exportObject(final Exporter p_exporter) {
         p_exporter.writeLong(m_currentLIDCounter);
         p_exporter.writeLong(m_totalFreeLIDs);
-        p_exporter.writeInt(m_lidsInStore);
+        // keep the fields of the previous format in place, the exact count and the ranges are appended
+        p_exporter.writeInt(getTotalLIDsInStore());
+        p_exporter.writeLong(m_lidsInStore);
+        p_exporter.writeInt(m_rangesInStore);
     }
 
     @Override
     public void importObject(final Importer p_importer) {
         m_currentLIDCounter = p_importer.readLong(m_currentLIDCounter);
         m_totalFreeLIDs = p_importer.readLong(m_totalFreeLIDs);
-        m_lidsInStore = p_importer.readInt(m_lidsInStore);
+        p_importer.readInt(0);
+        m_lidsInStore = p_importer.readLong(m_lidsInStore);
+        m_rangesInStore = p_importer.readInt(m_rangesInStore);
     }
 
     @Override
     public int sizeofObject() {
-        return Long.BYTES * 2 + Integer.BYTES;
+        return Long.BYTES * 3 + Integer.BYTES * 2;
     }
 }
@@ -0,0 +1,268 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxmem.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sampling profiler for contended chunk locks. Lock acquisitions which had to wait (retry) are sampled and the
+ * time spent waiting is accounted to the chunk. The hottest chunks are kept in a fixed number of counters using the
+ * space-saving algorithm, i.e. the memory used and the cost per sample are bounded regardless of the number of
+ * contended chunks. Samples are dropped instead of waiting if another thread is updating the counters.
+ * Chunks are tracked by the pointers to their table entries and resolved to CIDs when the status is requested.
+ */
+public final class LockContentionProfiler {
+    private static final int MAX_THREAD_COUNT = 1024;
+    private static final int COUNTERS = 64;
+    private static final int DEFAULT_SAMPLE_RATE = 16;
+
+    private final CIDTable m_cidTable;
+
+    private volatile boolean m_enabled;
+    private volatile int m_sampleRate = DEFAULT_SAMPLE_RATE;
+
+    // per thread state, only accessed by the owning thread
+    private final int[] m_threadContentions = new int[MAX_THREAD_COUNT];
+    private final long[] m_threadWaitStarts = new long[MAX_THREAD_COUNT];
+
+    private final ReentrantLock m_lock = new ReentrantLock(false);
+    private final long[] m_pointers = new long[COUNTERS];
+    private final long[] m_waitTimes = new long[COUNTERS];
+    private final long[] m_errors = new long[COUNTERS];
+    private final long[] m_counts = new long[COUNTERS];
+    private int m_size;
+    private long m_samples;
+    // not guarded by the lock
+    private final AtomicLong m_droppedSamples = new AtomicLong(0);
+
+    /**
+     * Constructor
+     *
+     * @param p_cidTable
+     *         CIDTable to resolve the CIDs of the chunks tracked
+     */
+    LockContentionProfiler(final CIDTable p_cidTable) {
+        m_cidTable = p_cidTable;
+    }
+
+    /**
+     * Check if the profiler is enabled
+     *
+     * @return True if enabled
+     */
+    public boolean isEnabled() {
+        return m_enabled;
+    }
+
+    /**
+     * Enable or disable the profiler. Disabling keeps the data recorded
+     *
+     * @param p_enabled
+     *         True to enable, false to disable
+     */
+    public void setEnabled(final boolean p_enabled) {
+        m_enabled = p_enabled;
+    }
+
+    /**
+     * Get the sample rate
+     *
+     * @return Every n-th contended lock acquisition of a thread is sampled
+     */
+    public int getSampleRate() {
+        return m_sampleRate;
+    }
+
+    /**
+     * Set the sample rate
+     *
+     * @param p_sampleRate
+     *         Sample every n-th contended lock acquisition of a thread (1 to sample all)
+     */
+    public void setSampleRate(final int p_sampleRate) {
+        if (p_sampleRate < 1) {
+            throw new IllegalArgumentException("Invalid sample rate " + p_sampleRate);
+        }
+
+        m_sampleRate = p_sampleRate;
+    }
+
+    /**
+     * Clear all data recorded
+     */
+    public void reset() {
+        m_lock.lock();
+
+        m_size = 0;
+        m_samples = 0;
+        m_droppedSamples.set(0);
+
+        m_lock.unlock();
+    }
+
+    /**
+     * Get the status with the hottest chunks recorded
+     *
+     * @return LockContentionStatus with the chunks ordered by wait time (descending)
+     */
+    public LockContentionStatus getStatus() {
+        m_lock.lock();
+
+        int size = m_size;
+        long[] pointers = new long[size];
+        long[] waitTimes = new long[size];
+        long[] errors = new long[size];
+        long[] counts = new long[size];
+
+        System.arraycopy(m_pointers, 0, pointers, 0, size);
+        System.arraycopy(m_waitTimes, 0, waitTimes, 0, size);
+        System.arraycopy(m_errors, 0, errors, 0, size);
+        System.arraycopy(m_counts, 0, counts, 0, size);
+
+        LockContentionStatus status = new LockContentionStatus(size, m_samples, m_droppedSamples.get());
+
+        m_lock.unlock();
+
+        // few elements, simple selection sort by wait time
+        for (int i = 0; i < size; i++) {
+            int max = i;
+
+            for (int j = i + 1; j < size; j++) {
+                if (waitTimes[j] > waitTimes[max]) {
+                    max = j;
+                }
+            }
+
+            swap(pointers, i, max);
+            swap(waitTimes, i, max);
+            swap(errors, i, max);
+            swap(counts, i, max);
+
+            // resolving is expensive (table scan) but only executed on request. chunks removed in the meantime
+            // resolve to an invalid cid
+            status.m_cids[i] = m_cidTable.getCIDOfEntryPointer(pointers[i]);
+            status.m_waitTimesNs[i] = waitTimes[i];
+            status.m_errorsNs[i] = errors[i];
+            status.m_counts[i] = counts[i];
+        }
+
+        return status;
+    }
+
+    /**
+     * The current thread has to wait for a lock. Call on the first retry of a lock acquisition (contended path
+     * only, the uncontended path is not touched by the profiler)
+     */
+    void waitStarted() {
+        long tid = Thread.currentThread().getId();
+
+        if (tid >= MAX_THREAD_COUNT) {
+            return;
+        }
+
+        // always reset the start time to not record stale samples if the profiler was toggled while waiting
+        if (m_enabled && ++m_threadContentions[(int) tid] % m_sampleRate == 0) {
+            m_threadWaitStarts[(int) tid] = System.nanoTime();
+        } else {
+            m_threadWaitStarts[(int) tid] = 0;
+        }
+    }
+
+    /**
+     * The current thread finished waiting for a lock (acquired or timeout)
+     *
+     * @param p_pointer
+     *         Pointer of the table entry of the chunk
+     */
+    void waitFinished(final long p_pointer) {
+        long tid = Thread.currentThread().getId();
+
+        if (tid >= MAX_THREAD_COUNT || m_threadWaitStarts[(int) tid] == 0) {
+            return;
+        }
+
+        long waitTime = System.nanoTime() - m_threadWaitStarts[(int) tid];
+        m_threadWaitStarts[(int) tid] = 0;
+
+        // don't wait for other threads recording
+        if (!m_lock.tryLock()) {
+            m_droppedSamples.incrementAndGet();
+            return;
+        }
+
+        record(p_pointer, waitTime);
+
+        m_lock.unlock();
+    }
+
+    /**
+     * Record a sample (space-saving algorithm). Caller must hold the lock
+     *
+     * @param p_pointer
+     *         Pointer of the table entry of the chunk
+     * @param p_waitTime
+     *         Time waited in ns
+     */
+    private void record(final long p_pointer, final long p_waitTime) {
+        m_samples++;
+
+        int min = 0;
+
+        for (int i = 0; i < m_size; i++) {
+            if (m_pointers[i] == p_pointer) {
+                m_waitTimes[i] += p_waitTime;
+                m_counts[i]++;
+                return;
+            }
+
+            if (m_waitTimes[i] < m_waitTimes[min]) {
+                min = i;
+            }
+        }
+
+        if (m_size < COUNTERS) {
+            m_pointers[m_size] = p_pointer;
+            m_waitTimes[m_size] = p_waitTime;
+            m_errors[m_size] = 0;
+            m_counts[m_size] = 1;
+            m_size++;
+        } else {
+            // replace the counter with the least wait time, the new chunk inherits the wait time as error
+            m_pointers[min] = p_pointer;
+            m_errors[min] = m_waitTimes[min];
+            m_waitTimes[min] += p_waitTime;
+            m_counts[min] = 1;
+        }
+    }
+
+    /**
+     * Swap two elements of an array
+     *
+     * @param p_array
+     *         Array
+     * @param p_i
+     *         Index of first element
+     * @param p_j
+     *         Index of second element
+     */
+    private static void swap(final long[] p_array, final int p_i, final int p_j) {
+        long tmp = p_array[p_i];
+        p_array[p_i] = p_array[p_j];
+        p_array[p_j] = tmp;
+    }
+}
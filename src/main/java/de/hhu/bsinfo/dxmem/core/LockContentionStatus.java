@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxmem.core;
+
+import de.hhu.bsinfo.dxmem.data.ChunkID;
+
+/**
+ * Status object for the LockContentionProfiler: the chunks with the highest (sampled) lock wait times
+ */
+public class LockContentionStatus {
+    final long[] m_cids;
+    final long[] m_waitTimesNs;
+    final long[] m_errorsNs;
+    final long[] m_counts;
+    private final long m_samples;
+    private final long m_droppedSamples;
+
+    /**
+     * Constructor
+     *
+     * @param p_size
+     *         Number of chunks
+     * @param p_samples
+     *         Total number of samples recorded
+     * @param p_droppedSamples
+     *         Number of samples dropped due to concurrent recording
+     */
+    LockContentionStatus(final int p_size, final long p_samples, final long p_droppedSamples) {
+        m_cids = new long[p_size];
+        m_waitTimesNs = new long[p_size];
+        m_errorsNs = new long[p_size];
+        m_counts = new long[p_size];
+        m_samples = p_samples;
+        m_droppedSamples = p_droppedSamples;
+    }
+
+    /**
+     * Get the number of chunks
+     *
+     * @return Number of chunks
+     */
+    public int size() {
+        return m_cids.length;
+    }
+
+    /**
+     * Get the CID of a chunk
+     *
+     * @param p_index
+     *         Index of the chunk (0 = hottest)
+     * @return CID or ChunkID.INVALID_ID if the chunk was removed
+     */
+    public long getCID(final int p_index) {
+        return m_cids[p_index];
+    }
+
+    /**
+     * Get the (sampled) time waited for the lock of a chunk
+     *
+     * @param p_index
+     *         Index of the chunk (0 = hottest)
+     * @return Wait time in ns (might be overestimated by up to the error)
+     */
+    public long getWaitTime(final int p_index) {
+        return m_waitTimesNs[p_index];
+    }
+
+    /**
+     * Get the max overestimation of the wait time of a chunk
+     *
+     * @param p_index
+     *         Index of the chunk (0 = hottest)
+     * @return Error in ns
+     */
+    public long getWaitTimeError(final int p_index) {
+        return m_errorsNs[p_index];
+    }
+
+    /**
+     * Get the number of samples of a chunk
+     *
+     * @param p_index
+     *         Index of the chunk (0 = hottest)
+     * @return Number of samples
+     */
+    public long getCount(final int p_index) {
+        return m_counts[p_index];
+    }
+
+    /**
+     * Get the total number of samples recorded
+     *
+     * @return Number of samples
+     */
+    public long getTotalSamples() {
+        return m_samples;
+    }
+
+    /**
+     * Get the number of samples dropped
+     *
+     * @return Number of samples dropped
+     */
+    public long getDroppedSamples() {
+        return m_droppedSamples;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+
+        builder.append("Status[m_samples ");
+        builder.append(m_samples);
+        builder.append(", m_droppedSamples ");
+        builder.append(m_droppedSamples);
+        builder.append(']');
+
+        for (int i = 0; i < m_cids.length; i++) {
+            builder.append("\n");
+            builder.append(ChunkID.toHexString(m_cids[i]));
+            builder.append(": waitTime ");
+            builder.append(m_waitTimesNs[i]);
+            builder.append(" ns (+-");
+            builder.append(m_errorsNs[i]);
+            builder.append("), samples ");
+            builder.append(m_counts[i]);
+        }
+
+        return builder.toString();
+    }
+}
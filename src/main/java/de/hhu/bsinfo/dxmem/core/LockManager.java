@@ -9,7 +9,8 @@ import de.hhu.bsinfo.dxutils.stats.StatisticsManager;
 import de.hhu.bsinfo.dxutils.stats.ValuePool;
 
 /**
- * LockManager handling locking for chunks in CIDTable
+ * LockManager handling locking for chunks in CIDTable. Threads waiting for a lock spin for a few retries and are
+ * parked in a wait queue afterwards until the lock is released
  *
  * @author Stefan Nothaas, stefan.nothaas@hhu.de, 11.12.2018
  */
@@ -28,6 +29,14 @@ public final class LockManager {
     private static final ValuePool SOP_SWAP_READ_LOCK_REQS = new ValuePool(DXMem.class, "SwapReadLockReqs");
     private static final ValuePool SOP_SWAP_READ_LOCK_RETRIES = new ValuePool(DXMem.class, "SwapReadLockRetries");
     private static final ValuePool SOP_SWAP_READ_LOCK_TIMEOUTS = new ValuePool(DXMem.class, "SwapReadLockTimeouts");
+    private static final ValuePool SOP_LOCK_PARKS = new ValuePool(DXMem.class, "LockParks");
+    private static final ValuePool SOP_READ_LOCK_OVERFLOWS = new ValuePool(DXMem.class, "ReadLockOverflows");
+
+    // number of retries with yielding the thread before parking it
+    private static final int SPIN_RETRIES = 64;
+    // upper bound for a single park, e.g. to notice chunks removed while waiting
+    private static final long MAX_PARK_TIME_NS = 1000 * 1000;
+    private static final LockWaitQueues WAIT_QUEUES = new LockWaitQueues(1024);
 
     static {
         StatisticsManager.get().registerOperation(DXMem.class, SOP_READ_LOCK_REQS);
@@ -42,6 +51,8 @@ public final class LockManager {
         StatisticsManager.get().registerOperation(DXMem.class, SOP_SWAP_READ_LOCK_REQS);
         StatisticsManager.get().registerOperation(DXMem.class, SOP_SWAP_READ_LOCK_RETRIES);
         StatisticsManager.get().registerOperation(DXMem.class, SOP_SWAP_READ_LOCK_TIMEOUTS);
+        StatisticsManager.get().registerOperation(DXMem.class, SOP_LOCK_PARKS);
+        StatisticsManager.get().registerOperation(DXMem.class, SOP_READ_LOCK_OVERFLOWS);
     }
 
     /**
@@ -164,6 +175,79 @@ public final class LockManager {
         }
     }
 
+    /**
+     * Wake up threads waiting for a lock of a chunk. Call this if a chunk is removed (or its lock state is changed
+     * by other means than the lock operations of this class)
+     *
+     * @param p_entry
+     *         Chunk entry of CIDTable
+     */
+    public static void wakeUpWaiters(final CIDTableChunkEntry p_entry) {
+        WAIT_QUEUES.wakeUp(p_entry);
+    }
+
+    /**
+     * Start an optimistic read of a chunk (without acquiring a lock). Re-reads the entry to get the current
+     * address of the chunk. The caller has to check if the (re-read) entry is still valid.
+     * After reading the chunk's data, the read must be validated using validateOptimisticRead
+     *
+     * @param p_cidTable
+     *         CIDTable instance
+     * @param p_entry
+     *         Chunk entry of CIDTable to read
+     * @return Stamp to validate the read with or -1 if the write lock of the chunk is acquired
+     */
+    public static long tryOptimisticRead(final CIDTable p_cidTable, final CIDTableChunkEntry p_entry) {
+        // get the version before the entry to detect write locks acquired after re-reading the entry
+        long version = p_cidTable.getVersionTable().get(p_entry.getPointer());
+
+        p_cidTable.entryReread(p_entry);
+
+        if (p_entry.isWriteLockAcquired()) {
+            return -1;
+        }
+
+        return version;
+    }
+
+    /**
+     * Validate an optimistic read of a chunk
+     *
+     * @param p_cidTable
+     *         CIDTable instance
+     * @param p_entry
+     *         Chunk entry of CIDTable read
+     * @param p_stamp
+     *         Stamp returned by tryOptimisticRead
+     * @return True if the data read is consistent, false if the chunk's write lock was acquired in the meantime
+     */
+    public static boolean validateOptimisticRead(final CIDTable p_cidTable, final CIDTableChunkEntry p_entry,
+            final long p_stamp) {
+        return p_stamp != -1 && p_cidTable.getVersionTable().validate(p_entry.getPointer(), p_stamp);
+    }
+
+    /**
+     * Validate an optimistic read of a chunk with write locks acquired by the current thread after the read, e.g.
+     * to validate the reads of a transaction when committing its writes
+     *
+     * @param p_cidTable
+     *         CIDTable instance
+     * @param p_pointer
+     *         Pointer of the table entry of the chunk read
+     * @param p_stamp
+     *         Stamp returned by tryOptimisticRead
+     * @param p_ownWriteLocks
+     *         Pointers of the table entries of the chunks write locked by the current thread after the read
+     * @param p_ownWriteLockCount
+     *         Number of pointers in p_ownWriteLocks
+     * @return True if the data read is still consistent, false if another thread acquired the chunk's write lock
+     */
+    public static boolean validateOptimisticRead(final CIDTable p_cidTable, final long p_pointer, final long p_stamp,
+            final long[] p_ownWriteLocks, final int p_ownWriteLockCount) {
+        return p_stamp != -1 &&
+                p_cidTable.getVersionTable().validate(p_pointer, p_stamp, p_ownWriteLocks, p_ownWriteLockCount);
+    }
+
     /**
      * Acquire a read lock to a chunk
      * This call might also re-read the entry if acquiring the lock did not succeed on the first try
@@ -203,33 +287,40 @@ public final class LockManager {
                     if (p_cidTable.entryAtomicUpdate(p_entry)) {
                         if (retries > 0) {
                             SOP_READ_LOCK_RETRIES.add(retries);
+                            p_cidTable.getLockContentionProfiler().waitFinished(p_entry.getPointer());
                         }
 
                         return LockStatus.OK;
                     }
                 } else {
-                    // log once to avoid flooding the log on retries
-                    if (retries == 0) {
-                        LOGGER.warn("Max number of read locks already acquired for %s", p_entry);
+                    // embedded read lock counter saturated, register read lock in side table
+                    if (acquireOverflowReadLock(p_cidTable, p_entry)) {
+                        if (retries > 0) {
+                            SOP_READ_LOCK_RETRIES.add(retries);
+                            p_cidTable.getLockContentionProfiler().waitFinished(p_entry.getPointer());
+                        }
+
+                        return LockStatus.OK;
                     }
                 }
-                // else: no locks available because too many readers active, we have to wait
             }
             // else: write lock acquired, don't enter until released
 
             if (p_retryTimeoutMs >= 0) {
-                if (p_retryTimeoutMs == 0 || System.nanoTime() - startTime >= p_retryTimeoutMs * 1000 * 1000) {
+                if (p_retryTimeoutMs == 0 || System.nanoTime() - startTime >= p_retryTimeoutMs * 1000L * 1000) {
                     // return with current state
                     p_cidTable.entryReread(p_entry);
                     SOP_READ_LOCK_TIMEOUTS.inc();
+
+                    if (retries > 0) {
+                        p_cidTable.getLockContentionProfiler().waitFinished(p_entry.getPointer());
+                    }
+
                     return LockStatus.TIMEOUT;
                 }
             }
 
-            Thread.yield();
-            retries++;
-
-            p_cidTable.entryReread(p_entry);
+            waitForLockChange(p_cidTable, p_entry, retries++, startTime, p_retryTimeoutMs);
         }
     }
 
@@ -253,6 +344,12 @@ public final class LockManager {
             // write lock might be acquired: writer thread blocks all further reader threads and waits for
             // current readers in critical section to exit
             if (!p_entry.areReadLocksAcquired()) {
+                // read locks are anonymous: if the embedded counter is drained, the remaining read locks are
+                // registered in the side table
+                if (p_cidTable.getReadLockOverflow().decrement(p_entry.getPointer())) {
+                    break;
+                }
+
                 throw new IllegalStateException("Releasing read lock with no read locks acquired for " + p_entry);
             }
 
@@ -266,6 +363,8 @@ public final class LockManager {
             Thread.yield();
             p_cidTable.entryReread(p_entry);
         }
+
+        WAIT_QUEUES.wakeUp(p_entry);
     }
 
     /**
@@ -304,12 +403,17 @@ public final class LockManager {
             if (p_entry.acquireWriteLock()) {
                 // try to persist state
                 if (p_cidTable.entryAtomicUpdate(p_entry)) {
+                    p_entry.currentStateInitialState();
+
+                    // invalidate optimistic reads in progress
+                    p_cidTable.getVersionTable().increment(p_entry.getPointer());
+
                     // now, wait for all readers to exit the section
 
-                    while (p_entry.areReadLocksAcquired()) {
+                    while (areReadLocksAcquired(p_cidTable, p_entry)) {
                         if (p_retryTimeoutMs >= 0) {
                             if (p_retryTimeoutMs == 0 || System.nanoTime() - startTime >=
-                                    p_retryTimeoutMs * 1000 * 1000) {
+                                    p_retryTimeoutMs * 1000L * 1000) {
                                 // reset reserved write lock flag
                                 p_entry.releaseWriteLock();
                                 assert !p_entry.isWriteLockAcquired();
@@ -319,25 +423,32 @@ public final class LockManager {
                                     Thread.yield();
                                     p_cidTable.entryReread(p_entry);
 
-                                    assert !p_entry.isWriteLockAcquired();
+                                    assert p_entry.isWriteLockAcquired();
 
                                     p_entry.releaseWriteLock();
                                 }
 
+                                // readers blocked by the reserved write lock can enter now
+                                WAIT_QUEUES.wakeUp(p_entry);
+
                                 // return with current state
                                 p_cidTable.entryReread(p_entry);
                                 SOP_WRITE_LOCK_TIMEOUTS.inc();
+
+                                if (retries > 0) {
+                                    p_cidTable.getLockContentionProfiler().waitFinished(p_entry.getPointer());
+                                }
+
                                 return LockStatus.TIMEOUT;
                             }
                         }
 
-                        Thread.yield();
-                        retries++;
-                        p_cidTable.entryReread(p_entry);
+                        waitForLockChange(p_cidTable, p_entry, retries++, startTime, p_retryTimeoutMs);
                     }
 
                     if (retries > 0) {
                         SOP_WRITE_LOCK_RETRIES.add(retries);
+                        p_cidTable.getLockContentionProfiler().waitFinished(p_entry.getPointer());
                     }
 
                     // write locked with no readers in section
@@ -347,16 +458,19 @@ public final class LockManager {
             // else: write lock already acquired
 
             if (p_retryTimeoutMs >= 0) {
-                if (p_retryTimeoutMs == 0 || System.nanoTime() - startTime >= p_retryTimeoutMs * 1000 * 1000) {
+                if (p_retryTimeoutMs == 0 || System.nanoTime() - startTime >= p_retryTimeoutMs * 1000L * 1000) {
                     // return with current state
                     p_cidTable.entryReread(p_entry);
+
+                    if (retries > 0) {
+                        p_cidTable.getLockContentionProfiler().waitFinished(p_entry.getPointer());
+                    }
+
                     return LockStatus.TIMEOUT;
                 }
             }
 
-            Thread.yield();
-            retries++;
-            p_cidTable.entryReread(p_entry);
+            waitForLockChange(p_cidTable, p_entry, retries++, startTime, p_retryTimeoutMs);
         }
     }
 
@@ -393,6 +507,8 @@ public final class LockManager {
             Thread.yield();
             p_cidTable.entryReread(p_entry);
         }
+
+        WAIT_QUEUES.wakeUp(p_entry);
     }
 
     /**
@@ -438,8 +554,12 @@ public final class LockManager {
                 if (p_cidTable.entryAtomicUpdate(p_entry)) {
                     if (retries > 0) {
                         SOP_SWAP_WRITE_LOCK_RETRIES.add(retries);
+                        p_cidTable.getLockContentionProfiler().waitFinished(p_entry.getPointer());
                     }
 
+                    // other readers can enter now
+                    WAIT_QUEUES.wakeUp(p_entry);
+
                     return LockStatus.OK;
                 }
             } else {
@@ -451,18 +571,20 @@ public final class LockManager {
             // else: no locks available because too many readers active, we have to wait
 
             if (p_retryTimeoutMs >= 0) {
-                if (p_retryTimeoutMs == 0 || System.nanoTime() - startTime >= p_retryTimeoutMs * 1000 * 1000) {
+                if (p_retryTimeoutMs == 0 || System.nanoTime() - startTime >= p_retryTimeoutMs * 1000L * 1000) {
                     // return with current state
                     p_cidTable.entryReread(p_entry);
                     SOP_SWAP_WRITE_LOCK_TIMEOUTS.inc();
+
+                    if (retries > 0) {
+                        p_cidTable.getLockContentionProfiler().waitFinished(p_entry.getPointer());
+                    }
+
                     return LockStatus.TIMEOUT;
                 }
             }
 
-            Thread.yield();
-            retries++;
-
-            p_cidTable.entryReread(p_entry);
+            waitForLockChange(p_cidTable, p_entry, retries++, startTime, p_retryTimeoutMs);
         }
     }
 
@@ -502,28 +624,7 @@ public final class LockManager {
         // instead of a true atomic lock swap
 
         // release read lock, first
-        while (true) {
-            // invalid state, chunk was deleted but a lock was still acquired
-            if (!p_entry.isValid()) {
-                throw new IllegalStateException("Release read lock of deleted chunk " + p_entry);
-            }
-
-            // write lock might be acquired: writer thread blocks all further reader threads and waits for
-            // current readers in critical section to exit
-            if (!p_entry.areReadLocksAcquired()) {
-                throw new IllegalStateException("Releasing read lock with no read locks acquired for " + p_entry);
-            }
-
-            p_entry.releaseReadLock();
-
-            // read lock released, try to persist state
-            if (p_cidTable.entryAtomicUpdate(p_entry)) {
-                break;
-            }
-
-            Thread.yield();
-            p_cidTable.entryReread(p_entry);
-        }
+        releaseReadLock(p_cidTable, p_entry);
 
         p_entry.currentStateInitialState();
 
@@ -537,11 +638,16 @@ public final class LockManager {
             if (p_entry.acquireWriteLock()) {
                 // try persist write lock acquired state
                 if (p_cidTable.entryAtomicUpdate(p_entry)) {
+                    p_entry.currentStateInitialState();
+
+                    // invalidate optimistic reads in progress
+                    p_cidTable.getVersionTable().increment(p_entry.getPointer());
+
                     // wait for all read locks to be released
-                    while (p_entry.getReadLockCounter() > 0) {
+                    while (areReadLocksAcquired(p_cidTable, p_entry)) {
                         if (p_retryTimeoutMs >= 0) {
                             if (p_retryTimeoutMs == 0 || System.nanoTime() - startTime >=
-                                    p_retryTimeoutMs * 1000 * 1000) {
+                                    p_retryTimeoutMs * 1000L * 1000) {
                                 // rollback: because we have the write lock acquired, no threads were able to
                                 // acquire read locks and we can easily swap the write lock for a read lock to
                                 // revert the changes
@@ -549,8 +655,11 @@ public final class LockManager {
 
                                 p_entry.releaseWriteLock();
 
-                                if (!p_entry.acquireReadLock()) {
-                                    throw new IllegalStateException("No read lock for rollback of lock swap available");
+                                // embedded counter can only decrease while the write lock is acquired
+                                boolean overflow = !p_entry.acquireReadLock();
+
+                                if (overflow) {
+                                    p_cidTable.getReadLockOverflow().increment(p_entry.getPointer());
                                 }
 
                                 // enforce this state in order to get out of here with a consistent lock state
@@ -562,22 +671,27 @@ public final class LockManager {
 
                                     p_entry.releaseWriteLock();
 
-                                    if (!p_entry.acquireReadLock()) {
+                                    if (!overflow && !p_entry.acquireReadLock()) {
                                         throw new IllegalStateException(
                                                 "No read lock for rollback of lock swap available");
                                     }
                                 }
 
+                                WAIT_QUEUES.wakeUp(p_entry);
+
                                 // return with current state
                                 p_cidTable.entryReread(p_entry);
                                 SOP_READ_LOCK_TIMEOUTS.inc();
+
+                                if (retries > 0) {
+                                    p_cidTable.getLockContentionProfiler().waitFinished(p_entry.getPointer());
+                                }
+
                                 return LockStatus.TIMEOUT;
                             }
                         }
 
-                        Thread.yield();
-                        retries++;
-                        p_cidTable.entryReread(p_entry);
+                        waitForLockChange(p_cidTable, p_entry, retries++, startTime, p_retryTimeoutMs);
                     }
 
                     assert !p_entry.areReadLocksAcquired();
@@ -585,6 +699,7 @@ public final class LockManager {
 
                     if (retries > 0) {
                         SOP_READ_LOCK_RETRIES.add(retries);
+                        p_cidTable.getLockContentionProfiler().waitFinished(p_entry.getPointer());
                     }
 
                     // write locked with no readers in section
@@ -594,16 +709,103 @@ public final class LockManager {
             // else: write lock already acquired
 
             if (p_retryTimeoutMs >= 0) {
-                if (p_retryTimeoutMs == 0 || System.nanoTime() - startTime >= p_retryTimeoutMs * 1000 * 1000) {
+                if (p_retryTimeoutMs == 0 || System.nanoTime() - startTime >= p_retryTimeoutMs * 1000L * 1000) {
                     // return with current state
                     p_cidTable.entryReread(p_entry);
+
+                    if (retries > 0) {
+                        p_cidTable.getLockContentionProfiler().waitFinished(p_entry.getPointer());
+                    }
+
                     return LockStatus.TIMEOUT;
                 }
             }
 
+            waitForLockChange(p_cidTable, p_entry, retries++, startTime, p_retryTimeoutMs);
+        }
+    }
+
+    /**
+     * Wait for the lock state of a chunk to change. For the first retries, the thread yields only (spinning).
+     * Afterwards, the thread is parked until another thread releases a lock (or the timeout elapsed).
+     * The entry is re-read afterwards
+     *
+     * @param p_cidTable
+     *         CIDTable instance
+     * @param p_entry
+     *         Chunk entry of CIDTable to wait for
+     * @param p_retries
+     *         Number of retries so far
+     * @param p_startTime
+     *         Start time of the lock operation (only valid with timeout)
+     * @param p_retryTimeoutMs
+     *         -1 = infinite, 0 = one shot, &gt; 0 timeout in ms
+     */
+    private static void waitForLockChange(final CIDTable p_cidTable, final CIDTableChunkEntry p_entry,
+            final int p_retries, final long p_startTime, final int p_retryTimeoutMs) {
+        if (p_retries == 0) {
+            p_cidTable.getLockContentionProfiler().waitStarted();
+        }
+
+        if (p_retries < SPIN_RETRIES) {
             Thread.yield();
-            retries++;
             p_cidTable.entryReread(p_entry);
+            return;
+        }
+
+        long parkTime = MAX_PARK_TIME_NS;
+
+        if (p_retryTimeoutMs > 0) {
+            parkTime = Math.min(parkTime, p_retryTimeoutMs * 1000L * 1000 - (System.nanoTime() - p_startTime));
+        }
+
+        if (parkTime > 0) {
+            SOP_LOCK_PARKS.inc();
+            WAIT_QUEUES.park(p_cidTable, p_entry, parkTime);
+        }
+
+        p_cidTable.entryReread(p_entry);
+    }
+
+    /**
+     * Check if any read locks are acquired on a chunk (embedded counter and side table)
+     *
+     * @param p_cidTable
+     *         CIDTable instance
+     * @param p_entry
+     *         Chunk entry of CIDTable
+     * @return True if one or multiple read locks are acquired, false otherwise
+     */
+    private static boolean areReadLocksAcquired(final CIDTable p_cidTable, final CIDTableChunkEntry p_entry) {
+        return p_entry.areReadLocksAcquired() ||
+                p_cidTable.getReadLockOverflow().getCount(p_entry.getPointer()) > 0;
+    }
+
+    /**
+     * Acquire a read lock with the embedded counter of the entry saturated. The lock is registered in the side
+     * table and the state of the entry (no write lock acquired) is validated afterwards: a writer acquiring the
+     * write lock concurrently either makes the validation fail or sees the read lock registered
+     *
+     * @param p_cidTable
+     *         CIDTable instance
+     * @param p_entry
+     *         Chunk entry of CIDTable to lock (unmodified, no write lock acquired)
+     * @return True if acquired, false if the entry changed in the meantime
+     */
+    private static boolean acquireOverflowReadLock(final CIDTable p_cidTable, final CIDTableChunkEntry p_entry) {
+        p_cidTable.getReadLockOverflow().increment(p_entry.getPointer());
+
+        // validate by writing back the unmodified state
+        if (p_cidTable.entryAtomicUpdate(p_entry)) {
+            SOP_READ_LOCK_OVERFLOWS.inc();
+            return true;
         }
+
+        p_cidTable.getReadLockOverflow().decrement(p_entry.getPointer());
+
+        // a writer might wait for the read lock to drain
+        WAIT_QUEUES.wakeUp(p_entry);
+
+        return false;
     }
 }
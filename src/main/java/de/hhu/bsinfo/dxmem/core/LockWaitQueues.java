@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxmem.core;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped wait queues for threads waiting on chunk locks. Threads that can't acquire a lock after spinning for a
+ * while park in the queue of the stripe the chunk's table entry is hashed to. Threads releasing a lock wake up the
+ * waiters of the stripe. Multiple chunks share a stripe, so waking up is not exact and waiters always have to
+ * re-check the lock state.
+ */
+final class LockWaitQueues {
+    private final Stripe[] m_stripes;
+    private final int m_mask;
+
+    /**
+     * Constructor
+     *
+     * @param p_stripes
+     *         Number of stripes (power of two)
+     */
+    LockWaitQueues(final int p_stripes) {
+        assert Integer.bitCount(p_stripes) == 1;
+
+        m_stripes = new Stripe[p_stripes];
+        m_mask = p_stripes - 1;
+
+        for (int i = 0; i < p_stripes; i++) {
+            m_stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Park the current thread until the stripe of the entry is signaled or the timeout elapsed. The thread is not
+     * parked if the entry in memory changed since it was read last (lost wake up). Parking is not interruptible:
+     * a pending interrupt is cleared for the wait and re-asserted afterwards, so an interrupted thread waits like
+     * any other one instead of returning (and retrying) immediately
+     *
+     * @param p_cidTable
+     *         CIDTable instance
+     * @param p_entry
+     *         Chunk entry to wait for. The entry is re-read
+     * @param p_timeoutNs
+     *         Max time to park in ns
+     */
+    void park(final CIDTable p_cidTable, final CIDTableChunkEntry p_entry, final long p_timeoutNs) {
+        long observedValue = p_entry.getInitalValue();
+        Stripe stripe = getStripe(p_entry.getPointer());
+        boolean interrupted = Thread.interrupted();
+
+        // register before re-checking the entry: a release either sees the waiter or the waiter sees the release
+        stripe.m_waiters.incrementAndGet();
+        stripe.m_lock.lock();
+
+        try {
+            p_cidTable.entryReread(p_entry);
+
+            if (p_entry.getInitalValue() == observedValue) {
+                stripe.m_condition.await(p_timeoutNs, TimeUnit.NANOSECONDS);
+            }
+        } catch (final InterruptedException ignored) {
+            interrupted = true;
+        } finally {
+            stripe.m_lock.unlock();
+            stripe.m_waiters.decrementAndGet();
+
+            // restore flag for the caller, cleared again on the next park
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Wake up all threads waiting in the stripe of an entry
+     *
+     * @param p_entry
+     *         Chunk entry which lock state changed
+     */
+    void wakeUp(final CIDTableChunkEntry p_entry) {
+        Stripe stripe = getStripe(p_entry.getPointer());
+
+        // fast path: no waiters, no need to lock
+        if (stripe.m_waiters.get() > 0) {
+            stripe.m_lock.lock();
+            stripe.m_condition.signalAll();
+            stripe.m_lock.unlock();
+        }
+    }
+
+    /**
+     * Get the stripe of a table entry
+     *
+     * @param p_pointer
+     *         Pointer of the table entry
+     * @return Stripe
+     */
+    private Stripe getStripe(final long p_pointer) {
+        // entries are 8 byte aligned, mix bits to spread neighboring entries
+        long h = (p_pointer >>> 3) * 0x9E3779B97F4A7C15L;
+        return m_stripes[(int) (h >>> 32) & m_mask];
+    }
+
+    /**
+     * Single wait queue
+     */
+    private static final class Stripe {
+        private final ReentrantLock m_lock = new ReentrantLock(false);
+        private final Condition m_condition = m_lock.newCondition();
+        private final AtomicInteger m_waiters = new AtomicInteger(0);
+    }
+}
@@ -0,0 +1,338 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxmem.core;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+import de.hhu.bsinfo.dxmem.data.ChunkID;
+
+/**
+ * Registry of all pinned chunks mapping the (fixed) heap address of a pinned chunk back to its CID. Used to
+ * unpin chunks by address without a depth search on the CIDTable. The registry also keeps track of the number
+ * of chunks and bytes pinned which allows detecting pinned chunks that are never unpinned.
+ * The addresses are hashed to multiple stripes which are locked separately. Each stripe is an open addressing
+ * hash table with primitive keys and values to avoid allocations on pin and unpin.
+ */
+public final class PinnedChunkRegistry {
+    private static final int STRIPES = 64;
+    private static final int STRIPE_BITS = 6;
+    private static final int INITIAL_STRIPE_CAPACITY = 16;
+
+    private final Stripe[] m_stripes = new Stripe[STRIPES];
+
+    /**
+     * Constructor
+     */
+    PinnedChunkRegistry() {
+        for (int i = 0; i < STRIPES; i++) {
+            m_stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Register a pinned chunk
+     *
+     * @param p_address
+     *         Address of the pinned chunk
+     * @param p_cid
+     *         CID of the pinned chunk
+     * @param p_size
+     *         Size of the pinned chunk in bytes
+     */
+    public void put(final long p_address, final long p_cid, final int p_size) {
+        assert p_address != Address.INVALID;
+
+        long hash = hash(p_address);
+        Stripe stripe = m_stripes[(int) (hash >>> 64 - STRIPE_BITS)];
+
+        stripe.m_lock.lock();
+        stripe.put(p_address, p_cid, p_size, hash);
+        stripe.m_lock.unlock();
+    }
+
+    /**
+     * Get the CID of a pinned chunk
+     *
+     * @param p_address
+     *         Address of the pinned chunk
+     * @return CID of the chunk or ChunkID.INVALID_ID if no chunk is registered with the address
+     */
+    public long get(final long p_address) {
+        if (p_address == Address.INVALID) {
+            return ChunkID.INVALID_ID;
+        }
+
+        long hash = hash(p_address);
+        Stripe stripe = m_stripes[(int) (hash >>> 64 - STRIPE_BITS)];
+
+        stripe.m_lock.lock();
+        long cid = stripe.get(p_address, hash);
+        stripe.m_lock.unlock();
+
+        return cid;
+    }
+
+    /**
+     * Get the size of a pinned chunk
+     *
+     * @param p_address
+     *         Address of the pinned chunk
+     * @return Size of the chunk in bytes or -1 if no chunk is registered with the address
+     */
+    public int getSize(final long p_address) {
+        if (p_address == Address.INVALID) {
+            return -1;
+        }
+
+        long hash = hash(p_address);
+        Stripe stripe = m_stripes[(int) (hash >>> 64 - STRIPE_BITS)];
+
+        stripe.m_lock.lock();
+        int slot = stripe.findSlot(p_address, hash);
+        int size = slot == -1 ? -1 : stripe.m_sizes[slot];
+        stripe.m_lock.unlock();
+
+        return size;
+    }
+
+    /**
+     * Remove a pinned chunk from the registry
+     *
+     * @param p_address
+     *         Address of the pinned chunk
+     * @return CID of the chunk removed or ChunkID.INVALID_ID if no chunk is registered with the address
+     */
+    public long remove(final long p_address) {
+        if (p_address == Address.INVALID) {
+            return ChunkID.INVALID_ID;
+        }
+
+        long hash = hash(p_address);
+        Stripe stripe = m_stripes[(int) (hash >>> 64 - STRIPE_BITS)];
+
+        stripe.m_lock.lock();
+        long cid = stripe.remove(p_address, hash);
+        stripe.m_lock.unlock();
+
+        return cid;
+    }
+
+    /**
+     * Get the number of pinned chunks registered
+     *
+     * @return Number of pinned chunks
+     */
+    public long size() {
+        long size = 0;
+
+        for (Stripe stripe : m_stripes) {
+            stripe.m_lock.lock();
+            size += stripe.m_size;
+            stripe.m_lock.unlock();
+        }
+
+        return size;
+    }
+
+    /**
+     * Get the total size of all pinned chunks registered
+     *
+     * @return Number of bytes pinned
+     */
+    public long getPinnedBytes() {
+        long bytes = 0;
+
+        for (Stripe stripe : m_stripes) {
+            stripe.m_lock.lock();
+            bytes += stripe.m_bytes;
+            stripe.m_lock.unlock();
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Hash an address. Heap addresses are aligned and clustered, so the bits have to be mixed
+     *
+     * @param p_address
+     *         Address to hash
+     * @return Hash value
+     */
+    private static long hash(final long p_address) {
+        long h = p_address * 0x9E3779B97F4A7C15L;
+        return h ^ h >>> 32;
+    }
+
+    /**
+     * Open addressing hash table (linear probing) of a single stripe. Address.INVALID marks empty slots
+     */
+    private static final class Stripe {
+        private final ReentrantLock m_lock = new ReentrantLock(false);
+
+        private long[] m_keys = new long[INITIAL_STRIPE_CAPACITY];
+        private long[] m_values = new long[INITIAL_STRIPE_CAPACITY];
+        private int[] m_sizes = new int[INITIAL_STRIPE_CAPACITY];
+        private int m_size;
+        private long m_bytes;
+
+        /**
+         * Put an entry. Caller must hold the lock
+         *
+         * @param p_address
+         *         Address (key)
+         * @param p_cid
+         *         CID (value)
+         * @param p_size
+         *         Size of the chunk
+         * @param p_hash
+         *         Hash of the address
+         */
+        private void put(final long p_address, final long p_cid, final int p_size, final long p_hash) {
+            // keep load factor below 0.5
+            if ((m_size + 1) * 2 > m_keys.length) {
+                resize(m_keys.length * 2);
+            }
+
+            int mask = m_keys.length - 1;
+            int slot = (int) p_hash & mask;
+
+            while (m_keys[slot] != Address.INVALID) {
+                if (m_keys[slot] == p_address) {
+                    m_bytes += p_size - m_sizes[slot];
+                    m_values[slot] = p_cid;
+                    m_sizes[slot] = p_size;
+                    return;
+                }
+
+                slot = slot + 1 & mask;
+            }
+
+            m_keys[slot] = p_address;
+            m_values[slot] = p_cid;
+            m_sizes[slot] = p_size;
+            m_size++;
+            m_bytes += p_size;
+        }
+
+        /**
+         * Get an entry. Caller must hold the lock
+         *
+         * @param p_address
+         *         Address (key)
+         * @param p_hash
+         *         Hash of the address
+         * @return CID or ChunkID.INVALID_ID if not found
+         */
+        private long get(final long p_address, final long p_hash) {
+            int slot = findSlot(p_address, p_hash);
+
+            return slot == -1 ? ChunkID.INVALID_ID : m_values[slot];
+        }
+
+        /**
+         * Remove an entry. Caller must hold the lock
+         *
+         * @param p_address
+         *         Address (key)
+         * @param p_hash
+         *         Hash of the address
+         * @return CID removed or ChunkID.INVALID_ID if not found
+         */
+        private long remove(final long p_address, final long p_hash) {
+            int slot = findSlot(p_address, p_hash);
+
+            if (slot == -1) {
+                return ChunkID.INVALID_ID;
+            }
+
+            long cid = m_values[slot];
+            m_bytes -= m_sizes[slot];
+            int mask = m_keys.length - 1;
+
+            // backward shift deletion to keep the probe sequences intact without tombstones
+            int free = slot;
+            int cur = slot + 1 & mask;
+
+            while (m_keys[cur] != Address.INVALID) {
+                int home = (int) hash(m_keys[cur]) & mask;
+
+                // move entry if its home slot is not in the (cyclic) range ]free, cur]
+                if (free <= cur ? home <= free || home > cur : home <= free && home > cur) {
+                    m_keys[free] = m_keys[cur];
+                    m_values[free] = m_values[cur];
+                    m_sizes[free] = m_sizes[cur];
+                    free = cur;
+                }
+
+                cur = cur + 1 & mask;
+            }
+
+            m_keys[free] = Address.INVALID;
+            m_size--;
+
+            return cid;
+        }
+
+        /**
+         * Find the slot of a key
+         *
+         * @param p_address
+         *         Address (key)
+         * @param p_hash
+         *         Hash of the address
+         * @return Slot index or -1 if not found
+         */
+        private int findSlot(final long p_address, final long p_hash) {
+            int mask = m_keys.length - 1;
+            int slot = (int) p_hash & mask;
+
+            while (m_keys[slot] != Address.INVALID) {
+                if (m_keys[slot] == p_address) {
+                    return slot;
+                }
+
+                slot = slot + 1 & mask;
+            }
+
+            return -1;
+        }
+
+        /**
+         * Resize the table and re-hash all entries
+         *
+         * @param p_capacity
+         *         New capacity (power of two)
+         */
+        private void resize(final int p_capacity) {
+            long[] keys = m_keys;
+            long[] values = m_values;
+            int[] sizes = m_sizes;
+
+            m_keys = new long[p_capacity];
+            m_values = new long[p_capacity];
+            m_sizes = new int[p_capacity];
+            m_size = 0;
+            m_bytes = 0;
+
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != Address.INVALID) {
+                    put(keys[i], values[i], sizes[i], hash(keys[i]));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxmem.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Side table for read locks exceeding the read lock counter embedded into the chunk entry. Readers register here
+ * if the embedded counter is saturated. The counters are kept per chunk entry (keyed by the entry's pointer) in
+ * multiple stripes which are locked separately. A global counter allows checking if any overflowing read locks
+ * exist with a single volatile read which keeps the overhead for the common case (no overflow) minimal.
+ */
+final class ReadLockOverflow {
+    private static final int STRIPES = 64;
+    private static final int INITIAL_STRIPE_CAPACITY = 8;
+
+    private final AtomicLong m_total = new AtomicLong(0);
+    private final Stripe[] m_stripes = new Stripe[STRIPES];
+
+    /**
+     * Constructor
+     */
+    ReadLockOverflow() {
+        for (int i = 0; i < STRIPES; i++) {
+            m_stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Register an additional read lock for a chunk
+     *
+     * @param p_pointer
+     *         Pointer of the chunk's table entry
+     */
+    void increment(final long p_pointer) {
+        Stripe stripe = getStripe(p_pointer);
+
+        stripe.m_lock.lock();
+        stripe.add(p_pointer, 1);
+        stripe.m_lock.unlock();
+
+        m_total.incrementAndGet();
+    }
+
+    /**
+     * Unregister a read lock of a chunk
+     *
+     * @param p_pointer
+     *         Pointer of the chunk's table entry
+     * @return True if a read lock was registered and removed, false if no read locks are registered for the chunk
+     */
+    boolean decrement(final long p_pointer) {
+        if (m_total.get() == 0) {
+            return false;
+        }
+
+        Stripe stripe = getStripe(p_pointer);
+
+        stripe.m_lock.lock();
+        boolean removed = stripe.add(p_pointer, -1);
+        stripe.m_lock.unlock();
+
+        if (removed) {
+            m_total.decrementAndGet();
+        }
+
+        return removed;
+    }
+
+    /**
+     * Get the number of read locks registered for a chunk
+     *
+     * @param p_pointer
+     *         Pointer of the chunk's table entry
+     * @return Number of read locks registered
+     */
+    int getCount(final long p_pointer) {
+        // fast path, no overflowing read locks at all
+        if (m_total.get() == 0) {
+            return 0;
+        }
+
+        Stripe stripe = getStripe(p_pointer);
+
+        stripe.m_lock.lock();
+        int count = stripe.get(p_pointer);
+        stripe.m_lock.unlock();
+
+        return count;
+    }
+
+    /**
+     * Get the number of read locks registered for all chunks
+     *
+     * @return Total number of read locks registered
+     */
+    long getTotalCount() {
+        return m_total.get();
+    }
+
+    /**
+     * Get the stripe of a table entry
+     *
+     * @param p_pointer
+     *         Pointer of the table entry
+     * @return Stripe
+     */
+    private Stripe getStripe(final long p_pointer) {
+        return m_stripes[(int) (hash(p_pointer) >>> 32) & STRIPES - 1];
+    }
+
+    /**
+     * Hash a pointer of a table entry (8 byte aligned)
+     *
+     * @param p_pointer
+     *         Pointer to hash
+     * @return Hash value
+     */
+    private static long hash(final long p_pointer) {
+        return (p_pointer >>> 3) * 0x9E3779B97F4A7C15L;
+    }
+
+    /**
+     * Open addressing hash table (linear probing) with counters. Entries with a counter of 0 are removed
+     */
+    private static final class Stripe {
+        private final ReentrantLock m_lock = new ReentrantLock(false);
+
+        // 0 marks empty slots (no valid table entry is stored at address 0)
+        private long[] m_keys = new long[INITIAL_STRIPE_CAPACITY];
+        private int[] m_counts = new int[INITIAL_STRIPE_CAPACITY];
+        private int m_size;
+
+        /**
+         * Get the counter of a pointer. Caller must hold the lock
+         *
+         * @param p_pointer
+         *         Pointer (key)
+         * @return Counter value, 0 if not found
+         */
+        private int get(final long p_pointer) {
+            int slot = findSlot(p_pointer);
+
+            return slot == -1 ? 0 : m_counts[slot];
+        }
+
+        /**
+         * Add to the counter of a pointer. Caller must hold the lock
+         *
+         * @param p_pointer
+         *         Pointer (key)
+         * @param p_value
+         *         1 to increment, -1 to decrement
+         * @return False if decrementing a non existing counter, true otherwise
+         */
+        private boolean add(final long p_pointer, final int p_value) {
+            int slot = findSlot(p_pointer);
+
+            if (slot == -1) {
+                if (p_value < 0) {
+                    return false;
+                }
+
+                insert(p_pointer, p_value);
+                return true;
+            }
+
+            m_counts[slot] += p_value;
+
+            if (m_counts[slot] == 0) {
+                delete(slot);
+            }
+
+            return true;
+        }
+
+        /**
+         * Find the slot of a key
+         *
+         * @param p_pointer
+         *         Pointer (key)
+         * @return Slot index or -1 if not found
+         */
+        private int findSlot(final long p_pointer) {
+            int mask = m_keys.length - 1;
+            int slot = (int) hash(p_pointer) & mask;
+
+            while (m_keys[slot] != 0) {
+                if (m_keys[slot] == p_pointer) {
+                    return slot;
+                }
+
+                slot = slot + 1 & mask;
+            }
+
+            return -1;
+        }
+
+        /**
+         * Insert a new key
+         *
+         * @param p_pointer
+         *         Pointer (key)
+         * @param p_count
+         *         Initial counter value
+         */
+        private void insert(final long p_pointer, final int p_count) {
+            // keep load factor below 0.5
+            if ((m_size + 1) * 2 > m_keys.length) {
+                long[] keys = m_keys;
+                int[] counts = m_counts;
+
+                m_keys = new long[keys.length * 2];
+                m_counts = new int[keys.length * 2];
+                m_size = 0;
+
+                for (int i = 0; i < keys.length; i++) {
+                    if (keys[i] != 0) {
+                        insert(keys[i], counts[i]);
+                    }
+                }
+            }
+
+            int mask = m_keys.length - 1;
+            int slot = (int) hash(p_pointer) & mask;
+
+            while (m_keys[slot] != 0) {
+                slot = slot + 1 & mask;
+            }
+
+            m_keys[slot] = p_pointer;
+            m_counts[slot] = p_count;
+            m_size++;
+        }
+
+        /**
+         * Delete the key of a slot (backward shift deletion)
+         *
+         * @param p_slot
+         *         Slot to delete
+         */
+        private void delete(final int p_slot) {
+            int mask = m_keys.length - 1;
+            int free = p_slot;
+            int cur = p_slot + 1 & mask;
+
+            while (m_keys[cur] != 0) {
+                int home = (int) hash(m_keys[cur]) & mask;
+
+                // move entry if its home slot is not in the (cyclic) range ]free, cur]
+                if (free <= cur ? home <= free || home > cur : home <= free && home > cur) {
+                    m_keys[free] = m_keys[cur];
+                    m_counts[free] = m_counts[cur];
+                    free = cur;
+                }
+
+                cur = cur + 1 & mask;
+            }
+
+            m_keys[free] = 0;
+            m_counts[free] = 0;
+            m_size--;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxmem.core;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Scalable reader-writer lock for many (short) readers and a rare writer, e.g. application threads and the
+ * defragmenter. Instead of a shared reader counter, each reader thread announces itself in its own (cache line
+ * padded) slot, i.e. readers don't write to any shared state. The writer announces itself and scans the slots to
+ * wait for the readers to drain. Readers arriving while the writer is active back off until it is done.
+ * Threads are identified by their IDs (like the EpochManager). Read locks can be nested and the writer can acquire
+ * read locks while holding the write lock.
+ */
+final class ReaderIndicator {
+    private static final int MAX_THREAD_COUNT = 1024;
+    // ints per cache line
+    private static final int PADDING = 16;
+    private static final int SPIN_RETRIES = 64;
+    private static final long PARK_TIME_NS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final AtomicIntegerArray m_readers = new AtomicIntegerArray(MAX_THREAD_COUNT * PADDING);
+    // only accessed by the owning thread
+    private final int[] m_threadDepths = new int[MAX_THREAD_COUNT];
+    private final AtomicInteger m_highestThreadId = new AtomicInteger(0);
+
+    private final ReentrantLock m_writerLock = new ReentrantLock(false);
+    private volatile Thread m_writer;
+
+    /**
+     * Constructor
+     */
+    ReaderIndicator() {
+
+    }
+
+    /**
+     * Acquire the read lock with the current thread
+     */
+    void readLock() {
+        int tid = getThreadId();
+
+        if (m_threadDepths[tid]++ > 0) {
+            return;
+        }
+
+        if (tid > m_highestThreadId.get()) {
+            updateHighestThreadId(tid);
+        }
+
+        int slot = tid * PADDING;
+        int retries = 0;
+
+        while (true) {
+            // volatile write to the own slot followed by reading the writer state (pairs with the writer
+            // announcing itself and scanning the slots afterwards). one of both always sees the other
+            m_readers.set(slot, 1);
+
+            Thread writer = m_writer;
+
+            if (writer == null || writer == Thread.currentThread()) {
+                return;
+            }
+
+            // back off, don't block the writer draining the readers
+            m_readers.set(slot, 0);
+
+            while (m_writer != null) {
+                if (retries++ < SPIN_RETRIES) {
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(this, PARK_TIME_NS);
+                }
+            }
+        }
+    }
+
+    /**
+     * Release the read lock of the current thread
+     */
+    void readUnlock() {
+        int tid = getThreadId();
+
+        assert m_threadDepths[tid] > 0;
+
+        if (--m_threadDepths[tid] > 0) {
+            return;
+        }
+
+        m_readers.lazySet(tid * PADDING, 0);
+    }
+
+    /**
+     * Acquire the write lock with the current thread. Waits for all readers to release their read locks and blocks
+     * any further readers until the write lock is released. Must not be called while holding a read lock
+     */
+    void writeLock() {
+        assert m_threadDepths[getThreadId()] == 0;
+
+        m_writerLock.lock();
+        m_writer = Thread.currentThread();
+
+        int highest = m_highestThreadId.get();
+
+        for (int i = 0; i <= highest; i++) {
+            int retries = 0;
+
+            while (m_readers.get(i * PADDING) != 0) {
+                if (retries++ < SPIN_RETRIES) {
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(this, PARK_TIME_NS);
+                }
+            }
+        }
+    }
+
+    /**
+     * Release the write lock of the current thread
+     */
+    void writeUnlock() {
+        if (m_writer != Thread.currentThread()) {
+            throw new IllegalStateException("Releasing write lock not held by current thread");
+        }
+
+        m_writer = null;
+        m_writerLock.unlock();
+    }
+
+    /**
+     * Check if a thread holds the write lock
+     *
+     * @return True if write locked
+     */
+    boolean isWriteLocked() {
+        return m_writer != null;
+    }
+
+    /**
+     * Update the highest ID of all reader threads (limits scanning the slots)
+     *
+     * @param p_tid
+     *         ID of the current thread
+     */
+    private void updateHighestThreadId(final int p_tid) {
+        int highest;
+
+        do {
+            highest = m_highestThreadId.get();
+        } while (p_tid > highest && !m_highestThreadId.compareAndSet(highest, p_tid));
+    }
+
+    /**
+     * Get the ID of the current thread
+     *
+     * @return Thread ID
+     */
+    private static int getThreadId() {
+        long tid = Thread.currentThread().getId();
+
+        if (tid >= MAX_THREAD_COUNT) {
+            throw new MemoryRuntimeException("Thread IDs (and probably thread count) exceeding max reader slots " +
+                    MAX_THREAD_COUNT);
+        }
+
+        return (int) tid;
+    }
+}
@@ -16,6 +16,12 @@
 
 package de.hhu.bsinfo.dxmem.core;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+
 import de.hhu.bsinfo.dxutils.UnsafeMemory;
 
 /**
@@ -25,6 +31,24 @@ import de.hhu.bsinfo.dxutils.UnsafeMemory;
  * @author Florian Hucke, florian.hucke@hhu.de, 08.02.2018
  */
 public class VirtualMemoryBlock {
+    // UnsafeMemory does not provide a 32-bit CAS. Bound to the Unsafe instance looked up by name (see
+    // DirectBufferView)
+    private static final MethodHandle COMPARE_AND_SWAP_INT;
+
+    static {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+
+            COMPARE_AND_SWAP_INT = MethodHandles.lookup().findVirtual(unsafeClass, "compareAndSwapInt",
+                    MethodType.methodType(boolean.class, Object.class, long.class, int.class, int.class)).bindTo(
+                    field.get(null));
+        } catch (final Throwable e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private long m_memoryBase = -1;
     private long m_memorySize = -1;
 
@@ -83,6 +107,15 @@ public class VirtualMemoryBlock {
         return m_memorySize;
     }
 
+    /**
+     * Get the absolute native address of the start of the VMB
+     *
+     * @return Base address of the VMB
+     */
+    public long getBaseAddress() {
+        return m_memoryBase;
+    }
+
     /**
      * Set a range of memory to a specified value.
      *
@@ -99,6 +132,21 @@ public class VirtualMemoryBlock {
         UnsafeMemory.set(m_memoryBase + p_ptr, p_size, p_value);
     }
 
+    /**
+     * Create a direct ByteBuffer aliasing a region of the VMB (no copy)
+     *
+     * @param p_ptr
+     *         Start position in VMB.
+     * @param p_length
+     *         Length of the region in bytes.
+     * @return Direct ByteBuffer aliasing the region.
+     */
+    public ByteBuffer wrap(final long p_ptr, final int p_length) {
+        assert assertMemoryBounds(p_ptr, p_length);
+
+        return DirectBufferView.wrap(m_memoryBase + p_ptr, p_length);
+    }
+
     /**
      * Copy from a source native memory region to a target native memory region
      *
@@ -123,6 +171,22 @@ public class VirtualMemoryBlock {
                 m_memoryBase + p_address + p_addressOffset, p_length);
     }
 
+    /**
+     * Copy from a region of the VMB to a target native memory region (outside of the VMB)
+     *
+     * @param p_ptr
+     *         Start position in VMB to copy from
+     * @param p_addressTarget
+     *         Absolute native memory address to copy to
+     * @param p_length
+     *         Number of bytes to copy
+     */
+    public void copyToNative(final long p_ptr, final long p_addressTarget, final int p_length) {
+        assert assertMemoryBounds(p_ptr, p_length);
+
+        UnsafeMemory.copyBytes(m_memoryBase + p_ptr, p_addressTarget, p_length);
+    }
+
     /**
      * Read data from the VMB into a byte array.
      *
@@ -633,6 +697,26 @@ public class VirtualMemoryBlock {
         return UnsafeMemory.compareAndSwapLong(m_memoryBase + p_ptr, p_expectedValue, p_newValue);
     }
 
+    /**
+     * Atomic CAS operation for an int value
+     *
+     * @param p_ptr
+     *         Pointer to address of int (must be aligned to 4 bytes)
+     * @param p_expectedValue
+     *         Expected int value at address
+     * @param p_newValue
+     *         New value to swap if expected value matches
+     * @return True if CAS operation successful, false if actual value different than expected
+     */
+    public boolean compareAndSwapInt(final long p_ptr, final int p_expectedValue, final int p_newValue) {
+        try {
+            return (boolean) COMPARE_AND_SWAP_INT.invokeExact((Object) null, m_memoryBase + p_ptr, p_expectedValue,
+                    p_newValue);
+        } catch (final Throwable e) {
+            throw new MemoryRuntimeException("CAS on int failed", e);
+        }
+    }
+
     @Override
     public String toString() {
         return "m_memoryBase=0x" + Long.toHexString(m_memoryBase) + ", m_memorySize: " + m_memorySize;
@@ -130,4 +130,14 @@ public enum ChunkLockOperation {
      * releases the read lock in a separate operation before acquiring the write lock.
      */
     READ_LOCK_ACQ_OP_SWAP,
+
+    /**
+     * Optimistic read without acquiring a lock (seqlock style). The data is read and validated afterwards by
+     * checking if the write lock of the chunk was acquired in the meantime. If validation fails repeatedly, the
+     * operation falls back to READ_LOCK_ACQ_OP_REL.
+     *
+     * Note: Only supported by get operations. The data read might be inconsistent until validated. Thus, the
+     * import method of a chunk must not rely on the data read, e.g. allocate arrays with lengths read.
+     */
+    READ_OPTIMISTIC,
 }
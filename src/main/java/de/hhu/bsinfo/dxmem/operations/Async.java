@@ -0,0 +1,513 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxmem.operations;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import de.hhu.bsinfo.dxmem.DXMem;
+import de.hhu.bsinfo.dxmem.core.Context;
+import de.hhu.bsinfo.dxmem.data.AbstractChunk;
+import de.hhu.bsinfo.dxmem.data.ChunkByteArray;
+import de.hhu.bsinfo.dxmem.data.ChunkLockOperation;
+import de.hhu.bsinfo.dxmem.data.ChunkState;
+import de.hhu.bsinfo.dxutils.stats.StatisticsManager;
+import de.hhu.bsinfo.dxutils.stats.ValuePool;
+
+/**
+ * Asynchronous variants of the common operations for event driven callers which must not block. The operations
+ * are executed on an executor and complete the returned futures. Gets and puts of chunks with the default lock
+ * operations are queued and merged into batch operations by the executor threads. Puts on chunks which are locked
+ * by others are not waited for in the batch but retried as separate tasks.
+ * The thread local pools of DXMem are indexed by thread IDs. Thus, the threads of the executor must have IDs
+ * below the pool size (no virtual threads or per task threads). By default, a fixed pool of daemon threads is used.
+ */
+public class Async {
+    // max number of queued requests merged into a single batch operation
+    private static final int MAX_BATCH_SIZE = 64;
+
+    private static final ValuePool SOP_ASYNC_GET_BATCH = new ValuePool(DXMem.class, "AsyncGetBatch");
+    private static final ValuePool SOP_ASYNC_PUT_BATCH = new ValuePool(DXMem.class, "AsyncPutBatch");
+
+    static {
+        StatisticsManager.get().registerOperation(DXMem.class, SOP_ASYNC_GET_BATCH);
+        StatisticsManager.get().registerOperation(DXMem.class, SOP_ASYNC_PUT_BATCH);
+    }
+
+    private final Get m_get;
+    private final Put m_put;
+    private final Create m_create;
+    private final Remove m_remove;
+
+    private final Executor m_executor;
+    private final ExecutorService m_ownExecutor;
+    // max number of tasks draining a batch queue at the same time
+    private final int m_parallelism;
+
+    private final BatchQueue m_getQueue;
+    private final BatchQueue m_putQueue;
+
+    // operations accessing the heap, must be 0 before the heap is freed
+    private final AtomicInteger m_running = new AtomicInteger(0);
+    private volatile boolean m_closed;
+
+    /**
+     * Constructor. Creates a fixed pool of executor threads (one per available processor)
+     *
+     * @param p_context
+     *         Context
+     */
+    public Async(final Context p_context) {
+        this(p_context, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param p_context
+     *         Context
+     * @param p_executor
+     *         Executor to run the operations on or null to create a fixed pool of threads. The executor is not
+     *         shut down by DXMem. The IDs of its threads must be below the size of the thread local pools
+     */
+    public Async(final Context p_context, final Executor p_executor) {
+        m_get = new Get(p_context);
+        m_put = new Put(p_context);
+        m_create = new Create(p_context);
+        m_remove = new Remove(p_context);
+
+        m_parallelism = Runtime.getRuntime().availableProcessors();
+
+        if (p_executor != null) {
+            m_executor = p_executor;
+            m_ownExecutor = null;
+        } else {
+            AtomicInteger threadCount = new AtomicInteger(0);
+
+            m_ownExecutor = Executors.newFixedThreadPool(m_parallelism, p_runnable -> {
+                Thread thread = new Thread(p_runnable, "DXMemAsync-" + threadCount.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+
+            m_executor = m_ownExecutor;
+        }
+
+        m_getQueue = new BatchQueue() {
+            @Override
+            void execute(final AbstractChunk[] p_chunks, final int p_count) {
+                m_get.get(p_chunks, 0, p_count, ChunkLockOperation.NONE, -1);
+                SOP_ASYNC_GET_BATCH.add(p_count);
+            }
+        };
+
+        m_putQueue = new BatchQueue() {
+            @Override
+            void execute(final AbstractChunk[] p_chunks, final int p_count) {
+                // one shot lock tries, requests on chunks locked by others are retried separately
+                m_put.put(p_chunks, 0, p_count, ChunkLockOperation.WRITE_LOCK_ACQ_OP_REL, 0);
+                SOP_ASYNC_PUT_BATCH.add(p_count);
+            }
+
+            @Override
+            void complete(final Request p_request) {
+                if (p_request.m_chunk.getState() != ChunkState.LOCK_TIMEOUT) {
+                    super.complete(p_request);
+                    return;
+                }
+
+                // wait for the lock on a separate task instead of blocking the requests queued behind
+                supply(() -> {
+                    m_put.put(p_request.m_chunk, ChunkLockOperation.WRITE_LOCK_ACQ_OP_REL, -1);
+                    return p_request.m_chunk;
+                }).whenComplete((p_chunk, p_exception) -> {
+                    if (p_exception != null) {
+                        p_request.m_future.completeExceptionally(p_exception);
+                    } else {
+                        p_request.m_future.complete(p_chunk);
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * Shut down the executor threads if they were created by this instance and wait for all operations accessing
+     * the heap to finish. Must be called before the heap is freed. Pending operations on the own executor are
+     * completed. Pending operations on an executor passed to the constructor which did not start, yet, are
+     * completed exceptionally. Further operations are rejected
+     */
+    public void shutdown() {
+        if (m_ownExecutor != null) {
+            m_ownExecutor.shutdown();
+
+            try {
+                while (!m_ownExecutor.awaitTermination(1, TimeUnit.SECONDS)) {
+                    // wait for pending operations
+                }
+            } catch (final InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        m_closed = true;
+
+        // operations started before closing must not access the heap after it was freed
+        while (m_running.get() > 0) {
+            Thread.yield();
+        }
+
+        m_getQueue.reject();
+        m_putQueue.reject();
+    }
+
+    /**
+     * Get a single chunk. Concurrent requests are merged into batches (see Get)
+     *
+     * @param p_chunk
+     *         AbstractChunk with the CID set to read the chunk's data into
+     * @return Future completed with the chunk once the operation was executed. Check the state of the chunk
+     */
+    public CompletableFuture<AbstractChunk> get(final AbstractChunk p_chunk) {
+        return m_getQueue.submit(p_chunk);
+    }
+
+    /**
+     * Get a single chunk
+     *
+     * @param p_chunk
+     *         AbstractChunk with the CID set to read the chunk's data into
+     * @param p_lockOperation
+     *         Lock operation to execute with this get operation on the chunk
+     * @param p_lockTimeoutMs
+     *         If a lock operation is set, set to -1 for infinite retries (busy polling) until the lock operation
+     *         succeeds. 0 for a one shot try and &gt; 0 for a timeout value in ms
+     * @return Future completed with the chunk once the operation was executed. Check the state of the chunk
+     */
+    public CompletableFuture<AbstractChunk> get(final AbstractChunk p_chunk, final ChunkLockOperation p_lockOperation,
+            final int p_lockTimeoutMs) {
+        return supply(() -> {
+            m_get.get(p_chunk, p_lockOperation, p_lockTimeoutMs);
+            return p_chunk;
+        });
+    }
+
+    /**
+     * Get the data of a chunk (unknown type)
+     *
+     * @param p_cid
+     *         CID of the chunk to get
+     * @return Future completed with the ChunkByteArray. Chunk state determines success or failure of the operation
+     */
+    public CompletableFuture<ChunkByteArray> get(final long p_cid) {
+        return supply(() -> m_get.get(p_cid));
+    }
+
+    /**
+     * Put a single chunk. Concurrent requests are merged into batches (see Put)
+     *
+     * @param p_chunk
+     *         AbstractChunk with the CID set and data to write to the heap
+     * @return Future completed with the chunk once the operation was executed. Check the state of the chunk
+     */
+    public CompletableFuture<AbstractChunk> put(final AbstractChunk p_chunk) {
+        return m_putQueue.submit(p_chunk);
+    }
+
+    /**
+     * Put a single chunk
+     *
+     * @param p_chunk
+     *         AbstractChunk with the CID set and data to write to the heap
+     * @param p_lockOperation
+     *         Lock operation to execute with this put operation on the chunk
+     * @param p_lockTimeoutMs
+     *         If a lock operation is set, set to -1 for infinite retries (busy polling) until the lock operation
+     *         succeeds. 0 for a one shot try and &gt; 0 for a timeout value in ms
+     * @return Future completed with the chunk once the operation was executed. Check the state of the chunk
+     */
+    public CompletableFuture<AbstractChunk> put(final AbstractChunk p_chunk, final ChunkLockOperation p_lockOperation,
+            final int p_lockTimeoutMs) {
+        return supply(() -> {
+            m_put.put(p_chunk, p_lockOperation, p_lockTimeoutMs);
+            return p_chunk;
+        });
+    }
+
+    /**
+     * Put the data of a chunk (unknown type)
+     *
+     * @param p_cid
+     *         CID of the chunk to put
+     * @param p_data
+     *         Data to write
+     * @return Future completed with the state of the operation
+     */
+    public CompletableFuture<ChunkState> put(final long p_cid, final byte[] p_data) {
+        return supply(() -> m_put.put(p_cid, p_data, ChunkLockOperation.WRITE_LOCK_ACQ_OP_REL, -1));
+    }
+
+    /**
+     * Create a new chunk
+     *
+     * @param p_size
+     *         Size of the chunk to create (payload size)
+     * @return Future completed with the CID of the chunk created. Completed exceptionally if the allocation failed
+     */
+    public CompletableFuture<Long> create(final int p_size) {
+        return supply(() -> m_create.create(p_size));
+    }
+
+    /**
+     * Remove a chunk
+     *
+     * @param p_cid
+     *         CID of chunk to remove
+     * @return Future completed with the size of the chunk removed on success, negative ChunkState on failure
+     */
+    public CompletableFuture<Integer> remove(final long p_cid) {
+        return supply(() -> m_remove.remove(p_cid));
+    }
+
+    /**
+     * Run an operation on the executor
+     *
+     * @param p_operation
+     *         Operation to run
+     * @return Future completed with the result of the operation or exceptionally if the operation was rejected
+     */
+    private <T> CompletableFuture<T> supply(final Supplier<T> p_operation) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+
+        try {
+            m_executor.execute(() -> {
+                if (!enter()) {
+                    future.completeExceptionally(new RejectedExecutionException("DXMem was shut down"));
+                    return;
+                }
+
+                try {
+                    future.complete(p_operation.get());
+                } catch (final RuntimeException e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    m_running.decrementAndGet();
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+
+        return future;
+    }
+
+    /**
+     * Enter an operation accessing the heap. If successful, the caller has to decrement the running counter
+     * after the operation
+     *
+     * @return True if the operation can be executed, false if already shut down
+     */
+    private boolean enter() {
+        m_running.incrementAndGet();
+
+        // check after incrementing, shutdown sets the flag before waiting for the counter
+        if (m_closed) {
+            m_running.decrementAndGet();
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Queue of requests on chunks which are drained by up to one executor task per executor thread and executed in
+     * batches. Additional drain tasks are scheduled if the queue holds more than a batch per running drain task.
+     * The futures are completed by the drain task which executed the batch. Thus, dependent stages which are not
+     * async (e.g. thenApply) run on the executor thread and delay the following batches. Use the async variants
+     * (e.g. thenApplyAsync) for expensive stages
+     */
+    private abstract class BatchQueue {
+        private final ConcurrentLinkedQueue<Request> m_queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger m_queued = new AtomicInteger(0);
+        private final AtomicInteger m_drainers = new AtomicInteger(0);
+
+        /**
+         * Execute a batch of requests. Must not block indefinitely (e.g. infinite lock timeouts) because other
+         * requests are queued behind the batch
+         *
+         * @param p_chunks
+         *         Chunks of the requests
+         * @param p_count
+         *         Number of chunks in the array
+         */
+        abstract void execute(final AbstractChunk[] p_chunks, final int p_count);
+
+        /**
+         * Complete a request after its batch was executed
+         *
+         * @param p_request
+         *         Request to complete
+         */
+        void complete(final Request p_request) {
+            p_request.m_future.complete(p_request.m_chunk);
+        }
+
+        /**
+         * Queue a request and schedule a drain task if none is running or the queue holds more requests than the
+         * running ones can take with their next batches
+         *
+         * @param p_chunk
+         *         Chunk of the request
+         * @return Future of the request
+         */
+        CompletableFuture<AbstractChunk> submit(final AbstractChunk p_chunk) {
+            Request request = new Request(p_chunk);
+            m_queue.add(request);
+            int queued = m_queued.incrementAndGet();
+
+            if (tryAddDrainer(queued)) {
+                try {
+                    m_executor.execute(this::drain);
+                } catch (final RejectedExecutionException e) {
+                    m_drainers.decrementAndGet();
+                    reject();
+                }
+            }
+
+            return request.m_future;
+        }
+
+        /**
+         * Complete all queued requests exceptionally
+         */
+        void reject() {
+            Request request;
+
+            while ((request = m_queue.poll()) != null) {
+                m_queued.decrementAndGet();
+                request.m_future.completeExceptionally(new RejectedExecutionException("DXMem was shut down"));
+            }
+        }
+
+        /**
+         * Increment the number of drain tasks if another one is required
+         *
+         * @param p_queued
+         *         Number of queued requests
+         * @return True if a drain task has to be run by the caller
+         */
+        private boolean tryAddDrainer(final int p_queued) {
+            while (true) {
+                int drainers = m_drainers.get();
+
+                if (drainers >= m_parallelism || drainers > 0 && p_queued <= drainers * MAX_BATCH_SIZE) {
+                    return false;
+                }
+
+                if (m_drainers.compareAndSet(drainers, drainers + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Execute the queued requests in batches until the queue is empty
+         */
+        private void drain() {
+            if (!enter()) {
+                m_drainers.decrementAndGet();
+                reject();
+                return;
+            }
+
+            try {
+                drainQueue();
+            } finally {
+                m_running.decrementAndGet();
+            }
+        }
+
+        /**
+         * Execute the queued requests in batches until the queue is empty
+         */
+        private void drainQueue() {
+            AbstractChunk[] chunks = new AbstractChunk[MAX_BATCH_SIZE];
+            Request[] requests = new Request[MAX_BATCH_SIZE];
+
+            while (true) {
+                int count = 0;
+                Request request;
+
+                while (count < MAX_BATCH_SIZE && (request = m_queue.poll()) != null) {
+                    requests[count] = request;
+                    chunks[count] = request.m_chunk;
+                    count++;
+                }
+
+                if (count > 0) {
+                    m_queued.addAndGet(-count);
+
+                    try {
+                        execute(chunks, count);
+
+                        for (int i = 0; i < count; i++) {
+                            complete(requests[i]);
+                        }
+                    } catch (final RuntimeException e) {
+                        for (int i = 0; i < count; i++) {
+                            requests[i].m_future.completeExceptionally(e);
+                        }
+                    }
+
+                    continue;
+                }
+
+                m_drainers.decrementAndGet();
+
+                // requests queued before decrementing might not have scheduled a drain task
+                if (m_queue.isEmpty() || !tryAddDrainer(1)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Single queued request
+     */
+    private static final class Request {
+        private final AbstractChunk m_chunk;
+        private final CompletableFuture<AbstractChunk> m_future = new CompletableFuture<>();
+
+        /**
+         * Constructor
+         *
+         * @param p_chunk
+         *         Chunk of the request
+         */
+        private Request(final AbstractChunk p_chunk) {
+            m_chunk = p_chunk;
+        }
+    }
+}
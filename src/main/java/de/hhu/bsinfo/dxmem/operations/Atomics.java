@@ -0,0 +1,297 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxmem.operations;
+
+import de.hhu.bsinfo.dxmem.DXMem;
+import de.hhu.bsinfo.dxmem.core.CIDTableChunkEntry;
+import de.hhu.bsinfo.dxmem.core.Context;
+import de.hhu.bsinfo.dxmem.core.MemoryRuntimeException;
+import de.hhu.bsinfo.dxmem.data.ChunkID;
+import de.hhu.bsinfo.dxutils.stats.StatisticsManager;
+import de.hhu.bsinfo.dxutils.stats.ValuePool;
+
+/**
+ * Atomic operations on int and long fields of chunks, e.g. for counters. The operations use CAS on the heap
+ * memory directly and do not acquire the chunk lock, i.e. they are atomic with respect to each other but not
+ * to puts, writes or modifies of a write locked chunk. Removing a chunk concurrently is safe (the memory is not
+ * reclaimed until all operations accessing it finished) but resizing it is not. The operations throw a
+ * MemoryRuntimeException if the chunk does not exist or the field is not within the bounds of the chunk.
+ * Long fields not aligned to 8 bytes and int fields crossing an 8 byte boundary in memory are updated under a lock
+ * (see Heap.casLong and Heap.casInt)
+ */
+public class Atomics {
+    private static final ValuePool SOP_ATOMIC = new ValuePool(DXMem.class, "Atomic");
+    private static final ValuePool SOP_ATOMIC_INVALID_ID = new ValuePool(DXMem.class, "AtomicInvalidID");
+    private static final ValuePool SOP_ATOMIC_NOT_EXISTS = new ValuePool(DXMem.class, "AtomicNotExists");
+
+    static {
+        StatisticsManager.get().registerOperation(DXMem.class, SOP_ATOMIC);
+        StatisticsManager.get().registerOperation(DXMem.class, SOP_ATOMIC_INVALID_ID);
+        StatisticsManager.get().registerOperation(DXMem.class, SOP_ATOMIC_NOT_EXISTS);
+    }
+
+    private final Context m_context;
+
+    /**
+     * Constructor
+     *
+     * @param p_context
+     *         Context
+     */
+    public Atomics(final Context p_context) {
+        m_context = p_context;
+    }
+
+    /**
+     * Atomically add to a int field of a chunk
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_offset
+     *         Offset of the field in the chunk
+     * @param p_delta
+     *         Value to add
+     * @return Previous value of the field
+     */
+    public int getAndAddInt(final long p_cid, final int p_offset, final int p_delta) {
+        m_context.getDefragmenter().acquireApplicationThreadLock();
+
+        try {
+            long address = translate(p_cid, p_offset, Integer.BYTES);
+            int value;
+
+            do {
+                value = m_context.getHeap().readInt(address, p_offset);
+            } while (!m_context.getHeap().casInt(address, p_offset, value, value + p_delta));
+
+            SOP_ATOMIC.inc();
+
+            return value;
+        } finally {
+            m_context.getDefragmenter().releaseApplicationThreadLock();
+        }
+    }
+
+    /**
+     * Atomically increment a int field of a chunk
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_offset
+     *         Offset of the field in the chunk
+     * @return New value of the field
+     */
+    public int incrementAndGetInt(final long p_cid, final int p_offset) {
+        return getAndAddInt(p_cid, p_offset, 1) + 1;
+    }
+
+    /**
+     * Atomically set a int field of a chunk
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_offset
+     *         Offset of the field in the chunk
+     * @param p_value
+     *         Value to set
+     * @return Previous value of the field
+     */
+    public int getAndSetInt(final long p_cid, final int p_offset, final int p_value) {
+        m_context.getDefragmenter().acquireApplicationThreadLock();
+
+        try {
+            long address = translate(p_cid, p_offset, Integer.BYTES);
+            int value;
+
+            do {
+                value = m_context.getHeap().readInt(address, p_offset);
+            } while (!m_context.getHeap().casInt(address, p_offset, value, p_value));
+
+            SOP_ATOMIC.inc();
+
+            return value;
+        } finally {
+            m_context.getDefragmenter().releaseApplicationThreadLock();
+        }
+    }
+
+    /**
+     * Atomically set a int field of a chunk if it has the expected value
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_offset
+     *         Offset of the field in the chunk
+     * @param p_expected
+     *         Expected value of the field
+     * @param p_value
+     *         Value to set
+     * @return True if the field was set, false if its value was different to the expected one
+     */
+    public boolean compareAndSetInt(final long p_cid, final int p_offset, final int p_expected, final int p_value) {
+        m_context.getDefragmenter().acquireApplicationThreadLock();
+
+        try {
+            long address = translate(p_cid, p_offset, Integer.BYTES);
+            boolean result = m_context.getHeap().casInt(address, p_offset, p_expected, p_value);
+
+            SOP_ATOMIC.inc();
+
+            return result;
+        } finally {
+            m_context.getDefragmenter().releaseApplicationThreadLock();
+        }
+    }
+
+    /**
+     * Atomically add to a long field of a chunk
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_offset
+     *         Offset of the field in the chunk
+     * @param p_delta
+     *         Value to add
+     * @return Previous value of the field
+     */
+    public long getAndAddLong(final long p_cid, final int p_offset, final long p_delta) {
+        m_context.getDefragmenter().acquireApplicationThreadLock();
+
+        try {
+            long address = translate(p_cid, p_offset, Long.BYTES);
+            long value;
+
+            do {
+                value = m_context.getHeap().readLong(address, p_offset);
+            } while (!m_context.getHeap().casLong(address, p_offset, value, value + p_delta));
+
+            SOP_ATOMIC.inc();
+
+            return value;
+        } finally {
+            m_context.getDefragmenter().releaseApplicationThreadLock();
+        }
+    }
+
+    /**
+     * Atomically increment a long field of a chunk
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_offset
+     *         Offset of the field in the chunk
+     * @return New value of the field
+     */
+    public long incrementAndGetLong(final long p_cid, final int p_offset) {
+        return getAndAddLong(p_cid, p_offset, 1) + 1;
+    }
+
+    /**
+     * Atomically set a long field of a chunk
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_offset
+     *         Offset of the field in the chunk
+     * @param p_value
+     *         Value to set
+     * @return Previous value of the field
+     */
+    public long getAndSetLong(final long p_cid, final int p_offset, final long p_value) {
+        m_context.getDefragmenter().acquireApplicationThreadLock();
+
+        try {
+            long address = translate(p_cid, p_offset, Long.BYTES);
+            long value;
+
+            do {
+                value = m_context.getHeap().readLong(address, p_offset);
+            } while (!m_context.getHeap().casLong(address, p_offset, value, p_value));
+
+            SOP_ATOMIC.inc();
+
+            return value;
+        } finally {
+            m_context.getDefragmenter().releaseApplicationThreadLock();
+        }
+    }
+
+    /**
+     * Atomically set a long field of a chunk if it has the expected value
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_offset
+     *         Offset of the field in the chunk
+     * @param p_expected
+     *         Expected value of the field
+     * @param p_value
+     *         Value to set
+     * @return True if the field was set, false if its value was different to the expected one
+     */
+    public boolean compareAndSetLong(final long p_cid, final int p_offset, final long p_expected, final long p_value) {
+        m_context.getDefragmenter().acquireApplicationThreadLock();
+
+        try {
+            long address = translate(p_cid, p_offset, Long.BYTES);
+            boolean result = m_context.getHeap().casLong(address, p_offset, p_expected, p_value);
+
+            SOP_ATOMIC.inc();
+
+            return result;
+        } finally {
+            m_context.getDefragmenter().releaseApplicationThreadLock();
+        }
+    }
+
+    /**
+     * Translate a chunk and check the bounds of the field accessed. Caller must hold the application thread lock
+     * of the defragmenter
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_offset
+     *         Offset of the field in the chunk
+     * @param p_length
+     *         Size of the field
+     * @return Address of the chunk
+     */
+    private long translate(final long p_cid, final int p_offset, final int p_length) {
+        if (p_cid == ChunkID.INVALID_ID) {
+            SOP_ATOMIC_INVALID_ID.inc();
+            throw new MemoryRuntimeException("Invalid CID for atomic operation");
+        }
+
+        CIDTableChunkEntry tableEntry = m_context.getCIDTableEntryPool().get();
+
+        m_context.getCIDTable().translate(p_cid, tableEntry);
+
+        if (!tableEntry.isValid()) {
+            SOP_ATOMIC_NOT_EXISTS.inc();
+            throw new MemoryRuntimeException("Chunk " + ChunkID.toHexString(p_cid) + " does not exist");
+        }
+
+        int size = m_context.getHeap().getSize(tableEntry);
+
+        if (p_offset < 0 || p_offset > size - p_length) {
+            throw new MemoryRuntimeException("Access out of bounds of chunk " + ChunkID.toHexString(p_cid) +
+                    ": offset " + p_offset + ", length " + p_length + ", size " + size);
+        }
+
+        return tableEntry.getAddress();
+    }
+}
@@ -16,6 +16,7 @@
 
 package de.hhu.bsinfo.dxmem.operations;
 
+import de.hhu.bsinfo.dxmem.core.CIDCursor;
 import de.hhu.bsinfo.dxmem.core.Context;
 import de.hhu.bsinfo.dxmem.data.ChunkIDRanges;
 
@@ -63,7 +64,13 @@ public class CIDStatus {
     public ChunkIDRanges getCIDRangesOfChunks() {
         m_context.getDefragmenter().acquireApplicationThreadLock();
 
-        ChunkIDRanges ranges = m_context.getCIDTable().getCIDRangesOfAllChunks();
+        ChunkIDRanges ranges;
+
+        if (m_context.getCIDRangeIndex() != null) {
+            ranges = m_context.getCIDRangeIndex().getRanges();
+        } else {
+            ranges = m_context.getCIDTable().getCIDRangesOfAllChunks();
+        }
 
         m_context.getDefragmenter().releaseApplicationThreadLock();
 
@@ -80,7 +87,13 @@ public class CIDStatus {
     public ChunkIDRanges getCIDRangesOfChunks(final short p_nodeId) {
         m_context.getDefragmenter().acquireApplicationThreadLock();
 
-        ChunkIDRanges ranges = m_context.getCIDTable().getCIDRangesOfAllChunks(p_nodeId);
+        ChunkIDRanges ranges;
+
+        if (m_context.getCIDRangeIndex() != null) {
+            ranges = m_context.getCIDRangeIndex().getRanges(p_nodeId);
+        } else {
+            ranges = m_context.getCIDTable().getCIDRangesOfAllChunks(p_nodeId);
+        }
 
         m_context.getDefragmenter().releaseApplicationThreadLock();
 
@@ -95,10 +108,46 @@ public class CIDStatus {
     public ChunkIDRanges getAllMigratedChunkIDRanges() {
         m_context.getDefragmenter().acquireApplicationThreadLock();
 
-        ChunkIDRanges ranges = m_context.getCIDTable().getCIDRangesOfAllMigratedChunks();
+        ChunkIDRanges ranges;
+
+        if (m_context.getCIDRangeIndex() != null) {
+            ranges = m_context.getCIDRangeIndex().getRangesExcluding(m_context.getNodeId());
+        } else {
+            ranges = m_context.getCIDTable().getCIDRangesOfAllMigratedChunks();
+        }
 
         m_context.getDefragmenter().releaseApplicationThreadLock();
 
         return ranges;
     }
+
+    /**
+     * Get a cursor to iterate the CIDs of all chunks of a node in batches without materializing all ranges
+     *
+     * @param p_nodeId
+     *         Node id of the chunks to iterate
+     * @return Cursor starting at the lowest LID
+     */
+    public CIDCursor cursor(final short p_nodeId) {
+        return cursor(p_nodeId, 0);
+    }
+
+    /**
+     * Get a cursor to iterate the CIDs of all chunks of a node in batches without materializing all ranges
+     *
+     * @param p_nodeId
+     *         Node id of the chunks to iterate
+     * @param p_startLid
+     *         LID to start at, e.g. a position saved from a previous cursor to resume iterating
+     * @return Cursor starting at the LID specified
+     */
+    public CIDCursor cursor(final short p_nodeId, final long p_startLid) {
+        m_context.getDefragmenter().acquireApplicationThreadLock();
+
+        long end = m_context.getCIDTable().getLIDUpperBound(p_nodeId);
+
+        m_context.getDefragmenter().releaseApplicationThreadLock();
+
+        return new CIDCursor(m_context, p_nodeId, p_startLid, end);
+    }
 }
@@ -0,0 +1,363 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxmem.operations;
+
+import de.hhu.bsinfo.dxmem.core.Address;
+import de.hhu.bsinfo.dxmem.core.CIDTableChunkEntry;
+import de.hhu.bsinfo.dxmem.core.Heap;
+import de.hhu.bsinfo.dxmem.core.MemoryRuntimeException;
+import de.hhu.bsinfo.dxmem.data.ChunkID;
+
+/**
+ * Typed access to the heap memory of a single (locked) chunk at offsets. Every access is checked against the
+ * size of the chunk. An accessor is only valid inside the operation it was handed out by (e.g. a Modify callback)
+ * and must not be stored: afterwards, any access fails
+ */
+public final class ChunkAccessor {
+    private final Heap m_heap;
+    private final CIDTableChunkEntry m_entry = new CIDTableChunkEntry();
+
+    private long m_cid = ChunkID.INVALID_ID;
+    private long m_address = Address.INVALID;
+    private int m_size;
+
+    /**
+     * Constructor
+     *
+     * @param p_heap
+     *         Heap of the chunks
+     */
+    ChunkAccessor(final Heap p_heap) {
+        m_heap = p_heap;
+    }
+
+    /**
+     * Get the CID of the chunk
+     *
+     * @return CID
+     */
+    public long getCID() {
+        return m_cid;
+    }
+
+    /**
+     * Get the size of the chunk
+     *
+     * @return Size in bytes
+     */
+    public int getSize() {
+        return m_size;
+    }
+
+    /**
+     * Read a byte from the chunk
+     *
+     * @param p_offset
+     *         Offset in the chunk
+     * @return Value read
+     */
+    public byte readByte(final int p_offset) {
+        checkBounds(p_offset, Byte.BYTES);
+
+        return m_heap.readByte(m_address, p_offset);
+    }
+
+    /**
+     * Read a short from the chunk
+     *
+     * @param p_offset
+     *         Offset in the chunk
+     * @return Value read
+     */
+    public short readShort(final int p_offset) {
+        checkBounds(p_offset, Short.BYTES);
+
+        return m_heap.readShort(m_address, p_offset);
+    }
+
+    /**
+     * Read a char from the chunk
+     *
+     * @param p_offset
+     *         Offset in the chunk
+     * @return Value read
+     */
+    public char readChar(final int p_offset) {
+        checkBounds(p_offset, Character.BYTES);
+
+        return m_heap.readChar(m_address, p_offset);
+    }
+
+    /**
+     * Read a int from the chunk
+     *
+     * @param p_offset
+     *         Offset in the chunk
+     * @return Value read
+     */
+    public int readInt(final int p_offset) {
+        checkBounds(p_offset, Integer.BYTES);
+
+        return m_heap.readInt(m_address, p_offset);
+    }
+
+    /**
+     * Read a long from the chunk
+     *
+     * @param p_offset
+     *         Offset in the chunk
+     * @return Value read
+     */
+    public long readLong(final int p_offset) {
+        checkBounds(p_offset, Long.BYTES);
+
+        return m_heap.readLong(m_address, p_offset);
+    }
+
+    /**
+     * Read a float from the chunk
+     *
+     * @param p_offset
+     *         Offset in the chunk
+     * @return Value read
+     */
+    public float readFloat(final int p_offset) {
+        checkBounds(p_offset, Float.BYTES);
+
+        return m_heap.readFloat(m_address, p_offset);
+    }
+
+    /**
+     * Read a double from the chunk
+     *
+     * @param p_offset
+     *         Offset in the chunk
+     * @return Value read
+     */
+    public double readDouble(final int p_offset) {
+        checkBounds(p_offset, Double.BYTES);
+
+        return m_heap.readDouble(m_address, p_offset);
+    }
+
+    /**
+     * Read bytes from the chunk
+     *
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_array
+     *         Array to read the bytes into
+     * @param p_arrayOffset
+     *         Offset in the array to start at
+     * @param p_length
+     *         Number of bytes to read
+     */
+    public void readBytes(final int p_offset, final byte[] p_array, final int p_arrayOffset, final int p_length) {
+        checkBounds(p_offset, p_length);
+        checkArrayBounds(p_array, p_arrayOffset, p_length);
+
+        m_heap.readBytes(m_address, p_offset, p_array, p_arrayOffset, p_length);
+    }
+
+    /**
+     * Write a byte to the chunk
+     *
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_value
+     *         Value to write
+     */
+    public void writeByte(final int p_offset, final byte p_value) {
+        checkBounds(p_offset, Byte.BYTES);
+
+        m_heap.writeByte(m_address, p_offset, p_value);
+    }
+
+    /**
+     * Write a short to the chunk
+     *
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_value
+     *         Value to write
+     */
+    public void writeShort(final int p_offset, final short p_value) {
+        checkBounds(p_offset, Short.BYTES);
+
+        m_heap.writeShort(m_address, p_offset, p_value);
+    }
+
+    /**
+     * Write a char to the chunk
+     *
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_value
+     *         Value to write
+     */
+    public void writeChar(final int p_offset, final char p_value) {
+        checkBounds(p_offset, Character.BYTES);
+
+        m_heap.writeChar(m_address, p_offset, p_value);
+    }
+
+    /**
+     * Write a int to the chunk
+     *
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_value
+     *         Value to write
+     */
+    public void writeInt(final int p_offset, final int p_value) {
+        checkBounds(p_offset, Integer.BYTES);
+
+        m_heap.writeInt(m_address, p_offset, p_value);
+    }
+
+    /**
+     * Write a long to the chunk
+     *
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_value
+     *         Value to write
+     */
+    public void writeLong(final int p_offset, final long p_value) {
+        checkBounds(p_offset, Long.BYTES);
+
+        m_heap.writeLong(m_address, p_offset, p_value);
+    }
+
+    /**
+     * Write a float to the chunk
+     *
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_value
+     *         Value to write
+     */
+    public void writeFloat(final int p_offset, final float p_value) {
+        checkBounds(p_offset, Float.BYTES);
+
+        m_heap.writeFloat(m_address, p_offset, p_value);
+    }
+
+    /**
+     * Write a double to the chunk
+     *
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_value
+     *         Value to write
+     */
+    public void writeDouble(final int p_offset, final double p_value) {
+        checkBounds(p_offset, Double.BYTES);
+
+        m_heap.writeDouble(m_address, p_offset, p_value);
+    }
+
+    /**
+     * Write bytes to the chunk
+     *
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_array
+     *         Array with the bytes to write
+     * @param p_arrayOffset
+     *         Offset in the array to start at
+     * @param p_length
+     *         Number of bytes to write
+     */
+    public void writeBytes(final int p_offset, final byte[] p_array, final int p_arrayOffset, final int p_length) {
+        checkBounds(p_offset, p_length);
+        checkArrayBounds(p_array, p_arrayOffset, p_length);
+
+        m_heap.writeBytes(m_address, p_offset, p_array, p_arrayOffset, p_length);
+    }
+
+    @Override
+    public String toString() {
+        return "ChunkAccessor[m_cid " + ChunkID.toHexString(m_cid) + ", m_size " + m_size + ']';
+    }
+
+    /**
+     * Get the table entry used to translate and lock the chunk
+     *
+     * @return Table entry
+     */
+    CIDTableChunkEntry getEntry() {
+        return m_entry;
+    }
+
+    /**
+     * Open the accessor for the chunk of the (translated and locked) table entry
+     *
+     * @param p_cid
+     *         CID of the chunk
+     */
+    void open(final long p_cid) {
+        m_cid = p_cid;
+        m_address = m_entry.getAddress();
+        m_size = m_heap.getSize(m_entry);
+    }
+
+    /**
+     * Close the accessor. Any further access fails
+     */
+    void close() {
+        m_cid = ChunkID.INVALID_ID;
+        m_address = Address.INVALID;
+        m_size = 0;
+    }
+
+    /**
+     * Check if an access is within the bounds of the array of the caller (the heap does not check it)
+     *
+     * @param p_array
+     *         Array accessed
+     * @param p_arrayOffset
+     *         Offset in the array
+     * @param p_length
+     *         Number of bytes accessed
+     */
+    private static void checkArrayBounds(final byte[] p_array, final int p_arrayOffset, final int p_length) {
+        if (p_arrayOffset < 0 || p_length > p_array.length - p_arrayOffset) {
+            throw new ArrayIndexOutOfBoundsException("Access out of bounds of array: offset " + p_arrayOffset +
+                    ", length " + p_length + ", size " + p_array.length);
+        }
+    }
+
+    /**
+     * Check if an access is within the bounds of the chunk
+     *
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_length
+     *         Number of bytes accessed
+     */
+    private void checkBounds(final int p_offset, final int p_length) {
+        if (p_offset < 0 || p_length < 0 || p_offset > m_size - p_length) {
+            if (m_address == Address.INVALID) {
+                throw new MemoryRuntimeException("Accessing chunk with closed accessor");
+            }
+
+            throw new MemoryRuntimeException("Access out of bounds of chunk " + ChunkID.toHexString(m_cid) +
+                    ": offset " + p_offset + ", length " + p_length + ", size " + m_size);
+        }
+    }
+}
@@ -129,6 +129,10 @@ public final class Create {
             throw new AllocationException("Allocation of block of memory for LID table failed. Out of memory.");
         }
 
+        if (m_context.getCIDRangeIndex() != null) {
+            m_context.getCIDRangeIndex().add(cid);
+        }
+
         // This is actually
         LockManager.LockStatus status = LockManager.executeAfterOp(m_context.getCIDTable(), tableEntry,
                 p_lockOperation, -1);
@@ -207,12 +211,7 @@ public final class Create {
             p_chunkIDs[p_offset + i] = ChunkID.getChunkID(m_context.getNodeId(), p_chunkIDs[p_offset + i]);
         }
 
-        // can't use thread local pool here
-        CIDTableChunkEntry[] entries = new CIDTableChunkEntry[p_count];
-
-        for (int i = 0; i < entries.length; i++) {
-            entries[i] = new CIDTableChunkEntry();
-        }
+        CIDTableChunkEntry[] entries = m_context.getCIDTableEntryPool().getArray(p_count);
 
         int successfulMallocs = m_context.getHeap().malloc(p_size, p_count, entries);
 
@@ -238,6 +237,10 @@ public final class Create {
             }
         }
 
+        if (m_context.getCIDRangeIndex() != null) {
+            m_context.getCIDRangeIndex().add(p_chunkIDs, p_offset, successfulMallocs);
+        }
+
         // put back or flag as zombies: entries of non successful allocs (rare case)
         if (successfulMallocs != p_count) {
             // put back LIDs that could not be used (after they were added to the table because they might be marked
@@ -318,12 +321,7 @@ public final class Create {
             p_chunkIDs[p_offset + i] = ChunkID.getChunkID(m_context.getNodeId(), p_chunkIDs[p_offset + i]);
         }
 
-        // can't use thread local pool here
-        CIDTableChunkEntry[] entries = new CIDTableChunkEntry[p_sizes.length];
-
-        for (int i = 0; i < entries.length; i++) {
-            entries[i] = new CIDTableChunkEntry();
-        }
+        CIDTableChunkEntry[] entries = m_context.getCIDTableEntryPool().getArray(p_sizes.length);
 
         int successfulMallocs = m_context.getHeap().malloc(entries, p_sizes);
 
@@ -349,6 +347,10 @@ public final class Create {
             }
         }
 
+        if (m_context.getCIDRangeIndex() != null) {
+            m_context.getCIDRangeIndex().add(p_chunkIDs, p_offset, successfulMallocs);
+        }
+
         // put back or flag as zombies: entries of non successful allocs (rare case)
         if (successfulMallocs != p_sizes.length) {
             // put back LIDs that could not be used (after they were added to the table because they might be marked
@@ -462,6 +464,7 @@ public final class Create {
             case READ_LOCK_ACQ_OP_REL:
             case READ_LOCK_SWAP_OP_REL:
             case READ_LOCK_ACQ_OP_SWAP:
+            case READ_OPTIMISTIC:
                 throw new MemoryRuntimeException("Unsupported lock operation on create op: " + p_lockOperation);
 
             default:
@@ -102,6 +102,10 @@ public class CreateReserved {
             throw new AllocationException("Allocation of block of memory for LID table failed. Out of memory.");
         }
 
+        if (m_context.getCIDRangeIndex() != null) {
+            m_context.getCIDRangeIndex().add(p_cid);
+        }
+
         LockManager.LockStatus status = LockManager.executeAfterOp(m_context.getCIDTable(), tableEntry,
                 p_lockOperation, -1);
 
@@ -167,12 +171,7 @@ public class CreateReserved {
         assert p_sizesOffset >= 0;
         assert p_sizesLength >= 0;
 
-        // can't use thread local pool here
-        CIDTableChunkEntry[] entries = new CIDTableChunkEntry[p_sizesLength];
-
-        for (int i = 0; i < entries.length; i++) {
-            entries[i] = new CIDTableChunkEntry();
-        }
+        CIDTableChunkEntry[] entries = m_context.getCIDTableEntryPool().getArray(p_sizesLength);
 
         m_context.getDefragmenter().acquireApplicationThreadLock();
 
@@ -200,6 +199,10 @@ public class CreateReserved {
             }
         }
 
+        if (m_context.getCIDRangeIndex() != null) {
+            m_context.getCIDRangeIndex().add(p_cids, 0, successfulMallocs);
+        }
+
         if (p_addresses != null) {
             for (int i = 0; i < successfulMallocs; i++) {
                 p_addresses[i] = entries[i].getAddress();
@@ -249,12 +252,7 @@ public class CreateReserved {
         assert p_ds != null;
         // p_addresses is optional
 
-        // can't use thread local pool here
-        CIDTableChunkEntry[] entries = new CIDTableChunkEntry[p_ds.length];
-
-        for (int i = 0; i < entries.length; i++) {
-            entries[i] = new CIDTableChunkEntry();
-        }
+        CIDTableChunkEntry[] entries = m_context.getCIDTableEntryPool().getArray(p_ds.length);
 
         int[] sizes = new int[p_ds.length];
 
@@ -288,6 +286,12 @@ public class CreateReserved {
             }
         }
 
+        if (m_context.getCIDRangeIndex() != null) {
+            for (int i = 0; i < successfulMallocs; i++) {
+                m_context.getCIDRangeIndex().add(p_ds[i].getID());
+            }
+        }
+
         if (p_addresses != null) {
             for (int i = 0; i < successfulMallocs; i++) {
                 p_addresses[i] = entries[i].getAddress();
@@ -328,6 +332,7 @@ public class CreateReserved {
             case READ_LOCK_ACQ_OP_REL:
             case READ_LOCK_SWAP_OP_REL:
             case READ_LOCK_ACQ_OP_SWAP:
+            case READ_OPTIMISTIC:
                 throw new MemoryRuntimeException("Unsupported lock operation on create op: " + p_lockOperation);
 
             default:
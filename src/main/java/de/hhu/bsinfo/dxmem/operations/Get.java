@@ -16,6 +16,9 @@
 
 package de.hhu.bsinfo.dxmem.operations;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
 import de.hhu.bsinfo.dxmem.DXMem;
 import de.hhu.bsinfo.dxmem.core.CIDTableChunkEntry;
 import de.hhu.bsinfo.dxmem.core.Context;
@@ -27,6 +30,7 @@ import de.hhu.bsinfo.dxmem.data.ChunkByteArray;
 import de.hhu.bsinfo.dxmem.data.ChunkID;
 import de.hhu.bsinfo.dxmem.data.ChunkLockOperation;
 import de.hhu.bsinfo.dxmem.data.ChunkState;
+import de.hhu.bsinfo.dxutils.serialization.ByteBufferImExporter;
 import de.hhu.bsinfo.dxutils.stats.StatisticsManager;
 import de.hhu.bsinfo.dxutils.stats.ValuePool;
 
@@ -36,14 +40,22 @@ import de.hhu.bsinfo.dxutils.stats.ValuePool;
  * @author Stefan Nothaas, stefan.nothaas@hhu.de, 21.06.2018
  */
 public final class Get {
+    // number of optimistic reads to try before falling back to acquiring a read lock
+    private static final int OPTIMISTIC_READ_TRIES = 3;
+
     private static final ValuePool SOP_GET = new ValuePool(DXMem.class, "Get");
     private static final ValuePool SOP_GET_INVALID_ID = new ValuePool(DXMem.class, "GetInvalidID");
     private static final ValuePool SOP_GET_NOT_EXISTS = new ValuePool(DXMem.class, "GetNotExists");
+    private static final ValuePool SOP_GET_OPTIMISTIC_RETRIES = new ValuePool(DXMem.class, "GetOptimisticRetries");
+    private static final ValuePool SOP_GET_OPTIMISTIC_FALLBACKS =
+            new ValuePool(DXMem.class, "GetOptimisticFallbacks");
 
     static {
         StatisticsManager.get().registerOperation(DXMem.class, SOP_GET);
         StatisticsManager.get().registerOperation(DXMem.class, SOP_GET_INVALID_ID);
         StatisticsManager.get().registerOperation(DXMem.class, SOP_GET_NOT_EXISTS);
+        StatisticsManager.get().registerOperation(DXMem.class, SOP_GET_OPTIMISTIC_RETRIES);
+        StatisticsManager.get().registerOperation(DXMem.class, SOP_GET_OPTIMISTIC_FALLBACKS);
     }
 
     private final Context m_context;
@@ -96,60 +108,68 @@ public final class Get {
         }
 
         CIDTableChunkEntry tableEntry = m_context.getCIDTableEntryPool().get();
+        HeapDataStructureImExporter imExporter = m_context.getDataStructureImExporterPool().get();
 
         m_context.getDefragmenter().acquireApplicationThreadLock();
 
         m_context.getCIDTable().translate(p_chunk.getID(), tableEntry);
 
-        if (!tableEntry.isValid()) {
-            m_context.getDefragmenter().releaseApplicationThreadLock();
+        boolean ret = get(p_chunk, tableEntry, imExporter, p_lockOperation, p_lockTimeoutMs);
 
-            p_chunk.setState(ChunkState.DOES_NOT_EXIST);
-            SOP_GET_NOT_EXISTS.inc();
-            return false;
-        }
+        m_context.getDefragmenter().releaseApplicationThreadLock();
 
-        HeapDataStructureImExporter imExporter = m_context.getDataStructureImExporterPool().get();
-        imExporter.setHeapAddress(tableEntry.getAddress());
+        return ret;
+    }
 
-        if (!m_context.isChunkLockDisabled()) {
-            LockManager.LockStatus  lockStatus = LockManager.executeBeforeOp(m_context.getCIDTable(), tableEntry,
-                    p_lockOperation, p_lockTimeoutMs);
+    /**
+     * Get the data of multiple chunks from the heap memory (batch). All chunks are read within a single
+     * section of the defragmenter and the CIDs are translated in groups (CIDs in the same table).
+     *
+     * @param p_chunks
+     *         AbstractChunks with the CIDs set to read the chunks' data into. The state of each chunk is set
+     *         (see single get)
+     * @param p_offset
+     *         Offset in the array to start at
+     * @param p_count
+     *         Number of chunks to get
+     * @param p_lockOperation
+     *         Lock operation to execute on each chunk
+     * @param p_lockTimeoutMs
+     *         If a lock operation is set, set to -1 for infinite retries (busy polling) until the lock operation
+     *         succeeds. 0 for a one shot try and &gt; 0 for a timeout value in ms (per chunk)
+     * @return Number of chunks read successfully. Check the states of the chunks for failures
+     */
+    public int get(final AbstractChunk[] p_chunks, final int p_offset, final int p_count,
+            final ChunkLockOperation p_lockOperation, final int p_lockTimeoutMs) {
+        assert assertLockOperationSupport(p_lockOperation);
+        assert p_offset >= 0 && p_count >= 0 && p_offset + p_count <= p_chunks.length;
 
-            if (lockStatus != LockManager.LockStatus.OK) {
-                m_context.getDefragmenter().releaseApplicationThreadLock();
+        CIDTableChunkEntry tableEntry = m_context.getCIDTableEntryPool().get();
+        HeapDataStructureImExporter imExporter = m_context.getDataStructureImExporterPool().get();
+        long[] translateCache = m_context.getCIDTableEntryPool().getTranslateCache();
+        int successful = 0;
 
-                if (lockStatus == LockManager.LockStatus.INVALID) {
-                    // entry was deleted in the meanwhile
-                    p_chunk.setState(ChunkState.DOES_NOT_EXIST);
-                } else if (lockStatus == LockManager.LockStatus.TIMEOUT) {
-                    // try lock did not succeed
-                    p_chunk.setState(ChunkState.LOCK_TIMEOUT);
-                } else {
-                    throw new IllegalStateException();
-                }
+        m_context.getDefragmenter().acquireApplicationThreadLock();
 
-                return false;
-            }
-        }
+        for (int i = p_offset; i < p_offset + p_count; i++) {
+            AbstractChunk chunk = p_chunks[i];
 
-        // TODO wrap with try catch and catch memory runtime exception? are there any left to catch?
-        // -> memory dump on error
+            if (chunk.getID() == ChunkID.INVALID_ID) {
+                chunk.setState(ChunkState.INVALID_ID);
+                SOP_GET_INVALID_ID.inc();
+                continue;
+            }
 
-        imExporter.importObject(p_chunk);
+            m_context.getCIDTable().translate(chunk.getID(), tableEntry, translateCache);
 
-        if (!m_context.isChunkLockDisabled()) {
-            LockManager.executeAfterOp(m_context.getCIDTable(), tableEntry, p_lockOperation,
-                    p_lockTimeoutMs);
+            if (get(chunk, tableEntry, imExporter, p_lockOperation, p_lockTimeoutMs)) {
+                successful++;
+            }
         }
 
         m_context.getDefragmenter().releaseApplicationThreadLock();
 
-        p_chunk.setState(ChunkState.OK);
-
-        SOP_GET.inc();
-
-        return true;
+        return successful;
     }
 
     /**
@@ -208,11 +228,32 @@ public final class Get {
         }
 
         HeapDataStructureImExporter imExporter = m_context.getDataStructureImExporterPool().get();
+        ChunkLockOperation lockOperation = p_lockOperation;
+
+        if (lockOperation == ChunkLockOperation.READ_OPTIMISTIC && !m_context.isChunkLockDisabled()) {
+            byte[] data = readOptimistic(tableEntry, imExporter);
+
+            if (data != null) {
+                m_context.getDefragmenter().releaseApplicationThreadLock();
+
+                ChunkByteArray ret = new ChunkByteArray(data);
+                ret.setID(p_cid);
+                ret.setState(ChunkState.OK);
+
+                SOP_GET.inc();
+
+                return ret;
+            }
+
+            SOP_GET_OPTIMISTIC_FALLBACKS.inc();
+            lockOperation = ChunkLockOperation.READ_LOCK_ACQ_OP_REL;
+        }
+
         imExporter.setHeapAddress(tableEntry.getAddress());
 
         if (!m_context.isChunkLockDisabled()) {
             LockManager.LockStatus lockStatus = LockManager.executeBeforeOp(m_context.getCIDTable(), tableEntry,
-                    p_lockOperation, p_lockTimeoutMs);
+                    lockOperation, p_lockTimeoutMs);
 
             if (lockStatus != LockManager.LockStatus.OK) {
                 m_context.getDefragmenter().releaseApplicationThreadLock();
@@ -242,7 +283,7 @@ public final class Get {
         imExporter.readBytes(data);
 
         if (!m_context.isChunkLockDisabled()) {
-            LockManager.executeAfterOp(m_context.getCIDTable(), tableEntry, p_lockOperation, p_lockTimeoutMs);
+            LockManager.executeAfterOp(m_context.getCIDTable(), tableEntry, lockOperation, p_lockTimeoutMs);
         }
 
         m_context.getDefragmenter().releaseApplicationThreadLock();
@@ -256,6 +297,21 @@ public final class Get {
         return ret;
     }
 
+    /**
+     * Get the data of a chunk from the heap memory into a pre-allocated buffer (no allocations). Used when the type
+     * is unknown, e.g. to forward the binary data to the requester
+     *
+     * @param p_cid
+     *         CID of the chunk to get
+     * @param p_buffer
+     *         Pre-allocated buffer to write chunk payload to
+     * @return Size of the chunk on success, negative ChunkState on failure (ChunkState.UNDEFINED if the buffer is
+     *         too small)
+     */
+    public int get(final long p_cid, final byte[] p_buffer) {
+        return get(p_cid, p_buffer, 0, p_buffer.length, ChunkLockOperation.READ_LOCK_ACQ_OP_REL, -1);
+    }
+
     /**
      * Get the data of a chunk from the heap memory. Used for replicating chunks. returns 0 if data does not fit into
      * buffer (and on other errors) returns size on success
@@ -299,6 +355,29 @@ public final class Get {
             return -ChunkState.DOES_NOT_EXIST.ordinal();
         }
 
+        HeapDataStructureImExporter imExporter = m_context.getDataStructureImExporterPool().get();
+        ChunkLockOperation lockOperation = p_lockOperation;
+
+        if (lockOperation == ChunkLockOperation.READ_OPTIMISTIC && !m_context.isChunkLockDisabled()) {
+            int chunkSize = readBytesOptimistic(tableEntry, imExporter, p_buffer, p_offset, p_size);
+
+            if (chunkSize >= 0) {
+                m_context.getDefragmenter().releaseApplicationThreadLock();
+
+                // abort if buffer is not large enough
+                if (chunkSize > p_size) {
+                    return -ChunkState.UNDEFINED.ordinal();
+                }
+
+                SOP_GET.inc();
+
+                return chunkSize;
+            }
+
+            SOP_GET_OPTIMISTIC_FALLBACKS.inc();
+            lockOperation = ChunkLockOperation.READ_LOCK_ACQ_OP_REL;
+        }
+
         int chunkSize = m_context.getHeap().getSize(tableEntry);
 
         // abort if buffer is not large enough
@@ -308,12 +387,11 @@ public final class Get {
             return -ChunkState.UNDEFINED.ordinal();
         }
 
-        HeapDataStructureImExporter imExporter = m_context.getDataStructureImExporterPool().get();
         imExporter.setHeapAddress(tableEntry.getAddress());
 
         if (!m_context.isChunkLockDisabled()) {
             LockManager.LockStatus lockStatus = LockManager.executeBeforeOp(m_context.getCIDTable(), tableEntry,
-                    p_lockOperation, p_lockTimeoutMs);
+                    lockOperation, p_lockTimeoutMs);
 
             if (lockStatus != LockManager.LockStatus.OK) {
                 m_context.getDefragmenter().releaseApplicationThreadLock();
@@ -336,7 +414,7 @@ public final class Get {
         imExporter.readBytes(p_buffer, p_offset, chunkSize);
 
         if (!m_context.isChunkLockDisabled()) {
-            LockManager.executeAfterOp(m_context.getCIDTable(), tableEntry, p_lockOperation, p_lockTimeoutMs);
+            LockManager.executeAfterOp(m_context.getCIDTable(), tableEntry, lockOperation, p_lockTimeoutMs);
         }
 
         m_context.getDefragmenter().releaseApplicationThreadLock();
@@ -346,6 +424,211 @@ public final class Get {
         return chunkSize;
     }
 
+    /**
+     * Get the data of a translated chunk. Caller must hold the application thread lock of the defragmenter
+     *
+     * @param p_chunk
+     *         AbstractChunk to read the chunk's data into. The state is set
+     * @param p_entry
+     *         Chunk entry of CIDTable (translated, might be invalid)
+     * @param p_imExporter
+     *         Importer to use
+     * @param p_lockOperation
+     *         Lock operation to execute with this get operation on the chunk
+     * @param p_lockTimeoutMs
+     *         Lock timeout (see public get)
+     * @return True on success, false on failure. Chunk state with additional information is set in p_chunk
+     */
+    private boolean get(final AbstractChunk p_chunk, final CIDTableChunkEntry p_entry,
+            final HeapDataStructureImExporter p_imExporter, final ChunkLockOperation p_lockOperation,
+            final int p_lockTimeoutMs) {
+        if (!p_entry.isValid()) {
+            p_chunk.setState(ChunkState.DOES_NOT_EXIST);
+            SOP_GET_NOT_EXISTS.inc();
+            return false;
+        }
+
+        ChunkLockOperation lockOperation = p_lockOperation;
+
+        if (lockOperation == ChunkLockOperation.READ_OPTIMISTIC && !m_context.isChunkLockDisabled()) {
+            if (importOptimistic(p_entry, p_imExporter, p_chunk)) {
+                p_chunk.setState(ChunkState.OK);
+
+                SOP_GET.inc();
+
+                return true;
+            }
+
+            SOP_GET_OPTIMISTIC_FALLBACKS.inc();
+            lockOperation = ChunkLockOperation.READ_LOCK_ACQ_OP_REL;
+        }
+
+        p_imExporter.setHeapAddress(p_entry.getAddress());
+
+        if (!m_context.isChunkLockDisabled()) {
+            LockManager.LockStatus lockStatus = LockManager.executeBeforeOp(m_context.getCIDTable(), p_entry,
+                    lockOperation, p_lockTimeoutMs);
+
+            if (lockStatus != LockManager.LockStatus.OK) {
+                if (lockStatus == LockManager.LockStatus.INVALID) {
+                    // entry was deleted in the meanwhile
+                    p_chunk.setState(ChunkState.DOES_NOT_EXIST);
+                } else if (lockStatus == LockManager.LockStatus.TIMEOUT) {
+                    // try lock did not succeed
+                    p_chunk.setState(ChunkState.LOCK_TIMEOUT);
+                } else {
+                    throw new IllegalStateException();
+                }
+
+                return false;
+            }
+        }
+
+        // TODO wrap with try catch and catch memory runtime exception? are there any left to catch?
+        // -> memory dump on error
+
+        p_imExporter.importObject(p_chunk);
+
+        if (!m_context.isChunkLockDisabled()) {
+            LockManager.executeAfterOp(m_context.getCIDTable(), p_entry, lockOperation,
+                    p_lockTimeoutMs);
+        }
+
+        p_chunk.setState(ChunkState.OK);
+
+        SOP_GET.inc();
+
+        return true;
+    }
+
+
+    /**
+     * Import the data of a chunk without acquiring a lock. The raw data is copied and validated first and the
+     * chunk is imported from the copy. Importing from the heap directly could run on torn data, e.g. a torn length
+     * prefix of an array allocating an arbitrarily large array or reading past the chunk
+     *
+     * @param p_entry
+     *         Chunk entry of CIDTable (valid)
+     * @param p_imExporter
+     *         Importer to use
+     * @param p_chunk
+     *         Chunk to import the data to
+     * @return True if the data imported is consistent, false if the optimistic read failed repeatedly or the
+     *         chunk was deleted
+     */
+    private boolean importOptimistic(final CIDTableChunkEntry p_entry, final HeapDataStructureImExporter p_imExporter,
+            final AbstractChunk p_chunk) {
+        byte[] data = readOptimistic(p_entry, p_imExporter);
+
+        if (data == null) {
+            return false;
+        }
+
+        // same byte order as the heap
+        new ByteBufferImExporter(ByteBuffer.wrap(data).order(ByteOrder.nativeOrder())).importObject(p_chunk);
+
+        return true;
+    }
+
+    /**
+     * Read the data of a chunk without acquiring a lock. The data read is validated afterwards
+     *
+     * @param p_entry
+     *         Chunk entry of CIDTable (valid)
+     * @param p_imExporter
+     *         Importer to use
+     * @return Data of the chunk or null if the optimistic read failed repeatedly or the chunk was deleted
+     */
+    private byte[] readOptimistic(final CIDTableChunkEntry p_entry, final HeapDataStructureImExporter p_imExporter) {
+        for (int i = 0; i < OPTIMISTIC_READ_TRIES; i++) {
+            long stamp = LockManager.tryOptimisticRead(m_context.getCIDTable(), p_entry);
+
+            if (!p_entry.isValid()) {
+                return null;
+            }
+
+            if (stamp != -1) {
+                // size is taken from the (re-read) entry or the heap, validated with the data
+                int chunkSize = m_context.getHeap().getSize(p_entry);
+
+                // torn size, don't allocate or read anything before validating
+                if (isChunkInHeap(p_entry, chunkSize)) {
+                    byte[] data = new byte[chunkSize];
+
+                    p_imExporter.setHeapAddress(p_entry.getAddress());
+                    p_imExporter.readBytes(data);
+
+                    if (LockManager.validateOptimisticRead(m_context.getCIDTable(), p_entry, stamp)) {
+                        return data;
+                    }
+                }
+            }
+
+            SOP_GET_OPTIMISTIC_RETRIES.inc();
+        }
+
+        return null;
+    }
+
+    /**
+     * Read the data of a chunk into a buffer without acquiring a lock. The data read is validated afterwards
+     *
+     * @param p_entry
+     *         Chunk entry of CIDTable (valid)
+     * @param p_imExporter
+     *         Importer to use
+     * @param p_buffer
+     *         Buffer to read the data into
+     * @param p_offset
+     *         Offset in buffer to start at
+     * @param p_size
+     *         Size of buffer
+     * @return Size of the chunk (data not read if larger than the buffer) or -1 if the optimistic read failed
+     *         repeatedly or the chunk was deleted
+     */
+    private int readBytesOptimistic(final CIDTableChunkEntry p_entry, final HeapDataStructureImExporter p_imExporter,
+            final byte[] p_buffer, final int p_offset, final int p_size) {
+        for (int i = 0; i < OPTIMISTIC_READ_TRIES; i++) {
+            long stamp = LockManager.tryOptimisticRead(m_context.getCIDTable(), p_entry);
+
+            if (!p_entry.isValid()) {
+                return -1;
+            }
+
+            if (stamp != -1) {
+                int chunkSize = m_context.getHeap().getSize(p_entry);
+
+                if (chunkSize <= p_size && isChunkInHeap(p_entry, chunkSize)) {
+                    p_imExporter.setHeapAddress(p_entry.getAddress());
+                    p_imExporter.readBytes(p_buffer, p_offset, chunkSize);
+                }
+
+                if (LockManager.validateOptimisticRead(m_context.getCIDTable(), p_entry, stamp)) {
+                    return chunkSize;
+                }
+            }
+
+            SOP_GET_OPTIMISTIC_RETRIES.inc();
+        }
+
+        return -1;
+    }
+
+    /**
+     * Check if a chunk read without a lock is located inside the heap. Entries and sizes read optimistically might
+     * be torn and must not be used for allocations or reads before they are checked
+     *
+     * @param p_entry
+     *         Chunk entry of CIDTable
+     * @param p_chunkSize
+     *         Size of the chunk
+     * @return True if the chunk's payload is inside the heap
+     */
+    private boolean isChunkInHeap(final CIDTableChunkEntry p_entry, final int p_chunkSize) {
+        return p_chunkSize >= 0 && p_entry.getAddress() > 0 &&
+                p_entry.getAddress() + p_chunkSize <= m_context.getHeap().getStatus().getTotalSizeBytes();
+    }
+
     /**
      * Assert the lock operation used
      *
@@ -369,6 +652,7 @@ public final class Get {
             case READ_LOCK_ACQ_OP_REL:
             case READ_LOCK_SWAP_OP_REL:
             case READ_LOCK_ACQ_OP_SWAP:
+            case READ_OPTIMISTIC:
                 return true;
 
             case WRITE_LOCK_ACQ_POST_OP:
@@ -1,5 +1,7 @@
 package de.hhu.bsinfo.dxmem.operations;
 
+import java.util.Arrays;
+
 import de.hhu.bsinfo.dxmem.core.CIDTableChunkEntry;
 import de.hhu.bsinfo.dxmem.core.Context;
 import de.hhu.bsinfo.dxmem.core.LockManager;
@@ -139,6 +141,130 @@ public class Lock {
         return p_chunk.isStateOk();
     }
 
+    /**
+     * Lock multiple chunks. The chunks are locked in a global order (sorted by CID) which avoids deadlocks with
+     * other threads locking multiple chunks. Either all chunks are locked or none: If a chunk does not exist
+     * or the timeout is hit, all locks acquired so far are released again. Duplicate CIDs are locked once.
+     *
+     * @param p_cids
+     *         Cids of chunks to lock (array is not modified)
+     * @param p_writeLock
+     *         Type of lock: true for write lock, false read lock
+     * @param p_lockTimeoutMs
+     *         Set to -1 for infinite retries (busy polling) until all locks are acquired, 0 for a one shot try
+     *         on each chunk and &gt; 0 for a timeout value in ms for locking all chunks
+     * @return ChunkState of the lock operation
+     */
+    public ChunkState lock(final long[] p_cids, final boolean p_writeLock, final int p_lockTimeoutMs) {
+        long[] cids = sortUnique(p_cids);
+        long[] pointers = new long[cids.length];
+
+        CIDTableChunkEntry tableEntry = m_context.getCIDTableEntryPool().get();
+
+        m_context.getDefragmenter().acquireApplicationThreadLock();
+
+        // translate all cids first and don't acquire any locks if one of the chunks does not exist
+        for (int i = 0; i < cids.length; i++) {
+            m_context.getCIDTable().translate(cids[i], tableEntry);
+
+            if (!tableEntry.isValid()) {
+                m_context.getDefragmenter().releaseApplicationThreadLock();
+
+                return ChunkState.DOES_NOT_EXIST;
+            }
+
+            pointers[i] = tableEntry.getPointer();
+        }
+
+        if (m_context.isChunkLockDisabled()) {
+            m_context.getDefragmenter().releaseApplicationThreadLock();
+
+            return ChunkState.OK;
+        }
+
+        ChunkLockOperation lockOperation = p_writeLock ? ChunkLockOperation.WRITE_LOCK_ACQ_PRE_OP :
+                ChunkLockOperation.READ_LOCK_ACQ_PRE_OP;
+        long deadline = p_lockTimeoutMs > 0 ? System.nanoTime() + p_lockTimeoutMs * 1000L * 1000 : 0;
+        LockManager.LockStatus lockStatus = LockManager.LockStatus.OK;
+        int locked = 0;
+
+        while (locked < pointers.length) {
+            int timeoutMs = p_lockTimeoutMs;
+
+            if (p_lockTimeoutMs > 0) {
+                // remaining time for all chunks left, one shot try if the time is up
+                timeoutMs = (int) Math.max(0, (deadline - System.nanoTime()) / 1000 / 1000);
+            }
+
+            // entry might have changed since translating
+            m_context.getCIDTable().entryRead(pointers[locked], tableEntry);
+
+            lockStatus = LockManager.executeBeforeOp(m_context.getCIDTable(), tableEntry, lockOperation, timeoutMs);
+
+            if (lockStatus != LockManager.LockStatus.OK) {
+                break;
+            }
+
+            locked++;
+        }
+
+        if (lockStatus != LockManager.LockStatus.OK) {
+            // rollback, release all locks acquired
+            releaseLocks(pointers, locked, p_writeLock, tableEntry);
+        }
+
+        m_context.getDefragmenter().releaseApplicationThreadLock();
+
+        switch (lockStatus) {
+            case OK:
+                return ChunkState.OK;
+            case INVALID:
+                // entry was deleted in the meanwhile
+                return ChunkState.DOES_NOT_EXIST;
+            case TIMEOUT:
+                return ChunkState.LOCK_TIMEOUT;
+            default:
+                throw new IllegalStateException("Unhandled switch case");
+        }
+    }
+
+    /**
+     * Unlock multiple chunks locked with a single (multi chunk) lock call. Duplicate CIDs are unlocked once.
+     *
+     * @param p_cids
+     *         Cids of chunks to unlock (array is not modified)
+     * @param p_writeLock
+     *         Type of lock: true for write lock, false read lock
+     * @return ChunkState of the lock operation. If a chunk does not exist, the remaining chunks are still
+     *         unlocked and DOES_NOT_EXIST is returned
+     */
+    public ChunkState unlock(final long[] p_cids, final boolean p_writeLock) {
+        long[] cids = sortUnique(p_cids);
+
+        CIDTableChunkEntry tableEntry = m_context.getCIDTableEntryPool().get();
+        ChunkState state = ChunkState.OK;
+
+        m_context.getDefragmenter().acquireApplicationThreadLock();
+
+        for (long cid : cids) {
+            m_context.getCIDTable().translate(cid, tableEntry);
+
+            if (!tableEntry.isValid()) {
+                state = ChunkState.DOES_NOT_EXIST;
+                continue;
+            }
+
+            if (!m_context.isChunkLockDisabled()) {
+                LockManager.executeAfterOp(m_context.getCIDTable(), tableEntry, p_writeLock ?
+                        ChunkLockOperation.WRITE_LOCK_REL_POST_OP : ChunkLockOperation.READ_LOCK_REL_POST_OP, -1);
+            }
+        }
+
+        m_context.getDefragmenter().releaseApplicationThreadLock();
+
+        return state;
+    }
+
     /**
      * Unlock a chunk
      *
@@ -272,4 +398,50 @@ public class Lock {
         p_chunk.setState(state);
         return p_chunk.isStateOk();
     }
+
+    /**
+     * Release locks acquired on multiple chunks (in reverse order)
+     *
+     * @param p_pointers
+     *         Pointers to the table entries of the locked chunks
+     * @param p_count
+     *         Number of chunks locked (from the start of the array)
+     * @param p_writeLock
+     *         Type of lock: true for write lock, false read lock
+     * @param p_tableEntry
+     *         Table entry object to use
+     */
+    private void releaseLocks(final long[] p_pointers, final int p_count, final boolean p_writeLock,
+            final CIDTableChunkEntry p_tableEntry) {
+        ChunkLockOperation lockOperation = p_writeLock ? ChunkLockOperation.WRITE_LOCK_REL_POST_OP :
+                ChunkLockOperation.READ_LOCK_REL_POST_OP;
+
+        for (int i = p_count - 1; i >= 0; i--) {
+            m_context.getCIDTable().entryRead(p_pointers[i], p_tableEntry);
+            LockManager.executeAfterOp(m_context.getCIDTable(), p_tableEntry, lockOperation, -1);
+        }
+    }
+
+    /**
+     * Sort CIDs to get the global lock order and remove duplicates
+     *
+     * @param p_cids
+     *         Cids to sort (not modified)
+     * @return Sorted copy without duplicates
+     */
+    private static long[] sortUnique(final long[] p_cids) {
+        long[] cids = p_cids.clone();
+
+        Arrays.sort(cids);
+
+        int count = 0;
+
+        for (int i = 0; i < cids.length; i++) {
+            if (count == 0 || cids[i] != cids[count - 1]) {
+                cids[count++] = cids[i];
+            }
+        }
+
+        return count == cids.length ? cids : Arrays.copyOf(cids, count);
+    }
 }
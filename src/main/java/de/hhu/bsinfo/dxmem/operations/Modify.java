@@ -16,7 +16,367 @@
 
 package de.hhu.bsinfo.dxmem.operations;
 
+import de.hhu.bsinfo.dxmem.DXMem;
+import de.hhu.bsinfo.dxmem.core.CIDTableChunkEntry;
+import de.hhu.bsinfo.dxmem.core.CIDTableEntryPool;
+import de.hhu.bsinfo.dxmem.core.Context;
+import de.hhu.bsinfo.dxmem.core.LockManager;
+import de.hhu.bsinfo.dxmem.core.MemoryRuntimeException;
+import de.hhu.bsinfo.dxmem.data.ChunkID;
+import de.hhu.bsinfo.dxmem.data.ChunkLockOperation;
+import de.hhu.bsinfo.dxmem.data.ChunkState;
+import de.hhu.bsinfo.dxutils.stats.StatisticsManager;
+import de.hhu.bsinfo.dxutils.stats.ValuePool;
+
+/**
+ * Modify the data of chunks in place using lambdas. The CID is translated and the lock operation is executed
+ * once and all reads and writes of the lambda are executed on the chunk's heap memory as a single batch
+ * (no (de-)serialization of a whole chunk like with get and put)
+ */
 public class Modify {
-    // TODO modify data (like read and write) but using lambdas which executes cid translation once and executes the
-    // sub-operations as a single batch
+    private static final int MAX_THREAD_COUNT = 1024;
+
+    private static final ValuePool SOP_MODIFY = new ValuePool(DXMem.class, "Modify");
+    private static final ValuePool SOP_MODIFY_INVALID_ID = new ValuePool(DXMem.class, "ModifyInvalidID");
+    private static final ValuePool SOP_MODIFY_NOT_EXISTS = new ValuePool(DXMem.class, "ModifyNotExists");
+
+    static {
+        StatisticsManager.get().registerOperation(DXMem.class, SOP_MODIFY);
+        StatisticsManager.get().registerOperation(DXMem.class, SOP_MODIFY_INVALID_ID);
+        StatisticsManager.get().registerOperation(DXMem.class, SOP_MODIFY_NOT_EXISTS);
+    }
+
+    /**
+     * Lambda to modify the data of a chunk
+     */
+    @FunctionalInterface
+    public interface Modifier {
+        /**
+         * Modify the data of a chunk. The accessor is only valid within this call
+         *
+         * @param p_accessor
+         *         Accessor to read and write the data of the chunk
+         */
+        void modify(final ChunkAccessor p_accessor);
+    }
+
+    private final Context m_context;
+
+    // accessors of the single value operations (Read, Write) which don't nest operations, indexed by thread ID
+    private final ChunkAccessor[] m_threadAccessors = new ChunkAccessor[MAX_THREAD_COUNT];
+
+    /**
+     * Constructor
+     *
+     * @param p_context
+     *         Context
+     */
+    public Modify(final Context p_context) {
+        m_context = p_context;
+    }
+
+    /**
+     * Modify the data of a chunk. The chunk is write locked while the modifier is executed
+     *
+     * @param p_cid
+     *         CID of the chunk to modify
+     * @param p_modifier
+     *         Lambda to execute on the data of the chunk
+     * @return Chunk state with the result of the operation. The modifier is only executed on ChunkState.OK
+     */
+    public ChunkState modify(final long p_cid, final Modifier p_modifier) {
+        return modify(p_cid, ChunkLockOperation.WRITE_LOCK_ACQ_OP_REL, -1, p_modifier);
+    }
+
+    /**
+     * Modify the data of a chunk
+     *
+     * @param p_cid
+     *         CID of the chunk to modify
+     * @param p_lockOperation
+     *         Lock operation to execute with this modify operation on the chunk
+     * @param p_modifier
+     *         Lambda to execute on the data of the chunk
+     * @return Chunk state with the result of the operation. The modifier is only executed on ChunkState.OK
+     */
+    public ChunkState modify(final long p_cid, final ChunkLockOperation p_lockOperation,
+            final Modifier p_modifier) {
+        return modify(p_cid, p_lockOperation, -1, p_modifier);
+    }
+
+    /**
+     * Modify the data of a chunk
+     *
+     * @param p_cid
+     *         CID of the chunk to modify
+     * @param p_lockOperation
+     *         Lock operation to execute with this modify operation on the chunk
+     * @param p_lockTimeoutMs
+     *         If a lock operation is set, set to -1 for infinite retries (busy polling) until the lock operation
+     *         succeeds. 0 for a one shot try and &gt; 0 for a timeout value in ms
+     * @param p_modifier
+     *         Lambda to execute on the data of the chunk
+     * @return Chunk state with the result of the operation. The modifier is only executed on ChunkState.OK
+     */
+    public ChunkState modify(final long p_cid, final ChunkLockOperation p_lockOperation, final int p_lockTimeoutMs,
+            final Modifier p_modifier) {
+        assert assertLockOperationSupport(p_lockOperation);
+
+        if (p_cid == ChunkID.INVALID_ID) {
+            SOP_MODIFY_INVALID_ID.inc();
+            return ChunkState.INVALID_ID;
+        }
+
+        // not taken from a pool: modifiers are allowed to execute further operations (which use the pools)
+        ChunkAccessor accessor = new ChunkAccessor(m_context.getHeap());
+        ChunkState state;
+
+        m_context.getDefragmenter().acquireApplicationThreadLock();
+
+        try {
+            m_context.getCIDTable().translate(p_cid, accessor.getEntry());
+
+            state = modify(p_cid, accessor, p_lockOperation, p_lockTimeoutMs, p_modifier);
+        } finally {
+            m_context.getDefragmenter().releaseApplicationThreadLock();
+        }
+
+        return state;
+    }
+
+    /**
+     * Modify the data of multiple chunks with the same modifier (batch). All chunks are modified within a single
+     * section of the defragmenter and the CIDs are translated in groups (CIDs in the same table). The chunks
+     * are locked one after another, i.e. the modifier is executed on one locked chunk at a time
+     *
+     * @param p_cids
+     *         CIDs of the chunks to modify
+     * @param p_states
+     *         Array to write the states of the chunks to (index matches p_cids)
+     * @param p_lockOperation
+     *         Lock operation to execute on each chunk
+     * @param p_lockTimeoutMs
+     *         If a lock operation is set, set to -1 for infinite retries (busy polling) until the lock operation
+     *         succeeds. 0 for a one shot try and &gt; 0 for a timeout value in ms (per chunk)
+     * @param p_modifier
+     *         Lambda to execute on the data of each chunk
+     * @return Number of chunks modified successfully. Check the states for failures
+     */
+    public int modify(final long[] p_cids, final ChunkState[] p_states, final ChunkLockOperation p_lockOperation,
+            final int p_lockTimeoutMs, final Modifier p_modifier) {
+        assert assertLockOperationSupport(p_lockOperation);
+        assert p_states.length >= p_cids.length;
+
+        ChunkAccessor accessor = new ChunkAccessor(m_context.getHeap());
+        // not the pooled cache of the thread: the modifier may execute (batch) operations translating with it
+        long[] translateCache = CIDTableEntryPool.createTranslateCache();
+        int successful = 0;
+
+        m_context.getDefragmenter().acquireApplicationThreadLock();
+
+        try {
+            for (int i = 0; i < p_cids.length; i++) {
+                if (p_cids[i] == ChunkID.INVALID_ID) {
+                    p_states[i] = ChunkState.INVALID_ID;
+                    SOP_MODIFY_INVALID_ID.inc();
+                    continue;
+                }
+
+                m_context.getCIDTable().translate(p_cids[i], accessor.getEntry(), translateCache);
+
+                p_states[i] = modify(p_cids[i], accessor, p_lockOperation, p_lockTimeoutMs, p_modifier);
+
+                if (p_states[i] == ChunkState.OK) {
+                    successful++;
+                }
+            }
+        } finally {
+            m_context.getDefragmenter().releaseApplicationThreadLock();
+        }
+
+        return successful;
+    }
+
+    /**
+     * Get the accessor of the current thread. Only for operations which don't execute further operations while
+     * the accessor is open (no modifiers)
+     *
+     * @return Accessor of the current thread
+     */
+    ChunkAccessor getThreadAccessor() {
+        long threadId = Thread.currentThread().getId();
+
+        if (threadId >= MAX_THREAD_COUNT) {
+            throw new MemoryRuntimeException("Thread IDs (and probably thread count) exceeding max accessors " +
+                    MAX_THREAD_COUNT);
+        }
+
+        ChunkAccessor accessor = m_threadAccessors[(int) threadId];
+
+        if (accessor == null) {
+            accessor = new ChunkAccessor(m_context.getHeap());
+            m_threadAccessors[(int) threadId] = accessor;
+        }
+
+        return accessor;
+    }
+
+    /**
+     * Translate a chunk, open an accessor on it and execute the lock operation (see open). Caller must hold the
+     * application thread lock of the defragmenter and close the accessor if the chunk state returned is ok
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_accessor
+     *         Accessor to translate the chunk with
+     * @param p_lockOperation
+     *         Lock operation to execute on the chunk
+     * @param p_lockTimeoutMs
+     *         Lock timeout (see public modify)
+     * @return ChunkState.OK if the accessor was opened
+     */
+    ChunkState translateAndOpen(final long p_cid, final ChunkAccessor p_accessor,
+            final ChunkLockOperation p_lockOperation, final int p_lockTimeoutMs) {
+        if (p_cid == ChunkID.INVALID_ID) {
+            return ChunkState.INVALID_ID;
+        }
+
+        m_context.getCIDTable().translate(p_cid, p_accessor.getEntry());
+
+        return open(p_cid, p_accessor, p_lockOperation, p_lockTimeoutMs);
+    }
+
+    /**
+     * Open an accessor on a translated chunk and execute the lock operation. Caller must hold the application
+     * thread lock of the defragmenter and close the accessor if the chunk state returned is ok
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_accessor
+     *         Accessor with the translated entry of the chunk (might be invalid)
+     * @param p_lockOperation
+     *         Lock operation to execute on the chunk
+     * @param p_lockTimeoutMs
+     *         Lock timeout (see public modify)
+     * @return ChunkState.OK if the accessor was opened
+     */
+    ChunkState open(final long p_cid, final ChunkAccessor p_accessor, final ChunkLockOperation p_lockOperation,
+            final int p_lockTimeoutMs) {
+        CIDTableChunkEntry entry = p_accessor.getEntry();
+
+        if (!entry.isValid()) {
+            return ChunkState.DOES_NOT_EXIST;
+        }
+
+        if (!m_context.isChunkLockDisabled()) {
+            LockManager.LockStatus lockStatus = LockManager.executeBeforeOp(m_context.getCIDTable(), entry,
+                    p_lockOperation, p_lockTimeoutMs);
+
+            if (lockStatus != LockManager.LockStatus.OK) {
+                if (lockStatus == LockManager.LockStatus.INVALID) {
+                    // entry was deleted in the meanwhile
+                    return ChunkState.DOES_NOT_EXIST;
+                } else if (lockStatus == LockManager.LockStatus.TIMEOUT) {
+                    // try lock did not succeed
+                    return ChunkState.LOCK_TIMEOUT;
+                } else {
+                    throw new IllegalStateException();
+                }
+            }
+        }
+
+        p_accessor.open(p_cid);
+
+        return ChunkState.OK;
+    }
+
+    /**
+     * Close an opened accessor and execute the lock operation after the access
+     *
+     * @param p_accessor
+     *         Opened accessor
+     * @param p_lockOperation
+     *         Lock operation to execute on the chunk
+     * @param p_lockTimeoutMs
+     *         Lock timeout (see public modify)
+     */
+    void close(final ChunkAccessor p_accessor, final ChunkLockOperation p_lockOperation,
+            final int p_lockTimeoutMs) {
+        p_accessor.close();
+
+        if (!m_context.isChunkLockDisabled()) {
+            LockManager.executeAfterOp(m_context.getCIDTable(), p_accessor.getEntry(), p_lockOperation,
+                    p_lockTimeoutMs);
+        }
+    }
+
+    /**
+     * Execute the modifier on a translated chunk. Caller must hold the application thread lock of the defragmenter
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_accessor
+     *         Accessor with the translated entry of the chunk (might be invalid)
+     * @param p_lockOperation
+     *         Lock operation to execute on the chunk
+     * @param p_lockTimeoutMs
+     *         Lock timeout (see public modify)
+     * @param p_modifier
+     *         Lambda to execute on the data of the chunk
+     * @return Chunk state with the result of the operation
+     */
+    private ChunkState modify(final long p_cid, final ChunkAccessor p_accessor,
+            final ChunkLockOperation p_lockOperation, final int p_lockTimeoutMs, final Modifier p_modifier) {
+        ChunkState state = open(p_cid, p_accessor, p_lockOperation, p_lockTimeoutMs);
+
+        if (state == ChunkState.OK) {
+            // always release the lock, even if the modifier fails (e.g. out of bounds access)
+            try {
+                p_modifier.modify(p_accessor);
+            } finally {
+                close(p_accessor, p_lockOperation, p_lockTimeoutMs);
+            }
+
+            SOP_MODIFY.inc();
+        } else if (state == ChunkState.DOES_NOT_EXIST) {
+            SOP_MODIFY_NOT_EXISTS.inc();
+        }
+
+        return state;
+    }
+
+    /**
+     * Assert the lock operation used
+     *
+     * @param p_lockOperation Lock operation to use with the current op
+     * @return True if ok, exception thrown if not supported
+     */
+    private boolean assertLockOperationSupport(final ChunkLockOperation p_lockOperation) {
+        switch (p_lockOperation) {
+            case NONE:
+            case WRITE_LOCK_ACQ_PRE_OP:
+            case WRITE_LOCK_REL_POST_OP:
+            case WRITE_LOCK_SWAP_POST_OP:
+            case WRITE_LOCK_ACQ_OP_REL:
+            case WRITE_LOCK_ACQ_OP_SWAP:
+            case READ_LOCK_SWAP_PRE_OP:
+            case READ_LOCK_SWAP_OP_REL:
+                return true;
+
+            case WRITE_LOCK_SWAP_PRE_OP:
+            case WRITE_LOCK_SWAP_OP_REL:
+            case READ_LOCK_ACQ_PRE_OP:
+            case READ_LOCK_REL_POST_OP:
+            case READ_LOCK_SWAP_POST_OP:
+            case READ_LOCK_ACQ_OP_REL:
+            case READ_LOCK_ACQ_OP_SWAP:
+            case WRITE_LOCK_ACQ_POST_OP:
+            case READ_LOCK_ACQ_POST_OP:
+            case READ_OPTIMISTIC:
+                throw new MemoryRuntimeException("Unsupported lock operation on modify op: " + p_lockOperation);
+
+            default:
+                throw new IllegalStateException("Unhandled lock operation");
+        }
+    }
 }
@@ -16,9 +16,14 @@
 
 package de.hhu.bsinfo.dxmem.operations;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+
 import de.hhu.bsinfo.dxmem.core.Address;
 import de.hhu.bsinfo.dxmem.core.CIDTableChunkEntry;
 import de.hhu.bsinfo.dxmem.core.Context;
+import de.hhu.bsinfo.dxmem.core.DirectBufferView;
 import de.hhu.bsinfo.dxmem.core.LockManager;
 import de.hhu.bsinfo.dxmem.data.ChunkID;
 import de.hhu.bsinfo.dxmem.data.ChunkLockOperation;
@@ -64,51 +69,218 @@ public class Pinning {
      * @return PinnedMemory object with ChunkState determining the result of the operation
      */
     public PinnedMemory pin(final long p_cid, final int p_acquireLockTimeoutMs) {
-        if (p_cid == ChunkID.INVALID_ID) {
-            return new PinnedMemory(ChunkState.INVALID_ID);
+        CIDTableChunkEntry tableEntry = m_context.getCIDTableEntryPool().get();
+        ChunkState state = pin(p_cid, p_acquireLockTimeoutMs, tableEntry);
+
+        if (state != ChunkState.OK) {
+            return new PinnedMemory(state);
         }
 
+        return new PinnedMemory(tableEntry.getAddress());
+    }
+
+    /**
+     * Pin a chunk and write the result to a reusable PinnedMemory object (no allocations)
+     *
+     * @param p_cid
+     *         Cid of chunk to pin
+     * @param p_acquireLockTimeoutMs
+     *         -1 for infinite retries (busy polling) until the lock operation
+     *         succeeds. 0 for a one shot try and &gt; 0 for a timeout value in ms
+     * @param p_pinnedMemory
+     *         PinnedMemory object to write the state and address of the pinned chunk to
+     * @return True if successful, false on failure. ChunkState with additional information is set in
+     *         p_pinnedMemory
+     */
+    public boolean pin(final long p_cid, final int p_acquireLockTimeoutMs, final PinnedMemory p_pinnedMemory) {
         CIDTableChunkEntry tableEntry = m_context.getCIDTableEntryPool().get();
+        ChunkState state = pin(p_cid, p_acquireLockTimeoutMs, tableEntry);
 
-        m_context.getDefragmenter().acquireApplicationThreadLock();
+        p_pinnedMemory.m_state = state;
+        p_pinnedMemory.m_address = state == ChunkState.OK ? tableEntry.getAddress() : Address.INVALID;
 
-        m_context.getCIDTable().translate(p_cid, tableEntry);
+        return state == ChunkState.OK;
+    }
 
-        if (!tableEntry.isValid()) {
-            m_context.getDefragmenter().releaseApplicationThreadLock();
+    /**
+     * Pin a chunk and get a direct ByteBuffer aliasing the chunk's payload. Data can be read and written without
+     * copying it to the Java heap, e.g. to hand it to NIO channels. The buffer is valid until the chunk is unpinned
+     * using unpin(PinnedBuffer)
+     *
+     * @param p_cid
+     *         Cid of chunk to pin
+     * @return PinnedBuffer object with ChunkState determining the result of the operation
+     */
+    public PinnedBuffer pinBuffer(final long p_cid) {
+        return pinBuffer(p_cid, -1);
+    }
 
-            return new PinnedMemory(ChunkState.DOES_NOT_EXIST);
+    /**
+     * Pin a chunk and get a direct ByteBuffer aliasing the chunk's payload. Data can be read and written without
+     * copying it to the Java heap, e.g. to hand it to NIO channels. The buffer is valid until the chunk is unpinned
+     * using unpin(PinnedBuffer)
+     *
+     * @param p_cid
+     *         Cid of chunk to pin
+     * @param p_acquireLockTimeoutMs
+     *         -1 for infinite retries (busy polling) until the lock operation
+     *         succeeds. 0 for a one shot try and &gt; 0 for a timeout value in ms
+     * @return PinnedBuffer object with ChunkState determining the result of the operation
+     */
+    public PinnedBuffer pinBuffer(final long p_cid, final int p_acquireLockTimeoutMs) {
+        CIDTableChunkEntry tableEntry = m_context.getCIDTableEntryPool().get();
+        ChunkState state = pin(p_cid, p_acquireLockTimeoutMs, tableEntry);
+
+        if (state != ChunkState.OK) {
+            return new PinnedBuffer(state);
         }
 
-        if (!m_context.isChunkLockDisabled()) {
-            LockManager.LockStatus lockStatus = LockManager.executeBeforeOp(m_context.getCIDTable(), tableEntry,
-                    ChunkLockOperation.WRITE_LOCK_ACQ_PRE_OP, p_acquireLockTimeoutMs);
+        // the chunk is pinned and cannot be moved by the defragmenter anymore
+        int size = m_context.getHeap().getSize(tableEntry);
 
-            // acquire write lock to ensure the chunk is not deleted while trying to pin it
-            if (lockStatus != LockManager.LockStatus.OK) {
-                m_context.getDefragmenter().releaseApplicationThreadLock();
+        return new PinnedBuffer(p_cid, tableEntry.getAddress(),
+                m_context.getHeap().wrap(tableEntry.getAddress(), size));
+    }
+
+    /**
+     * Unpin a chunk pinned with pinBuffer. The buffer (but not any duplicates or slices of it) is invalidated
+     *
+     * @param p_pinnedBuffer
+     *         PinnedBuffer of the pinned chunk
+     * @return CID of unpinned chunk on success, INVALID_ID on failure
+     */
+    public long unpin(final PinnedBuffer p_pinnedBuffer) {
+        if (!p_pinnedBuffer.isStateOk() || !p_pinnedBuffer.m_valid) {
+            return ChunkID.INVALID_ID;
+        }
 
-                return new PinnedMemory(ChunkState.DOES_NOT_EXIST);
+        p_pinnedBuffer.invalidate();
+
+        return unpin(p_pinnedBuffer.m_address);
+    }
+
+    /**
+     * Write the payloads of pinned chunks to a channel with gathering writes (e.g. SocketChannel or FileChannel)
+     * without copying them to the Java heap first. Blocks until all data is written (blocking channel) or
+     * returns once the channel does not accept any more data (non-blocking channel)
+     *
+     * @param p_channel
+     *         Channel to write to
+     * @param p_pinnedBuffers
+     *         PinnedBuffers of the chunks to write (valid)
+     * @param p_offset
+     *         Offset in the array to start at
+     * @param p_count
+     *         Number of chunks to write
+     * @return Number of bytes written
+     * @throws IOException
+     *         On errors writing to the channel
+     */
+    public long write(final GatheringByteChannel p_channel, final PinnedBuffer[] p_pinnedBuffers, final int p_offset,
+            final int p_count) throws IOException {
+        assert p_offset >= 0 && p_count >= 0 && p_offset + p_count <= p_pinnedBuffers.length;
+
+        // duplicates to not change the positions of the buffers (no copy of the data)
+        ByteBuffer[] buffers = new ByteBuffer[p_count];
+        long total = 0;
+
+        for (int i = 0; i < p_count; i++) {
+            if (!p_pinnedBuffers[p_offset + i].m_valid) {
+                throw new IllegalStateException("Chunk " + p_pinnedBuffers[p_offset + i] + " not pinned");
             }
+
+            buffers[i] = p_pinnedBuffers[p_offset + i].m_buffer.duplicate();
+            buffers[i].clear();
+            total += buffers[i].remaining();
         }
 
-        tableEntry.setPinned(true);
+        long written = 0;
+        int next = 0;
 
-        m_context.getCIDTable().entryUpdate(tableEntry);
+        while (written < total) {
+            long res = p_channel.write(buffers, next, p_count - next);
 
-        if (!m_context.isChunkLockDisabled()) {
-            LockManager.executeAfterOp(m_context.getCIDTable(), tableEntry,
-                    ChunkLockOperation.WRITE_LOCK_REL_POST_OP, -1);
+            if (res == 0) {
+                break;
+            }
+
+            written += res;
+
+            while (next < p_count && !buffers[next].hasRemaining()) {
+                next++;
+            }
+        }
+
+        return written;
+    }
+
+    /**
+     * Pin multiple chunks. Instead of acquiring and releasing the write lock of each chunk, the pinned flag is set
+     * with a single atomic update of the table entry if no write lock is acquired. This also prevents the chunk from
+     * getting deleted because removing a chunk requires the write lock
+     *
+     * @param p_cids
+     *         Cids of chunks to pin
+     * @param p_outAddresses
+     *         Array to write the addresses of the pinned chunks to (same index as the CID). Address.INVALID is
+     *         written for chunks that could not be pinned
+     * @return Number of chunks pinned successfully
+     */
+    public int pin(final long[] p_cids, final long[] p_outAddresses) {
+        return pin(p_cids, p_outAddresses, -1);
+    }
+
+    /**
+     * Pin multiple chunks. Instead of acquiring and releasing the write lock of each chunk, the pinned flag is set
+     * with a single atomic update of the table entry if no write lock is acquired. This also prevents the chunk from
+     * getting deleted because removing a chunk requires the write lock
+     *
+     * @param p_cids
+     *         Cids of chunks to pin
+     * @param p_outAddresses
+     *         Array to write the addresses of the pinned chunks to (same index as the CID). Address.INVALID is
+     *         written for chunks that could not be pinned
+     * @param p_acquireLockTimeoutMs
+     *         -1 for infinite retries (busy polling) until no write lock is acquired on a chunk. 0 for a one shot
+     *         try and &gt; 0 for a timeout value in ms (per chunk)
+     * @return Number of chunks pinned successfully
+     */
+    public int pin(final long[] p_cids, final long[] p_outAddresses, final int p_acquireLockTimeoutMs) {
+        assert p_cids != null;
+        assert p_outAddresses != null && p_outAddresses.length >= p_cids.length;
+
+        int count = 0;
+        CIDTableChunkEntry tableEntry = m_context.getCIDTableEntryPool().get();
+
+        m_context.getDefragmenter().acquireApplicationThreadLock();
+
+        for (int i = 0; i < p_cids.length; i++) {
+            p_outAddresses[i] = Address.INVALID;
+
+            if (p_cids[i] == ChunkID.INVALID_ID) {
+                continue;
+            }
+
+            m_context.getCIDTable().translate(p_cids[i], tableEntry);
+
+            if (updatePinnedFlag(tableEntry, true, p_acquireLockTimeoutMs)) {
+                m_context.getPinnedChunkRegistry().put(tableEntry.getAddress(), p_cids[i],
+                        m_context.getHeap().getSize(tableEntry));
+
+                p_outAddresses[i] = tableEntry.getAddress();
+                count++;
+            }
         }
 
         m_context.getDefragmenter().releaseApplicationThreadLock();
 
-        return new PinnedMemory(tableEntry.getAddress());
+        return count;
     }
 
     /**
-     * Unpin a pinned chunk. Depending on how many chunks are currently stored, this call is very slow because it
-     * has to perform a depth search on the CIDTable to find the CIDTable entry
+     * Unpin a pinned chunk. The CID of the chunk is looked up in the registry of pinned chunks. Chunks pinned
+     * before the heap was loaded from a memory dump are not registered. For these, this call is very slow because
+     * it has to perform a depth search on the CIDTable to find the CIDTable entry
      *
      * @param p_pinnedChunkAddress
      *         Address of pinned chunk
@@ -123,14 +295,24 @@ public class Pinning {
 
         m_context.getDefragmenter().acquireApplicationThreadLock();
 
-        long cid = m_context.getCIDTable().getTableEntryWithChunkAddress(tableEntry, p_pinnedChunkAddress);
+        long cid = m_context.getPinnedChunkRegistry().get(p_pinnedChunkAddress);
+
+        if (cid != ChunkID.INVALID_ID) {
+            m_context.getCIDTable().translate(cid, tableEntry);
+        } else {
+            cid = m_context.getCIDTable().getTableEntryWithChunkAddress(tableEntry, p_pinnedChunkAddress);
+        }
+
+        if (!tableEntry.isValid() || tableEntry.getAddress() != p_pinnedChunkAddress) {
+            m_context.getDefragmenter().releaseApplicationThreadLock();
 
-        if (!tableEntry.isValid()) {
             throw new IllegalStateException("Could not find chunk entry in CIDTable for raw chunk address " +
                     Address.toHexString(p_pinnedChunkAddress) + " ensure the address is valid");
         }
 
         if (!tableEntry.isPinned()) {
+            m_context.getDefragmenter().releaseApplicationThreadLock();
+
             throw new IllegalStateException("Cannot unpin chunk with CID " + ChunkID.toHexString(cid) +
                     " with chunk table entry " + tableEntry + ", not previously pinned");
         }
@@ -152,6 +334,8 @@ public class Pinning {
 
         m_context.getCIDTable().entryUpdate(tableEntry);
 
+        m_context.getPinnedChunkRegistry().remove(p_pinnedChunkAddress);
+
         if (!m_context.isChunkLockDisabled()) {
             LockManager.executeAfterOp(m_context.getCIDTable(), tableEntry,
                     ChunkLockOperation.WRITE_LOCK_REL_POST_OP, -1);
@@ -162,6 +346,53 @@ public class Pinning {
         return cid;
     }
 
+    /**
+     * Unpin multiple pinned chunks. The CIDs are looked up in the registry of pinned chunks, the pinned flag is
+     * cleared with an atomic update of the table entry
+     *
+     * @param p_pinnedChunkAddresses
+     *         Addresses of pinned chunks
+     * @param p_outCids
+     *         Array to write the CIDs of the unpinned chunks to (same index as the address). ChunkID.INVALID_ID is
+     *         written for addresses of chunks that are not pinned
+     * @return Number of chunks unpinned successfully
+     */
+    public int unpin(final long[] p_pinnedChunkAddresses, final long[] p_outCids) {
+        assert p_pinnedChunkAddresses != null;
+        assert p_outCids != null && p_outCids.length >= p_pinnedChunkAddresses.length;
+
+        int count = 0;
+        CIDTableChunkEntry tableEntry = m_context.getCIDTableEntryPool().get();
+
+        m_context.getDefragmenter().acquireApplicationThreadLock();
+
+        for (int i = 0; i < p_pinnedChunkAddresses.length; i++) {
+            long address = p_pinnedChunkAddresses[i];
+            long cid = m_context.getPinnedChunkRegistry().get(address);
+
+            if (cid == ChunkID.INVALID_ID && address != Address.INVALID && address > 0) {
+                // not registered, e.g. pinned before the heap was loaded from a memory dump
+                cid = m_context.getCIDTable().getTableEntryWithChunkAddress(tableEntry, address);
+            } else if (cid != ChunkID.INVALID_ID) {
+                m_context.getCIDTable().translate(cid, tableEntry);
+            }
+
+            p_outCids[i] = ChunkID.INVALID_ID;
+
+            if (cid != ChunkID.INVALID_ID && tableEntry.isValid() && tableEntry.getAddress() == address &&
+                    updatePinnedFlag(tableEntry, false, -1)) {
+                m_context.getPinnedChunkRegistry().remove(address);
+
+                p_outCids[i] = cid;
+                count++;
+            }
+        }
+
+        m_context.getDefragmenter().releaseApplicationThreadLock();
+
+        return count;
+    }
+
     /**
      * Unpin a pinned chunk using the CID
      *
@@ -203,18 +434,132 @@ public class Pinning {
 
         m_context.getCIDTable().entryUpdate(tableEntry);
 
-        LockManager.executeAfterOp(m_context.getCIDTable(), tableEntry,
-                ChunkLockOperation.WRITE_LOCK_REL_POST_OP, -1);
+        m_context.getPinnedChunkRegistry().remove(tableEntry.getAddress());
+
+        if (!m_context.isChunkLockDisabled()) {
+            LockManager.executeAfterOp(m_context.getCIDTable(), tableEntry,
+                    ChunkLockOperation.WRITE_LOCK_REL_POST_OP, -1);
+        }
 
         m_context.getDefragmenter().releaseApplicationThreadLock();
     }
 
+    /**
+     * Pin a chunk
+     *
+     * @param p_cid
+     *         Cid of chunk to pin
+     * @param p_acquireLockTimeoutMs
+     *         -1 = infinite, 0 = one shot, &gt; 0 timeout in ms
+     * @param p_tableEntry
+     *         Table entry to translate the CID to. Contains the address of the chunk on success
+     * @return ChunkState.OK on success, other state on failure
+     */
+    private ChunkState pin(final long p_cid, final int p_acquireLockTimeoutMs,
+            final CIDTableChunkEntry p_tableEntry) {
+        if (p_cid == ChunkID.INVALID_ID) {
+            return ChunkState.INVALID_ID;
+        }
+
+        m_context.getDefragmenter().acquireApplicationThreadLock();
+
+        m_context.getCIDTable().translate(p_cid, p_tableEntry);
+
+        if (!p_tableEntry.isValid()) {
+            m_context.getDefragmenter().releaseApplicationThreadLock();
+
+            return ChunkState.DOES_NOT_EXIST;
+        }
+
+        if (!m_context.isChunkLockDisabled()) {
+            LockManager.LockStatus lockStatus = LockManager.executeBeforeOp(m_context.getCIDTable(), p_tableEntry,
+                    ChunkLockOperation.WRITE_LOCK_ACQ_PRE_OP, p_acquireLockTimeoutMs);
+
+            // acquire write lock to ensure the chunk is not deleted while trying to pin it
+            if (lockStatus != LockManager.LockStatus.OK) {
+                m_context.getDefragmenter().releaseApplicationThreadLock();
+
+                return ChunkState.DOES_NOT_EXIST;
+            }
+        }
+
+        p_tableEntry.setPinned(true);
+
+        m_context.getCIDTable().entryUpdate(p_tableEntry);
+
+        m_context.getPinnedChunkRegistry().put(p_tableEntry.getAddress(), p_cid,
+                m_context.getHeap().getSize(p_tableEntry));
+
+        if (!m_context.isChunkLockDisabled()) {
+            LockManager.executeAfterOp(m_context.getCIDTable(), p_tableEntry,
+                    ChunkLockOperation.WRITE_LOCK_REL_POST_OP, -1);
+        }
+
+        m_context.getDefragmenter().releaseApplicationThreadLock();
+
+        return ChunkState.OK;
+    }
+
+    /**
+     * Set or clear the pinned flag of a chunk with an atomic update of the table entry. The flag is not changed
+     * while the write lock of the chunk is acquired
+     *
+     * @param p_tableEntry
+     *         Table entry of the chunk (translated)
+     * @param p_pinned
+     *         True to pin, false to unpin
+     * @param p_timeoutMs
+     *         -1 = infinite, 0 = one shot, &gt; 0 timeout in ms
+     * @return True if the flag was updated, false if the chunk does not exist, was not pinned (unpin) or on timeout
+     */
+    private boolean updatePinnedFlag(final CIDTableChunkEntry p_tableEntry, final boolean p_pinned,
+            final int p_timeoutMs) {
+        long startTime = 0;
+
+        if (p_timeoutMs > 0) {
+            startTime = System.nanoTime();
+        }
+
+        p_tableEntry.currentStateInitialState();
+
+        while (true) {
+            // entry turned invalid, e.g. chunk was deleted
+            if (!p_tableEntry.isValid() || !p_pinned && !p_tableEntry.isPinned()) {
+                return false;
+            }
+
+            if (m_context.isChunkLockDisabled() || !p_tableEntry.isWriteLockAcquired()) {
+                p_tableEntry.setPinned(p_pinned);
+
+                if (m_context.getCIDTable().entryAtomicUpdate(p_tableEntry)) {
+                    return true;
+                }
+            } else if (p_timeoutMs >= 0) {
+                if (p_timeoutMs == 0 || System.nanoTime() - startTime >= p_timeoutMs * 1000L * 1000) {
+                    return false;
+                }
+            }
+
+            Thread.yield();
+            m_context.getCIDTable().entryReread(p_tableEntry);
+        }
+    }
+
     /**
      * Wrapper class for pinned memory data
      */
     public static final class PinnedMemory {
-        private final ChunkState m_state;
-        private final long m_address;
+        private ChunkState m_state;
+        private long m_address;
+
+        /**
+         * Constructor
+         * Create an empty object to reuse with multiple pin calls
+         */
+        public PinnedMemory() {
+            m_state = ChunkState.UNDEFINED;
+            m_address = Address.INVALID;
+        }
 
         /**
          * Constructor
@@ -265,4 +610,116 @@ public class Pinning {
             return m_state == ChunkState.OK;
         }
     }
+
+    /**
+     * Pinned chunk with a direct ByteBuffer aliasing its payload
+     */
+    public static final class PinnedBuffer {
+        private final ChunkState m_state;
+        private final long m_cid;
+        private final long m_address;
+        private final ByteBuffer m_buffer;
+        private volatile boolean m_valid;
+
+        /**
+         * Constructor
+         *
+         * @param p_state
+         *         State of chunk (result of operation)
+         */
+        private PinnedBuffer(final ChunkState p_state) {
+            m_state = p_state;
+            m_cid = ChunkID.INVALID_ID;
+            m_address = Address.INVALID;
+            m_buffer = null;
+            m_valid = false;
+        }
+
+        /**
+         * Constructor
+         *
+         * @param p_cid
+         *         CID of pinned chunk
+         * @param p_address
+         *         Address of pinned chunk
+         * @param p_buffer
+         *         Buffer aliasing the payload of the chunk
+         */
+        private PinnedBuffer(final long p_cid, final long p_address, final ByteBuffer p_buffer) {
+            m_state = ChunkState.OK;
+            m_cid = p_cid;
+            m_address = p_address;
+            m_buffer = p_buffer;
+            m_valid = true;
+        }
+
+        /**
+         * Get the state of the chunk (result of last operation)
+         *
+         * @return ChunkState
+         */
+        public ChunkState getState() {
+            return m_state;
+        }
+
+        /**
+         * Get the CID of the pinned chunk
+         *
+         * @return CID of pinned chunk
+         */
+        public long getCID() {
+            return m_cid;
+        }
+
+        /**
+         * Get the address of the pinned chunk
+         *
+         * @return Address of pinned chunk
+         */
+        public long getAddress() {
+            return m_address;
+        }
+
+        /**
+         * Get the direct buffer aliasing the payload of the chunk. Changes to the buffer are changes of the chunk.
+         * Must not be used after the chunk was unpinned
+         *
+         * @return Direct ByteBuffer (native byte order) or null if the operation failed
+         */
+        public ByteBuffer getBuffer() {
+            return m_buffer;
+        }
+
+        /**
+         * Is chunk state ok (quick check on no errors)
+         *
+         * @return True on no errors, false otherwise
+         */
+        public boolean isStateOk() {
+            return m_state == ChunkState.OK;
+        }
+
+        /**
+         * Check if the chunk is still pinned and the buffer valid
+         *
+         * @return True if valid, false if unpinned or the operation failed
+         */
+        public boolean isValid() {
+            return m_valid;
+        }
+
+        @Override
+        public String toString() {
+            return "PinnedBuffer[" + ChunkID.toHexString(m_cid) + ", " + m_state + ", " +
+                    Address.toHexString(m_address) + ", " + (m_buffer != null ? m_buffer.capacity() : 0) + ']';
+        }
+
+        /**
+         * Invalidate the buffer on unpin
+         */
+        private void invalidate() {
+            m_valid = false;
+            DirectBufferView.invalidate(m_buffer);
+        }
+    }
 }
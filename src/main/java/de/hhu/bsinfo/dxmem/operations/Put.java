@@ -95,59 +95,68 @@ public class Put {
         }
 
         CIDTableChunkEntry tableEntry = m_context.getCIDTableEntryPool().get();
+        HeapDataStructureImExporter imExporter = m_context.getDataStructureImExporterPool().get();
 
         m_context.getDefragmenter().acquireApplicationThreadLock();
 
         m_context.getCIDTable().translate(p_chunk.getID(), tableEntry);
 
-        if (!tableEntry.isValid()) {
-            m_context.getDefragmenter().releaseApplicationThreadLock();
+        ChunkState state = put(p_chunk, tableEntry, imExporter, p_lockOperation, p_lockTimeoutMs);
 
-            p_chunk.setState(ChunkState.DOES_NOT_EXIST);
-            SOP_PUT_NOT_EXISTS.inc();
-            return false;
-        }
+        m_context.getDefragmenter().releaseApplicationThreadLock();
 
-        HeapDataStructureImExporter imExporter = m_context.getDataStructureImExporterPool().get();
-        imExporter.setHeapAddress(tableEntry.getAddress());
+        return state == ChunkState.OK;
+    }
 
-        if (!m_context.isChunkLockDisabled()) {
-            LockManager.LockStatus lockStatus = LockManager.executeBeforeOp(m_context.getCIDTable(), tableEntry,
-                    p_lockOperation, p_lockTimeoutMs);
+    /**
+     * Put the data of multiple chunks to the heap memory (batch). All chunks are written within a single
+     * section of the defragmenter and the CIDs are translated in groups (CIDs in the same table).
+     *
+     * @param p_chunks
+     *         AbstractChunks with the CIDs set and data to write to the heap. The state of each chunk is set
+     *         (see single put)
+     * @param p_offset
+     *         Offset in the array to start at
+     * @param p_count
+     *         Number of chunks to put
+     * @param p_lockOperation
+     *         Lock operation to execute on each chunk
+     * @param p_lockTimeoutMs
+     *         If a lock operation is set, set to -1 for infinite retries (busy polling) until the lock operation
+     *         succeeds. 0 for a one shot try and &gt; 0 for a timeout value in ms (per chunk)
+     * @return Number of chunks written successfully. Check the states of the chunks for failures
+     */
+    public int put(final AbstractChunk[] p_chunks, final int p_offset, final int p_count,
+            final ChunkLockOperation p_lockOperation, final int p_lockTimeoutMs) {
+        assert assertLockOperationSupport(p_lockOperation);
+        assert p_offset >= 0 && p_count >= 0 && p_offset + p_count <= p_chunks.length;
 
-            if (lockStatus != LockManager.LockStatus.OK) {
-                m_context.getDefragmenter().releaseApplicationThreadLock();
+        CIDTableChunkEntry tableEntry = m_context.getCIDTableEntryPool().get();
+        HeapDataStructureImExporter imExporter = m_context.getDataStructureImExporterPool().get();
+        long[] translateCache = m_context.getCIDTableEntryPool().getTranslateCache();
+        int successful = 0;
 
-                if (lockStatus == LockManager.LockStatus.INVALID) {
-                    // entry was deleted in the meanwhile
-                    p_chunk.setState(ChunkState.DOES_NOT_EXIST);
-                } else if (lockStatus == LockManager.LockStatus.TIMEOUT) {
-                    // try lock did not succeed
-                    p_chunk.setState(ChunkState.LOCK_TIMEOUT);
-                } else {
-                    throw new IllegalStateException();
-                }
+        m_context.getDefragmenter().acquireApplicationThreadLock();
 
-                return false;
-            }
-        }
+        for (int i = p_offset; i < p_offset + p_count; i++) {
+            AbstractChunk chunk = p_chunks[i];
 
-        // TODO wrap with try catch and catch memory runtime exception? are there any left to catch?
-        // -> memory dump on error
+            if (chunk.getID() == ChunkID.INVALID_ID) {
+                chunk.setState(ChunkState.INVALID_ID);
+                SOP_PUT_INVALID_ID.inc();
+                continue;
+            }
 
-        imExporter.exportObject(p_chunk);
+            m_context.getCIDTable().translate(chunk.getID(), tableEntry, translateCache);
 
-        if (!m_context.isChunkLockDisabled()) {
-            LockManager.executeAfterOp(m_context.getCIDTable(), tableEntry, p_lockOperation, p_lockTimeoutMs);
+            if (put(chunk, tableEntry, imExporter, p_lockOperation, p_lockTimeoutMs) == ChunkState.OK) {
+                successful++;
+            }
         }
 
         m_context.getDefragmenter().releaseApplicationThreadLock();
 
-        p_chunk.setState(ChunkState.OK);
-
-        SOP_PUT.inc();
-
-        return true;
+        return successful;
     }
 
     /**
@@ -180,23 +189,204 @@ public class Put {
 
         m_context.getCIDTable().translate(p_chunkID, tableEntry);
 
-        if (!tableEntry.isValid()) {
-            m_context.getDefragmenter().releaseApplicationThreadLock();
+        ChunkState state = lockBeforePut(tableEntry, p_lockOperation, p_lockTimeoutMs);
 
+        if (state == ChunkState.OK) {
+            // because this is quite expensive, keep this as an assert to catch writing beyond the chunk bounds
+            assert p_data.length <= m_context.getHeap().getSize(tableEntry);
+
+            m_context.getHeap().writeBytes(tableEntry.getAddress(), 0, p_data, 0, p_data.length);
+
+            unlockAfterPut(tableEntry, p_lockOperation, p_lockTimeoutMs);
+        }
+
+        m_context.getDefragmenter().releaseApplicationThreadLock();
+
+        return state;
+    }
+
+    /**
+     * Put the binary data of multiple chunks to the heap memory (batch). The data of all chunks is taken from
+     * a single buffer, e.g. a message received. All chunks are written within a single section of the
+     * defragmenter and the CIDs are translated in groups (CIDs in the same table).
+     *
+     * @param p_cids
+     *         CIDs of the chunks to put
+     * @param p_data
+     *         Buffer with the data of all chunks
+     * @param p_offsets
+     *         Offsets of the chunks' data in the buffer (index matches p_cids)
+     * @param p_lengths
+     *         Lengths of the chunks' data in the buffer (index matches p_cids)
+     * @param p_states
+     *         Array to write the states of the chunks to (index matches p_cids)
+     * @param p_lockOperation
+     *         Lock operation to execute on each chunk
+     * @param p_lockTimeoutMs
+     *         If a lock operation is set, set to -1 for infinite retries (busy polling) until the lock operation
+     *         succeeds. 0 for a one shot try and &gt; 0 for a timeout value in ms (per chunk)
+     * @return Number of chunks written successfully. Check the states for failures
+     */
+    public int put(final long[] p_cids, final byte[] p_data, final int[] p_offsets, final int[] p_lengths,
+            final ChunkState[] p_states, final ChunkLockOperation p_lockOperation, final int p_lockTimeoutMs) {
+        assert assertLockOperationSupport(p_lockOperation);
+        assert p_offsets.length >= p_cids.length && p_lengths.length >= p_cids.length;
+        assert p_states.length >= p_cids.length;
+
+        CIDTableChunkEntry tableEntry = m_context.getCIDTableEntryPool().get();
+        long[] translateCache = m_context.getCIDTableEntryPool().getTranslateCache();
+        int successful = 0;
+
+        m_context.getDefragmenter().acquireApplicationThreadLock();
+
+        for (int i = 0; i < p_cids.length; i++) {
+            if (p_cids[i] == ChunkID.INVALID_ID) {
+                p_states[i] = ChunkState.INVALID_ID;
+                SOP_PUT_INVALID_ID.inc();
+                continue;
+            }
+
+            m_context.getCIDTable().translate(p_cids[i], tableEntry, translateCache);
+
+            p_states[i] = lockBeforePut(tableEntry, p_lockOperation, p_lockTimeoutMs);
+
+            if (p_states[i] == ChunkState.OK) {
+                assert p_lengths[i] <= m_context.getHeap().getSize(tableEntry);
+
+                m_context.getHeap().writeBytes(tableEntry.getAddress(), 0, p_data, p_offsets[i], p_lengths[i]);
+
+                unlockAfterPut(tableEntry, p_lockOperation, p_lockTimeoutMs);
+
+                successful++;
+            }
+        }
+
+        m_context.getDefragmenter().releaseApplicationThreadLock();
+
+        return successful;
+    }
+
+    /**
+     * Put the binary data of multiple chunks to the heap memory (batch). The data of all chunks is taken from
+     * a single off-heap buffer, e.g. a message received. All chunks are written within a single section of the
+     * defragmenter and the CIDs are translated in groups (CIDs in the same table).
+     *
+     * @param p_cids
+     *         CIDs of the chunks to put
+     * @param p_address
+     *         Absolute address of the off-heap buffer with the data of all chunks
+     * @param p_offsets
+     *         Offsets of the chunks' data in the buffer (index matches p_cids)
+     * @param p_lengths
+     *         Lengths of the chunks' data in the buffer (index matches p_cids)
+     * @param p_states
+     *         Array to write the states of the chunks to (index matches p_cids)
+     * @param p_lockOperation
+     *         Lock operation to execute on each chunk
+     * @param p_lockTimeoutMs
+     *         If a lock operation is set, set to -1 for infinite retries (busy polling) until the lock operation
+     *         succeeds. 0 for a one shot try and &gt; 0 for a timeout value in ms (per chunk)
+     * @return Number of chunks written successfully. Check the states for failures
+     */
+    public int put(final long[] p_cids, final long p_address, final int[] p_offsets, final int[] p_lengths,
+            final ChunkState[] p_states, final ChunkLockOperation p_lockOperation, final int p_lockTimeoutMs) {
+        assert assertLockOperationSupport(p_lockOperation);
+        assert p_offsets.length >= p_cids.length && p_lengths.length >= p_cids.length;
+        assert p_states.length >= p_cids.length;
+
+        CIDTableChunkEntry tableEntry = m_context.getCIDTableEntryPool().get();
+        long[] translateCache = m_context.getCIDTableEntryPool().getTranslateCache();
+        int successful = 0;
+
+        m_context.getDefragmenter().acquireApplicationThreadLock();
+
+        for (int i = 0; i < p_cids.length; i++) {
+            if (p_cids[i] == ChunkID.INVALID_ID) {
+                p_states[i] = ChunkState.INVALID_ID;
+                SOP_PUT_INVALID_ID.inc();
+                continue;
+            }
+
+            m_context.getCIDTable().translate(p_cids[i], tableEntry, translateCache);
+
+            p_states[i] = lockBeforePut(tableEntry, p_lockOperation, p_lockTimeoutMs);
+
+            if (p_states[i] == ChunkState.OK) {
+                assert p_lengths[i] <= m_context.getHeap().getSize(tableEntry);
+
+                m_context.getHeap().copyNative(tableEntry.getAddress(), 0, p_address, p_offsets[i], p_lengths[i],
+                        true);
+
+                unlockAfterPut(tableEntry, p_lockOperation, p_lockTimeoutMs);
+
+                successful++;
+            }
+        }
+
+        m_context.getDefragmenter().releaseApplicationThreadLock();
+
+        return successful;
+    }
+
+    /**
+     * Put the data of a translated chunk. Caller must hold the application thread lock of the defragmenter
+     *
+     * @param p_chunk
+     *         AbstractChunk with the data to write. The state is set
+     * @param p_entry
+     *         Chunk entry of CIDTable (translated, might be invalid)
+     * @param p_imExporter
+     *         Exporter to use
+     * @param p_lockOperation
+     *         Lock operation to execute with this put operation on the chunk
+     * @param p_lockTimeoutMs
+     *         Lock timeout (see public put)
+     * @return Chunk state with the result of the operation (also set in p_chunk)
+     */
+    private ChunkState put(final AbstractChunk p_chunk, final CIDTableChunkEntry p_entry,
+            final HeapDataStructureImExporter p_imExporter, final ChunkLockOperation p_lockOperation,
+            final int p_lockTimeoutMs) {
+        ChunkState state = lockBeforePut(p_entry, p_lockOperation, p_lockTimeoutMs);
+
+        if (state == ChunkState.OK) {
+            // TODO wrap with try catch and catch memory runtime exception? are there any left to catch?
+            // -> memory dump on error
+
+            p_imExporter.setHeapAddress(p_entry.getAddress());
+            p_imExporter.exportObject(p_chunk);
+
+            unlockAfterPut(p_entry, p_lockOperation, p_lockTimeoutMs);
+        }
+
+        p_chunk.setState(state);
+
+        return state;
+    }
+
+    /**
+     * Check a translated chunk and execute the lock operation before writing its data. Caller must hold the
+     * application thread lock of the defragmenter
+     *
+     * @param p_entry
+     *         Chunk entry of CIDTable (translated, might be invalid)
+     * @param p_lockOperation
+     *         Lock operation to execute with this put operation on the chunk
+     * @param p_lockTimeoutMs
+     *         Lock timeout (see public put)
+     * @return ChunkState.OK if the data can be written
+     */
+    private ChunkState lockBeforePut(final CIDTableChunkEntry p_entry, final ChunkLockOperation p_lockOperation,
+            final int p_lockTimeoutMs) {
+        if (!p_entry.isValid()) {
             SOP_PUT_NOT_EXISTS.inc();
             return ChunkState.DOES_NOT_EXIST;
         }
 
-        HeapDataStructureImExporter imExporter = m_context.getDataStructureImExporterPool().get();
-        imExporter.setHeapAddress(tableEntry.getAddress());
-
         if (!m_context.isChunkLockDisabled()) {
-            LockManager.LockStatus lockStatus = LockManager.executeBeforeOp(m_context.getCIDTable(), tableEntry,
+            LockManager.LockStatus lockStatus = LockManager.executeBeforeOp(m_context.getCIDTable(), p_entry,
                     p_lockOperation, p_lockTimeoutMs);
 
             if (lockStatus != LockManager.LockStatus.OK) {
-                m_context.getDefragmenter().releaseApplicationThreadLock();
-
                 if (lockStatus == LockManager.LockStatus.INVALID) {
                     // entry was deleted in the meanwhile
                     return ChunkState.DOES_NOT_EXIST;
@@ -209,23 +399,26 @@ public class Put {
             }
         }
 
-        // TODO wrap with try catch and catch memory runtime exception? are there any left to catch?
-        // -> memory dump on error
-
-        // because this is quite expensive, keep this as an assert to catch writing beyond the chunk bounds
-        assert p_data.length <= m_context.getHeap().getSize(tableEntry);
-
-        imExporter.writeBytes(p_data);
+        return ChunkState.OK;
+    }
 
+    /**
+     * Execute the lock operation after writing the data of a chunk
+     *
+     * @param p_entry
+     *         Chunk entry of CIDTable
+     * @param p_lockOperation
+     *         Lock operation to execute with this put operation on the chunk
+     * @param p_lockTimeoutMs
+     *         Lock timeout (see public put)
+     */
+    private void unlockAfterPut(final CIDTableChunkEntry p_entry, final ChunkLockOperation p_lockOperation,
+            final int p_lockTimeoutMs) {
         if (!m_context.isChunkLockDisabled()) {
-            LockManager.executeAfterOp(m_context.getCIDTable(), tableEntry, p_lockOperation, p_lockTimeoutMs);
+            LockManager.executeAfterOp(m_context.getCIDTable(), p_entry, p_lockOperation, p_lockTimeoutMs);
         }
 
-        m_context.getDefragmenter().releaseApplicationThreadLock();
-
         SOP_PUT.inc();
-
-        return ChunkState.OK;
     }
 
     /**
@@ -255,6 +448,7 @@ public class Put {
             case READ_LOCK_ACQ_OP_SWAP:
             case WRITE_LOCK_ACQ_POST_OP:
             case READ_LOCK_ACQ_POST_OP:
+            case READ_OPTIMISTIC:
                 throw new MemoryRuntimeException("Unsupported lock operation on create op: " + p_lockOperation);
 
             default:
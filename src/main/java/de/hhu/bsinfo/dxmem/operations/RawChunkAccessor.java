@@ -0,0 +1,380 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxmem.operations;
+
+import de.hhu.bsinfo.dxmem.core.Address;
+import de.hhu.bsinfo.dxmem.core.Heap;
+import de.hhu.bsinfo.dxutils.UnsafeMemory;
+
+/**
+ * Flyweight to access the memory of pinned chunks by their raw addresses (see RawModify). The accessor is
+ * positioned on one chunk at a time and reused for all chunks of a batch. The native memory is accessed
+ * directly without the checks of the heap. Accesses are not checked in production: if assertions are enabled
+ * (debug builds, -ea), they are checked once against the size of the chunk (if known) and the bounds of the heap
+ */
+public final class RawChunkAccessor {
+    static final int SIZE_UNKNOWN = -1;
+
+    private final long m_heapBase;
+    private final long m_heapSize;
+
+    private long m_address = Address.INVALID;
+    private long m_nativeAddress;
+    private int m_size = SIZE_UNKNOWN;
+
+    /**
+     * Constructor
+     *
+     * @param p_heap
+     *         Heap of the chunks
+     */
+    RawChunkAccessor(final Heap p_heap) {
+        m_heapBase = p_heap.getBaseAddress();
+        m_heapSize = p_heap.getStatus().getTotalSizeBytes();
+    }
+
+    /**
+     * Get the address of the chunk the accessor is positioned on
+     *
+     * @return Address of the (pinned) chunk
+     */
+    public long getAddress() {
+        return m_address;
+    }
+
+    /**
+     * Read a byte from the chunk
+     *
+     * @param p_offset
+     *         Offset in the chunk
+     * @return Value read
+     */
+    public byte readByte(final int p_offset) {
+        assert assertBounds(p_offset, Byte.BYTES);
+
+        return UnsafeMemory.readByte(m_nativeAddress + p_offset);
+    }
+
+    /**
+     * Read a short from the chunk
+     *
+     * @param p_offset
+     *         Offset in the chunk
+     * @return Value read
+     */
+    public short readShort(final int p_offset) {
+        assert assertBounds(p_offset, Short.BYTES);
+
+        return UnsafeMemory.readShort(m_nativeAddress + p_offset);
+    }
+
+    /**
+     * Read a char from the chunk
+     *
+     * @param p_offset
+     *         Offset in the chunk
+     * @return Value read
+     */
+    public char readChar(final int p_offset) {
+        assert assertBounds(p_offset, Character.BYTES);
+
+        return UnsafeMemory.readChar(m_nativeAddress + p_offset);
+    }
+
+    /**
+     * Read a int from the chunk
+     *
+     * @param p_offset
+     *         Offset in the chunk
+     * @return Value read
+     */
+    public int readInt(final int p_offset) {
+        assert assertBounds(p_offset, Integer.BYTES);
+
+        return UnsafeMemory.readInt(m_nativeAddress + p_offset);
+    }
+
+    /**
+     * Read a long from the chunk
+     *
+     * @param p_offset
+     *         Offset in the chunk
+     * @return Value read
+     */
+    public long readLong(final int p_offset) {
+        assert assertBounds(p_offset, Long.BYTES);
+
+        return UnsafeMemory.readLong(m_nativeAddress + p_offset);
+    }
+
+    /**
+     * Read a float from the chunk
+     *
+     * @param p_offset
+     *         Offset in the chunk
+     * @return Value read
+     */
+    public float readFloat(final int p_offset) {
+        assert assertBounds(p_offset, Float.BYTES);
+
+        return UnsafeMemory.readFloat(m_nativeAddress + p_offset);
+    }
+
+    /**
+     * Read a double from the chunk
+     *
+     * @param p_offset
+     *         Offset in the chunk
+     * @return Value read
+     */
+    public double readDouble(final int p_offset) {
+        assert assertBounds(p_offset, Double.BYTES);
+
+        return UnsafeMemory.readDouble(m_nativeAddress + p_offset);
+    }
+
+    /**
+     * Read bytes from the chunk
+     *
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_array
+     *         Array to read the bytes into
+     * @param p_arrayOffset
+     *         Offset in the array to start at
+     * @param p_length
+     *         Number of bytes to read
+     */
+    public void readBytes(final int p_offset, final byte[] p_array, final int p_arrayOffset, final int p_length) {
+        assert assertBounds(p_offset, p_length);
+
+        UnsafeMemory.readBytes(m_nativeAddress + p_offset, p_array, p_arrayOffset, p_length);
+    }
+
+    /**
+     * Write a byte to the chunk
+     *
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_value
+     *         Value to write
+     */
+    public void writeByte(final int p_offset, final byte p_value) {
+        assert assertBounds(p_offset, Byte.BYTES);
+
+        UnsafeMemory.writeByte(m_nativeAddress + p_offset, p_value);
+    }
+
+    /**
+     * Write a short to the chunk
+     *
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_value
+     *         Value to write
+     */
+    public void writeShort(final int p_offset, final short p_value) {
+        assert assertBounds(p_offset, Short.BYTES);
+
+        UnsafeMemory.writeShort(m_nativeAddress + p_offset, p_value);
+    }
+
+    /**
+     * Write a char to the chunk
+     *
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_value
+     *         Value to write
+     */
+    public void writeChar(final int p_offset, final char p_value) {
+        assert assertBounds(p_offset, Character.BYTES);
+
+        UnsafeMemory.writeChar(m_nativeAddress + p_offset, p_value);
+    }
+
+    /**
+     * Write a int to the chunk
+     *
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_value
+     *         Value to write
+     */
+    public void writeInt(final int p_offset, final int p_value) {
+        assert assertBounds(p_offset, Integer.BYTES);
+
+        UnsafeMemory.writeInt(m_nativeAddress + p_offset, p_value);
+    }
+
+    /**
+     * Write a long to the chunk
+     *
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_value
+     *         Value to write
+     */
+    public void writeLong(final int p_offset, final long p_value) {
+        assert assertBounds(p_offset, Long.BYTES);
+
+        UnsafeMemory.writeLong(m_nativeAddress + p_offset, p_value);
+    }
+
+    /**
+     * Write a float to the chunk
+     *
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_value
+     *         Value to write
+     */
+    public void writeFloat(final int p_offset, final float p_value) {
+        assert assertBounds(p_offset, Float.BYTES);
+
+        UnsafeMemory.writeFloat(m_nativeAddress + p_offset, p_value);
+    }
+
+    /**
+     * Write a double to the chunk
+     *
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_value
+     *         Value to write
+     */
+    public void writeDouble(final int p_offset, final double p_value) {
+        assert assertBounds(p_offset, Double.BYTES);
+
+        UnsafeMemory.writeDouble(m_nativeAddress + p_offset, p_value);
+    }
+
+    /**
+     * Write bytes to the chunk
+     *
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_array
+     *         Array with the bytes to write
+     * @param p_arrayOffset
+     *         Offset in the array to start at
+     * @param p_length
+     *         Number of bytes to write
+     */
+    public void writeBytes(final int p_offset, final byte[] p_array, final int p_arrayOffset, final int p_length) {
+        assert assertBounds(p_offset, p_length);
+
+        UnsafeMemory.writeBytes(m_nativeAddress + p_offset, p_array, p_arrayOffset, p_length);
+    }
+
+    /**
+     * Copy data from another (pinned) chunk to this chunk
+     *
+     * @param p_offset
+     *         Offset in this chunk to copy to
+     * @param p_sourceAddress
+     *         Address of the (pinned) chunk to copy from
+     * @param p_sourceOffset
+     *         Offset in the source chunk
+     * @param p_length
+     *         Number of bytes to copy
+     */
+    public void copyFrom(final int p_offset, final long p_sourceAddress, final int p_sourceOffset,
+            final int p_length) {
+        assert assertBounds(p_offset, p_length);
+        assert assertHeapBounds(p_sourceAddress, p_sourceOffset, p_length);
+
+        UnsafeMemory.copyBytes(m_heapBase + p_sourceAddress + p_sourceOffset, m_nativeAddress + p_offset, p_length);
+    }
+
+    /**
+     * Copy data from native memory outside of the heap (e.g. a direct buffer) to this chunk
+     *
+     * @param p_offset
+     *         Offset in this chunk to copy to
+     * @param p_sourceAddress
+     *         Absolute address of the native memory to copy from
+     * @param p_sourceOffset
+     *         Offset in the native memory
+     * @param p_length
+     *         Number of bytes to copy
+     */
+    public void copyFromNative(final int p_offset, final long p_sourceAddress, final int p_sourceOffset,
+            final int p_length) {
+        assert assertBounds(p_offset, p_length);
+
+        UnsafeMemory.copyBytes(p_sourceAddress + p_sourceOffset, m_nativeAddress + p_offset, p_length);
+    }
+
+    @Override
+    public String toString() {
+        return "RawChunkAccessor[m_address " + Address.toHexString(m_address) + ", m_size " + m_size + ']';
+    }
+
+    /**
+     * Position the accessor on a chunk
+     *
+     * @param p_address
+     *         Address of the (pinned) chunk
+     * @param p_size
+     *         Size of the chunk for bounds checks with assertions enabled or -1 if unknown
+     */
+    void position(final long p_address, final int p_size) {
+        m_address = p_address;
+        m_nativeAddress = m_heapBase + p_address;
+        m_size = p_size;
+    }
+
+    /**
+     * Assert an access against the size of the chunk (if known) and the bounds of the heap
+     *
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_length
+     *         Number of bytes accessed
+     * @return True if the access is within the bounds, exception thrown if not
+     */
+    private boolean assertBounds(final int p_offset, final int p_length) {
+        if (p_offset < 0 || p_length < 0 || m_size != SIZE_UNKNOWN && p_offset > m_size - p_length) {
+            throw new IndexOutOfBoundsException("Access out of bounds of chunk " + Address.toHexString(m_address) +
+                    ": offset " + p_offset + ", length " + p_length + ", size " + m_size);
+        }
+
+        return assertHeapBounds(m_address, p_offset, p_length);
+    }
+
+    /**
+     * Assert an access against the bounds of the heap
+     *
+     * @param p_address
+     *         Heap address of the chunk
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_length
+     *         Number of bytes accessed
+     * @return True if the access is within the bounds, exception thrown if not
+     */
+    private boolean assertHeapBounds(final long p_address, final int p_offset, final int p_length) {
+        if (p_address <= Address.INVALID || p_offset < 0 || p_length < 0 ||
+                p_address + p_offset > m_heapSize - p_length) {
+            throw new IndexOutOfBoundsException("Access out of bounds of heap (" + m_heapSize + "): address " +
+                    Address.toHexString(p_address) + ", offset " + p_offset + ", length " + p_length);
+        }
+
+        return true;
+    }
+}
@@ -16,6 +16,109 @@
 
 package de.hhu.bsinfo.dxmem.operations;
 
+import de.hhu.bsinfo.dxmem.core.Context;
+
+/**
+ * Like Modify but on pinned chunks using their raw addresses (see Pinning). A lambda gets a flyweight accessor
+ * to execute multiple reads, writes and copies on a chunk within a single call. No CID translation, locks or
+ * defragmenter sections are involved: the caller must ensure the chunks stay pinned and handle concurrent
+ * access. Bounds are checked with assertions enabled only (see RawChunkAccessor). If the size of a chunk is not
+ * specified, it is looked up from the registry of pinned chunks for the checks
+ */
 public class RawModify {
-    // TODO like modify but with a raw address
+    /**
+     * Lambda to modify the data of a pinned chunk
+     */
+    @FunctionalInterface
+    public interface RawModifier {
+        /**
+         * Modify the data of a pinned chunk. The accessor is only valid within this call
+         *
+         * @param p_accessor
+         *         Accessor positioned on the chunk
+         */
+        void modify(final RawChunkAccessor p_accessor);
+    }
+
+    private final Context m_context;
+
+    /**
+     * Constructor
+     *
+     * @param p_context
+     *         Context
+     */
+    public RawModify(final Context p_context) {
+        m_context = p_context;
+    }
+
+    /**
+     * Modify the data of a pinned chunk
+     *
+     * @param p_address
+     *         Address of the pinned chunk
+     * @param p_modifier
+     *         Lambda to execute on the data of the chunk
+     */
+    public void modify(final long p_address, final RawModifier p_modifier) {
+        modify(p_address, -1, p_modifier);
+    }
+
+    /**
+     * Modify the data of a pinned chunk
+     *
+     * @param p_address
+     *         Address of the pinned chunk
+     * @param p_size
+     *         Size of the chunk to check accesses against (assertions enabled only) or -1 to look it up
+     * @param p_modifier
+     *         Lambda to execute on the data of the chunk
+     */
+    public void modify(final long p_address, final int p_size, final RawModifier p_modifier) {
+        RawChunkAccessor accessor = new RawChunkAccessor(m_context.getHeap());
+
+        accessor.position(p_address, p_size == RawChunkAccessor.SIZE_UNKNOWN ? getSize(p_address) : p_size);
+        p_modifier.modify(accessor);
+    }
+
+    /**
+     * Modify the data of multiple pinned chunks with the same modifier (batch). A single accessor is
+     * positioned on one chunk after another
+     *
+     * @param p_addresses
+     *         Addresses of the pinned chunks
+     * @param p_offset
+     *         Offset in the array to start at
+     * @param p_count
+     *         Number of chunks to modify
+     * @param p_modifier
+     *         Lambda to execute on the data of each chunk
+     */
+    public void modify(final long[] p_addresses, final int p_offset, final int p_count,
+            final RawModifier p_modifier) {
+        assert p_offset >= 0 && p_count >= 0 && p_offset + p_count <= p_addresses.length;
+
+        RawChunkAccessor accessor = new RawChunkAccessor(m_context.getHeap());
+
+        for (int i = p_offset; i < p_offset + p_count; i++) {
+            accessor.position(p_addresses[i], getSize(p_addresses[i]));
+            p_modifier.modify(accessor);
+        }
+    }
+
+    /**
+     * Get the size of a pinned chunk for the bounds checks of the accessor. The size is looked up with
+     * assertions enabled only to not slow down the batches in production
+     *
+     * @param p_address
+     *         Address of the pinned chunk
+     * @return Size of the chunk or -1 if unknown (always with assertions disabled)
+     */
+    private int getSize(final long p_address) {
+        int size = RawChunkAccessor.SIZE_UNKNOWN;
+
+        assert (size = m_context.getPinnedChunkRegistry().getSize(p_address)) >= RawChunkAccessor.SIZE_UNKNOWN;
+
+        return size;
+    }
 }
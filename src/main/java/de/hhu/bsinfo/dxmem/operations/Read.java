@@ -16,7 +16,553 @@
 
 package de.hhu.bsinfo.dxmem.operations;
 
+import de.hhu.bsinfo.dxmem.DXMem;
+import de.hhu.bsinfo.dxmem.core.Context;
+import de.hhu.bsinfo.dxmem.core.MemoryRuntimeException;
+import de.hhu.bsinfo.dxmem.data.ChunkID;
+import de.hhu.bsinfo.dxmem.data.ChunkLockOperation;
+import de.hhu.bsinfo.dxmem.data.ChunkState;
+import de.hhu.bsinfo.dxutils.stats.StatisticsManager;
+import de.hhu.bsinfo.dxutils.stats.ValuePool;
+
+/**
+ * Read single values of a chunk using the CID and an offset. Only the bytes accessed are read from the heap
+ * (no deserialization of the whole chunk like with get) but each call translates the CID and executes a lock
+ * operation. Use Modify to access multiple values of a chunk with a single translation and RawRead for pinned
+ * chunks. Typed reads throw a MemoryRuntimeException if the chunk cannot be read, accesses beyond the chunk's
+ * bounds always throw. The chunks are accessed with the same accessor and lock handling as Modify
+ */
 public class Read {
-    // TODO read single values using the chunk id, a lot slower and way more overhead than RawRead with an address
-    // if used incorrectly
+    private static final ValuePool SOP_READ = new ValuePool(DXMem.class, "Read");
+    private static final ValuePool SOP_READ_INVALID_ID = new ValuePool(DXMem.class, "ReadInvalidID");
+    private static final ValuePool SOP_READ_NOT_EXISTS = new ValuePool(DXMem.class, "ReadNotExists");
+
+    static {
+        StatisticsManager.get().registerOperation(DXMem.class, SOP_READ);
+        StatisticsManager.get().registerOperation(DXMem.class, SOP_READ_INVALID_ID);
+        StatisticsManager.get().registerOperation(DXMem.class, SOP_READ_NOT_EXISTS);
+    }
+
+    private final Context m_context;
+    private final Modify m_modify;
+
+    /**
+     * Constructor
+     *
+     * @param p_context
+     *         Context
+     */
+    public Read(final Context p_context) {
+        m_context = p_context;
+        m_modify = new Modify(p_context);
+    }
+
+    /**
+     * Read a byte from a chunk (read locked)
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_offset
+     *         Offset in the chunk
+     * @return Value read
+     */
+    public byte readByte(final long p_cid, final int p_offset) {
+        return readByte(p_cid, p_offset, ChunkLockOperation.READ_LOCK_ACQ_OP_REL, -1);
+    }
+
+    /**
+     * Read a byte from a chunk
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_lockOperation
+     *         Lock operation to execute with this read operation on the chunk
+     * @param p_lockTimeoutMs
+     *         If a lock operation is set, set to -1 for infinite retries (busy polling) until the lock operation
+     *         succeeds. 0 for a one shot try and &gt; 0 for a timeout value in ms
+     * @return Value read
+     */
+    public byte readByte(final long p_cid, final int p_offset, final ChunkLockOperation p_lockOperation,
+            final int p_lockTimeoutMs) {
+        assert assertLockOperationSupport(p_lockOperation);
+
+        ChunkAccessor accessor = m_modify.getThreadAccessor();
+
+        m_context.getDefragmenter().acquireApplicationThreadLock();
+
+        try {
+            checkState(p_cid, open(p_cid, accessor, p_lockOperation, p_lockTimeoutMs));
+
+            try {
+                byte value = accessor.readByte(p_offset);
+
+                SOP_READ.inc();
+
+                return value;
+            } finally {
+                m_modify.close(accessor, p_lockOperation, p_lockTimeoutMs);
+            }
+        } finally {
+            m_context.getDefragmenter().releaseApplicationThreadLock();
+        }
+    }
+
+    /**
+     * Read a short from a chunk (read locked)
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_offset
+     *         Offset in the chunk
+     * @return Value read
+     */
+    public short readShort(final long p_cid, final int p_offset) {
+        return readShort(p_cid, p_offset, ChunkLockOperation.READ_LOCK_ACQ_OP_REL, -1);
+    }
+
+    /**
+     * Read a short from a chunk
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_lockOperation
+     *         Lock operation to execute with this read operation on the chunk
+     * @param p_lockTimeoutMs
+     *         If a lock operation is set, set to -1 for infinite retries (busy polling) until the lock operation
+     *         succeeds. 0 for a one shot try and &gt; 0 for a timeout value in ms
+     * @return Value read
+     */
+    public short readShort(final long p_cid, final int p_offset, final ChunkLockOperation p_lockOperation,
+            final int p_lockTimeoutMs) {
+        assert assertLockOperationSupport(p_lockOperation);
+
+        ChunkAccessor accessor = m_modify.getThreadAccessor();
+
+        m_context.getDefragmenter().acquireApplicationThreadLock();
+
+        try {
+            checkState(p_cid, open(p_cid, accessor, p_lockOperation, p_lockTimeoutMs));
+
+            try {
+                short value = accessor.readShort(p_offset);
+
+                SOP_READ.inc();
+
+                return value;
+            } finally {
+                m_modify.close(accessor, p_lockOperation, p_lockTimeoutMs);
+            }
+        } finally {
+            m_context.getDefragmenter().releaseApplicationThreadLock();
+        }
+    }
+
+    /**
+     * Read a char from a chunk (read locked)
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_offset
+     *         Offset in the chunk
+     * @return Value read
+     */
+    public char readChar(final long p_cid, final int p_offset) {
+        return readChar(p_cid, p_offset, ChunkLockOperation.READ_LOCK_ACQ_OP_REL, -1);
+    }
+
+    /**
+     * Read a char from a chunk
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_lockOperation
+     *         Lock operation to execute with this read operation on the chunk
+     * @param p_lockTimeoutMs
+     *         If a lock operation is set, set to -1 for infinite retries (busy polling) until the lock operation
+     *         succeeds. 0 for a one shot try and &gt; 0 for a timeout value in ms
+     * @return Value read
+     */
+    public char readChar(final long p_cid, final int p_offset, final ChunkLockOperation p_lockOperation,
+            final int p_lockTimeoutMs) {
+        assert assertLockOperationSupport(p_lockOperation);
+
+        ChunkAccessor accessor = m_modify.getThreadAccessor();
+
+        m_context.getDefragmenter().acquireApplicationThreadLock();
+
+        try {
+            checkState(p_cid, open(p_cid, accessor, p_lockOperation, p_lockTimeoutMs));
+
+            try {
+                char value = accessor.readChar(p_offset);
+
+                SOP_READ.inc();
+
+                return value;
+            } finally {
+                m_modify.close(accessor, p_lockOperation, p_lockTimeoutMs);
+            }
+        } finally {
+            m_context.getDefragmenter().releaseApplicationThreadLock();
+        }
+    }
+
+    /**
+     * Read a int from a chunk (read locked)
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_offset
+     *         Offset in the chunk
+     * @return Value read
+     */
+    public int readInt(final long p_cid, final int p_offset) {
+        return readInt(p_cid, p_offset, ChunkLockOperation.READ_LOCK_ACQ_OP_REL, -1);
+    }
+
+    /**
+     * Read a int from a chunk
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_lockOperation
+     *         Lock operation to execute with this read operation on the chunk
+     * @param p_lockTimeoutMs
+     *         If a lock operation is set, set to -1 for infinite retries (busy polling) until the lock operation
+     *         succeeds. 0 for a one shot try and &gt; 0 for a timeout value in ms
+     * @return Value read
+     */
+    public int readInt(final long p_cid, final int p_offset, final ChunkLockOperation p_lockOperation,
+            final int p_lockTimeoutMs) {
+        assert assertLockOperationSupport(p_lockOperation);
+
+        ChunkAccessor accessor = m_modify.getThreadAccessor();
+
+        m_context.getDefragmenter().acquireApplicationThreadLock();
+
+        try {
+            checkState(p_cid, open(p_cid, accessor, p_lockOperation, p_lockTimeoutMs));
+
+            try {
+                int value = accessor.readInt(p_offset);
+
+                SOP_READ.inc();
+
+                return value;
+            } finally {
+                m_modify.close(accessor, p_lockOperation, p_lockTimeoutMs);
+            }
+        } finally {
+            m_context.getDefragmenter().releaseApplicationThreadLock();
+        }
+    }
+
+    /**
+     * Read a long from a chunk (read locked)
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_offset
+     *         Offset in the chunk
+     * @return Value read
+     */
+    public long readLong(final long p_cid, final int p_offset) {
+        return readLong(p_cid, p_offset, ChunkLockOperation.READ_LOCK_ACQ_OP_REL, -1);
+    }
+
+    /**
+     * Read a long from a chunk
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_lockOperation
+     *         Lock operation to execute with this read operation on the chunk
+     * @param p_lockTimeoutMs
+     *         If a lock operation is set, set to -1 for infinite retries (busy polling) until the lock operation
+     *         succeeds. 0 for a one shot try and &gt; 0 for a timeout value in ms
+     * @return Value read
+     */
+    public long readLong(final long p_cid, final int p_offset, final ChunkLockOperation p_lockOperation,
+            final int p_lockTimeoutMs) {
+        assert assertLockOperationSupport(p_lockOperation);
+
+        ChunkAccessor accessor = m_modify.getThreadAccessor();
+
+        m_context.getDefragmenter().acquireApplicationThreadLock();
+
+        try {
+            checkState(p_cid, open(p_cid, accessor, p_lockOperation, p_lockTimeoutMs));
+
+            try {
+                long value = accessor.readLong(p_offset);
+
+                SOP_READ.inc();
+
+                return value;
+            } finally {
+                m_modify.close(accessor, p_lockOperation, p_lockTimeoutMs);
+            }
+        } finally {
+            m_context.getDefragmenter().releaseApplicationThreadLock();
+        }
+    }
+
+    /**
+     * Read a float from a chunk (read locked)
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_offset
+     *         Offset in the chunk
+     * @return Value read
+     */
+    public float readFloat(final long p_cid, final int p_offset) {
+        return readFloat(p_cid, p_offset, ChunkLockOperation.READ_LOCK_ACQ_OP_REL, -1);
+    }
+
+    /**
+     * Read a float from a chunk
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_lockOperation
+     *         Lock operation to execute with this read operation on the chunk
+     * @param p_lockTimeoutMs
+     *         If a lock operation is set, set to -1 for infinite retries (busy polling) until the lock operation
+     *         succeeds. 0 for a one shot try and &gt; 0 for a timeout value in ms
+     * @return Value read
+     */
+    public float readFloat(final long p_cid, final int p_offset, final ChunkLockOperation p_lockOperation,
+            final int p_lockTimeoutMs) {
+        assert assertLockOperationSupport(p_lockOperation);
+
+        ChunkAccessor accessor = m_modify.getThreadAccessor();
+
+        m_context.getDefragmenter().acquireApplicationThreadLock();
+
+        try {
+            checkState(p_cid, open(p_cid, accessor, p_lockOperation, p_lockTimeoutMs));
+
+            try {
+                float value = accessor.readFloat(p_offset);
+
+                SOP_READ.inc();
+
+                return value;
+            } finally {
+                m_modify.close(accessor, p_lockOperation, p_lockTimeoutMs);
+            }
+        } finally {
+            m_context.getDefragmenter().releaseApplicationThreadLock();
+        }
+    }
+
+    /**
+     * Read a double from a chunk (read locked)
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_offset
+     *         Offset in the chunk
+     * @return Value read
+     */
+    public double readDouble(final long p_cid, final int p_offset) {
+        return readDouble(p_cid, p_offset, ChunkLockOperation.READ_LOCK_ACQ_OP_REL, -1);
+    }
+
+    /**
+     * Read a double from a chunk
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_lockOperation
+     *         Lock operation to execute with this read operation on the chunk
+     * @param p_lockTimeoutMs
+     *         If a lock operation is set, set to -1 for infinite retries (busy polling) until the lock operation
+     *         succeeds. 0 for a one shot try and &gt; 0 for a timeout value in ms
+     * @return Value read
+     */
+    public double readDouble(final long p_cid, final int p_offset, final ChunkLockOperation p_lockOperation,
+            final int p_lockTimeoutMs) {
+        assert assertLockOperationSupport(p_lockOperation);
+
+        ChunkAccessor accessor = m_modify.getThreadAccessor();
+
+        m_context.getDefragmenter().acquireApplicationThreadLock();
+
+        try {
+            checkState(p_cid, open(p_cid, accessor, p_lockOperation, p_lockTimeoutMs));
+
+            try {
+                double value = accessor.readDouble(p_offset);
+
+                SOP_READ.inc();
+
+                return value;
+            } finally {
+                m_modify.close(accessor, p_lockOperation, p_lockTimeoutMs);
+            }
+        } finally {
+            m_context.getDefragmenter().releaseApplicationThreadLock();
+        }
+    }
+
+    /**
+     * Read bytes from a chunk (read locked)
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_buffer
+     *         Buffer to read the bytes into
+     * @param p_bufferOffset
+     *         Offset in the buffer to start at
+     * @param p_length
+     *         Number of bytes to read
+     * @return Chunk state with the result of the operation
+     */
+    public ChunkState readBytes(final long p_cid, final int p_offset, final byte[] p_buffer, final int p_bufferOffset,
+            final int p_length) {
+        return readBytes(p_cid, p_offset, p_buffer, p_bufferOffset, p_length, ChunkLockOperation.READ_LOCK_ACQ_OP_REL,
+                -1);
+    }
+
+    /**
+     * Read bytes from a chunk
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_buffer
+     *         Buffer to read the bytes into
+     * @param p_bufferOffset
+     *         Offset in the buffer to start at
+     * @param p_length
+     *         Number of bytes to read
+     * @param p_lockOperation
+     *         Lock operation to execute with this read operation on the chunk
+     * @param p_lockTimeoutMs
+     *         If a lock operation is set, set to -1 for infinite retries (busy polling) until the lock operation
+     *         succeeds. 0 for a one shot try and &gt; 0 for a timeout value in ms
+     * @return Chunk state with the result of the operation
+     */
+    public ChunkState readBytes(final long p_cid, final int p_offset, final byte[] p_buffer, final int p_bufferOffset,
+            final int p_length, final ChunkLockOperation p_lockOperation, final int p_lockTimeoutMs) {
+        assert assertLockOperationSupport(p_lockOperation);
+        assert p_bufferOffset >= 0 && p_length >= 0 && p_bufferOffset + p_length <= p_buffer.length;
+
+        ChunkAccessor accessor = m_modify.getThreadAccessor();
+
+        m_context.getDefragmenter().acquireApplicationThreadLock();
+
+        try {
+            ChunkState state = open(p_cid, accessor, p_lockOperation, p_lockTimeoutMs);
+
+            if (state == ChunkState.OK) {
+                try {
+                    accessor.readBytes(p_offset, p_buffer, p_bufferOffset, p_length);
+                } finally {
+                    m_modify.close(accessor, p_lockOperation, p_lockTimeoutMs);
+                }
+
+                SOP_READ.inc();
+            }
+
+            return state;
+        } finally {
+            m_context.getDefragmenter().releaseApplicationThreadLock();
+        }
+    }
+
+    /**
+     * Throw if a chunk cannot be read (typed reads)
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_state
+     *         State of opening the chunk
+     */
+    private static void checkState(final long p_cid, final ChunkState p_state) {
+        if (p_state != ChunkState.OK) {
+            throw new MemoryRuntimeException("Reading chunk " + ChunkID.toHexString(p_cid) + " failed: " + p_state);
+        }
+    }
+
+    /**
+     * Translate a chunk and open the accessor on it (see Modify). Caller must hold the application thread lock of
+     * the defragmenter
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_accessor
+     *         Accessor to open
+     * @param p_lockOperation
+     *         Lock operation to execute on the chunk
+     * @param p_lockTimeoutMs
+     *         Lock timeout (see public reads)
+     * @return ChunkState.OK if the chunk can be accessed (close required)
+     */
+    private ChunkState open(final long p_cid, final ChunkAccessor p_accessor,
+            final ChunkLockOperation p_lockOperation, final int p_lockTimeoutMs) {
+        ChunkState state = m_modify.translateAndOpen(p_cid, p_accessor, p_lockOperation, p_lockTimeoutMs);
+
+        if (state == ChunkState.INVALID_ID) {
+            SOP_READ_INVALID_ID.inc();
+        } else if (state == ChunkState.DOES_NOT_EXIST) {
+            SOP_READ_NOT_EXISTS.inc();
+        }
+
+        return state;
+    }
+
+    /**
+     * Assert the lock operation used
+     *
+     * @param p_lockOperation Lock operation to use with the current op
+     * @return True if ok, exception thrown if not supported
+     */
+    private boolean assertLockOperationSupport(final ChunkLockOperation p_lockOperation) {
+        switch (p_lockOperation) {
+            case NONE:
+            case WRITE_LOCK_ACQ_PRE_OP:
+            case WRITE_LOCK_SWAP_PRE_OP:
+            case WRITE_LOCK_REL_POST_OP:
+            case WRITE_LOCK_SWAP_POST_OP:
+            case WRITE_LOCK_ACQ_OP_REL:
+            case WRITE_LOCK_SWAP_OP_REL:
+            case WRITE_LOCK_ACQ_OP_SWAP:
+            case READ_LOCK_ACQ_PRE_OP:
+            case READ_LOCK_SWAP_PRE_OP:
+            case READ_LOCK_REL_POST_OP:
+            case READ_LOCK_SWAP_POST_OP:
+            case READ_LOCK_ACQ_OP_REL:
+            case READ_LOCK_SWAP_OP_REL:
+            case READ_LOCK_ACQ_OP_SWAP:
+                return true;
+
+            case WRITE_LOCK_ACQ_POST_OP:
+            case READ_LOCK_ACQ_POST_OP:
+            case READ_OPTIMISTIC:
+                throw new MemoryRuntimeException("Unsupported lock operation on read op: " + p_lockOperation);
+
+            default:
+                throw new IllegalStateException("Unhandled lock operation");
+        }
+    }
 }
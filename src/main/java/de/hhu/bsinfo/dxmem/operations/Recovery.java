@@ -74,12 +74,7 @@ public class Recovery {
 
         SOP_CREATE_AND_PUT_RAW.start(p_usedEntries);
 
-        // can't use thread local pool here
-        CIDTableChunkEntry[] entries = new CIDTableChunkEntry[p_usedEntries];
-
-        for (int i = 0; i < entries.length; i++) {
-            entries[i] = new CIDTableChunkEntry();
-        }
+        CIDTableChunkEntry[] entries = m_context.getCIDTableEntryPool().getArray(p_usedEntries);
 
         m_context.getDefragmenter().acquireApplicationThreadLock();
 
@@ -97,6 +92,10 @@ public class Recovery {
             }
         }
 
+        if (m_context.getCIDRangeIndex() != null) {
+            m_context.getCIDRangeIndex().add(p_cids, 0, successfulMallocs);
+        }
+
         for (int i = 0; i < successfulMallocs; i++) {
             m_context.getHeap().copyNative(entries[i].getAddress(), 0, p_dataAddress, p_offsets[i], p_lengths[i], true);
             totalSize += p_lengths[i];
@@ -127,8 +126,7 @@ public class Recovery {
 
         SOP_CREATE_AND_PUT_DS.start(sizes.length);
 
-        // can't use thread local pool here
-        CIDTableChunkEntry[] entries = new CIDTableChunkEntry[p_chunks.length];
+        CIDTableChunkEntry[] entries = m_context.getCIDTableEntryPool().getArray(p_chunks.length);
 
         m_context.getDefragmenter().acquireApplicationThreadLock();
 
@@ -146,6 +144,12 @@ public class Recovery {
             }
         }
 
+        if (m_context.getCIDRangeIndex() != null) {
+            for (int i = 0; i < successfulMallocs; i++) {
+                m_context.getCIDRangeIndex().add(p_chunks[i].getID());
+            }
+        }
+
         HeapDataStructureImExporter exporter = m_context.getDataStructureImExporterPool().get();
 
         for (int i = 0; i < successfulMallocs; i++) {
@@ -219,10 +219,6 @@ public class Remove {
     public int remove(final long p_cid, final boolean p_wasMigrated, final ChunkLockOperation p_lockOperation) {
         assert assertLockOperationSupport(p_lockOperation);
 
-        if (m_context.isChunkLockDisabled()) {
-            throw new MemoryRuntimeException("Not supporting remove operation if chunk locks are disabled");
-        }
-
         if (p_cid == ChunkID.INVALID_ID) {
             return -ChunkState.INVALID_ID.ordinal();
         }
@@ -246,28 +242,61 @@ public class Remove {
             throw new MemoryRuntimeException("Cannot remove pinned chunk " + ChunkID.toHexString(p_cid));
         }
 
-        // acquire write lock to ensure nobody is accessing the chunk while deleting it
-        if (LockManager.executeBeforeOp(m_context.getCIDTable(), tableEntry, p_lockOperation, -1) !=
-                LockManager.LockStatus.OK) {
-            m_context.getDefragmenter().releaseApplicationThreadLock();
+        if (m_context.isChunkLockDisabled()) {
+            if (!atomicFlagFree(p_cid, tableEntry)) {
+                m_context.getDefragmenter().releaseApplicationThreadLock();
 
-            // someone else deleted the chunk while waiting for the lock
-            return -ChunkState.DOES_NOT_EXIST.ordinal();
+                // someone else deleted the chunk
+                return -ChunkState.DOES_NOT_EXIST.ordinal();
+            }
+        } else {
+            // acquire write lock to ensure nobody is accessing the chunk while deleting it
+            if (LockManager.executeBeforeOp(m_context.getCIDTable(), tableEntry, p_lockOperation, -1) !=
+                    LockManager.LockStatus.OK) {
+                m_context.getDefragmenter().releaseApplicationThreadLock();
+
+                // someone else deleted the chunk while waiting for the lock
+                return -ChunkState.DOES_NOT_EXIST.ordinal();
+            }
+
+            // re-check, chunks can be pinned without acquiring the write lock
+            if (tableEntry.isPinned()) {
+                if (p_lockOperation != ChunkLockOperation.NONE) {
+                    LockManager.executeAfterOp(m_context.getCIDTable(), tableEntry,
+                            ChunkLockOperation.WRITE_LOCK_REL_POST_OP, -1);
+                }
+
+                m_context.getDefragmenter().releaseApplicationThreadLock();
+
+                throw new MemoryRuntimeException("Cannot remove pinned chunk " + ChunkID.toHexString(p_cid));
+            }
+
+            if (p_lockOperation == ChunkLockOperation.NONE) {
+                if (!atomicFlagFree(p_cid, tableEntry)) {
+                    m_context.getDefragmenter().releaseApplicationThreadLock();
+
+                    // someone else deleted the chunk
+                    return -ChunkState.DOES_NOT_EXIST.ordinal();
+                }
+            } else {
+                // no need to unlock the entry because flagging it free will kill it anyway
+                m_context.getCIDTable().entryFlagFree(tableEntry);
+            }
+
+            // threads waiting for the lock of the chunk see the chunk is gone
+            LockManager.wakeUpWaiters(tableEntry);
         }
 
         int chunkSize = m_context.getHeap().getSize(tableEntry);
 
-        // no need to unlock the entry because flagging it free will kill it anyway
-        m_context.getCIDTable().entryFlagFree(tableEntry);
-
-        // only lids of non migrated chunks go back into the lid store
-        if (!p_wasMigrated && !m_context.getLIDStore().put(p_cid)) {
-            // lid store full, flag as zombie
-            m_context.getCIDTable().entryFlagZombie(tableEntry);
+        if (m_context.getCIDRangeIndex() != null) {
+            m_context.getCIDRangeIndex().remove(p_cid);
         }
 
-        // at last, free chunk memory
-        m_context.getHeap().free(tableEntry);
+        // threads which read the entry before it was flagged free might still access the chunk. defer freeing the
+        // chunk memory and recycling the lid (only lids of non migrated chunks go back into the lid store) until
+        // they are done
+        m_context.getEpochManager().retire(tableEntry, p_wasMigrated ? -1 : ChunkID.getLocalID(p_cid));
 
         m_context.getDefragmenter().releaseApplicationThreadLock();
 
@@ -280,6 +309,34 @@ public class Remove {
         return chunkSize;
     }
 
+    /**
+     * Flag an entry free without holding the write lock. Concurrent removes of the same chunk are possible, only
+     * one of them is allowed to flag the entry free and retire the chunk
+     *
+     * @param p_cid
+     *         CID of the chunk to remove
+     * @param p_tableEntry
+     *         Table entry of the chunk (re-read on concurrent changes)
+     * @return True if the entry was flagged free, false if someone else deleted the chunk
+     */
+    private boolean atomicFlagFree(final long p_cid, final CIDTableChunkEntry p_tableEntry) {
+        while (!m_context.getCIDTable().entryAtomicFlagFree(p_tableEntry)) {
+            m_context.getCIDTable().entryReread(p_tableEntry);
+
+            if (!p_tableEntry.isValid()) {
+                return false;
+            }
+
+            if (p_tableEntry.isPinned()) {
+                m_context.getDefragmenter().releaseApplicationThreadLock();
+
+                throw new MemoryRuntimeException("Cannot remove pinned chunk " + ChunkID.toHexString(p_cid));
+            }
+        }
+
+        return true;
+    }
+
     /**
      * Assert the lock operation used
      *
@@ -307,6 +364,7 @@ public class Remove {
             case READ_LOCK_ACQ_OP_SWAP:
             case WRITE_LOCK_ACQ_POST_OP:
             case READ_LOCK_ACQ_POST_OP:
+            case READ_OPTIMISTIC:
                 throw new MemoryRuntimeException("Unsupported lock operation on create op: " + p_lockOperation);
 
             default:
@@ -60,7 +60,7 @@ public class Reserve {
     public long reserve() {
         SOP_RESERVE.inc();
 
-        m_context.getDefragmenter().releaseApplicationThreadLock();
+        m_context.getDefragmenter().acquireApplicationThreadLock();
 
         long cid = m_context.getLIDStore().get();
 
@@ -83,7 +83,7 @@ public class Reserve {
     public void reserve(final long[] p_array, final int p_offset, final int p_count) {
         SOP_RESERVE.add(p_count);
 
-        m_context.getDefragmenter().releaseApplicationThreadLock();
+        m_context.getDefragmenter().acquireApplicationThreadLock();
 
         m_context.getLIDStore().get(p_array, p_offset, p_count);
 
@@ -103,7 +103,7 @@ public class Reserve {
 
         SOP_RESERVE.add(p_count);
 
-        m_context.getDefragmenter().releaseApplicationThreadLock();
+        m_context.getDefragmenter().acquireApplicationThreadLock();
 
         m_context.getLIDStore().get(array, 0, array.length);
 
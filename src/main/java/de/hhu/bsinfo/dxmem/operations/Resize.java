@@ -155,6 +155,7 @@ public class Resize {
             case READ_LOCK_ACQ_OP_SWAP:
             case WRITE_LOCK_ACQ_POST_OP:
             case READ_LOCK_ACQ_POST_OP:
+            case READ_OPTIMISTIC:
                 throw new MemoryRuntimeException("Unsupported lock operation on create op: " + p_lockOperation);
 
             default:
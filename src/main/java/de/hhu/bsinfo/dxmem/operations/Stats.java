@@ -20,6 +20,7 @@ import de.hhu.bsinfo.dxmem.core.CIDTableStatus;
 import de.hhu.bsinfo.dxmem.core.Context;
 import de.hhu.bsinfo.dxmem.core.HeapStatus;
 import de.hhu.bsinfo.dxmem.core.LIDStoreStatus;
+import de.hhu.bsinfo.dxmem.core.LockContentionStatus;
 
 /**
  * Get stats from various components of DXMem
@@ -65,4 +66,69 @@ public class Stats {
     public LIDStoreStatus getLIDStoreStatus() {
         return m_context.getLIDStore().getStatus();
     }
+
+    /**
+     * Get the status of the LIDSTore and write it to a reusable status object (no allocations)
+     *
+     * @param p_status
+     *         Status object to write to
+     */
+    public void getLIDStoreStatus(final LIDStoreStatus p_status) {
+        m_context.getLIDStore().getStatus(p_status);
+    }
+
+    /**
+     * Get the number of chunks currently pinned. Chunks that are never unpinned block the defragmentation
+     * of the heap
+     *
+     * @return Number of pinned chunks
+     */
+    public long getPinnedChunkCount() {
+        return m_context.getPinnedChunkRegistry().size();
+    }
+
+    /**
+     * Get the total size of all chunks currently pinned
+     *
+     * @return Number of bytes pinned
+     */
+    public long getPinnedBytes() {
+        return m_context.getPinnedChunkRegistry().getPinnedBytes();
+    }
+
+    /**
+     * Enable or disable the sampling profiler for contended chunk locks
+     *
+     * @param p_enabled
+     *         True to enable, false to disable
+     * @param p_sampleRate
+     *         Sample every n-th contended lock acquisition of a thread (1 to sample all)
+     */
+    public void setLockContentionProfiling(final boolean p_enabled, final int p_sampleRate) {
+        m_context.getCIDTable().getLockContentionProfiler().setSampleRate(p_sampleRate);
+        m_context.getCIDTable().getLockContentionProfiler().setEnabled(p_enabled);
+    }
+
+    /**
+     * Clear the data recorded by the lock contention profiler
+     */
+    public void resetLockContentionProfiling() {
+        m_context.getCIDTable().getLockContentionProfiler().reset();
+    }
+
+    /**
+     * Get the chunks with the highest (sampled) lock wait times recorded by the lock contention profiler
+     *
+     * @return Status object
+     */
+    public LockContentionStatus getLockContentionStatus() {
+        // resolving the CIDs walks the CIDTable
+        m_context.getDefragmenter().acquireApplicationThreadLock();
+
+        LockContentionStatus status = m_context.getCIDTable().getLockContentionProfiler().getStatus();
+
+        m_context.getDefragmenter().releaseApplicationThreadLock();
+
+        return status;
+    }
 }
@@ -0,0 +1,387 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxmem.operations;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import de.hhu.bsinfo.dxmem.core.CIDTableChunkEntry;
+import de.hhu.bsinfo.dxmem.core.Context;
+import de.hhu.bsinfo.dxmem.core.HeapDataStructureImExporter;
+import de.hhu.bsinfo.dxmem.core.LockManager;
+import de.hhu.bsinfo.dxmem.core.MemoryRuntimeException;
+import de.hhu.bsinfo.dxmem.data.AbstractChunk;
+import de.hhu.bsinfo.dxmem.data.ChunkID;
+import de.hhu.bsinfo.dxmem.data.ChunkState;
+import de.hhu.bsinfo.dxutils.serialization.ByteBufferImExporter;
+
+/**
+ * A single attempt of a transaction executed by the Transactions operation. Chunks are read optimistically
+ * (without locks) and their versions are tracked. Writes are buffered and applied on commit. The read set is
+ * validated on every read, i.e. the chunks read always form a consistent snapshot.
+ * Transactions are expected to access a few chunks only (linear searches on the read and write sets).
+ * An instance must only be used by the thread executing the transaction.
+ */
+public final class Transaction {
+    private static final int OPTIMISTIC_READ_TRIES = 8;
+    private static final int INITIAL_SET_SIZE = 8;
+
+    private final Context m_context;
+    private final Lock m_lock;
+
+    // read set: cids, pointers of table entries and stamps of optimistic reads
+    private long[] m_readCids = new long[INITIAL_SET_SIZE];
+    private long[] m_readPointers = new long[INITIAL_SET_SIZE];
+    private long[] m_readStamps = new long[INITIAL_SET_SIZE];
+    private int m_readCount;
+
+    // write set: cids and buffered data
+    private long[] m_writeCids = new long[INITIAL_SET_SIZE];
+    private byte[][] m_writeData = new byte[INITIAL_SET_SIZE][];
+    private int m_writeCount;
+
+    /**
+     * Constructor
+     *
+     * @param p_context
+     *         Context
+     * @param p_lock
+     *         Lock operation to lock the write set on commit
+     */
+    Transaction(final Context p_context, final Lock p_lock) {
+        m_context = p_context;
+        m_lock = p_lock;
+    }
+
+    /**
+     * Read the data of a chunk. If the chunk was written by this transaction, the buffered data is read
+     *
+     * @param p_chunk
+     *         Chunk with the CID set to read the data into. The state of the chunk is set
+     * @return True on success, false if the chunk does not exist
+     */
+    public boolean read(final AbstractChunk p_chunk) {
+        if (p_chunk.getID() == ChunkID.INVALID_ID) {
+            p_chunk.setState(ChunkState.INVALID_ID);
+            return false;
+        }
+
+        // the raw data is copied and validated first and the chunk is imported from the copy. importing from the
+        // heap directly could run on torn data, e.g. a torn length prefix of an array
+        byte[] data = read(p_chunk.getID());
+
+        if (data == null) {
+            p_chunk.setState(ChunkState.DOES_NOT_EXIST);
+            return false;
+        }
+
+        // same byte order as the heap
+        new ByteBufferImExporter(ByteBuffer.wrap(data).order(ByteOrder.nativeOrder())).importObject(p_chunk);
+
+        p_chunk.setState(ChunkState.OK);
+        return true;
+    }
+
+    /**
+     * Read the data of a chunk. If the chunk was written by this transaction, the buffered data is returned
+     *
+     * @param p_cid
+     *         CID of the chunk to read
+     * @return Data of the chunk (must not be modified) or null if the chunk does not exist
+     */
+    public byte[] read(final long p_cid) {
+        if (p_cid == ChunkID.INVALID_ID) {
+            return null;
+        }
+
+        int writeIndex = indexOf(m_writeCids, m_writeCount, p_cid);
+
+        if (writeIndex != -1) {
+            return m_writeData[writeIndex];
+        }
+
+        CIDTableChunkEntry tableEntry = m_context.getCIDTableEntryPool().get();
+        HeapDataStructureImExporter imExporter = m_context.getDataStructureImExporterPool().get();
+
+        for (int i = 0; i < OPTIMISTIC_READ_TRIES; i++) {
+            m_context.getDefragmenter().acquireApplicationThreadLock();
+
+            m_context.getCIDTable().translate(p_cid, tableEntry);
+            long stamp = LockManager.tryOptimisticRead(m_context.getCIDTable(), tableEntry);
+
+            if (!tableEntry.isValid()) {
+                m_context.getDefragmenter().releaseApplicationThreadLock();
+                return null;
+            }
+
+            byte[] data = null;
+
+            if (stamp != -1) {
+                // size is taken from the (re-read) entry or the heap, validated with the data
+                int chunkSize = m_context.getHeap().getSize(tableEntry);
+
+                // torn size, don't allocate or read anything before validating
+                if (isChunkInHeap(tableEntry, chunkSize)) {
+                    data = new byte[chunkSize];
+
+                    imExporter.setHeapAddress(tableEntry.getAddress());
+                    imExporter.readBytes(data);
+
+                    if (!LockManager.validateOptimisticRead(m_context.getCIDTable(), tableEntry, stamp)) {
+                        data = null;
+                    }
+                }
+            }
+
+            m_context.getDefragmenter().releaseApplicationThreadLock();
+
+            if (data != null) {
+                track(p_cid, tableEntry.getPointer(), stamp);
+                return data;
+            }
+
+            // chunk is write locked or was modified while reading
+            Thread.yield();
+        }
+
+        throw Transactions.CONFLICT;
+    }
+
+    /**
+     * Write the data of a chunk. The data is serialized and buffered until the transaction commits
+     *
+     * @param p_chunk
+     *         Chunk with the CID set and the data to write. The chunk can be modified after this call
+     */
+    public void write(final AbstractChunk p_chunk) {
+        if (p_chunk.getID() == ChunkID.INVALID_ID) {
+            throw new MemoryRuntimeException("Writing chunk with invalid ID in transaction");
+        }
+
+        byte[] data = new byte[p_chunk.sizeofObject()];
+
+        // same byte order as the heap, the data is copied to the heap as is on commit
+        ByteBufferImExporter exporter = new ByteBufferImExporter(ByteBuffer.wrap(data).order(ByteOrder.nativeOrder()));
+        exporter.exportObject(p_chunk);
+
+        write(p_chunk.getID(), data);
+    }
+
+    /**
+     * Write the data of a chunk. The data is buffered until the transaction commits
+     *
+     * @param p_cid
+     *         CID of the chunk to write
+     * @param p_data
+     *         Data to write (not copied, must not be modified until the transaction finished). The size must not
+     *         exceed the size of the chunk
+     */
+    public void write(final long p_cid, final byte[] p_data) {
+        if (p_cid == ChunkID.INVALID_ID) {
+            throw new MemoryRuntimeException("Writing chunk with invalid ID in transaction");
+        }
+
+        int index = indexOf(m_writeCids, m_writeCount, p_cid);
+
+        if (index != -1) {
+            m_writeData[index] = p_data;
+            return;
+        }
+
+        if (m_writeCount == m_writeCids.length) {
+            m_writeCids = Arrays.copyOf(m_writeCids, m_writeCount * 2);
+            m_writeData = Arrays.copyOf(m_writeData, m_writeCount * 2);
+        }
+
+        m_writeCids[m_writeCount] = p_cid;
+        m_writeData[m_writeCount] = p_data;
+        m_writeCount++;
+    }
+
+    /**
+     * Get the number of chunks read
+     *
+     * @return Size of the read set
+     */
+    public int getReadCount() {
+        return m_readCount;
+    }
+
+    /**
+     * Get the number of chunks written
+     *
+     * @return Size of the write set
+     */
+    public int getWriteCount() {
+        return m_writeCount;
+    }
+
+    /**
+     * Commit the transaction: lock the write set (global order), validate the read set and apply the writes
+     *
+     * @param p_lockTimeoutMs
+     *         Timeout for locking the write set (-1 = infinite)
+     * @return ChunkState.OK on success, ChunkState.LOCK_TIMEOUT on conflicts or timeout or
+     *         ChunkState.DOES_NOT_EXIST if a chunk written does not exist
+     */
+    ChunkState commit(final int p_lockTimeoutMs) {
+        // read set is validated on every read
+        if (m_writeCount == 0) {
+            return ChunkState.OK;
+        }
+
+        long[] cids = Arrays.copyOf(m_writeCids, m_writeCount);
+
+        // multi chunk lock sorts the cids, no deadlocks with other transactions
+        ChunkState state = m_lock.lock(cids, true, p_lockTimeoutMs);
+
+        if (state != ChunkState.OK) {
+            return state;
+        }
+
+        CIDTableChunkEntry tableEntry = m_context.getCIDTableEntryPool().get();
+        HeapDataStructureImExporter imExporter = m_context.getDataStructureImExporterPool().get();
+        long[] pointers = new long[m_writeCount];
+        long[] addresses = new long[m_writeCount];
+        boolean exceedsSize = false;
+
+        m_context.getDefragmenter().acquireApplicationThreadLock();
+
+        // write locked chunks can't be removed or resized
+        for (int i = 0; i < m_writeCount; i++) {
+            m_context.getCIDTable().translate(m_writeCids[i], tableEntry);
+
+            pointers[i] = tableEntry.getPointer();
+            addresses[i] = tableEntry.getAddress();
+
+            if (m_writeData[i].length > m_context.getHeap().getSize(tableEntry)) {
+                exceedsSize = true;
+            }
+        }
+
+        // acquiring the write locks changed the versions of the chunks written
+        for (int i = 0; i < m_readCount; i++) {
+            if (!LockManager.validateOptimisticRead(m_context.getCIDTable(), m_readPointers[i], m_readStamps[i],
+                    pointers, m_writeCount)) {
+                state = ChunkState.LOCK_TIMEOUT;
+                break;
+            }
+        }
+
+        if (state == ChunkState.OK && !exceedsSize) {
+            for (int i = 0; i < m_writeCount; i++) {
+                imExporter.setHeapAddress(addresses[i]);
+                imExporter.writeBytes(m_writeData[i]);
+            }
+        }
+
+        m_context.getDefragmenter().releaseApplicationThreadLock();
+
+        m_lock.unlock(cids, true);
+
+        if (exceedsSize) {
+            throw new MemoryRuntimeException("Data written in transaction exceeds size of chunk");
+        }
+
+        return state;
+    }
+
+    /**
+     * Clear the read and write sets to retry the transaction
+     */
+    void reset() {
+        m_readCount = 0;
+
+        Arrays.fill(m_writeData, 0, m_writeCount, null);
+        m_writeCount = 0;
+    }
+
+    /**
+     * Add a chunk read to the read set and validate the read set
+     *
+     * @param p_cid
+     *         CID of the chunk read
+     * @param p_pointer
+     *         Pointer of the table entry of the chunk
+     * @param p_stamp
+     *         Stamp of the optimistic read
+     */
+    private void track(final long p_cid, final long p_pointer, final long p_stamp) {
+        int index = indexOf(m_readCids, m_readCount, p_cid);
+
+        if (index == -1) {
+            if (m_readCount == m_readCids.length) {
+                m_readCids = Arrays.copyOf(m_readCids, m_readCount * 2);
+                m_readPointers = Arrays.copyOf(m_readPointers, m_readCount * 2);
+                m_readStamps = Arrays.copyOf(m_readStamps, m_readCount * 2);
+            }
+
+            m_readCids[m_readCount] = p_cid;
+            m_readPointers[m_readCount] = p_pointer;
+            m_readStamps[m_readCount] = p_stamp;
+            m_readCount++;
+        } else if (m_readStamps[index] != p_stamp || m_readPointers[index] != p_pointer) {
+            // chunk was modified since the first read
+            throw Transactions.CONFLICT;
+        }
+
+        // ensure the chunks read so far are a consistent snapshot
+        for (int i = 0; i < m_readCount; i++) {
+            if (!LockManager.validateOptimisticRead(m_context.getCIDTable(), m_readPointers[i], m_readStamps[i],
+                    null, 0)) {
+                throw Transactions.CONFLICT;
+            }
+        }
+    }
+
+    /**
+     * Check if a chunk read without a lock is located inside the heap. Entries and sizes read optimistically might
+     * be torn and must not be used for allocations or reads before they are checked
+     *
+     * @param p_entry
+     *         Chunk entry of CIDTable
+     * @param p_chunkSize
+     *         Size of the chunk
+     * @return True if the chunk's payload is inside the heap
+     */
+    private boolean isChunkInHeap(final CIDTableChunkEntry p_entry, final int p_chunkSize) {
+        return p_chunkSize >= 0 && p_entry.getAddress() > 0 &&
+                p_entry.getAddress() + p_chunkSize <= m_context.getHeap().getStatus().getTotalSizeBytes();
+    }
+
+    /**
+     * Find a cid in a set
+     *
+     * @param p_cids
+     *         Array with the cids of the set
+     * @param p_count
+     *         Number of cids in the set
+     * @param p_cid
+     *         Cid to find
+     * @return Index of the cid or -1 if not found
+     */
+    private static int indexOf(final long[] p_cids, final int p_count, final long p_cid) {
+        for (int i = 0; i < p_count; i++) {
+            if (p_cids[i] == p_cid) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+}
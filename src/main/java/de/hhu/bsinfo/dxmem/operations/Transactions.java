@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxmem.operations;
+
+import de.hhu.bsinfo.dxmem.DXMem;
+import de.hhu.bsinfo.dxmem.core.Context;
+import de.hhu.bsinfo.dxmem.core.MemoryRuntimeException;
+import de.hhu.bsinfo.dxmem.data.ChunkState;
+import de.hhu.bsinfo.dxutils.stats.StatisticsManager;
+import de.hhu.bsinfo.dxutils.stats.ValuePool;
+
+/**
+ * Execute optimistic transactions on multiple chunks. Chunks are read without acquiring locks, writes are buffered.
+ * On commit, the write set is locked in a global order (no deadlocks), the versions of the chunks read are
+ * validated and the writes are applied. On conflicts, the transaction is retried. Compared to locking all chunks
+ * for the whole application logic, locks are held for the duration of the commit, only.
+ * Isolation is guaranteed against other transactions and operations acquiring write locks (e.g. put with the
+ * default lock operation) but not against operations writing without locks.
+ * Not supported if the chunk locks are disabled.
+ */
+public class Transactions {
+    private static final ValuePool SOP_TX_COMMIT = new ValuePool(DXMem.class, "TxCommit");
+    private static final ValuePool SOP_TX_CONFLICT = new ValuePool(DXMem.class, "TxConflict");
+    private static final ValuePool SOP_TX_FAILED = new ValuePool(DXMem.class, "TxFailed");
+
+    static {
+        StatisticsManager.get().registerOperation(DXMem.class, SOP_TX_COMMIT);
+        StatisticsManager.get().registerOperation(DXMem.class, SOP_TX_CONFLICT);
+        StatisticsManager.get().registerOperation(DXMem.class, SOP_TX_FAILED);
+    }
+
+    // thrown to abort the current attempt of a transaction, pre-allocated and without stack trace (control flow)
+    static final ConflictException CONFLICT = new ConflictException();
+
+    private final Context m_context;
+    private final Lock m_lock;
+
+    /**
+     * Constructor
+     *
+     * @param p_context
+     *         Context
+     */
+    public Transactions(final Context p_context) {
+        m_context = p_context;
+        m_lock = new Lock(p_context);
+    }
+
+    /**
+     * Execute a transaction. Retries until the transaction commits without conflicts
+     *
+     * @param p_body
+     *         Application logic of the transaction
+     * @return ChunkState.OK on success or ChunkState.DOES_NOT_EXIST if a chunk written does not exist
+     */
+    public ChunkState execute(final Body p_body) {
+        return execute(p_body, -1);
+    }
+
+    /**
+     * Execute a transaction
+     *
+     * @param p_body
+     *         Application logic of the transaction. Might be executed multiple times on conflicts. Must not catch
+     *         the (runtime) exceptions thrown by the Transaction methods
+     * @param p_maxRetries
+     *         Max number of retries on conflicts, -1 for infinite
+     * @return ChunkState.OK on success, ChunkState.DOES_NOT_EXIST if a chunk written does not exist or
+     *         ChunkState.LOCK_TIMEOUT if the max number of retries is exceeded. Nothing is written on failure
+     */
+    public ChunkState execute(final Body p_body, final int p_maxRetries) {
+        if (m_context.isChunkLockDisabled()) {
+            throw new MemoryRuntimeException("Transactions are not supported with chunk locks disabled");
+        }
+
+        Transaction transaction = new Transaction(m_context, m_lock);
+        int retries = 0;
+
+        while (true) {
+            ChunkState state;
+
+            try {
+                p_body.execute(transaction);
+                state = transaction.commit(-1);
+            } catch (final ConflictException ignored) {
+                state = ChunkState.LOCK_TIMEOUT;
+            }
+
+            if (state == ChunkState.OK) {
+                SOP_TX_COMMIT.inc();
+                return state;
+            }
+
+            if (state != ChunkState.LOCK_TIMEOUT || retries == p_maxRetries) {
+                SOP_TX_FAILED.inc();
+                return state;
+            }
+
+            SOP_TX_CONFLICT.inc();
+
+            retries++;
+            transaction.reset();
+
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Application logic of a transaction
+     */
+    @FunctionalInterface
+    public interface Body {
+        /**
+         * Execute the application logic. Read and write chunks using the transaction provided
+         *
+         * @param p_transaction
+         *         Transaction
+         */
+        void execute(Transaction p_transaction);
+    }
+
+    /**
+     * Conflict detected while executing a transaction
+     */
+    static final class ConflictException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Constructor
+         */
+        private ConflictException() {
+            super("Transaction conflict", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,408 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxmem.operations;
+
+import java.nio.ByteBuffer;
+
+import de.hhu.bsinfo.dxmem.core.CIDTableChunkEntry;
+import de.hhu.bsinfo.dxmem.core.Context;
+import de.hhu.bsinfo.dxmem.core.DirectBufferView;
+import de.hhu.bsinfo.dxmem.core.LockManager;
+import de.hhu.bsinfo.dxmem.core.MemoryRuntimeException;
+import de.hhu.bsinfo.dxmem.data.ChunkID;
+import de.hhu.bsinfo.dxmem.data.ChunkLockOperation;
+import de.hhu.bsinfo.dxmem.data.ChunkState;
+import de.hhu.bsinfo.dxutils.UnsafeMemory;
+import de.hhu.bsinfo.dxutils.stats.StatisticsManager;
+import de.hhu.bsinfo.dxutils.stats.ThroughputPool;
+import de.hhu.bsinfo.dxutils.stats.Value;
+
+/**
+ * Export many chunks into a single (off-heap) buffer and import chunks from such a buffer, e.g. for replication
+ * and migration. The payload of each chunk is copied once from/to the heap without any intermediate buffers.
+ * Each chunk is stored as a record [cid (8 bytes), length (4 bytes), payload (length bytes)] in native byte order.
+ * A record of a chunk which could not be exported has a negative length (-ChunkState.ordinal()) and no payload.
+ */
+public class Transfer {
+    public static final int RECORD_HEADER_SIZE = Long.BYTES + Integer.BYTES;
+
+    private static final ThroughputPool SOP_EXPORT =
+            new ThroughputPool(Transfer.class, "Export", Value.Base.B_10);
+    private static final ThroughputPool SOP_IMPORT =
+            new ThroughputPool(Transfer.class, "Import", Value.Base.B_10);
+
+    static {
+        StatisticsManager.get().registerOperation(Transfer.class, SOP_EXPORT);
+        StatisticsManager.get().registerOperation(Transfer.class, SOP_IMPORT);
+    }
+
+    private final Context m_context;
+    private final Put m_put;
+    private final Resize m_resize;
+    private final Recovery m_recovery;
+
+    /**
+     * Constructor
+     *
+     * @param p_context
+     *         Context
+     */
+    public Transfer(final Context p_context) {
+        m_context = p_context;
+        m_put = new Put(p_context);
+        m_resize = new Resize(p_context);
+        m_recovery = new Recovery(p_context);
+    }
+
+    /**
+     * Export chunks to a direct buffer. The records are written starting at the position of the buffer which is
+     * advanced by the number of bytes written. Stops at the first chunk which does not fit into the remaining
+     * buffer
+     *
+     * @param p_cids
+     *         CIDs of the chunks to export
+     * @param p_offset
+     *         Offset in the array to start at
+     * @param p_count
+     *         Number of CIDs to export
+     * @param p_buffer
+     *         Direct buffer to write the records to
+     * @return Number of CIDs processed (records written)
+     */
+    public int exportChunks(final long[] p_cids, final int p_offset, final int p_count, final ByteBuffer p_buffer) {
+        long[] written = new long[1];
+
+        int processed = exportChunks(p_cids, p_offset, p_count,
+                DirectBufferView.address(p_buffer) + p_buffer.position(), p_buffer.remaining(), written);
+
+        p_buffer.position(p_buffer.position() + (int) written[0]);
+
+        return processed;
+    }
+
+    /**
+     * Export chunks to a native memory region. Stops at the first chunk which does not fit into the remaining
+     * region
+     *
+     * @param p_cids
+     *         CIDs of the chunks to export
+     * @param p_offset
+     *         Offset in the array to start at
+     * @param p_count
+     *         Number of CIDs to export
+     * @param p_address
+     *         Absolute native address to write the records to
+     * @param p_size
+     *         Size of the memory region
+     * @param p_outWritten
+     *         Array to write the number of bytes written to (index 0)
+     * @return Number of CIDs processed (records written)
+     */
+    public int exportChunks(final long[] p_cids, final int p_offset, final int p_count, final long p_address,
+            final long p_size, final long[] p_outWritten) {
+        assert p_offset >= 0 && p_count >= 0 && p_offset + p_count <= p_cids.length;
+
+        CIDTableChunkEntry tableEntry = m_context.getCIDTableEntryPool().get();
+        long[] translateCache = m_context.getCIDTableEntryPool().getTranslateCache();
+        long pos = 0;
+        int processed = 0;
+
+        SOP_EXPORT.start(p_count);
+
+        m_context.getDefragmenter().acquireApplicationThreadLock();
+
+        for (int i = p_offset; i < p_offset + p_count; i++) {
+            if (pos + RECORD_HEADER_SIZE > p_size) {
+                break;
+            }
+
+            ChunkState state = ChunkState.OK;
+
+            if (p_cids[i] == ChunkID.INVALID_ID) {
+                state = ChunkState.INVALID_ID;
+            } else {
+                m_context.getCIDTable().translate(p_cids[i], tableEntry, translateCache);
+
+                if (!tableEntry.isValid()) {
+                    state = ChunkState.DOES_NOT_EXIST;
+                } else if (!m_context.isChunkLockDisabled()) {
+                    LockManager.LockStatus lockStatus = LockManager.executeBeforeOp(m_context.getCIDTable(),
+                            tableEntry, ChunkLockOperation.READ_LOCK_ACQ_OP_REL, -1);
+
+                    if (lockStatus != LockManager.LockStatus.OK) {
+                        state = ChunkState.DOES_NOT_EXIST;
+                    }
+                }
+            }
+
+            if (state != ChunkState.OK) {
+                UnsafeMemory.writeLong(p_address + pos, p_cids[i]);
+                UnsafeMemory.writeInt(p_address + pos + Long.BYTES, -state.ordinal());
+                pos += RECORD_HEADER_SIZE;
+                processed++;
+                continue;
+            }
+
+            int size = m_context.getHeap().getSize(tableEntry);
+            boolean fits = pos + RECORD_HEADER_SIZE + size <= p_size;
+
+            if (fits) {
+                UnsafeMemory.writeLong(p_address + pos, p_cids[i]);
+                UnsafeMemory.writeInt(p_address + pos + Long.BYTES, size);
+                m_context.getHeap().copyToNative(tableEntry.getAddress(), 0, p_address + pos + RECORD_HEADER_SIZE,
+                        size);
+
+                pos += RECORD_HEADER_SIZE + size;
+                processed++;
+            }
+
+            if (!m_context.isChunkLockDisabled()) {
+                LockManager.executeAfterOp(m_context.getCIDTable(), tableEntry,
+                        ChunkLockOperation.READ_LOCK_ACQ_OP_REL, -1);
+            }
+
+            if (!fits) {
+                break;
+            }
+        }
+
+        m_context.getDefragmenter().releaseApplicationThreadLock();
+
+        SOP_EXPORT.stop();
+
+        p_outWritten[0] = pos;
+
+        return processed;
+    }
+
+    /**
+     * Import chunks from a direct buffer. The records are read from the position to the limit of the buffer and
+     * the position is set to the limit
+     *
+     * @param p_buffer
+     *         Direct buffer with the records of the chunks
+     * @return Number of chunks imported
+     */
+    public int importChunks(final ByteBuffer p_buffer) {
+        int imported = importChunks(DirectBufferView.address(p_buffer) + p_buffer.position(), p_buffer.remaining());
+
+        p_buffer.position(p_buffer.limit());
+
+        return imported;
+    }
+
+    /**
+     * Import chunks from a native memory region. Chunks which don't exist are created with the CID of the record
+     * (see Recovery). Existing chunks are overwritten (and resized if the size differs). Records of chunks which
+     * were not exported (negative length) are skipped. Malformed records (length exceeding the region or invalid
+     * chunk state) are rejected before any chunk is imported
+     *
+     * @param p_address
+     *         Absolute native address of the records
+     * @param p_size
+     *         Size of the records in bytes
+     * @return Number of chunks imported
+     */
+    public int importChunks(final long p_address, final long p_size) {
+        if (p_size > Integer.MAX_VALUE) {
+            throw new MemoryRuntimeException("Records exceed the maximum import size: " + p_size);
+        }
+
+        int records = 0;
+
+        for (long pos = 0; pos + RECORD_HEADER_SIZE <= p_size; records++) {
+            pos += RECORD_HEADER_SIZE + readRecordLength(p_address, pos, p_size);
+        }
+
+        long[] cids = new long[records];
+        int[] offsets = new int[records];
+        int[] lengths = new int[records];
+        int count = 0;
+
+        for (long pos = 0; pos + RECORD_HEADER_SIZE <= p_size; ) {
+            long cid = UnsafeMemory.readLong(p_address + pos);
+            int length = readRecordLength(p_address, pos, p_size);
+
+            if (length > 0 && cid != ChunkID.INVALID_ID) {
+                // records changed since they were counted
+                if (count == records) {
+                    throw new MemoryRuntimeException("Records modified concurrently during import");
+                }
+
+                cids[count] = cid;
+                offsets[count] = (int) (pos + RECORD_HEADER_SIZE);
+                lengths[count] = length;
+                count++;
+            }
+
+            pos += RECORD_HEADER_SIZE + length;
+        }
+
+        SOP_IMPORT.start(count);
+
+        CIDTableChunkEntry tableEntry = m_context.getCIDTableEntryPool().get();
+        long[] translateCache = m_context.getCIDTableEntryPool().getTranslateCache();
+        int imported = 0;
+        int toCreate = 0;
+        int toResize = 0;
+
+        m_context.getDefragmenter().acquireApplicationThreadLock();
+
+        // overwrite existing chunks of the same size, sort out chunks to create (front) and resize (back)
+        for (int i = 0; i < count; i++) {
+            m_context.getCIDTable().translate(cids[i], tableEntry, translateCache);
+
+            if (tableEntry.isValid() && !m_context.isChunkLockDisabled()) {
+                LockManager.LockStatus lockStatus = LockManager.executeBeforeOp(m_context.getCIDTable(),
+                        tableEntry, ChunkLockOperation.WRITE_LOCK_ACQ_OP_REL, -1);
+
+                if (lockStatus != LockManager.LockStatus.OK) {
+                    // deleted in the meanwhile
+                    tableEntry.clear();
+                }
+            }
+
+            if (!tableEntry.isValid()) {
+                swap(cids, offsets, lengths, toCreate++, i);
+                continue;
+            }
+
+            if (m_context.getHeap().getSize(tableEntry) == lengths[i]) {
+                m_context.getHeap().copyNative(tableEntry.getAddress(), 0, p_address, offsets[i], lengths[i], true);
+                imported++;
+            } else {
+                swap(cids, offsets, lengths, count - 1, i);
+                count--;
+                toResize++;
+
+                // re-check the element swapped in
+                i--;
+            }
+
+            if (!m_context.isChunkLockDisabled()) {
+                LockManager.executeAfterOp(m_context.getCIDTable(), tableEntry,
+                        ChunkLockOperation.WRITE_LOCK_ACQ_OP_REL, -1);
+            }
+        }
+
+        m_context.getDefragmenter().releaseApplicationThreadLock();
+
+        if (toCreate > 0) {
+            long[] createCids = new long[toCreate];
+            System.arraycopy(cids, 0, createCids, 0, toCreate);
+
+            long created = m_recovery.createAndPutRecovered(createCids, p_address, offsets, lengths, toCreate);
+
+            // recovery stops at the first chunk failing (e.g. out of memory), the successful ones are a prefix
+            for (int i = 0; i < toCreate && created > 0; i++) {
+                created -= lengths[i];
+                imported++;
+            }
+        }
+
+        if (toResize > 0) {
+            long[] resizeCids = new long[toResize];
+            int[] resizeOffsets = new int[toResize];
+            int[] resizeLengths = new int[toResize];
+            ChunkState[] states = new ChunkState[toResize];
+            int resized = 0;
+
+            for (int i = count; i < count + toResize; i++) {
+                if (m_resize.resize(cids[i], lengths[i]) == ChunkState.OK) {
+                    resizeCids[resized] = cids[i];
+                    resizeOffsets[resized] = offsets[i];
+                    resizeLengths[resized] = lengths[i];
+                    resized++;
+                }
+            }
+
+            if (resized < toResize) {
+                // not resized, e.g. deleted in the meanwhile
+                for (int i = resized; i < toResize; i++) {
+                    resizeCids[i] = ChunkID.INVALID_ID;
+                }
+            }
+
+            imported += m_put.put(resizeCids, p_address, resizeOffsets, resizeLengths, states,
+                    ChunkLockOperation.WRITE_LOCK_ACQ_OP_REL, -1);
+        }
+
+        SOP_IMPORT.stop();
+
+        return imported;
+    }
+
+    /**
+     * Read and check the length field of a record
+     *
+     * @param p_address
+     *         Absolute native address of the records
+     * @param p_pos
+     *         Position of the record
+     * @param p_size
+     *         Size of the records in bytes
+     * @return Length of the payload of the record (0 for records of chunks which were not exported)
+     */
+    private static int readRecordLength(final long p_address, final long p_pos, final long p_size) {
+        int length = UnsafeMemory.readInt(p_address + p_pos + Long.BYTES);
+
+        if (length < 0) {
+            if (length <= -ChunkState.values().length) {
+                throw new MemoryRuntimeException("Invalid chunk state " + -length + " in record at position " +
+                        p_pos);
+            }
+
+            return 0;
+        }
+
+        if (length > p_size - p_pos - RECORD_HEADER_SIZE) {
+            throw new MemoryRuntimeException("Length " + length + " of record at position " + p_pos +
+                    " exceeds the remaining " + (p_size - p_pos - RECORD_HEADER_SIZE) + " bytes");
+        }
+
+        return length;
+    }
+
+    /**
+     * Swap two records
+     *
+     * @param p_cids
+     *         CIDs of records
+     * @param p_offsets
+     *         Offsets of records
+     * @param p_lengths
+     *         Lengths of records
+     * @param p_idx1
+     *         Index of first record
+     * @param p_idx2
+     *         Index of second record
+     */
+    private static void swap(final long[] p_cids, final int[] p_offsets, final int[] p_lengths, final int p_idx1,
+            final int p_idx2) {
+        long tmpCid = p_cids[p_idx1];
+        int tmpOffset = p_offsets[p_idx1];
+        int tmpLength = p_lengths[p_idx1];
+
+        p_cids[p_idx1] = p_cids[p_idx2];
+        p_offsets[p_idx1] = p_offsets[p_idx2];
+        p_lengths[p_idx1] = p_lengths[p_idx2];
+
+        p_cids[p_idx2] = tmpCid;
+        p_offsets[p_idx2] = tmpOffset;
+        p_lengths[p_idx2] = tmpLength;
+    }
+}
@@ -16,6 +16,581 @@
 
 package de.hhu.bsinfo.dxmem.operations;
 
+import de.hhu.bsinfo.dxmem.DXMem;
+import de.hhu.bsinfo.dxmem.core.Context;
+import de.hhu.bsinfo.dxmem.core.MemoryRuntimeException;
+import de.hhu.bsinfo.dxmem.data.ChunkLockOperation;
+import de.hhu.bsinfo.dxmem.data.ChunkState;
+import de.hhu.bsinfo.dxutils.stats.StatisticsManager;
+import de.hhu.bsinfo.dxutils.stats.ValuePool;
+
+/**
+ * Write single values of a chunk using the CID and an offset. Only the bytes accessed are written to the heap
+ * (no serialization of the whole chunk like with put) but each call translates the CID and executes a lock
+ * operation. Use Modify to access multiple values of a chunk with a single translation and RawWrite for pinned
+ * chunks. Accesses beyond the chunk's bounds throw a MemoryRuntimeException. The chunks are accessed with the
+ * same accessor and lock handling as Modify
+ */
 public class Write {
-    // TODO same as read but for writing data of a chunk
+    private static final ValuePool SOP_WRITE = new ValuePool(DXMem.class, "Write");
+    private static final ValuePool SOP_WRITE_INVALID_ID = new ValuePool(DXMem.class, "WriteInvalidID");
+    private static final ValuePool SOP_WRITE_NOT_EXISTS = new ValuePool(DXMem.class, "WriteNotExists");
+
+    static {
+        StatisticsManager.get().registerOperation(DXMem.class, SOP_WRITE);
+        StatisticsManager.get().registerOperation(DXMem.class, SOP_WRITE_INVALID_ID);
+        StatisticsManager.get().registerOperation(DXMem.class, SOP_WRITE_NOT_EXISTS);
+    }
+
+    private final Context m_context;
+    private final Modify m_modify;
+
+    /**
+     * Constructor
+     *
+     * @param p_context
+     *         Context
+     */
+    public Write(final Context p_context) {
+        m_context = p_context;
+        m_modify = new Modify(p_context);
+    }
+
+    /**
+     * Write a byte to a chunk (write locked)
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_value
+     *         Value to write
+     * @return Chunk state with the result of the operation
+     */
+    public ChunkState writeByte(final long p_cid, final int p_offset, final byte p_value) {
+        return writeByte(p_cid, p_offset, p_value, ChunkLockOperation.WRITE_LOCK_ACQ_OP_REL, -1);
+    }
+
+    /**
+     * Write a byte to a chunk
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_value
+     *         Value to write
+     * @param p_lockOperation
+     *         Lock operation to execute with this write operation on the chunk
+     * @param p_lockTimeoutMs
+     *         If a lock operation is set, set to -1 for infinite retries (busy polling) until the lock operation
+     *         succeeds. 0 for a one shot try and &gt; 0 for a timeout value in ms
+     * @return Chunk state with the result of the operation
+     */
+    public ChunkState writeByte(final long p_cid, final int p_offset, final byte p_value,
+            final ChunkLockOperation p_lockOperation, final int p_lockTimeoutMs) {
+        assert assertLockOperationSupport(p_lockOperation);
+
+        ChunkAccessor accessor = m_modify.getThreadAccessor();
+
+        m_context.getDefragmenter().acquireApplicationThreadLock();
+
+        try {
+            ChunkState state = open(p_cid, accessor, p_lockOperation, p_lockTimeoutMs);
+
+            if (state == ChunkState.OK) {
+                try {
+                    accessor.writeByte(p_offset, p_value);
+                } finally {
+                    m_modify.close(accessor, p_lockOperation, p_lockTimeoutMs);
+                }
+
+                SOP_WRITE.inc();
+            }
+
+            return state;
+        } finally {
+            m_context.getDefragmenter().releaseApplicationThreadLock();
+        }
+    }
+
+    /**
+     * Write a short to a chunk (write locked)
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_value
+     *         Value to write
+     * @return Chunk state with the result of the operation
+     */
+    public ChunkState writeShort(final long p_cid, final int p_offset, final short p_value) {
+        return writeShort(p_cid, p_offset, p_value, ChunkLockOperation.WRITE_LOCK_ACQ_OP_REL, -1);
+    }
+
+    /**
+     * Write a short to a chunk
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_value
+     *         Value to write
+     * @param p_lockOperation
+     *         Lock operation to execute with this write operation on the chunk
+     * @param p_lockTimeoutMs
+     *         If a lock operation is set, set to -1 for infinite retries (busy polling) until the lock operation
+     *         succeeds. 0 for a one shot try and &gt; 0 for a timeout value in ms
+     * @return Chunk state with the result of the operation
+     */
+    public ChunkState writeShort(final long p_cid, final int p_offset, final short p_value,
+            final ChunkLockOperation p_lockOperation, final int p_lockTimeoutMs) {
+        assert assertLockOperationSupport(p_lockOperation);
+
+        ChunkAccessor accessor = m_modify.getThreadAccessor();
+
+        m_context.getDefragmenter().acquireApplicationThreadLock();
+
+        try {
+            ChunkState state = open(p_cid, accessor, p_lockOperation, p_lockTimeoutMs);
+
+            if (state == ChunkState.OK) {
+                try {
+                    accessor.writeShort(p_offset, p_value);
+                } finally {
+                    m_modify.close(accessor, p_lockOperation, p_lockTimeoutMs);
+                }
+
+                SOP_WRITE.inc();
+            }
+
+            return state;
+        } finally {
+            m_context.getDefragmenter().releaseApplicationThreadLock();
+        }
+    }
+
+    /**
+     * Write a char to a chunk (write locked)
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_value
+     *         Value to write
+     * @return Chunk state with the result of the operation
+     */
+    public ChunkState writeChar(final long p_cid, final int p_offset, final char p_value) {
+        return writeChar(p_cid, p_offset, p_value, ChunkLockOperation.WRITE_LOCK_ACQ_OP_REL, -1);
+    }
+
+    /**
+     * Write a char to a chunk
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_value
+     *         Value to write
+     * @param p_lockOperation
+     *         Lock operation to execute with this write operation on the chunk
+     * @param p_lockTimeoutMs
+     *         If a lock operation is set, set to -1 for infinite retries (busy polling) until the lock operation
+     *         succeeds. 0 for a one shot try and &gt; 0 for a timeout value in ms
+     * @return Chunk state with the result of the operation
+     */
+    public ChunkState writeChar(final long p_cid, final int p_offset, final char p_value,
+            final ChunkLockOperation p_lockOperation, final int p_lockTimeoutMs) {
+        assert assertLockOperationSupport(p_lockOperation);
+
+        ChunkAccessor accessor = m_modify.getThreadAccessor();
+
+        m_context.getDefragmenter().acquireApplicationThreadLock();
+
+        try {
+            ChunkState state = open(p_cid, accessor, p_lockOperation, p_lockTimeoutMs);
+
+            if (state == ChunkState.OK) {
+                try {
+                    accessor.writeChar(p_offset, p_value);
+                } finally {
+                    m_modify.close(accessor, p_lockOperation, p_lockTimeoutMs);
+                }
+
+                SOP_WRITE.inc();
+            }
+
+            return state;
+        } finally {
+            m_context.getDefragmenter().releaseApplicationThreadLock();
+        }
+    }
+
+    /**
+     * Write a int to a chunk (write locked)
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_value
+     *         Value to write
+     * @return Chunk state with the result of the operation
+     */
+    public ChunkState writeInt(final long p_cid, final int p_offset, final int p_value) {
+        return writeInt(p_cid, p_offset, p_value, ChunkLockOperation.WRITE_LOCK_ACQ_OP_REL, -1);
+    }
+
+    /**
+     * Write a int to a chunk
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_value
+     *         Value to write
+     * @param p_lockOperation
+     *         Lock operation to execute with this write operation on the chunk
+     * @param p_lockTimeoutMs
+     *         If a lock operation is set, set to -1 for infinite retries (busy polling) until the lock operation
+     *         succeeds. 0 for a one shot try and &gt; 0 for a timeout value in ms
+     * @return Chunk state with the result of the operation
+     */
+    public ChunkState writeInt(final long p_cid, final int p_offset, final int p_value,
+            final ChunkLockOperation p_lockOperation, final int p_lockTimeoutMs) {
+        assert assertLockOperationSupport(p_lockOperation);
+
+        ChunkAccessor accessor = m_modify.getThreadAccessor();
+
+        m_context.getDefragmenter().acquireApplicationThreadLock();
+
+        try {
+            ChunkState state = open(p_cid, accessor, p_lockOperation, p_lockTimeoutMs);
+
+            if (state == ChunkState.OK) {
+                try {
+                    accessor.writeInt(p_offset, p_value);
+                } finally {
+                    m_modify.close(accessor, p_lockOperation, p_lockTimeoutMs);
+                }
+
+                SOP_WRITE.inc();
+            }
+
+            return state;
+        } finally {
+            m_context.getDefragmenter().releaseApplicationThreadLock();
+        }
+    }
+
+    /**
+     * Write a long to a chunk (write locked)
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_value
+     *         Value to write
+     * @return Chunk state with the result of the operation
+     */
+    public ChunkState writeLong(final long p_cid, final int p_offset, final long p_value) {
+        return writeLong(p_cid, p_offset, p_value, ChunkLockOperation.WRITE_LOCK_ACQ_OP_REL, -1);
+    }
+
+    /**
+     * Write a long to a chunk
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_value
+     *         Value to write
+     * @param p_lockOperation
+     *         Lock operation to execute with this write operation on the chunk
+     * @param p_lockTimeoutMs
+     *         If a lock operation is set, set to -1 for infinite retries (busy polling) until the lock operation
+     *         succeeds. 0 for a one shot try and &gt; 0 for a timeout value in ms
+     * @return Chunk state with the result of the operation
+     */
+    public ChunkState writeLong(final long p_cid, final int p_offset, final long p_value,
+            final ChunkLockOperation p_lockOperation, final int p_lockTimeoutMs) {
+        assert assertLockOperationSupport(p_lockOperation);
+
+        ChunkAccessor accessor = m_modify.getThreadAccessor();
+
+        m_context.getDefragmenter().acquireApplicationThreadLock();
+
+        try {
+            ChunkState state = open(p_cid, accessor, p_lockOperation, p_lockTimeoutMs);
+
+            if (state == ChunkState.OK) {
+                try {
+                    accessor.writeLong(p_offset, p_value);
+                } finally {
+                    m_modify.close(accessor, p_lockOperation, p_lockTimeoutMs);
+                }
+
+                SOP_WRITE.inc();
+            }
+
+            return state;
+        } finally {
+            m_context.getDefragmenter().releaseApplicationThreadLock();
+        }
+    }
+
+    /**
+     * Write a float to a chunk (write locked)
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_value
+     *         Value to write
+     * @return Chunk state with the result of the operation
+     */
+    public ChunkState writeFloat(final long p_cid, final int p_offset, final float p_value) {
+        return writeFloat(p_cid, p_offset, p_value, ChunkLockOperation.WRITE_LOCK_ACQ_OP_REL, -1);
+    }
+
+    /**
+     * Write a float to a chunk
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_value
+     *         Value to write
+     * @param p_lockOperation
+     *         Lock operation to execute with this write operation on the chunk
+     * @param p_lockTimeoutMs
+     *         If a lock operation is set, set to -1 for infinite retries (busy polling) until the lock operation
+     *         succeeds. 0 for a one shot try and &gt; 0 for a timeout value in ms
+     * @return Chunk state with the result of the operation
+     */
+    public ChunkState writeFloat(final long p_cid, final int p_offset, final float p_value,
+            final ChunkLockOperation p_lockOperation, final int p_lockTimeoutMs) {
+        assert assertLockOperationSupport(p_lockOperation);
+
+        ChunkAccessor accessor = m_modify.getThreadAccessor();
+
+        m_context.getDefragmenter().acquireApplicationThreadLock();
+
+        try {
+            ChunkState state = open(p_cid, accessor, p_lockOperation, p_lockTimeoutMs);
+
+            if (state == ChunkState.OK) {
+                try {
+                    accessor.writeFloat(p_offset, p_value);
+                } finally {
+                    m_modify.close(accessor, p_lockOperation, p_lockTimeoutMs);
+                }
+
+                SOP_WRITE.inc();
+            }
+
+            return state;
+        } finally {
+            m_context.getDefragmenter().releaseApplicationThreadLock();
+        }
+    }
+
+    /**
+     * Write a double to a chunk (write locked)
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_value
+     *         Value to write
+     * @return Chunk state with the result of the operation
+     */
+    public ChunkState writeDouble(final long p_cid, final int p_offset, final double p_value) {
+        return writeDouble(p_cid, p_offset, p_value, ChunkLockOperation.WRITE_LOCK_ACQ_OP_REL, -1);
+    }
+
+    /**
+     * Write a double to a chunk
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_value
+     *         Value to write
+     * @param p_lockOperation
+     *         Lock operation to execute with this write operation on the chunk
+     * @param p_lockTimeoutMs
+     *         If a lock operation is set, set to -1 for infinite retries (busy polling) until the lock operation
+     *         succeeds. 0 for a one shot try and &gt; 0 for a timeout value in ms
+     * @return Chunk state with the result of the operation
+     */
+    public ChunkState writeDouble(final long p_cid, final int p_offset, final double p_value,
+            final ChunkLockOperation p_lockOperation, final int p_lockTimeoutMs) {
+        assert assertLockOperationSupport(p_lockOperation);
+
+        ChunkAccessor accessor = m_modify.getThreadAccessor();
+
+        m_context.getDefragmenter().acquireApplicationThreadLock();
+
+        try {
+            ChunkState state = open(p_cid, accessor, p_lockOperation, p_lockTimeoutMs);
+
+            if (state == ChunkState.OK) {
+                try {
+                    accessor.writeDouble(p_offset, p_value);
+                } finally {
+                    m_modify.close(accessor, p_lockOperation, p_lockTimeoutMs);
+                }
+
+                SOP_WRITE.inc();
+            }
+
+            return state;
+        } finally {
+            m_context.getDefragmenter().releaseApplicationThreadLock();
+        }
+    }
+
+    /**
+     * Write bytes to a chunk (write locked)
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_buffer
+     *         Buffer with the bytes to write
+     * @param p_bufferOffset
+     *         Offset in the buffer to start at
+     * @param p_length
+     *         Number of bytes to write
+     * @return Chunk state with the result of the operation
+     */
+    public ChunkState writeBytes(final long p_cid, final int p_offset, final byte[] p_buffer,
+            final int p_bufferOffset, final int p_length) {
+        return writeBytes(p_cid, p_offset, p_buffer, p_bufferOffset, p_length,
+                ChunkLockOperation.WRITE_LOCK_ACQ_OP_REL, -1);
+    }
+
+    /**
+     * Write bytes to a chunk
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_offset
+     *         Offset in the chunk
+     * @param p_buffer
+     *         Buffer with the bytes to write
+     * @param p_bufferOffset
+     *         Offset in the buffer to start at
+     * @param p_length
+     *         Number of bytes to write
+     * @param p_lockOperation
+     *         Lock operation to execute with this write operation on the chunk
+     * @param p_lockTimeoutMs
+     *         If a lock operation is set, set to -1 for infinite retries (busy polling) until the lock operation
+     *         succeeds. 0 for a one shot try and &gt; 0 for a timeout value in ms
+     * @return Chunk state with the result of the operation
+     */
+    public ChunkState writeBytes(final long p_cid, final int p_offset, final byte[] p_buffer,
+            final int p_bufferOffset, final int p_length, final ChunkLockOperation p_lockOperation,
+            final int p_lockTimeoutMs) {
+        assert assertLockOperationSupport(p_lockOperation);
+        assert p_bufferOffset >= 0 && p_length >= 0 && p_bufferOffset + p_length <= p_buffer.length;
+
+        ChunkAccessor accessor = m_modify.getThreadAccessor();
+
+        m_context.getDefragmenter().acquireApplicationThreadLock();
+
+        try {
+            ChunkState state = open(p_cid, accessor, p_lockOperation, p_lockTimeoutMs);
+
+            if (state == ChunkState.OK) {
+                try {
+                    accessor.writeBytes(p_offset, p_buffer, p_bufferOffset, p_length);
+                } finally {
+                    m_modify.close(accessor, p_lockOperation, p_lockTimeoutMs);
+                }
+
+                SOP_WRITE.inc();
+            }
+
+            return state;
+        } finally {
+            m_context.getDefragmenter().releaseApplicationThreadLock();
+        }
+    }
+
+    /**
+     * Translate a chunk and open the accessor on it (see Modify). Caller must hold the application thread lock of
+     * the defragmenter
+     *
+     * @param p_cid
+     *         CID of the chunk
+     * @param p_accessor
+     *         Accessor to open
+     * @param p_lockOperation
+     *         Lock operation to execute on the chunk
+     * @param p_lockTimeoutMs
+     *         Lock timeout (see public writes)
+     * @return ChunkState.OK if the chunk can be accessed (close required)
+     */
+    private ChunkState open(final long p_cid, final ChunkAccessor p_accessor,
+            final ChunkLockOperation p_lockOperation, final int p_lockTimeoutMs) {
+        ChunkState state = m_modify.translateAndOpen(p_cid, p_accessor, p_lockOperation, p_lockTimeoutMs);
+
+        if (state == ChunkState.INVALID_ID) {
+            SOP_WRITE_INVALID_ID.inc();
+        } else if (state == ChunkState.DOES_NOT_EXIST) {
+            SOP_WRITE_NOT_EXISTS.inc();
+        }
+
+        return state;
+    }
+
+    /**
+     * Assert the lock operation used
+     *
+     * @param p_lockOperation Lock operation to use with the current op
+     * @return True if ok, exception thrown if not supported
+     */
+    private boolean assertLockOperationSupport(final ChunkLockOperation p_lockOperation) {
+        switch (p_lockOperation) {
+            case NONE:
+            case WRITE_LOCK_ACQ_PRE_OP:
+            case WRITE_LOCK_REL_POST_OP:
+            case WRITE_LOCK_SWAP_POST_OP:
+            case WRITE_LOCK_ACQ_OP_REL:
+            case WRITE_LOCK_ACQ_OP_SWAP:
+            case READ_LOCK_SWAP_PRE_OP:
+            case READ_LOCK_SWAP_OP_REL:
+                return true;
+
+            case WRITE_LOCK_SWAP_PRE_OP:
+            case WRITE_LOCK_SWAP_OP_REL:
+            case READ_LOCK_ACQ_PRE_OP:
+            case READ_LOCK_REL_POST_OP:
+            case READ_LOCK_SWAP_POST_OP:
+            case READ_LOCK_ACQ_OP_REL:
+            case READ_LOCK_ACQ_OP_SWAP:
+            case WRITE_LOCK_ACQ_POST_OP:
+            case READ_LOCK_ACQ_POST_OP:
+            case READ_OPTIMISTIC:
+                throw new MemoryRuntimeException("Unsupported lock operation on write op: " + p_lockOperation);
+
+            default:
+                throw new IllegalStateException("Unhandled lock operation");
+        }
+    }
 }
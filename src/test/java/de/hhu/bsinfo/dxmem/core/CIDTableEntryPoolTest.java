@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxmem.core;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CIDTableEntryPoolTest {
+    @Test
+    public void arrayPooled() {
+        CIDTableEntryPool pool = new CIDTableEntryPool();
+
+        CIDTableChunkEntry[] entries = pool.getArray(10);
+        Assert.assertTrue(entries.length >= 10);
+
+        entries[0].setAddress(64);
+
+        Assert.assertSame(entries, pool.getArray(5));
+        Assert.assertEquals(Address.INVALID, entries[0].getAddress());
+
+        // grown array keeps the existing entries
+        CIDTableChunkEntry[] grown = pool.getArray(entries.length + 1);
+        Assert.assertSame(entries[0], grown[0]);
+        Assert.assertSame(grown, pool.getArray(entries.length + 1));
+    }
+
+    @Test
+    public void arrayOversized() {
+        CIDTableEntryPool pool = new CIDTableEntryPool();
+
+        CIDTableChunkEntry[] entries = pool.getArray(10);
+        CIDTableChunkEntry[] large = pool.getArray(100000);
+
+        Assert.assertEquals(100000, large.length);
+        Assert.assertEquals(Address.INVALID, large[large.length - 1].getAddress());
+
+        // not pooled
+        Assert.assertNotSame(large, pool.getArray(100000));
+        Assert.assertSame(entries, pool.getArray(10));
+    }
+}
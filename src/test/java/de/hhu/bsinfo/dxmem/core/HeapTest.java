@@ -45,6 +45,108 @@ public class HeapTest {
         heap.destroy();
     }
 
+    @Test
+    public void casInt() {
+        Configurator.setRootLevel(Level.TRACE);
+
+        Heap heap = new Heap(DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        CIDTableChunkEntry entry = new CIDTableChunkEntry();
+
+        Assert.assertTrue(heap.malloc(64, entry));
+
+        long address = entry.getAddress();
+        // offset of the first 8 byte aligned word in the chunk
+        long word = -address & 0x7;
+
+        for (int i = 0; i < 4; i++) {
+            heap.writeLong(address, word + i * Long.BYTES, -1);
+        }
+
+        // aligned (32-bit CAS)
+        Assert.assertFalse(heap.casInt(address, word + 4, 0, 1));
+        Assert.assertTrue(heap.casInt(address, word + 4, -1, 0x12345678));
+        Assert.assertEquals(0x12345678, heap.readInt(address, word + 4));
+        Assert.assertEquals(-1, heap.readInt(address, word));
+        Assert.assertEquals(-1, heap.readLong(address, word + Long.BYTES));
+
+        // unaligned within an aligned word (64-bit CAS on the word)
+        Assert.assertFalse(heap.casInt(address, word + Long.BYTES + 3, 0, 1));
+        Assert.assertTrue(heap.casInt(address, word + Long.BYTES + 3, -1, 0x12345678));
+        Assert.assertEquals(0x12345678, heap.readInt(address, word + Long.BYTES + 3));
+        Assert.assertEquals(-1, heap.readByte(address, word + Long.BYTES + 2));
+        Assert.assertEquals(-1, heap.readByte(address, word + Long.BYTES + 7));
+
+        // unaligned crossing an 8 byte boundary (locked)
+        Assert.assertFalse(heap.casInt(address, word + Long.BYTES * 2 + 6, 0, 1));
+        Assert.assertTrue(heap.casInt(address, word + Long.BYTES * 2 + 6, -1, 0x12345678));
+        Assert.assertEquals(0x12345678, heap.readInt(address, word + Long.BYTES * 2 + 6));
+        Assert.assertEquals(-1, heap.readShort(address, word + Long.BYTES * 2 + 4));
+        Assert.assertEquals(-1, heap.readShort(address, word + Long.BYTES * 3 + 2));
+
+        heap.destroy();
+    }
+
+    @Test
+    public void casLong() throws Exception {
+        Configurator.setRootLevel(Level.TRACE);
+
+        Heap heap = new Heap(DXMemoryTestConstants.HEAP_SIZE_SMALL);
+
+        CIDTableChunkEntry entry = new CIDTableChunkEntry();
+
+        Assert.assertTrue(heap.malloc(64, entry));
+
+        long address = entry.getAddress();
+        // offset of the first 8 byte aligned word in the chunk
+        long word = -address & 0x7;
+
+        for (int i = 0; i < 4; i++) {
+            heap.writeLong(address, word + i * Long.BYTES, -1);
+        }
+
+        // aligned (64-bit CAS)
+        Assert.assertFalse(heap.casLong(address, word, 0, 1));
+        Assert.assertTrue(heap.casLong(address, word, -1, 0x123456789ABCDEFL));
+        Assert.assertEquals(0x123456789ABCDEFL, heap.readLong(address, word));
+        Assert.assertEquals(-1, heap.readLong(address, word + Long.BYTES));
+
+        // unaligned (locked)
+        long offset = word + Long.BYTES + 3;
+
+        Assert.assertFalse(heap.casLong(address, offset, 0, 1));
+        Assert.assertTrue(heap.casLong(address, offset, -1, 0));
+        Assert.assertEquals(0, heap.readLong(address, offset));
+        Assert.assertEquals(-1, heap.readByte(address, offset - 1));
+        Assert.assertEquals(-1, heap.readByte(address, offset + Long.BYTES));
+
+        Thread[] threads = new Thread[4];
+
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 10000; j++) {
+                    long value;
+
+                    do {
+                        value = heap.readLong(address, offset);
+                    } while (!heap.casLong(address, offset, value, value + 1));
+                }
+            });
+
+            threads[i].start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertEquals(threads.length * 10000, heap.readLong(address, offset));
+        Assert.assertEquals(-1, heap.readByte(address, offset - 1));
+        Assert.assertEquals(-1, heap.readByte(address, offset + Long.BYTES));
+
+        heap.destroy();
+    }
+
     @Test
     public void malloc1() {
         Configurator.setRootLevel(Level.TRACE);
@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxmem.core;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LIDStoreTest {
+    @Test
+    public void putGetAscending() {
+        LIDStore.SpareLIDStore store = new LIDStore.SpareLIDStore((short) 0, null, 4096);
+
+        Assert.assertTrue(store.put(10));
+        Assert.assertTrue(store.put(3));
+        Assert.assertTrue(store.put(7));
+        Assert.assertEquals(3, store.getRangeCount());
+
+        Assert.assertEquals(3, store.get(11));
+        Assert.assertEquals(7, store.get(11));
+        Assert.assertEquals(10, store.get(11));
+        Assert.assertEquals(-1, store.get(11));
+        Assert.assertEquals(0, store.getRangeCount());
+    }
+
+    @Test
+    public void mergeRanges() {
+        LIDStore.SpareLIDStore store = new LIDStore.SpareLIDStore((short) 0, null, 4096);
+
+        for (int i = 0; i < 1000; i += 2) {
+            Assert.assertTrue(store.put(i));
+        }
+
+        Assert.assertEquals(500, store.getRangeCount());
+
+        for (int i = 999; i > 0; i -= 2) {
+            Assert.assertTrue(store.put(i));
+        }
+
+        Assert.assertEquals(1, store.getRangeCount());
+
+        long[] lids = new long[1000];
+        Assert.assertEquals(1000, store.get(lids, 0, lids.length, 1000));
+
+        for (int i = 0; i < lids.length; i++) {
+            Assert.assertEquals(i, lids[i]);
+        }
+
+        Assert.assertEquals(0, store.getRangeCount());
+    }
+
+    @Test
+    public void full() {
+        LIDStore.SpareLIDStore store = new LIDStore.SpareLIDStore((short) 0, null, 4096);
+
+        for (int i = 0; i < 4096; i++) {
+            Assert.assertTrue(store.put(i * 2));
+        }
+
+        // new range doesn't fit anymore but merging into existing ones still works
+        Assert.assertFalse(store.put(10000));
+        Assert.assertTrue(store.put(1));
+        Assert.assertEquals(4095, store.getRangeCount());
+
+        // leaf table 1 has one more live entry than leaf table 0 now
+        long[] lids = new long[4097];
+        Assert.assertEquals(4097, store.get(lids, 0, lids.length, 8192));
+        Assert.assertEquals(4096, lids[0]);
+        Assert.assertEquals(8190, lids[2047]);
+        Assert.assertEquals(0, lids[2048]);
+        Assert.assertEquals(1, lids[2049]);
+        Assert.assertEquals(2, lids[2050]);
+        Assert.assertEquals(4094, lids[4096]);
+        Assert.assertEquals(0, store.getRangeCount());
+    }
+
+    @Test
+    public void preferFullerLeafTables() {
+        LIDStore.SpareLIDStore store = new LIDStore.SpareLIDStore((short) 0, null, 4096);
+
+        for (int i = 0; i < 100; i++) {
+            Assert.assertTrue(store.put(i));
+        }
+
+        Assert.assertTrue(store.put(5000));
+
+        for (int i = 8192; i < 12288; i++) {
+            Assert.assertTrue(store.put(i));
+        }
+
+        Assert.assertEquals(3, store.getRangeCount());
+
+        Assert.assertEquals(5000, store.get(12288));
+        Assert.assertEquals(0, store.get(12288));
+
+        long[] lids = new long[101];
+        Assert.assertEquals(lids.length, store.get(lids, 0, lids.length, 12288));
+        Assert.assertEquals(1, lids[0]);
+        Assert.assertEquals(99, lids[98]);
+        Assert.assertEquals(8192, lids[99]);
+        Assert.assertEquals(8193, lids[100]);
+    }
+
+    @Test
+    public void splitRange() {
+        LIDStore.SpareLIDStore store = new LIDStore.SpareLIDStore((short) 0, null, 4096);
+
+        for (int i = 0; i < 200; i++) {
+            Assert.assertTrue(store.put(i));
+        }
+
+        for (int i = 4000; i <= 4200; i++) {
+            Assert.assertTrue(store.put(i));
+        }
+
+        Assert.assertEquals(2, store.getRangeCount());
+
+        // leaf table 1 has more live entries, take from the middle of the range crossing the leaf tables
+        Assert.assertEquals(4096, store.get(8192));
+        Assert.assertEquals(3, store.getRangeCount());
+
+        long[] lids = new long[200];
+        Assert.assertEquals(lids.length, store.get(lids, 0, lids.length, 8192));
+        Assert.assertEquals(4097, lids[0]);
+        Assert.assertEquals(4200, lids[103]);
+        Assert.assertEquals(0, lids[104]);
+        Assert.assertEquals(95, lids[199]);
+    }
+
+    @Test
+    public void manySparseRanges() {
+        int count = 100000;
+        long lidCounter = (long) count * CIDTable.ENTRIES_PER_LID_LEVEL;
+        LIDStore.SpareLIDStore store = new LIDStore.SpareLIDStore((short) 0, null, count);
+
+        // a single free lid per leaf table, more ranges than a single scan of the leaf tables covers
+        for (int i = 0; i < count; i++) {
+            Assert.assertTrue(store.put((long) i * CIDTable.ENTRIES_PER_LID_LEVEL));
+        }
+
+        Assert.assertEquals(count, store.getRangeCount());
+
+        boolean[] taken = new boolean[count];
+        long[] lids = new long[100];
+
+        for (int i = 0; i < count / lids.length; i++) {
+            Assert.assertEquals(lids.length, store.get(lids, 0, lids.length, lidCounter));
+
+            for (long lid : lids) {
+                int leaf = (int) (lid / CIDTable.ENTRIES_PER_LID_LEVEL);
+
+                Assert.assertEquals(0, lid % CIDTable.ENTRIES_PER_LID_LEVEL);
+                Assert.assertFalse(taken[leaf]);
+                taken[leaf] = true;
+            }
+        }
+
+        Assert.assertEquals(-1, store.get(lidCounter));
+        Assert.assertEquals(0, store.getRangeCount());
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxmem.core;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.hhu.bsinfo.dxmem.data.ChunkID;
+
+public class PinnedChunkRegistryTest {
+    @Test
+    public void putGetRemove() {
+        PinnedChunkRegistry registry = new PinnedChunkRegistry();
+
+        registry.put(0x100, 1, 16);
+        registry.put(0x200, 2, 32);
+
+        Assert.assertEquals(2, registry.size());
+        Assert.assertEquals(48, registry.getPinnedBytes());
+        Assert.assertEquals(1, registry.get(0x100));
+        Assert.assertEquals(2, registry.get(0x200));
+        Assert.assertEquals(ChunkID.INVALID_ID, registry.get(0x300));
+        Assert.assertEquals(ChunkID.INVALID_ID, registry.get(Address.INVALID));
+        Assert.assertEquals(32, registry.getSize(0x200));
+        Assert.assertEquals(-1, registry.getSize(0x300));
+
+        Assert.assertEquals(1, registry.remove(0x100));
+        Assert.assertEquals(ChunkID.INVALID_ID, registry.remove(0x100));
+        Assert.assertEquals(ChunkID.INVALID_ID, registry.get(0x100));
+        Assert.assertEquals(1, registry.size());
+        Assert.assertEquals(32, registry.getPinnedBytes());
+    }
+
+    @Test
+    public void many() {
+        PinnedChunkRegistry registry = new PinnedChunkRegistry();
+
+        for (int i = 1; i <= 100000; i++) {
+            registry.put(i * 64L, i, 8);
+        }
+
+        Assert.assertEquals(100000, registry.size());
+
+        // remove every other entry to shift probe sequences
+        for (int i = 1; i <= 100000; i += 2) {
+            Assert.assertEquals(i, registry.remove(i * 64L));
+        }
+
+        Assert.assertEquals(50000, registry.size());
+        Assert.assertEquals(50000 * 8, registry.getPinnedBytes());
+
+        for (int i = 1; i <= 100000; i++) {
+            Assert.assertEquals(i % 2 == 0 ? i : ChunkID.INVALID_ID, registry.get(i * 64L));
+        }
+    }
+}
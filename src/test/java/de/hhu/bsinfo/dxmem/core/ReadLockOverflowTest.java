@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxmem.core;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ReadLockOverflowTest {
+    @Test
+    public void incrementDecrement() {
+        ReadLockOverflow overflow = new ReadLockOverflow();
+
+        Assert.assertEquals(0, overflow.getCount(0x1000));
+        Assert.assertFalse(overflow.decrement(0x1000));
+
+        overflow.increment(0x1000);
+        overflow.increment(0x1000);
+        overflow.increment(0x1008);
+
+        Assert.assertEquals(2, overflow.getCount(0x1000));
+        Assert.assertEquals(1, overflow.getCount(0x1008));
+        Assert.assertEquals(3, overflow.getTotalCount());
+
+        Assert.assertTrue(overflow.decrement(0x1000));
+        Assert.assertTrue(overflow.decrement(0x1000));
+        Assert.assertFalse(overflow.decrement(0x1000));
+
+        Assert.assertEquals(0, overflow.getCount(0x1000));
+        Assert.assertEquals(1, overflow.getCount(0x1008));
+        Assert.assertEquals(1, overflow.getTotalCount());
+    }
+
+    @Test
+    public void many() {
+        ReadLockOverflow overflow = new ReadLockOverflow();
+
+        for (int i = 1; i <= 10000; i++) {
+            for (int j = 0; j < i % 3 + 1; j++) {
+                overflow.increment(i * 8L);
+            }
+        }
+
+        for (int i = 1; i <= 10000; i += 2) {
+            while (overflow.decrement(i * 8L)) {
+                // drain
+            }
+        }
+
+        for (int i = 1; i <= 10000; i++) {
+            Assert.assertEquals(i % 2 == 0 ? i % 3 + 1 : 0, overflow.getCount(i * 8L));
+        }
+    }
+}
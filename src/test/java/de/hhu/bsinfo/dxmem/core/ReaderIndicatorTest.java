@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxmem.core;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ReaderIndicatorTest {
+    @Test
+    public void nested() {
+        ReaderIndicator indicator = new ReaderIndicator();
+
+        indicator.readLock();
+        indicator.readLock();
+        indicator.readUnlock();
+        indicator.readUnlock();
+
+        indicator.writeLock();
+        Assert.assertTrue(indicator.isWriteLocked());
+
+        // writer can read
+        indicator.readLock();
+        indicator.readUnlock();
+
+        indicator.writeUnlock();
+        Assert.assertFalse(indicator.isWriteLocked());
+    }
+
+    @Test
+    public void exclusion() throws Exception {
+        ReaderIndicator indicator = new ReaderIndicator();
+        AtomicInteger readersInside = new AtomicInteger(0);
+        AtomicBoolean writerInside = new AtomicBoolean(false);
+        AtomicInteger violations = new AtomicInteger(0);
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        Thread[] readers = new Thread[4];
+
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new Thread(() -> {
+                while (running.get()) {
+                    indicator.readLock();
+                    readersInside.incrementAndGet();
+
+                    if (writerInside.get()) {
+                        violations.incrementAndGet();
+                    }
+
+                    readersInside.decrementAndGet();
+                    indicator.readUnlock();
+                }
+            });
+
+            readers[i].start();
+        }
+
+        for (int i = 0; i < 200; i++) {
+            indicator.writeLock();
+            writerInside.set(true);
+
+            if (readersInside.get() != 0) {
+                violations.incrementAndGet();
+            }
+
+            Thread.yield();
+
+            writerInside.set(false);
+            indicator.writeUnlock();
+        }
+
+        running.set(false);
+
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        Assert.assertEquals(0, violations.get());
+    }
+}